@@ -0,0 +1,66 @@
+package org.upgrad.upstac.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON results file with a stored baseline and exits non-zero when any
+ * benchmark got slower by more than the allowed percentage.
+ *
+ * Arguments: baseline file, results file, allowed regression in percent.
+ * All suites here report average time, so a higher score is slower.
+ */
+public class BaselineComparison {
+
+    public static void main(String[] args) throws IOException {
+        File baselineFile = new File(args[0]);
+        File resultsFile = new File(args[1]);
+        double allowedRegression = Double.parseDouble(args[2]);
+
+        if (baselineFile.exists() == false) {
+            System.out.println("No baseline at " + baselineFile + ", copy " + resultsFile + " there to start comparing");
+            return;
+        }
+
+        Map<String, Double> baseline = scoresOf(baselineFile);
+        Map<String, Double> results = scoresOf(resultsFile);
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            Double before = baseline.get(result.getKey());
+            if (before == null) {
+                System.out.println(String.format("%-100s %12.3f  (new)", result.getKey(), result.getValue()));
+                continue;
+            }
+
+            double change = (result.getValue() - before) / before * 100;
+            boolean regressed = change > allowedRegression;
+            if (regressed)
+                regressions++;
+            System.out.println(String.format("%-100s %12.3f -> %12.3f  %+7.1f%%%s", result.getKey(), before, result.getValue(), change, regressed ? "  REGRESSION" : ""));
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmarks regressed by more than " + allowedRegression + "%");
+            System.exit(1);
+        }
+    }
+
+    // Keyed by benchmark method plus its parameters, e.g. "...DuplicateRequestCheckBenchmark.validate...{previousRequests=10}"
+    static Map<String, Double> scoresOf(File file) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String key = run.get("benchmark").asText();
+            if (run.has("params"))
+                key += run.get("params").toString();
+            scores.put(key, run.get("primaryMetric").get("score").asDouble());
+        }
+        return scores;
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.upgrad.upstac.benchmark;
+
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.models.Gender;
+import org.upgrad.upstac.users.roles.Role;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+
+    public static User user(long id, String userName, String roleName) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(roleName);
+
+        User user = new User();
+        user.setId(id);
+        user.setUserName(userName);
+        user.setFirstName(userName);
+        user.setLastName("Benchmark");
+        user.setEmail(userName + "@upgrad.com");
+        user.setPhoneNumber("98" + String.format("%08d", id));
+        user.setAddress("12 Benchmark Road");
+        user.setPinCode(716768);
+        user.setGender(Gender.FEMALE);
+        user.setStatus(AccountStatus.APPROVED);
+        user.setDateOfBirth(LocalDate.of(1990, 4, 12));
+        user.setCreated(LocalDateTime.of(2020, 8, 1, 10, 15));
+        user.setUpdated(LocalDateTime.of(2020, 8, 1, 10, 15));
+        user.setRoles(Collections.singleton(role));
+        return user;
+    }
+
+    /**
+     * A COMPLETED request with its creator, lab result, tester, consultation and doctor.
+     */
+    public static TestRequest completedTestRequest(long id) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(id);
+        testRequest.setCreatedBy(user(1, "user", "USER"));
+        testRequest.setCreated(LocalDate.of(2020, 8, 1));
+        testRequest.setCreatedAt(Instant.parse("2020-08-01T10:15:30Z"));
+        testRequest.setStatusChangedAt(Instant.parse("2020-08-03T16:45:00Z"));
+        testRequest.setStatus(RequestStatus.COMPLETED);
+        testRequest.setName("Someone " + id);
+        testRequest.setGender(Gender.MALE);
+        testRequest.setAddress("42 Benchmark Street");
+        testRequest.setAge(34);
+        testRequest.setEmail("someone" + id + "@upgrad.com");
+        testRequest.setPhoneNumber("97" + String.format("%08d", id));
+        testRequest.setPinCode(716768);
+
+        LabResult labResult = new LabResult();
+        labResult.setResultId(id);
+        labResult.setRequest(testRequest);
+        labResult.setSystolicPressure((short) 120);
+        labResult.setDiastolicPressure((short) 80);
+        labResult.setHeartRate((short) 72);
+        labResult.setTemperature(new BigDecimal("98.6"));
+        labResult.setOxygenSaturation((byte) 97);
+        labResult.setComments("Mild symptoms");
+        labResult.setResult(TestStatus.POSITIVE);
+        labResult.setUpdatedOn(LocalDate.of(2020, 8, 2));
+        labResult.setTester(user(2, "tester", "TESTER"));
+        testRequest.setLabResult(labResult);
+
+        Consultation consultation = new Consultation();
+        consultation.setId(id);
+        consultation.setRequest(testRequest);
+        consultation.setSuggestion(DoctorSuggestion.HOME_QUARANTINE);
+        consultation.setComments("Isolate for 14 days");
+        consultation.setUpdatedOn(LocalDate.of(2020, 8, 3));
+        consultation.setDoctor(user(3, "doctor", "DOCTOR"));
+        testRequest.setConsultation(consultation);
+
+        return testRequest;
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.upgrad.upstac.shared.DateParser;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParserBenchmark {
+
+    private final LocalDate date = LocalDate.of(1990, 4, 12);
+
+
+    @Benchmark
+    public LocalDate getDateFromString() {
+        return DateParser.getDateFromString("1990-04-12");
+    }
+
+    @Benchmark
+    public String getStringFromDate() {
+        return DateParser.getStringFromDate(date);
+    }
+
+}
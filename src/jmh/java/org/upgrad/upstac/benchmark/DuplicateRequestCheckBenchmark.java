@@ -0,0 +1,60 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TestRequestService.validateExistingRequestsNotPresentWithSameDetails for a person with
+ * a growing number of completed past requests, the check every new request runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DuplicateRequestCheckBenchmark {
+
+    @Param({"0", "10", "100"})
+    public int previousRequests;
+
+    private TestRequestService testRequestService;
+    private CreateTestRequest createTestRequest;
+
+
+    @Setup
+    public void setUp() {
+        List<TestRequest> existing = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++)
+            existing.add(BenchmarkFixtures.completedTestRequest(id));
+
+        createTestRequest = new CreateTestRequest();
+        createTestRequest.setName("Returning Person");
+        createTestRequest.setEmail("returning@upgrad.com");
+        createTestRequest.setPhoneNumber("9000000000");
+
+        for (long id = 1; id <= previousRequests; id++) {
+            TestRequest previous = BenchmarkFixtures.completedTestRequest(10_000 + id);
+            previous.setEmail(createTestRequest.getEmail());
+            previous.setPhoneNumber(createTestRequest.getPhoneNumber());
+            existing.add(previous);
+        }
+
+        testRequestService = new TestRequestService();
+        ReflectionTestUtils.setField(testRequestService, "testRequestRepository", InMemoryTestRequestRepository.of(existing));
+    }
+
+    @Benchmark
+    public CreateTestRequest validateExistingRequestsNotPresentWithSameDetails() {
+        testRequestService.validateExistingRequestsNotPresentWithSameDetails(createTestRequest);
+        return createTestRequest;
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.upgrad.upstac.benchmark;
+
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * TestRequestRepository answering findByEmailOrPhoneNumber from hash indexes, the way the
+ * database would with indexes on both columns. Other methods are not supported.
+ */
+public final class InMemoryTestRequestRepository {
+
+    private InMemoryTestRequestRepository() {
+    }
+
+
+    public static TestRequestRepository of(Collection<TestRequest> testRequests) {
+        Map<String, List<TestRequest>> byEmail = new HashMap<>();
+        Map<String, List<TestRequest>> byPhoneNumber = new HashMap<>();
+        for (TestRequest testRequest : testRequests) {
+            byEmail.computeIfAbsent(testRequest.getEmail(), key -> new ArrayList<>()).add(testRequest);
+            byPhoneNumber.computeIfAbsent(testRequest.getPhoneNumber(), key -> new ArrayList<>()).add(testRequest);
+        }
+
+        return (TestRequestRepository) Proxy.newProxyInstance(TestRequestRepository.class.getClassLoader(),
+                new Class<?>[]{TestRequestRepository.class},
+                (proxy, method, arguments) -> {
+                    if (method.getName().equals("findByEmailOrPhoneNumber")) {
+                        Set<TestRequest> found = new LinkedHashSet<>(byEmail.getOrDefault((String) arguments[0], Collections.emptyList()));
+                        found.addAll(byPhoneNumber.getOrDefault((String) arguments[1], Collections.emptyList()));
+                        return new ArrayList<>(found);
+                    }
+                    if (method.getName().equals("toString"))
+                        return "InMemoryTestRequestRepository";
+                    if (method.getName().equals("hashCode"))
+                        return System.identityHashCode(proxy);
+                    if (method.getName().equals("equals"))
+                        return proxy == arguments[0];
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.upgrad.upstac.exception.ApiError;
+import org.upgrad.upstac.exception.ApiExceptionHandler;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rejected transition thrown from depth frames below the controller, as a full stack trace
+ * exception wrapped into a ResponseStatusException the way controllers used to, against the
+ * shared stackless AppException answered by ApiExceptionHandler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectedRequestBenchmark {
+
+    @Param({"10", "100"})
+    private int depth;
+
+    private final ApiExceptionHandler apiExceptionHandler = new ApiExceptionHandler();
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/labrequests/update/42");
+
+
+    @Benchmark
+    public ResponseStatusException wrappedRuntimeException() {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (RuntimeException e) {
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> stacklessAppException() {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (AppException e) {
+            return apiExceptionHandler.handle(e, request);
+        }
+    }
+
+    private static void throwAt(int depth, boolean stackless) {
+        if (depth > 0) {
+            throwAt(depth - 1, stackless);
+            return;
+        }
+        if (stackless)
+            throw ErrorCode.INVALID_ID_OR_STATE.exception();
+        throw new RuntimeException("Invalid ID or State");
+    }
+
+}
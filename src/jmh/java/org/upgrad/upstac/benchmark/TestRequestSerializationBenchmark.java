@@ -0,0 +1,52 @@
+package org.upgrad.upstac.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of TestRequest graphs with the same ObjectMapper settings Spring Boot applies here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestRequestSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private TestRequest testRequest;
+    private List<TestRequest> worklist;
+
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .build();
+
+        testRequest = BenchmarkFixtures.completedTestRequest(1);
+        worklist = new ArrayList<>();
+        for (long id = 1; id <= 100; id++)
+            worklist.add(BenchmarkFixtures.completedTestRequest(id));
+    }
+
+    @Benchmark
+    public byte[] singleRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(testRequest);
+    }
+
+    @Benchmark
+    public byte[] hundredRequests() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(worklist);
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.upgrad.upstac.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.upgrad.upstac.users.User;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRoleBenchmark {
+
+    private User tester;
+    private User authority;
+
+
+    @Setup
+    public void setUp() {
+        tester = BenchmarkFixtures.user(2, "tester", "TESTER");
+        authority = BenchmarkFixtures.user(4, "authority", "GOVERNMENT_AUTHORITY");
+    }
+
+    @Benchmark
+    public boolean matchingRole() {
+        return tester.doesUserHasRole("TESTER");
+    }
+
+    @Benchmark
+    public boolean otherRole() {
+        return tester.doesUserHasRole("DOCTOR");
+    }
+
+    // The role checks findTestRequestForUserByID runs in order for a government authority
+    @Benchmark
+    public boolean roleDispatch() {
+        return authority.doesRoleIsUser() || authority.doesRoleIsTester() || authority.doesRoleIsDoctor() || authority.doesRoleIsAuthority();
+    }
+
+}
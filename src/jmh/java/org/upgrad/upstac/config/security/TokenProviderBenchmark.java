@@ -0,0 +1,64 @@
+package org.upgrad.upstac.config.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JWT work done by JwtAuthenticationFilter on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private TokenProvider tokenProvider;
+    private UserDetails userDetails;
+    private String token;
+
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new TokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "secretKey", "UpgradUPSTAC@%^%@^!@$!@$@#$#$#6763276327");
+
+        userDetails = User.withUsername("tester").password("password").authorities("ROLE_TESTER").build();
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("tester", "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_TESTER"))));
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return tokenProvider.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public UserDetails validateToken() throws ServletException {
+        tokenProvider.validateToken(token, userDetails);
+        return userDetails;
+    }
+
+    @Benchmark
+    public UsernamePasswordAuthenticationToken getAuthentication() {
+        return tokenProvider.getAuthentication(token, null, userDetails);
+    }
+
+    // What the filter does per request: read the user name, validate, then build the authentication
+    @Benchmark
+    public UsernamePasswordAuthenticationToken filterPath() throws ServletException {
+        tokenProvider.getUsernameFromToken(token);
+        tokenProvider.validateToken(token, userDetails);
+        return tokenProvider.getAuthentication(token, null, userDetails);
+    }
+
+}
@@ -2,8 +2,10 @@ package org.upgrad.upstac;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UpstacApplication {
 
 	public static void main(String[] args) {
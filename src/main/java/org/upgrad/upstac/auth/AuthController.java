@@ -15,7 +15,7 @@ import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.auth.models.LoginRequest;
 import org.upgrad.upstac.auth.models.LoginResponse;
 import org.upgrad.upstac.config.security.TokenProvider;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
 import org.upgrad.upstac.users.UserService;
 
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
@@ -55,7 +55,7 @@ public class AuthController {
 
 
             if(userService.isApprovedUser( loginRequest.getUserName()) == false){
-                throw new AppException("User Not Approved");
+                throw ErrorCode.USER_NOT_APPROVED.exception();
             }
 
 
@@ -67,12 +67,7 @@ public class AuthController {
             return ResponseEntity.ok(result);
 
 
-        } catch (AppException e) {
-
-            throw new ResponseStatusException(
-                    HttpStatus.FORBIDDEN, e.getMessage(), e);
-        }catch (AuthenticationException e) {
-            e.printStackTrace();
+        } catch (AuthenticationException e) {
             log.info("AuthenticationException" + e.getMessage());
             throw new ResponseStatusException(
                     HttpStatus.FORBIDDEN, "Bad credentials", e);
@@ -7,11 +7,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
-import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.users.User;
 
-import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
-
 @RestController
 public class RegisterController {
 
@@ -33,11 +30,7 @@ public class RegisterController {
     @RequestMapping(value = "/auth/register", method = RequestMethod.POST)
     public User saveUser(@RequestBody RegisterRequest user) {
 
-        try {
-            return registerService.addUser(user);
-        } catch (AppException e) {
-            throw   asBadRequest(e.getMessage());
-        }
+        return registerService.addUser(user);
 
 
     }
@@ -46,21 +39,13 @@ public class RegisterController {
     @RequestMapping(value = "/auth/doctor/register", method = RequestMethod.POST)
     public User saveDoctor(@RequestBody RegisterRequest user) {
 
-        try {
-            return registerService.addDoctor(user);
-        } catch (AppException e) {
-            throw asBadRequest(e.getMessage());
-        }
+        return registerService.addDoctor(user);
     }
 
 
     @RequestMapping(value = "/auth/tester/register", method = RequestMethod.POST)
     public User saveTester(@RequestBody RegisterRequest user) {
 
-        try {
-            return registerService.addTester(user);
-        } catch (AppException e) {
-            throw asBadRequest(e.getMessage());
-        }
+        return registerService.addTester(user);
     }
 }
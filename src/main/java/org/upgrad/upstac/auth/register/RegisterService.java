@@ -4,7 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.UserService;
 import org.upgrad.upstac.users.models.AccountStatus;
@@ -29,14 +29,14 @@ public class RegisterService {
 
 
         if((null != userService.findByUserName(user.getUserName())))
-            throw new AppException("Username already exists " + user.getUserName());
+            throw ErrorCode.USERNAME_EXISTS.exception(user.getUserName());
 
         if((null != userService.findByEmail(user.getEmail())))
-            throw new AppException("User with Same email already exists " + user.getEmail());
+            throw ErrorCode.EMAIL_EXISTS.exception(user.getEmail());
 
 
         if((null != userService.findByPhoneNumber(user.getPhoneNumber())))
-            throw new AppException("User with Same Phone number already exists " + user.getPhoneNumber());
+            throw ErrorCode.PHONE_NUMBER_EXISTS.exception(user.getPhoneNumber());
 
 
         User newUser = new User();
@@ -66,14 +66,14 @@ public class RegisterService {
     public User addDoctor(RegisterRequest user) {
 
         if((null != userService.findByUserName(user.getUserName())))
-            throw new AppException("Username already exists " + user.getUserName());
+            throw ErrorCode.USERNAME_EXISTS.exception(user.getUserName());
 
         if((null != userService.findByEmail(user.getEmail())))
-            throw new AppException("User with Same email already exists " + user.getEmail());
+            throw ErrorCode.EMAIL_EXISTS.exception(user.getEmail());
 
 
         if((null != userService.findByPhoneNumber(user.getPhoneNumber())))
-            throw new AppException("User with Same Phone number already exists " + user.getPhoneNumber());
+            throw ErrorCode.PHONE_NUMBER_EXISTS.exception(user.getPhoneNumber());
 
 
         User newUser = new User();
@@ -102,14 +102,14 @@ public class RegisterService {
     public User addGovernmentAuthority(RegisterRequest user) {
 
         if((null != userService.findByUserName(user.getUserName())))
-            throw new AppException("Username already exists " + user.getUserName());
+            throw ErrorCode.USERNAME_EXISTS.exception(user.getUserName());
 
         if((null != userService.findByEmail(user.getEmail())))
-            throw new AppException("User with Same email already exists " + user.getEmail());
+            throw ErrorCode.EMAIL_EXISTS.exception(user.getEmail());
 
 
         if((null != userService.findByPhoneNumber(user.getPhoneNumber())))
-            throw new AppException("User with Same Phone number already exists " + user.getPhoneNumber());
+            throw ErrorCode.PHONE_NUMBER_EXISTS.exception(user.getPhoneNumber());
 
 
         User newUser = new User();
@@ -139,14 +139,14 @@ public class RegisterService {
     public User addTester(RegisterRequest user) {
 
         if((null != userService.findByUserName(user.getUserName())))
-            throw new AppException("Username already exists " + user.getUserName());
+            throw ErrorCode.USERNAME_EXISTS.exception(user.getUserName());
 
         if((null != userService.findByEmail(user.getEmail())))
-            throw new AppException("User with Same email already exists " + user.getEmail());
+            throw ErrorCode.EMAIL_EXISTS.exception(user.getEmail());
 
 
         if((null != userService.findByPhoneNumber(user.getPhoneNumber())))
-            throw new AppException("User with Same Phone number already exists " + user.getPhoneNumber());
+            throw ErrorCode.PHONE_NUMBER_EXISTS.exception(user.getPhoneNumber());
 
 
         User newUser = new User();
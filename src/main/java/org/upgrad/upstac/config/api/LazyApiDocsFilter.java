@@ -0,0 +1,51 @@
+package org.upgrad.upstac.config.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * With springfox.documentation.auto-startup=false springfox does not scan the controllers
+ * at startup. This scans them on the first request for the API docs instead.
+ */
+@Component
+@ConditionalOnProperty(name = "springfox.documentation.auto-startup", havingValue = "false")
+public class LazyApiDocsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private DocumentationPluginsBootstrapper documentationPluginsBootstrapper;
+
+    private static final Logger log = LoggerFactory.getLogger(LazyApiDocsFilter.class);
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return path.startsWith("/v2/api-docs") == false && path.startsWith("/swagger-resources") == false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (documentationPluginsBootstrapper.isRunning() == false) {
+            synchronized (this) {
+                if (documentationPluginsBootstrapper.isRunning() == false) {
+                    long started = System.currentTimeMillis();
+                    documentationPluginsBootstrapper.start();
+                    log.info("Built the API docs in " + (System.currentTimeMillis() - started) + " ms");
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+}
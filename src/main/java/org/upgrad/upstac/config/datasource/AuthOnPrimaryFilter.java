@@ -0,0 +1,40 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Keeps the registration and login endpoints on the primary. Nobody is authenticated there
+ * yet, so ReadYourWritesGuard has no user to pin, and a login right after registering has to
+ * find the user the replica may not have yet.
+ */
+public class AuthOnPrimaryFilter extends OncePerRequestFilter {
+
+    private static final ThreadLocal<Boolean> ON_PRIMARY = new ThreadLocal<>();
+
+
+    static boolean isOnPrimary() {
+        return ON_PRIMARY.get() != null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getServletPath().startsWith("/auth/") == false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ON_PRIMARY.set(Boolean.TRUE);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ON_PRIMARY.remove();
+        }
+    }
+
+}
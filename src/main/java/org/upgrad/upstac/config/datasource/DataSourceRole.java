@@ -0,0 +1,5 @@
+package org.upgrad.upstac.config.datasource;
+
+public enum DataSourceRole {
+    PRIMARY,REPLICA
+}
@@ -0,0 +1,101 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions opened by application services to the replica and
+ * everything else to the primary.
+ *
+ * Spring Data wraps every repository query in its own read-only transaction, including
+ * the lookups in front of status transitions, so those stay on the primary, as do the
+ * auth endpoints behind AuthOnPrimaryFilter. After a write, reads stay on the primary for a
+ * window, per user through ReadYourWritesGuard and per client, across instances, through
+ * ReadYourWritesFilter. Callers
+ * must wrap this in a LazyConnectionDataSourceProxy, the routing decision has to wait
+ * until the transaction's read-only flag and name are known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String REPOSITORY_SUPPORT_PACKAGE = "org.springframework.data.";
+
+    private final ReadYourWritesGuard readYourWritesGuard;
+
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesGuard readYourWritesGuard) {
+        this.readYourWritesGuard = readYourWritesGuard;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRole.PRIMARY, primary);
+        targets.put(DataSourceRole.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userName = currentUserName();
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() == false) {
+            if (TransactionSynchronizationManager.isActualTransactionActive())
+                recordWrite(userName);
+            return DataSourceRole.PRIMARY;
+        }
+
+        if (isRepositoryTransaction(TransactionSynchronizationManager.getCurrentTransactionName()))
+            return DataSourceRole.PRIMARY;
+
+        if (AuthOnPrimaryFilter.isOnPrimary())
+            return DataSourceRole.PRIMARY;
+
+        long now = System.currentTimeMillis();
+        if (ReadYourWritesFilter.hasRecentWrite(now))
+            return DataSourceRole.PRIMARY;
+
+        if (userName != null && readYourWritesGuard.hasRecentWrite(userName, now))
+            return DataSourceRole.PRIMARY;
+
+        return DataSourceRole.REPLICA;
+    }
+
+    static boolean isRepositoryTransaction(String transactionName) {
+        return transactionName != null && transactionName.startsWith(REPOSITORY_SUPPORT_PACKAGE);
+    }
+
+    // The window starts again at completion, long transactions are not cut short by it
+    private void recordWrite(String userName) {
+        if (userName != null)
+            readYourWritesGuard.recordWrite(userName, System.currentTimeMillis());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive() == false) {
+            ReadYourWritesFilter.recordWrite(System.currentTimeMillis());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                long now = System.currentTimeMillis();
+                if (userName != null)
+                    readYourWritesGuard.recordWrite(userName, now);
+                ReadYourWritesFilter.recordWrite(now);
+            }
+        });
+    }
+
+    private static String currentUserName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.isAuthenticated() == false)
+            return null;
+        return authentication.getName();
+    }
+
+}
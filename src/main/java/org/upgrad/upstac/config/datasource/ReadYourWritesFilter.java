@@ -0,0 +1,103 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Carries the time of a client's last write in a cookie, so its next reads stay on the
+ * primary on whichever instance serves them. ReadYourWritesGuard only knows the writes
+ * made through its own instance.
+ *
+ * The cookie is not signed, a client setting it only sends its own reads to the primary,
+ * and times more than a window ahead are ignored. Instances compare it with their own
+ * clocks, which are expected to agree well within the window.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "upstac-last-write";
+
+    private static final ThreadLocal<Pin> CURRENT = new ThreadLocal<>();
+
+    private final long windowMillis;
+
+
+    public ReadYourWritesFilter(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+
+    static boolean hasRecentWrite(long now) {
+        Pin pin = CURRENT.get();
+        if (pin == null || pin.lastWrite == null)
+            return false;
+        return Math.abs(now - pin.lastWrite) < pin.windowMillis;
+    }
+
+    // Only the first write of a request sets the cookie, the response takes no second value for it
+    static void recordWrite(long now) {
+        Pin pin = CURRENT.get();
+        if (pin == null)
+            return;
+
+        pin.lastWrite = now;
+        if (pin.cookieSet || pin.response.isCommitted())
+            return;
+
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(now));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (pin.windowMillis + 999) / 1000));
+        pin.response.addCookie(cookie);
+        pin.cookieSet = true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        CURRENT.set(new Pin(response, windowMillis, lastWriteOf(request)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private static Long lastWriteOf(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return null;
+
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.valueOf(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+
+    private static class Pin {
+
+        private final HttpServletResponse response;
+        private final long windowMillis;
+        private Long lastWrite;
+        private boolean cookieSet;
+
+        private Pin(HttpServletResponse response, long windowMillis, Long lastWrite) {
+            this.response = response;
+            this.windowMillis = windowMillis;
+            this.lastWrite = lastWrite;
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.upgrad.upstac.shared.LruCache;
+
+/**
+ * Remembers when each user last wrote, so their reads stay on the primary until the
+ * replica has had time to catch up with their own changes.
+ */
+public class ReadYourWritesGuard {
+
+    private final long windowMillis;
+    private final LruCache<String, Long> lastWrites;
+
+
+    public ReadYourWritesGuard(long windowMillis, int maxUsers) {
+        this.windowMillis = windowMillis;
+        this.lastWrites = new LruCache<>(maxUsers);
+    }
+
+
+    public void recordWrite(String userName, long now) {
+        lastWrites.put(userName, now);
+    }
+
+    public boolean hasRecentWrite(String userName, long now) {
+        Long lastWrite = lastWrites.get(userName);
+        if (lastWrite == null)
+            return false;
+        if (now - lastWrite < windowMillis)
+            return true;
+
+        lastWrites.remove(userName);
+        return false;
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.upgrad.upstac.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Only active when app.datasource.replica.url is set, otherwise Spring Boot's single
+ * DataSource is used as before. Both pools report hikaricp.* metrics, Spring Boot does not
+ * see them behind the routing DataSource.
+ */
+@Configuration
+// Sharding brings its own routing DataSource, the two are not combined
+@ConditionalOnExpression("'${app.datasource.replica.url:}' != '' and '${app.sharding.enabled:false}' == 'false'")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReadYourWritesGuard readYourWritesGuard(@Value("${app.datasource.replica.read-your-writes-window:5000}") long windowMillis,
+                                                   @Value("${app.datasource.replica.tracked-users:10000}") int maxUsers) {
+        return new ReadYourWritesGuard(windowMillis, maxUsers);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${app.datasource.replica.read-your-writes-window:5000}") long windowMillis) {
+        return new ReadYourWritesFilter(windowMillis);
+    }
+
+    @Bean
+    public AuthOnPrimaryFilter authOnPrimaryFilter() {
+        return new AuthOnPrimaryFilter();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 ReadYourWritesGuard readYourWritesGuard,
+                                 @Value("${app.datasource.replica.url}") String replicaUrl,
+                                 @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${app.datasource.replica.maximum-pool-size:10}") int replicaPoolSize) {
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setReadOnly(true);
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, readYourWritesGuard));
+    }
+
+}
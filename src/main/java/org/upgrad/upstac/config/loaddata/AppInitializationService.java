@@ -3,6 +3,7 @@ package org.upgrad.upstac.config.loaddata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
@@ -29,6 +30,9 @@ public class AppInitializationService implements ApplicationListener<Application
     @Autowired
     UserService userService;
 
+    // Seeding hashes four passwords, off the main thread the application is ready without waiting for it
+    @Value("${app.startup.seed-async:false}")
+    boolean seedAsync;
 
     User defaultDoctor = null;
     User defaultTester = null;
@@ -42,15 +46,28 @@ public class AppInitializationService implements ApplicationListener<Application
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
 
+        if (seedAsync) {
+            Thread seeding = new Thread(this::initializeIfEmpty, "data-seeding");
+            seeding.setDaemon(true);
+            seeding.start();
+        } else
+            initializeIfEmpty();
 
-        if ( roleService.shouldInitialize()) {
-            log.info("loading default values");
-            initialize();
-
-            log.info("loaded default values");
-        }
+    }
 
+    void initializeIfEmpty() {
+        try {
+            if ( roleService.shouldInitialize()) {
+                log.info("loading default values");
+                initialize();
 
+                log.info("loaded default values");
+            }
+        } catch (RuntimeException e) {
+            if (seedAsync == false)
+                throw e;
+            log.error("Could not load default values", e);
+        }
     }
 
 
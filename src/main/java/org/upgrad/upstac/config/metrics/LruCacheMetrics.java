@@ -0,0 +1,58 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.upgrad.upstac.shared.LruCache;
+
+/**
+ * The standard cache.* meters for an LruCache. Caches are created outside the registry's
+ * lifecycle, monitor() binds them to the global registry the application's registry is part of.
+ */
+public class LruCacheMetrics extends CacheMeterBinder {
+
+    private final LruCache<?, ?> cache;
+
+
+    public LruCacheMetrics(LruCache<?, ?> cache, String name) {
+        super(cache, name, Tags.empty());
+        this.cache = cache;
+    }
+
+
+    public static <C extends LruCache<?, ?>> C monitor(C cache, String name) {
+        new LruCacheMetrics(cache, name).bindTo(Metrics.globalRegistry);
+        return cache;
+    }
+
+    @Override
+    protected Long size() {
+        return (long) cache.size();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.stats.TestRequestStatisticsService;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Requests per status, read from the dashboard counters, users waiting for approval,
+ * counted at each scrape, and a counter per status transition, creations coming from NONE.
+ */
+@Component
+public class RequestMetrics {
+
+    private static final String NONE = "NONE";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestRequestStatisticsService testRequestStatisticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // [from + 1][to], the first row for creations
+    private Counter[][] transitions;
+
+
+    @PostConstruct
+    public void register() {
+        RequestStatus[] statuses = RequestStatus.values();
+
+        for (RequestStatus status : statuses)
+            Gauge.builder("upstac.requests", testRequestStatisticsService, service -> service.countOf(status))
+                    .description("Test requests by status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+
+        Gauge.builder("upstac.users.pending.approval", userRepository, repository -> repository.countByStatus(AccountStatus.INITIATED))
+                .description("Registrations waiting for approval")
+                .register(meterRegistry);
+
+        transitions = new Counter[statuses.length + 1][statuses.length];
+        for (int from = 0; from <= statuses.length; from++)
+            for (RequestStatus to : statuses)
+                transitions[from][to.ordinal()] = Counter.builder("upstac.requests.transitions")
+                        .description("Test request status changes")
+                        .tag("from", from == 0 ? NONE : statuses[from - 1].name())
+                        .tag("to", to.name())
+                        .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        int from = event.isCreation() ? 0 : event.getFromStatus().ordinal() + 1;
+        transitions[from][event.getToStatus().ordinal()].increment();
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.config.timing.RequestTiming;
+import org.upgrad.upstac.config.timing.TimingPhase;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the core services as upstac.service.calls, tagged with
+ * service and method, and counts the exceptions leaving them as upstac.exceptions by type,
+ * and for AppException by error code, as all the expected failures share that type.
+ *
+ * Meters are looked up once per method, type or error code and kept, a call costs two nanoTime reads
+ * and a map lookup. An exception passing through several timed services is counted once,
+ * by the outermost, whose time is also the request's svc timing.
+ */
+@Aspect
+@Component
+public class ServiceTimingAspect {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Method, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, Counter> exceptions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ErrorCode, Counter> appExceptions = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+
+    @Around("execution(public * *(..)) && (" +
+            "within(org.upgrad.upstac.testrequests.TestRequestService) || " +
+            "within(org.upgrad.upstac.testrequests.TestRequestUpdateService) || " +
+            "within(org.upgrad.upstac.testrequests.TestRequestQueryService) || " +
+            "within(org.upgrad.upstac.users.UserService) || " +
+            "within(org.upgrad.upstac.testrequests.lab.LabResultService) || " +
+            "within(org.upgrad.upstac.testrequests.consultation.ConsultationService))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(method, this::timerOf);
+
+        int[] calls = depth.get();
+        calls[0]++;
+        long started = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException e) {
+            if (calls[0] == 1)
+                counterOf(e).increment();
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (calls[0] == 1)
+                RequestTiming.end(TimingPhase.SERVICE, started);
+            calls[0]--;
+        }
+    }
+
+    private Timer timerOf(Method method) {
+        return Timer.builder("upstac.service.calls")
+                .description("Calls to the core services")
+                .tag("service", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .register(meterRegistry);
+    }
+
+    private Counter counterOf(RuntimeException e) {
+        if (e instanceof AppException && ((AppException) e).getErrorCode() != null)
+            return appExceptions.computeIfAbsent(((AppException) e).getErrorCode(), code -> counterOf(AppException.class, code.name()));
+        return exceptions.computeIfAbsent(e.getClass(), type -> counterOf(type, "none"));
+    }
+
+    private Counter counterOf(Class<?> type, String code) {
+        return Counter.builder("upstac.exceptions")
+                .description("Exceptions thrown out of the core services")
+                .tag("type", type.getSimpleName())
+                .tag("code", code)
+                .register(meterRegistry);
+    }
+
+}
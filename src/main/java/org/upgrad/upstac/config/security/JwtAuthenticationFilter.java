@@ -9,6 +9,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.upgrad.upstac.config.timing.RequestTiming;
+import org.upgrad.upstac.config.timing.TimingPhase;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -33,6 +35,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Override
     protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws IOException, ServletException {
+        long began = System.nanoTime();
         String header = req.getHeader(HEADER_STRING);
 
         String username = null;
@@ -47,6 +50,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             log.info("security context se");
             setSecurityContextAuthenticationIn(req, username, authToken);
         }
+        RequestTiming.end(TimingPhase.AUTH, began);
 
 
         chain.doFilter(req, res);
@@ -8,6 +8,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.upgrad.upstac.config.timing.RequestTiming;
+import org.upgrad.upstac.config.timing.TimingPhase;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.UserService;
 
@@ -32,7 +34,9 @@ public class UpgradUserDetailsService implements UserDetailsService {
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		long began = System.nanoTime();
 		User user = userService.findByUserName(username);
+		RequestTiming.end(TimingPhase.USER, began);
 		log.info("loadUserByUsername " + user.toString());
 		if(user == null){
 			throw new UsernameNotFoundException("Invalid username or password.");
@@ -0,0 +1,240 @@
+package org.upgrad.upstac.config.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps every shard's copy of the users and roles in step with the default shard, the only
+ * one they are written to. Requests join to the copy on their own shard.
+ *
+ * A changed row is read back from the default shard once its write has completed and is
+ * updated, inserted or deleted by id on each other shard, one transaction per shard, so a
+ * copy can be repeated any number of times. Copies that fail are retried, and every table
+ * is compared in full at startup and on a schedule to repair anything missed, such as a
+ * copy lost to a restart.
+ */
+@Component
+public class ReferenceDataReplicator {
+
+    public static final String USERS = "user";
+    public static final String ROLES = "role";
+
+    // Parents first, {table, key columns}
+    private static final String[][] TABLES = {
+            {"role", "id"},
+            {"user", "id"},
+            {"user_roles", "user_id, roles_id"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // "user:42", or "user:*" when the changed rows are not known
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataReplicator.class);
+
+
+    /**
+     * Copies the rows once the current transaction has completed, or right away without one.
+     * A null id copies the whole table. Rolled back writes copy the row as it still is.
+     */
+    public void replicateAfterCompletion(String table, Long id) {
+        if (shardRouter.isSharded() == false)
+            return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive() == false) {
+            replicate(table, id);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                replicate(table, id);
+            }
+        });
+    }
+
+    public void replicate(String table, Long id) {
+        for (String shard : shardRouter.shards()) {
+            if (shard.equals(shardRouter.defaultShard()))
+                continue;
+
+            try {
+                if (id == null)
+                    copyAll(shard);
+                else
+                    copyRow(shard, table, id);
+            } catch (DataAccessException e) {
+                pending.add(table + ":" + (id == null ? "*" : id));
+                log.warn("Could not copy " + table + " " + (id == null ? "rows" : id) + " to shard " + shard + ", will retry: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.sharding.reference-retry:10000}", fixedDelayString = "${app.sharding.reference-retry:10000}")
+    public void retryPending() {
+        for (String copy : new ArrayList<>(pending)) {
+            pending.remove(copy);
+            String[] parts = copy.split(":");
+            replicate(parts[0], "*".equals(parts[1]) ? null : Long.valueOf(parts[1]));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.sharding.reference-sync-interval:600000}", fixedDelayString = "${app.sharding.reference-sync-interval:600000}")
+    public void replicateAll() {
+        if (shardRouter.isSharded())
+            replicate(USERS, null);
+    }
+
+    private void copyRow(String shard, String table, Long id) {
+        List<Map<String, Object>> rows = inTransaction(shardRouter.defaultShard(), true, () -> jdbcTemplate.queryForList("select * from " + table + " where id = ?", id));
+        if (rows.isEmpty()) {
+            delete(shard, table, new String[]{"id"}, Collections.singletonList(id));
+            return;
+        }
+
+        List<Map<String, Object>> roles = USERS.equals(table)
+                ? inTransaction(shardRouter.defaultShard(), true, () -> jdbcTemplate.queryForList("select * from user_roles where user_id = ?", id))
+                : Collections.emptyList();
+
+        inTransaction(shard, false, () -> {
+            upsert(table, new String[]{"id"}, rows.get(0));
+            if (USERS.equals(table)) {
+                jdbcTemplate.update("delete from user_roles where user_id = ?", id);
+                for (Map<String, Object> role : roles)
+                    upsert("user_roles", new String[]{"user_id", "roles_id"}, role);
+            }
+            return null;
+        });
+    }
+
+    // Rows that differ are upserted parents first, rows gone from the default shard deleted children first
+    private void copyAll(String shard) {
+        Map<String[], List<Map<String, Object>>> sources = new LinkedHashMap<>();
+        for (String[] table : TABLES)
+            sources.put(table, inTransaction(shardRouter.defaultShard(), true, () -> jdbcTemplate.queryForList("select * from " + table[0])));
+
+        Map<String[], List<List<Object>>> extra = new LinkedHashMap<>();
+        inTransaction(shard, false, () -> {
+            sources.forEach((table, source) -> {
+                String[] keys = table[1].split(", ");
+                Map<List<Object>, Map<String, Object>> copies = new HashMap<>();
+                for (Map<String, Object> row : jdbcTemplate.queryForList("select * from " + table[0]))
+                    copies.put(keyOf(row, keys), row);
+
+                int changed = 0;
+                for (Map<String, Object> row : source) {
+                    Map<String, Object> copy = copies.remove(keyOf(row, keys));
+                    if (copy == null || sameValues(row, copy) == false) {
+                        upsert(table[0], keys, row);
+                        changed++;
+                    }
+                }
+                if (changed > 0)
+                    log.info("Copied " + changed + " changed rows of " + table[0] + " to shard " + shard);
+                extra.put(table, new ArrayList<>(copies.keySet()));
+            });
+            return null;
+        });
+
+        List<String[]> tables = new ArrayList<>(extra.keySet());
+        Collections.reverse(tables);
+        for (String[] table : tables)
+            for (List<Object> key : extra.get(table))
+                delete(shard, table[0], table[1].split(", "), key);
+    }
+
+    // A row still referred to on that shard is kept and reported, retrying would not help
+    private void delete(String shard, String table, String[] keys, List<Object> key) {
+        try {
+            inTransaction(shard, false, () -> {
+                if (USERS.equals(table))
+                    jdbcTemplate.update("delete from user_roles where user_id = ?", key.get(0));
+                return jdbcTemplate.update("delete from " + table + " where " + String.join(" = ? and ", keys) + " = ?", key.toArray());
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Kept " + table + " " + key + " on shard " + shard + " though it is gone from the default shard, rows there still refer to it");
+        }
+    }
+
+    private void upsert(String table, String[] keys, Map<String, Object> row) {
+        List<String> columns = new ArrayList<>(row.keySet());
+        List<Object> key = keyOf(row, keys);
+        String where = String.join(" = ? and ", keys) + " = ?";
+
+        List<String> assignments = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (String column : columns) {
+            if (isKey(column, keys))
+                continue;
+            assignments.add(column + " = ?");
+            values.add(row.get(column));
+        }
+        values.addAll(key);
+
+        int updated = assignments.isEmpty()
+                ? jdbcTemplate.queryForObject("select count(*) from " + table + " where " + where, Integer.class, key.toArray())
+                : jdbcTemplate.update("update " + table + " set " + String.join(", ", assignments) + " where " + where, values.toArray());
+        if (updated > 0)
+            return;
+
+        Object[] inserted = new Object[columns.size()];
+        for (int i = 0; i < inserted.length; i++)
+            inserted[i] = row.get(columns.get(i));
+        jdbcTemplate.update("insert into " + table + " (" + String.join(", ", columns) + ") values (" +
+                String.join(", ", Collections.nCopies(columns.size(), "?")) + ")", inserted);
+    }
+
+    // A new transaction even when called after another one completed, its connection may still be bound
+    private <T> T inTransaction(String shard, boolean readOnly, Supplier<T> work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(readOnly);
+        return shardRouter.onShard(shard, () -> transaction.execute(status -> work.get()));
+    }
+
+    private static List<Object> keyOf(Map<String, Object> row, String[] keys) {
+        List<Object> key = new ArrayList<>(keys.length);
+        for (String column : keys)
+            key.add(row.get(column));
+        return key;
+    }
+
+    private static boolean isKey(String column, String[] keys) {
+        for (String key : keys)
+            if (key.equalsIgnoreCase(column))
+                return true;
+        return false;
+    }
+
+    private static boolean sameValues(Map<String, Object> row, Map<String, Object> copy) {
+        for (Map.Entry<String, Object> column : row.entrySet())
+            if (Objects.equals(column.getValue(), copy.get(column.getKey())) == false)
+                return false;
+        return true;
+    }
+
+}
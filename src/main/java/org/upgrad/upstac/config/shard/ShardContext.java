@@ -0,0 +1,79 @@
+package org.upgrad.upstac.config.shard;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The shard the current thread's statements go to, and the shard the current transaction's
+ * connection was opened on. No shard means the default one.
+ *
+ * A transaction keeps the connection it opened first, so the shard has to be chosen before
+ * its first statement. ShardRouter uses the bound shard to notice when a call needs another
+ * shard and runs it in a transaction of its own.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private static final Object TRANSACTION_SHARD = new Object();
+
+
+    private ShardContext() {
+    }
+
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void run(String shard, Runnable runnable) {
+        String previous = set(shard);
+        try {
+            runnable.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static String set(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(previous);
+    }
+
+    static String transactionShard() {
+        return (String) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD);
+    }
+
+    static void bindToTransaction(String shard) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() == false || TransactionSynchronizationManager.hasResource(TRANSACTION_SHARD))
+            return;
+
+        TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+            }
+        });
+    }
+
+    // Spring suspends its own resources for a new transaction, this one has to be set aside by hand
+    static String suspendTransactionShard() {
+        return (String) TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+    }
+
+    static void resumeTransactionShard(String shard) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+        if (shard != null)
+            TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.upgrad.upstac.config.shard;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps pinCodes to shards by their longest matching prefix, so "7:east,70:central" sends
+ * 700001 to central and 716768 to east. PinCodes without a match, and requests without
+ * a pinCode, go to the default shard.
+ *
+ * Prefixes assigned at runtime are kept apart from the configured ones and win over them.
+ * They are replaced as a whole whenever the shared assignments are read again.
+ */
+public class ShardMap {
+
+    private final String defaultShard;
+    private final Map<String, String> configured;
+    private Map<String, String> assigned = Collections.emptyMap();
+
+    // Replaced as a whole on every change, readers never see a half-applied assignment
+    private volatile Map<String, String> prefixes;
+
+
+    public ShardMap(String defaultShard, Map<String, String> prefixes) {
+        this.defaultShard = defaultShard;
+        this.configured = Collections.unmodifiableMap(new TreeMap<>(prefixes));
+        this.prefixes = this.configured;
+    }
+
+
+    // "7:east,70:central"
+    public static Map<String, String> parse(String value) {
+        Map<String, String> prefixes = new TreeMap<>();
+        if (value == null)
+            return prefixes;
+
+        for (String entry : value.split(",")) {
+            if (entry.trim().isEmpty())
+                continue;
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Expected prefix:shard, got " + entry);
+            prefixes.put(parts[0].trim(), parts[1].trim());
+        }
+        return prefixes;
+    }
+
+    public String shardOf(Integer pinCode) {
+        if (pinCode == null)
+            return defaultShard;
+
+        String digits = pinCode.toString();
+        Map<String, String> current = prefixes;
+        for (int length = digits.length(); length > 0; length--) {
+            String shard = current.get(digits.substring(0, length));
+            if (shard != null)
+                return shard;
+        }
+        return defaultShard;
+    }
+
+    public synchronized void assign(String prefix, String shard) {
+        Map<String, String> updated = new TreeMap<>(assigned);
+        updated.put(prefix, shard);
+        assignAll(updated);
+    }
+
+    // The runtime assignments as last read, dropping any no longer listed
+    public synchronized void assignAll(Map<String, String> assignments) {
+        assigned = Collections.unmodifiableMap(new TreeMap<>(assignments));
+        Map<String, String> updated = new TreeMap<>(configured);
+        updated.putAll(assigned);
+        prefixes = Collections.unmodifiableMap(updated);
+    }
+
+    // A copy with one more assignment, to plan a move before the assignment takes effect
+    public ShardMap with(String prefix, String shard) {
+        Map<String, String> planned = new TreeMap<>(prefixes);
+        planned.put(prefix, shard);
+        return new ShardMap(defaultShard, planned);
+    }
+
+    public synchronized Map<String, String> assigned() {
+        return assigned;
+    }
+
+    public Map<String, String> prefixes() {
+        return prefixes;
+    }
+
+    public String defaultShard() {
+        return defaultShard;
+    }
+
+}
@@ -0,0 +1,264 @@
+package org.upgrad.upstac.config.shard;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.metrics.LruCacheMetrics;
+import org.upgrad.upstac.config.sql.SqlRecording;
+import org.upgrad.upstac.config.sql.SqlStatementRecorder;
+import org.upgrad.upstac.shared.LruCache;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decides which shard test request data lives on and runs work there.
+ *
+ * Requests are placed by pinCode. Each shard hands out ids from its own range of
+ * ID_RANGE, so an id alone says where a row was created. Rows moved by the rebalancer
+ * keep their ids, so lookups by id try the remembered shard, then the id's home shard,
+ * then the rest.
+ *
+ * With app.sharding.enabled=false there is a single shard and everything runs in place.
+ */
+@Component
+public class ShardRouter {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    public static final long ID_RANGE = 1_000_000_000_000L;
+
+    private final boolean enabled;
+    private final List<String> shards;
+    private final ShardMap shardMap;
+    private final LruCache<Long, String> requestShards;
+
+    @Autowired
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    private ExecutorService scatterExecutor;
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+
+    @Autowired
+    public ShardRouter(@Value("${app.sharding.enabled:false}") boolean enabled,
+                       @Value("${app.sharding.names:" + DEFAULT_SHARD + "}") String names,
+                       @Value("${app.sharding.pin-codes:}") String pinCodes,
+                       @Value("${app.sharding.located-requests:100000}") int locatedRequests) {
+        this.enabled = enabled;
+        this.shards = enabled ? parseNames(names) : Collections.singletonList(DEFAULT_SHARD);
+        this.shardMap = new ShardMap(shards.get(0), enabled ? ShardMap.parse(pinCodes) : Collections.emptyMap());
+        this.requestShards = LruCacheMetrics.monitor(new LruCache<>(locatedRequests), "request-shards");
+
+        for (String shard : shardMap.prefixes().values())
+            if (shards.contains(shard) == false)
+                throw new IllegalArgumentException("app.sharding.pin-codes refers to unknown shard " + shard);
+    }
+
+
+    public boolean isSharded() {
+        return enabled && shards.size() > 1;
+    }
+
+    // The first shard is the default one
+    public List<String> shards() {
+        return shards;
+    }
+
+    public String defaultShard() {
+        return shards.get(0);
+    }
+
+    public ShardMap shardMap() {
+        return shardMap;
+    }
+
+    public String shardOf(Integer pinCode) {
+        return shardMap.shardOf(pinCode);
+    }
+
+    public long idBase(String shard) {
+        return shards.indexOf(shard) * ID_RANGE;
+    }
+
+    public String homeShardOfId(Long id) {
+        int index = id == null ? 0 : (int) (id / ID_RANGE);
+        return index < shards.size() ? shards.get(index) : defaultShard();
+    }
+
+    public List<String> candidatesForId(Long id, boolean requestId) {
+        List<String> candidates = new ArrayList<>(shards.size());
+        if (requestId) {
+            String remembered = requestShards.get(id);
+            if (remembered != null)
+                candidates.add(remembered);
+        }
+        String home = homeShardOfId(id);
+        if (candidates.contains(home) == false)
+            candidates.add(home);
+        for (String shard : shards)
+            if (candidates.contains(shard) == false)
+                candidates.add(shard);
+        return candidates;
+    }
+
+    public void remember(Long requestId, String shard) {
+        if (requestId != null && isSharded())
+            requestShards.put(requestId, shard);
+    }
+
+    public void forget(Long requestId) {
+        requestShards.remove(requestId);
+    }
+
+    /**
+     * Runs the call with statements going to the given shard. When the current transaction
+     * is already bound to another shard the call gets a transaction of its own.
+     */
+    public <T> T onShard(String shard, Supplier<T> call) {
+        if (isSharded() == false)
+            return call.get();
+
+        String bound = ShardContext.transactionShard();
+        boolean ownTransaction = TransactionSynchronizationManager.isActualTransactionActive() && bound != null && bound.equals(shard) == false;
+
+        String previous = ShardContext.set(shard);
+        try {
+            if (ownTransaction == false)
+                return call.get();
+
+            String suspended = ShardContext.suspendTransactionShard();
+            try {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager.getObject());
+                transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transaction.setReadOnly(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                return transaction.execute(status -> call.get());
+            } finally {
+                ShardContext.resumeTransactionShard(suspended);
+            }
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    public void onShard(String shard, Runnable call) {
+        onShard(shard, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // One shard after the other, for maintenance work that writes
+    public void onEachShard(Consumer<String> work) {
+        for (String shard : shards)
+            onShard(shard, () -> work.accept(shard));
+    }
+
+    /**
+     * Runs a read on every shard at once, each in its own read-only transaction, and returns
+     * the results in shard order. Streams are collected before their transaction ends.
+     * The reads see the caller's security context and count towards its SQL recordings.
+     */
+    public <T> List<ShardResult<T>> scatter(Supplier<T> read) {
+        if (isSharded() == false)
+            return Collections.singletonList(new ShardResult<>(defaultShard(), read.get()));
+
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        List<SqlRecording> recordings = SqlStatementRecorder.current();
+        List<CompletableFuture<ShardResult<T>>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> new ShardResult<>(shard, readAs(securityContext, recordings, shard, read)), scatterExecutor()))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private <T> T readAs(SecurityContext securityContext, List<SqlRecording> recordings, String shard, Supplier<T> read) {
+        SecurityContext previousContext = SecurityContextHolder.getContext();
+        List<SqlRecording> previousRecordings = SqlStatementRecorder.join(recordings);
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            return readOn(shard, read);
+        } finally {
+            SecurityContextHolder.setContext(previousContext);
+            SqlStatementRecorder.leave(previousRecordings);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readOn(String shard, Supplier<T> read) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager.getObject());
+        transaction.setReadOnly(true);
+        transaction.setName(ShardRouter.class.getName() + ".scatter");
+
+        return onShard(shard, () -> transaction.execute(status -> {
+            T result = read.get();
+            if (result instanceof Stream) {
+                try (Stream<?> stream = (Stream<?>) result) {
+                    return (T) stream.collect(Collectors.toList());
+                }
+            }
+            return result;
+        }));
+    }
+
+    private synchronized ExecutorService scatterExecutor() {
+        if (scatterExecutor == null)
+            scatterExecutor = Executors.newFixedThreadPool(shards.size() * 2, runnable -> {
+                Thread thread = new Thread(runnable, "shard-scatter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return scatterExecutor;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scatterExecutor != null)
+            scatterExecutor.shutdown();
+    }
+
+    private static List<String> parseNames(String names) {
+        List<String> parsed = new ArrayList<>();
+        for (String name : names.split(","))
+            if (name.trim().isEmpty() == false)
+                parsed.add(name.trim());
+        if (parsed.isEmpty())
+            throw new IllegalArgumentException("app.sharding.names must name at least one shard");
+        log.info("Sharding test request data over " + parsed + ", default shard " + parsed.get(0));
+        return parsed;
+    }
+
+
+    @Getter
+    @AllArgsConstructor
+    public static class ShardResult<T> {
+        private final String shard;
+        private final T value;
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.upgrad.upstac.config.shard;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard named by ShardContext, the default shard when none is
+ * set. Callers must wrap this in a
+ * LazyConnectionDataSourceProxy so the shard is picked at the first statement rather than
+ * at the start of the transaction.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final Map<String, DataSource> shards;
+    private final String defaultShard;
+
+
+    // The first entry is the default shard
+    public ShardRoutingDataSource(Map<String, DataSource> shards) {
+        this.shards = new LinkedHashMap<>(shards);
+        this.defaultShard = shards.keySet().iterator().next();
+    }
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        String shard = ShardContext.current() == null ? defaultShard : ShardContext.current();
+        ShardContext.bindToTransaction(shard);
+
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null)
+            throw new IllegalStateException("Unknown shard " + shard);
+        return open(dataSource, username, password);
+    }
+
+    private static Connection open(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.upgrad.upstac.config.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Hibernate only manages the schema of the default shard. This brings the other shards up
+ * to the same mapping while the session factory is built, and moves each shard's identity
+ * columns to the start of its id range.
+ */
+class ShardSchemaIntegrator implements Integrator {
+
+    // Identity columns of the sharded tables
+    private static final String[][] IDENTITIES = {
+            {"test_request", "request_id"},
+            {"lab_result", "result_id"},
+            {"consultation", "id"},
+            {"test_request_flow", "id"},
+            {"lab_attachment", "id"}
+    };
+
+    private final Map<String, DataSource> shards;
+    private final ShardRouter shardRouter;
+    private final boolean updateSchema;
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaIntegrator.class);
+
+
+    ShardSchemaIntegrator(Map<String, DataSource> shards, ShardRouter shardRouter, boolean updateSchema) {
+        this.shards = shards;
+        this.shardRouter = shardRouter;
+        this.updateSchema = updateSchema;
+    }
+
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        for (String shard : shardRouter.shards()) {
+            if (updateSchema && shard.equals(shardRouter.defaultShard()) == false) {
+                log.info("Updating schema of shard " + shard);
+                ShardContext.run(shard, () -> new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata, serviceRegistry));
+            }
+            moveIdentitiesToRange(shard);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private void moveIdentitiesToRange(String shard) {
+        long base = shardRouter.idBase(shard);
+        if (base == 0)
+            return;
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.get(shard));
+        boolean mySql = isMySql(jdbcTemplate);
+        for (String[] identity : IDENTITIES) {
+            Long highest = jdbcTemplate.queryForObject("select coalesce(max(" + identity[1] + "), 0) from " + identity[0], Long.class);
+            if (highest != null && highest >= base)
+                continue;
+
+            long next = base + 1;
+            jdbcTemplate.execute(mySql
+                    ? "alter table " + identity[0] + " auto_increment = " + next
+                    : "alter table " + identity[0] + " alter column " + identity[1] + " restart with " + next);
+        }
+    }
+
+    private static boolean isMySql(JdbcTemplate jdbcTemplate) {
+        Boolean mySql = jdbcTemplate.execute((Connection connection) -> {
+            try {
+                return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            } catch (SQLException e) {
+                return false;
+            }
+        });
+        return Boolean.TRUE.equals(mySql);
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.upgrad.upstac.config.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Only active when app.sharding.enabled is true, replaces Spring Boot's single DataSource
+ * with one pool per shard named in app.sharding.names, each configured under
+ * app.sharding.shard.<name>.url, .username, .password and .maximum-pool-size.
+ */
+@Configuration
+@ConditionalOnProperty("app.sharding.enabled")
+public class ShardedDataSourceConfig {
+
+    private Map<String, DataSource> shards;
+
+
+    @Bean
+    @Primary
+    public DataSource dataSource(Environment environment, ShardRouter shardRouter) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards(environment, shardRouter)));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(Environment environment, ShardRouter shardRouter,
+                                                               @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        boolean updateSchema = ddlAuto.equals("none") == false && ddlAuto.equals("validate") == false;
+        ShardSchemaIntegrator integrator = new ShardSchemaIntegrator(shards(environment, shardRouter), shardRouter, updateSchema);
+
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> Collections.singletonList(integrator));
+    }
+
+    @Bean
+    public static ShardedRepositoryPostProcessor shardedRepositoryPostProcessor() {
+        return new ShardedRepositoryPostProcessor();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (shards != null)
+            for (DataSource dataSource : shards.values())
+                ((HikariDataSource) dataSource).close();
+    }
+
+    private synchronized Map<String, DataSource> shards(Environment environment, ShardRouter shardRouter) {
+        if (shards != null)
+            return shards;
+
+        shards = new LinkedHashMap<>();
+        for (String shard : shardRouter.shards()) {
+            String prefix = "app.sharding.shard." + shard + ".";
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(environment.getRequiredProperty(prefix + "url"))
+                    .username(environment.getProperty(prefix + "username", environment.getProperty("spring.datasource.username", "")))
+                    .password(environment.getProperty(prefix + "password", environment.getProperty("spring.datasource.password", "")))
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(environment.getProperty(prefix + "maximum-pool-size", Integer.class, 10));
+            // Spring Boot only instruments pools it can see as beans
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+            shards.put(shard, dataSource);
+        }
+        return shards;
+    }
+
+}
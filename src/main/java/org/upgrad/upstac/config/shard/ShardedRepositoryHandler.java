@@ -0,0 +1,462 @@
+package org.upgrad.upstac.config.shard;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.*;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlow;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Routes one repository call to the shard its data lives on:
+ *
+ * saves and deletes go to the shard of the entity's pinCode, or the chosen one for entities without a request,
+ * calls given a TestRequest go to that request's shard,
+ * calls made while a shard is chosen, for region-scoped queues, stay on it,
+ * lookups by id try the shards the id may be on until one has it,
+ * flush works on the caller's persistence context and runs in place,
+ * anything else is read from every shard and the results merged.
+ *
+ * Merged rows follow the Sort of the call, and a page is cut from every shard's rows up to
+ * its end. Return types the merge cannot combine are refused when the repository is wrapped.
+ *
+ * Reference repositories read from whichever shard is current and write to the default shard,
+ * ReferenceDataReplicator copies the written rows to the others.
+ */
+class ShardedRepositoryHandler implements InvocationHandler {
+
+    private final Object delegate;
+    private final Class<?> repository;
+    private final String referenceTable;
+    private final boolean reference;
+    private final boolean requests;
+    private final Supplier<ShardRouter> shardRouterSupplier;
+    private final Supplier<ReferenceDataReplicator> replicatorSupplier;
+
+    private volatile ShardRouter shardRouter;
+
+
+    // A reference table names the table a reference repository writes, sharded repositories have none
+    ShardedRepositoryHandler(Object delegate, Class<?> repository, String referenceTable, Supplier<ShardRouter> shardRouterSupplier,
+                             Supplier<ReferenceDataReplicator> replicatorSupplier) {
+        this.delegate = delegate;
+        this.repository = repository;
+        this.referenceTable = referenceTable;
+        this.reference = referenceTable != null;
+        this.requests = repository.getSimpleName().equals("TestRequestRepository");
+        this.shardRouterSupplier = shardRouterSupplier;
+        this.replicatorSupplier = replicatorSupplier;
+
+        if (reference == false)
+            checkMergeable(repository);
+    }
+
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            if (method.getName().equals("equals"))
+                return proxy == arguments[0];
+            if (method.getName().equals("hashCode"))
+                return System.identityHashCode(proxy);
+            return repository.getSimpleName() + " sharded over " + router().shards();
+        }
+
+        ShardRouter router = router();
+        if (router.isSharded() == false)
+            return call(method, arguments);
+
+        try {
+            return route(router, method, arguments);
+        } catch (UndeclaredCallException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object route(ShardRouter router, Method method, Object[] arguments) {
+        String name = method.getName();
+
+        if (reference)
+            return isWrite(name) ? writeReference(router, method, arguments) : callUnchecked(method, arguments);
+
+        if (runsInPlace(name))
+            return callUnchecked(method, arguments);
+
+        if (isWrite(name))
+            return write(router, method, arguments);
+
+        TestRequest testRequest = argumentOfType(arguments, TestRequest.class);
+        if (testRequest != null)
+            return onShard(router, router.shardOf(testRequest.getPinCode()), method, arguments);
+
+        if (ShardContext.current() != null)
+            return onShard(router, ShardContext.current(), method, arguments);
+
+        Long id = idArgument(name, arguments);
+        if (id != null)
+            return locate(router, id, requests || name.contains("RequestId"), method, arguments);
+
+        return scatter(router, method, arguments);
+    }
+
+    private Object write(ShardRouter router, Method method, Object[] arguments) {
+        if (arguments == null || arguments.length == 0) {
+            router.onEachShard(shard -> callUnchecked(method, arguments));
+            return null;
+        }
+
+        Object target = arguments[0];
+        if (target instanceof Iterable) {
+            Map<String, List<Object>> byShard = new LinkedHashMap<>();
+            for (Object entity : (Iterable<?>) target)
+                byShard.computeIfAbsent(shardOfEntity(router, entity), shard -> new ArrayList<>()).add(entity);
+
+            List<Object> saved = new ArrayList<>();
+            byShard.forEach((shard, entities) -> {
+                Object result = onShard(router, shard, method, new Object[]{entities});
+                if (result instanceof Iterable)
+                    ((Iterable<?>) result).forEach(saved::add);
+            });
+            return method.getReturnType() == void.class ? null : saved;
+        }
+
+        if (target instanceof Long) {
+            String shard = candidateHolding(router, (Long) target);
+            return onShard(router, shard == null ? router.homeShardOfId((Long) target) : shard, method, arguments);
+        }
+
+        return onShard(router, shardOfEntity(router, target), method, arguments);
+    }
+
+    private Object writeReference(ShardRouter router, Method method, Object[] arguments) {
+        Object result = router.onShard(router.defaultShard(), () -> callUnchecked(method, arguments));
+
+        ReferenceDataReplicator replicator = replicatorSupplier.get();
+        List<Long> ids = changedIds(method.getName(), arguments, result);
+        if (ids == null)
+            replicator.replicateAfterCompletion(referenceTable, null);
+        else
+            for (Long id : ids)
+                replicator.replicateAfterCompletion(referenceTable, id);
+        return result;
+    }
+
+    private Object locate(ShardRouter router, Long id, boolean requestId, Method method, Object[] arguments) {
+        Object result = null;
+        for (String shard : router.candidatesForId(id, requestId)) {
+            result = onShard(router, shard, method, arguments);
+            if (isFound(result))
+                return result;
+        }
+        return result;
+    }
+
+    // For deletes by id, which fail on a shard that does not have the row
+    private String candidateHolding(ShardRouter router, Long id) {
+        Method existsById = methodNamed("existsById");
+        for (String shard : router.candidatesForId(id, requests))
+            if (Boolean.TRUE.equals(onShard(router, shard, existsById, new Object[]{id})))
+                return shard;
+        return null;
+    }
+
+    private Object scatter(ShardRouter router, Method method, Object[] arguments) {
+        // Each shard's rows up to the end of the page, the page itself is cut from their merge
+        Object[] shardArguments = arguments;
+        Pageable pageable = argumentOfType(arguments, Pageable.class);
+        if (pageable != null && pageable.isPaged() && pageable.getOffset() > 0) {
+            shardArguments = arguments.clone();
+            shardArguments[Arrays.asList(arguments).indexOf(pageable)] = PageRequest.of(0, (int) (pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+        }
+
+        Object[] called = shardArguments;
+        List<ShardRouter.ShardResult<Object>> results = router.scatter(() -> callUnchecked(method, called));
+        for (ShardRouter.ShardResult<Object> result : results)
+            remember(router, result.getShard(), result.getValue());
+        return merge(method, arguments, results);
+    }
+
+    private Object onShard(ShardRouter router, String shard, Method method, Object[] arguments) {
+        Object result = router.onShard(shard, () -> callUnchecked(method, arguments));
+        remember(router, shard, result);
+        return result;
+    }
+
+    private Object merge(Method method, Object[] arguments, List<ShardRouter.ShardResult<Object>> results) {
+        Class<?> returnType = method.getReturnType();
+        List<Object> values = results.stream().map(ShardRouter.ShardResult::getValue).collect(Collectors.toList());
+
+        if (returnType == void.class)
+            return null;
+
+        if (returnType == Optional.class)
+            return values.stream().map(value -> (Optional<?>) value).filter(Optional::isPresent).findFirst().orElse(Optional.empty());
+
+        if (returnType == long.class || returnType == Long.class)
+            return values.stream().mapToLong(value -> value == null ? 0 : ((Number) value).longValue()).sum();
+
+        if (returnType == int.class || returnType == Integer.class)
+            return values.stream().mapToInt(value -> value == null ? 0 : ((Number) value).intValue()).sum();
+
+        if (returnType == boolean.class || returnType == Boolean.class)
+            return values.stream().anyMatch(Boolean.TRUE::equals);
+
+        if (isMultiple(returnType))
+            return mergeRows(returnType, arguments, values);
+
+        return values.stream().filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    private static Object mergeRows(Class<?> returnType, Object[] arguments, List<Object> values) {
+        List<Object> rows = new ArrayList<>();
+        long total = 0;
+        boolean more = false;
+        for (Object value : values) {
+            if (value instanceof Page)
+                total += ((Page<?>) value).getTotalElements();
+            if (value instanceof Slice)
+                more |= ((Slice<?>) value).hasNext();
+            if (value instanceof Stream)
+                ((Stream<?>) value).forEach(rows::add);
+            else if (value != null)
+                ((Iterable<?>) value).forEach(rows::add);
+        }
+
+        Pageable pageable = argumentOfType(arguments, Pageable.class);
+        Sort sort = pageable != null ? pageable.getSort() : argumentOfType(arguments, Sort.class);
+        if (sort != null && sort.isSorted())
+            rows.sort(comparatorOf(sort));
+        else if (pageable != null && pageable.isPaged())
+            // Unsorted pages are the keyset queries ordered by request id, the next page starts after the lowest ids
+            rows.sort(Comparator.comparing(ShardedRepositoryHandler::requestIdOf, Comparator.nullsLast(Comparator.<Long>naturalOrder())));
+
+        List<Object> page = rows;
+        if (pageable != null && pageable.isPaged()) {
+            int from = (int) Math.min(pageable.getOffset(), rows.size());
+            int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), rows.size());
+            more |= rows.size() > to;
+            page = new ArrayList<>(rows.subList(from, to));
+        }
+
+        if (Page.class.isAssignableFrom(returnType))
+            return new PageImpl<>(page, pageable == null ? Pageable.unpaged() : pageable, total);
+        if (Slice.class.isAssignableFrom(returnType))
+            return new SliceImpl<>(page, pageable == null ? Pageable.unpaged() : pageable, more);
+        if (returnType == Stream.class)
+            return page.stream();
+        if (Set.class.isAssignableFrom(returnType))
+            return new LinkedHashSet<>(page);
+        return page;
+    }
+
+    private static Comparator<Object> comparatorOf(Sort sort) {
+        Comparator<Object> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Object> byProperty = (left, right) -> compare(propertyOf(left, order.getProperty()), propertyOf(right, order.getProperty()), order);
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        return comparator;
+    }
+
+    // Nulls sort low unless the order says otherwise, as MySQL and H2 sort them
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right, Sort.Order order) {
+        if (left == null || right == null) {
+            if (left == right)
+                return 0;
+            if (order.getNullHandling() == Sort.NullHandling.NULLS_FIRST)
+                return left == null ? -1 : 1;
+            if (order.getNullHandling() == Sort.NullHandling.NULLS_LAST)
+                return left == null ? 1 : -1;
+            return (left == null ? -1 : 1) * (order.isAscending() ? 1 : -1);
+        }
+
+        int result = order.isIgnoreCase() && left instanceof String
+                ? ((String) left).compareToIgnoreCase((String) right)
+                : ((Comparable) left).compareTo(right);
+        return order.isAscending() ? result : -result;
+    }
+
+    private static Object propertyOf(Object row, String property) {
+        return row == null ? null : new BeanWrapperImpl(row).getPropertyValue(property);
+    }
+
+    /**
+     * Refuses return types the merge cannot combine across shards, such as arrays, maps,
+     * futures or sums other than long and int, so the application fails to start rather
+     * than the first call.
+     */
+    static void checkMergeable(Class<?> repository) {
+        for (Method method : repository.getMethods()) {
+            Class<?> returnType = method.getReturnType();
+            if (isMergeable(returnType) == false)
+                throw new IllegalStateException(repository.getSimpleName() + "." + method.getName() + " returns " + returnType.getSimpleName() +
+                        ", which cannot be merged across shards");
+        }
+    }
+
+    private static boolean isMergeable(Class<?> returnType) {
+        if (returnType.isPrimitive())
+            return returnType == void.class || returnType == long.class || returnType == int.class || returnType == boolean.class;
+        if (isMultiple(returnType) || returnType == Optional.class || returnType == Long.class || returnType == Integer.class || returnType == Boolean.class)
+            return true;
+
+        // Single rows, the first shard that has one answers
+        return returnType.isArray() == false && Iterable.class.isAssignableFrom(returnType) == false && Map.class.isAssignableFrom(returnType) == false &&
+                Number.class.isAssignableFrom(returnType) == false && Future.class.isAssignableFrom(returnType) == false;
+    }
+
+    private static boolean isMultiple(Class<?> returnType) {
+        return returnType == Iterable.class || returnType == Collection.class || returnType == List.class || returnType == Set.class ||
+                returnType == Stream.class || returnType == Page.class || returnType == Slice.class;
+    }
+
+    private void remember(ShardRouter router, String shard, Object result) {
+        if (requests == false || shard == null)
+            return;
+
+        if (result instanceof Optional)
+            result = ((Optional<?>) result).orElse(null);
+        if (result instanceof TestRequest)
+            router.remember(((TestRequest) result).getRequestId(), shard);
+        else if (result instanceof Collection)
+            for (Object element : (Collection<?>) result)
+                if (element instanceof TestRequest)
+                    router.remember(((TestRequest) element).getRequestId(), shard);
+    }
+
+    private String shardOfEntity(ShardRouter router, Object entity) {
+        TestRequest testRequest = null;
+        if (entity instanceof TestRequest)
+            testRequest = (TestRequest) entity;
+        else if (entity instanceof LabResult)
+            testRequest = ((LabResult) entity).getRequest();
+        else if (entity instanceof Consultation)
+            testRequest = ((Consultation) entity).getRequest();
+        else if (entity instanceof TestRequestFlow)
+            testRequest = ((TestRequestFlow) entity).getRequest();
+
+        // Rows referring to their request by id only are written where the caller chose
+        if (testRequest == null && ShardContext.current() != null)
+            return ShardContext.current();
+        if (testRequest == null)
+            throw new IllegalArgumentException("Cannot place " + entity + " on a shard, it has no test request");
+        return router.shardOf(testRequest.getPinCode());
+    }
+
+    // findById, existsById and the finders keyed on a request id
+    private Long idArgument(String name, Object[] arguments) {
+        boolean byId = name.equals("findById") || name.equals("existsById") || name.equals("getOne");
+        boolean byRequestId = name.contains("RequestId");
+        if (byId == false && byRequestId == false)
+            return null;
+        return argumentOfType(arguments, Long.class);
+    }
+
+    private static boolean isWrite(String name) {
+        return name.startsWith("save") || name.startsWith("delete");
+    }
+
+    // Not a query, it has to stay on the caller's thread and transaction
+    private static boolean runsInPlace(String name) {
+        return name.equals("flush");
+    }
+
+    private static boolean isFound(Object result) {
+        if (result instanceof Optional)
+            return ((Optional<?>) result).isPresent();
+        if (result instanceof Collection)
+            return ((Collection<?>) result).isEmpty() == false;
+        if (result instanceof Boolean)
+            return (Boolean) result;
+        return result != null;
+    }
+
+    // Ids of the saved or deleted rows, null when the call does not say, as for deleteAll() or deleteByUserName
+    private static List<Long> changedIds(String name, Object[] arguments, Object result) {
+        Object changed = name.startsWith("save") ? result : arguments == null || arguments.length == 0 ? null : arguments[0];
+        if (changed == null || changed instanceof String)
+            return null;
+
+        List<Long> ids = new ArrayList<>();
+        for (Object row : changed instanceof Iterable ? (Iterable<?>) changed : Collections.singletonList(changed)) {
+            Long id = row instanceof Long ? (Long) row : idOf(row);
+            if (id == null)
+                return null;
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static Long idOf(Object entity) {
+        try {
+            return (Long) entity.getClass().getMethod("getId").invoke(entity);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private static Long requestIdOf(Object row) {
+        try {
+            return (Long) row.getClass().getMethod("getRequestId").invoke(row);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static <T> T argumentOfType(Object[] arguments, Class<T> type) {
+        if (arguments != null)
+            for (Object argument : arguments)
+                if (type.isInstance(argument))
+                    return type.cast(argument);
+        return null;
+    }
+
+    private Method methodNamed(String name) {
+        for (Method method : repository.getMethods())
+            if (method.getName().equals(name) && method.getParameterCount() == 1)
+                return method;
+        throw new IllegalStateException(repository.getSimpleName() + " has no " + name);
+    }
+
+    private ShardRouter router() {
+        if (shardRouter == null)
+            shardRouter = shardRouterSupplier.get();
+        return shardRouter;
+    }
+
+    private Object call(Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(delegate, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object callUnchecked(Method method, Object[] arguments) {
+        try {
+            return call(method, arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredCallException(e);
+        }
+    }
+
+
+    private static class UndeclaredCallException extends RuntimeException {
+        UndeclaredCallException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+}
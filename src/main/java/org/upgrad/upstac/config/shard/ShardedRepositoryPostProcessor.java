@@ -0,0 +1,58 @@
+package org.upgrad.upstac.config.shard;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.attachments.LabAttachmentRepository;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowRepository;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.roles.RoleRepository;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Puts the sharding layer in front of the test request repositories, and sends writes through
+ * the user and role repositories to the default shard, from where they are copied to the others.
+ */
+public class ShardedRepositoryPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Class<?>[] SHARDED = {TestRequestRepository.class, LabResultRepository.class, ConsultationRepository.class, TestRequestFlowRepository.class, LabAttachmentRepository.class};
+
+    private static final Class<?>[] REFERENCE = {UserRepository.class, RoleRepository.class};
+    private static final String[] REFERENCE_TABLES = {ReferenceDataReplicator.USERS, ReferenceDataReplicator.ROLES};
+
+    private BeanFactory beanFactory;
+
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        for (Class<?> repository : SHARDED)
+            if (repository.isInstance(bean))
+                return wrap(repository, bean, null);
+
+        for (int i = 0; i < REFERENCE.length; i++)
+            if (REFERENCE[i].isInstance(bean))
+                return wrap(REFERENCE[i], bean, REFERENCE_TABLES[i]);
+
+        return bean;
+    }
+
+    private Object wrap(Class<?> repository, Object bean, String referenceTable) {
+        if (Proxy.isProxyClass(bean.getClass()) && Proxy.getInvocationHandler(bean) instanceof ShardedRepositoryHandler)
+            return bean;
+
+        // Looked up on first use, the router's transaction manager needs the repositories' EntityManagerFactory
+        ShardedRepositoryHandler handler = new ShardedRepositoryHandler(bean, repository, referenceTable,
+                () -> beanFactory.getBean(ShardRouter.class), () -> beanFactory.getBean(ReferenceDataReplicator.class));
+        return Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository}, handler);
+    }
+
+}
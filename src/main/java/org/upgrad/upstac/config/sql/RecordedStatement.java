@@ -0,0 +1,13 @@
+package org.upgrad.upstac.config.sql;
+
+import lombok.Value;
+
+@Value
+public class RecordedStatement {
+
+    String sql;
+
+    // Repository method that issued the statement, null for JdbcTemplate and Hibernate internals
+    String repositoryMethod;
+
+}
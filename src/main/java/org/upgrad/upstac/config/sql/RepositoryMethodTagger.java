@@ -0,0 +1,36 @@
+package org.upgrad.upstac.config.sql;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Names the repository method behind each recorded statement, e.g. LabResultRepository.findByTester.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.sql.statement-counting", havingValue = "true")
+public class RepositoryMethodTagger {
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object tag(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (SqlStatementRecorder.isRecording() == false)
+            return joinPoint.proceed();
+
+        String previous = SqlStatementRecorder.enterRepositoryMethod(repositoryName(joinPoint.getThis()) + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SqlStatementRecorder.exitRepositoryMethod(previous);
+        }
+    }
+
+    private static String repositoryName(Object repository) {
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(repository);
+        return interfaces.length > 0 ? interfaces[0].getSimpleName() : repository.getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.upgrad.upstac.config.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statements executed on one thread between SqlStatementRecorder.start() and stop(),
+ * and on the threads that joined it meanwhile.
+ */
+public class SqlRecording {
+
+    private final List<RecordedStatement> statements = new ArrayList<>();
+
+
+    synchronized void add(RecordedStatement statement) {
+        statements.add(statement);
+    }
+
+    public synchronized int getCount() {
+        return statements.size();
+    }
+
+    public synchronized List<RecordedStatement> getStatements() {
+        return Collections.unmodifiableList(new ArrayList<>(statements));
+    }
+
+    public synchronized String describe() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < statements.size(); i++) {
+            RecordedStatement statement = statements.get(i);
+            description.append(i + 1).append(". ");
+            if (statement.getRepositoryMethod() != null)
+                description.append('[').append(statement.getRepositoryMethod()).append("] ");
+            description.append(statement.getSql()).append('\n');
+        }
+        return description.toString();
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.upgrad.upstac.config.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Counts the statements each HTTP request executes and logs the ones over budget
+ * together with the statements they ran.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sql.statement-counting", havingValue = "true")
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    @Value("${app.sql.statement-warn-threshold:20}")
+    private int warnThreshold;
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementCountFilter.class);
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlRecording recording = SqlStatementRecorder.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementRecorder.stop(recording);
+
+            if (recording.getCount() > warnThreshold)
+                log.warn(request.getMethod() + " " + request.getRequestURI() + " executed " + recording.getCount() + " statements\n" + recording.describe());
+            else if (log.isDebugEnabled())
+                log.debug(request.getMethod() + " " + request.getRequestURI() + " executed " + recording.getCount() + " statements");
+        }
+    }
+
+}
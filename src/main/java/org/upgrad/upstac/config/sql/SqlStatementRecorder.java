@@ -0,0 +1,87 @@
+package org.upgrad.upstac.config.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-bound collection of executed JDBC statements.
+ *
+ * Recordings nest, a statement counts towards every recording open on the thread, so an
+ * HTTP request recording and a test's recording around a MockMvc call both see it.
+ * When nothing is recording the only cost per statement is a thread-local lookup.
+ */
+public final class SqlStatementRecorder {
+
+    private static final ThreadLocal<List<SqlRecording>> recordings = ThreadLocal.withInitial(ArrayList::new);
+    private static final ThreadLocal<String> repositoryMethod = new ThreadLocal<>();
+
+
+    private SqlStatementRecorder() {
+    }
+
+
+    public static SqlRecording start() {
+        SqlRecording recording = new SqlRecording();
+        recordings.get().add(recording);
+        return recording;
+    }
+
+    public static void stop(SqlRecording recording) {
+        List<SqlRecording> active = recordings.get();
+        active.remove(recording);
+        if (active.isEmpty())
+            recordings.remove();
+    }
+
+    public static boolean isRecording() {
+        return recordings.get().isEmpty() == false;
+    }
+
+    /**
+     * The recordings open on this thread, for work it hands to another thread to continue with join().
+     */
+    public static List<SqlRecording> current() {
+        return new ArrayList<>(recordings.get());
+    }
+
+    // Returns what was recording on this thread before, to be put back with leave()
+    public static List<SqlRecording> join(List<SqlRecording> joined) {
+        List<SqlRecording> previous = recordings.get();
+        recordings.set(new ArrayList<>(joined));
+        return previous;
+    }
+
+    public static void leave(List<SqlRecording> previous) {
+        if (previous.isEmpty())
+            recordings.remove();
+        else
+            recordings.set(previous);
+    }
+
+    static void record(String sql) {
+        List<SqlRecording> active = recordings.get();
+        if (active.isEmpty())
+            return;
+
+        RecordedStatement statement = new RecordedStatement(sql, repositoryMethod.get());
+        for (SqlRecording recording : active)
+            recording.add(statement);
+    }
+
+    /**
+     * Tags statements with the given repository method until the returned previous tag is restored.
+     */
+    static String enterRepositoryMethod(String method) {
+        String previous = repositoryMethod.get();
+        repositoryMethod.set(method);
+        return previous;
+    }
+
+    static void exitRepositoryMethod(String previous) {
+        if (previous == null)
+            repositoryMethod.remove();
+        else
+            repositoryMethod.set(previous);
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.upgrad.upstac.config.sql;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.upgrad.upstac.config.timing.RequestTiming;
+import org.upgrad.upstac.config.timing.TimingPhase;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+/**
+ * Hands out connections whose statements report every execution to SqlStatementRecorder.
+ * A batch counts as one statement, it is one round-trip. Execution time goes to the
+ * request's db timing.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, arguments) -> {
+                    Object result = invoke(connection, method, arguments);
+                    if (result instanceof Statement) {
+                        String preparedSql = arguments != null && arguments.length > 0 && arguments[0] instanceof String ? (String) arguments[0] : null;
+                        return countingStatement((Statement) result, preparedSql);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement countingStatement(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+
+        InvocationHandler handler = (proxy, method, arguments) -> {
+            if (method.getName().startsWith("execute") == false)
+                return invoke(statement, method, arguments);
+
+            String sql = arguments != null && arguments.length > 0 && arguments[0] instanceof String ? (String) arguments[0] : preparedSql;
+            SqlStatementRecorder.record(sql);
+
+            long began = System.nanoTime();
+            try {
+                return invoke(statement, method, arguments);
+            } finally {
+                RequestTiming.end(TimingPhase.DB, began);
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package org.upgrad.upstac.config.sql;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every DataSource so SqlStatementRecorder sees its statements. Only with
+ * app.sql.statement-counting=true, the statement budget tests and profiling turn it on.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sql.statement-counting", havingValue = "true")
+public class StatementCountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && bean instanceof StatementCountingDataSource == false)
+            return new StatementCountingDataSource((DataSource) bean);
+        return bean;
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.upgrad.upstac.config.startup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BeanTiming {
+
+    private String name;
+    private String type;
+
+    // Since the JVM started
+    private long startedAtMillis;
+
+    // Including the beans it pulled in, and without them
+    private double totalMillis;
+    private double selfMillis;
+
+}
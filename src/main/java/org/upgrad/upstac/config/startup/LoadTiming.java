@@ -0,0 +1,22 @@
+package org.upgrad.upstac.config.startup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LoadTiming {
+
+    private String name;
+
+    // On a background thread, the application took traffic while it ran
+    private boolean background;
+
+    // Since the JVM started
+    private long startedAtMillis;
+
+    private long millis;
+
+    private boolean failed;
+
+}
@@ -0,0 +1,28 @@
+package org.upgrad.upstac.config.startup;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/startup")
+public class StartupController {
+
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public StartupReport getReport(@RequestParam(defaultValue = "50") int limit) {
+
+        return startupTimeline.report(limit);
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.upgrad.upstac.config.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the loads that fill in-memory state once the application is ready, timed in the
+ * startup timeline. They run on the main thread, delaying readiness until they are done,
+ * unless app.startup.load-async, which the fast-startup profile turns on: then each runs
+ * on a thread of its own and the application takes traffic meanwhile, with the state
+ * filling in as the load finishes.
+ *
+ * Only loads that keep up with changes made while they run belong here.
+ */
+@Component
+public class StartupLoads {
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+    @Value("${app.startup.load-async:false}")
+    private boolean loadAsync;
+
+    private static final Logger log = LoggerFactory.getLogger(StartupLoads.class);
+
+
+    public void run(String name, Runnable load) {
+        if (loadAsync == false) {
+            timed(name, load);
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                timed(name, load);
+            } catch (RuntimeException e) {
+                log.error("Startup load " + name + " failed", e);
+            }
+        }, "load-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void timed(String name, Runnable load) {
+        long startedAt = System.currentTimeMillis();
+        boolean failed = true;
+        try {
+            load.run();
+            failed = false;
+        } finally {
+            long millis = System.currentTimeMillis() - startedAt;
+            startupTimeline.loaded(new LoadTiming(name, loadAsync, startedAt - startupTimeline.jvmStartMillis(), millis, failed));
+            log.info("Startup load " + name + (failed ? " failed" : " done") + " in " + millis + " ms" + (loadAsync ? " in the background" : ""));
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.upgrad.upstac.config.startup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class StartupReport {
+
+    // From JVM start, null until the application is ready
+    private Long readyAfterMillis;
+    // Once the ready listeners are done, null until then
+    private Long acceptingTrafficAfterMillis;
+
+    private int beanCount;
+    private double beanMillis;
+
+    // Slowest first by their own time
+    private List<BeanTiming> slowestBeans;
+
+    // In the order they finished
+    private List<LoadTiming> loads;
+
+}
@@ -0,0 +1,147 @@
+package org.upgrad.upstac.config.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Times the creation of every bean, from instantiation to the end of its initialization.
+ * A bean's total includes the beans it pulled in while being created, its self time does
+ * not, so the slowest self times are where startup goes.
+ *
+ * Registered first among the post processors so it sees nearly every bean. Beans are
+ * created on the main thread, creations on other threads get a stack of their own.
+ *
+ * Ready is when the application started, before the other ready listeners ran. It accepts
+ * traffic once they are done, which includes the StartupLoads run on the main thread.
+ */
+@Component
+public class StartupTimeline implements InstantiationAwareBeanPostProcessor, PriorityOrdered, ApplicationListener<ApplicationReadyEvent> {
+
+    private static final int LOGGED_BEANS = 20;
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final ThreadLocal<Deque<Creation>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final List<BeanTiming> timings = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<LoadTiming> loads = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile Long readyAfterMillis;
+    private volatile Long acceptingTrafficAfterMillis;
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeline.class);
+
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        // Beans created once running, prototypes and the like, are not startup
+        if (readyAfterMillis != null)
+            return null;
+
+        creating.get().push(new Creation(beanName, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Creation> stack = creating.get();
+
+        // Objects made by factory beans come through here without being instantiated as beans
+        if (stack.stream().noneMatch(creation -> creation.name.equals(beanName)))
+            return bean;
+
+        // Creations above it failed or were short-circuited, they do not count
+        Creation creation = stack.pop();
+        while (creation.name.equals(beanName) == false)
+            creation = stack.pop();
+
+        long total = System.nanoTime() - creation.startedAt;
+        if (stack.isEmpty() == false)
+            stack.peek().nested += total;
+
+        timings.add(new BeanTiming(beanName, bean.getClass().getName(),
+                System.currentTimeMillis() - total / 1_000_000 - jvmStartMillis,
+                total / 1e6, (total - creation.nested) / 1e6));
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        readyAfterMillis = System.currentTimeMillis() - jvmStartMillis;
+
+        StartupReport report = report(LOGGED_BEANS);
+        StringBuilder slowest = new StringBuilder();
+        for (BeanTiming timing : report.getSlowestBeans())
+            slowest.append(String.format("%n  %8.1f ms  %8.1f ms total  %s", timing.getSelfMillis(), timing.getTotalMillis(), timing.getName()));
+
+        log.info("Ready " + readyAfterMillis + " ms after JVM start, " + report.getBeanCount() + " beans took "
+                + Math.round(report.getBeanMillis()) + " ms, slowest by own time:" + slowest);
+    }
+
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || acceptingTrafficAfterMillis != null)
+            return;
+
+        acceptingTrafficAfterMillis = System.currentTimeMillis() - jvmStartMillis;
+        Long ready = readyAfterMillis;
+        log.info("Accepting traffic " + acceptingTrafficAfterMillis + " ms after JVM start" + (ready == null ? "" : ", " + (acceptingTrafficAfterMillis - ready) + " ms after ready"));
+    }
+
+    void loaded(LoadTiming load) {
+        loads.add(load);
+    }
+
+    long jvmStartMillis() {
+        return jvmStartMillis;
+    }
+
+    public StartupReport report(int limit) {
+        List<BeanTiming> all;
+        synchronized (timings) {
+            all = new ArrayList<>(timings);
+        }
+        List<LoadTiming> loaded;
+        synchronized (loads) {
+            loaded = new ArrayList<>(loads);
+        }
+
+        double beanMillis = all.stream().mapToDouble(BeanTiming::getSelfMillis).sum();
+        List<BeanTiming> slowest = all.stream()
+                .sorted(Comparator.comparingDouble(BeanTiming::getSelfMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+        return new StartupReport(readyAfterMillis, acceptingTrafficAfterMillis, all.size(), beanMillis, slowest, loaded);
+    }
+
+    private static class Creation {
+
+        private final String name;
+        private final long startedAt;
+        private long nested;
+
+        private Creation(String name, long startedAt) {
+            this.name = name;
+            this.startedAt = startedAt;
+        }
+    }
+
+}
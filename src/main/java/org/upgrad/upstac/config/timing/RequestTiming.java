@@ -0,0 +1,113 @@
+package org.upgrad.upstac.config.timing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Time spent in each phase of the HTTP request the current thread is serving.
+ *
+ * Code timing a phase takes System.nanoTime() before it and calls end() after. Outside a
+ * request, on background threads or in tests, end() only costs a thread-local lookup.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final TimingPhase[] PHASES = TimingPhase.values();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    // The caller asked for the Server-Timing header, see ServerTimingFilter
+    private boolean headerRequested;
+
+
+    private RequestTiming() {
+    }
+
+
+    public static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    void requestHeader() {
+        headerRequested = true;
+    }
+
+    boolean isHeaderRequested() {
+        return headerRequested;
+    }
+
+    // Adds the span from began, a System.nanoTime(), to now
+    public static void end(TimingPhase phase, long began) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null)
+            timing.add(phase, System.nanoTime() - began);
+    }
+
+    void add(TimingPhase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+        counts[phase.ordinal()]++;
+    }
+
+    public double totalMillis() {
+        return (System.nanoTime() - startedAt) / 1e6;
+    }
+
+    public double millisOf(TimingPhase phase) {
+        return nanos[phase.ordinal()] / 1e6;
+    }
+
+    public int countOf(TimingPhase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    // Milliseconds per phase that ran, by Server-Timing name
+    public Map<String, Double> toMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (TimingPhase phase : PHASES)
+            if (counts[phase.ordinal()] > 0)
+                millis.put(phase.getMetricName(), round(millisOf(phase)));
+        return millis;
+    }
+
+    /**
+     * e.g. auth;dur=1.2;desc="JWT authentication", db;dur=3.4;desc="JDBC execution, 5 calls", total;dur=9.8
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (TimingPhase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0)
+                continue;
+
+            header.append(phase.getMetricName())
+                    .append(";dur=").append(format(millisOf(phase)))
+                    .append(";desc=\"").append(phase.getDescription());
+            if (count > 1)
+                header.append(", ").append(count).append(" calls");
+            header.append("\", ");
+        }
+        return header.append("total;dur=").append(format(totalMillis())).toString();
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 10) / 10.0;
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.upgrad.upstac.config.timing;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    // Same ObjectMapper and media types, serialization is timed
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++)
+            if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class)
+                converters.set(i, new TimedJacksonHttpMessageConverter(((MappingJackson2HttpMessageConverter) converters.get(i)).getObjectMapper()));
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.upgrad.upstac.config.timing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Times each request's phases and keeps the slow ones in the SlowRequestLog. Runs just
+ * outside Spring Security so authentication is timed.
+ *
+ * With app.timing.header the phases are also returned in a Server-Timing header, only to
+ * callers asking for it with an X-Server-Timing request header who are authenticated as
+ * GOVERNMENT_AUTHORITY, so timings of logins and other users' requests are not handed out.
+ * The header is decided when the body is first written, responses without one go without.
+ *
+ * Async requests, the event streams and streamed exports, are timed up to the end of their
+ * first dispatch and are not logged as slow.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    static final String OPT_IN_HEADER = "X-Server-Timing";
+    private static final String REPORTED_ROLE = "ROLE_GOVERNMENT_AUTHORITY";
+
+    @Value("${app.timing.header:false}")
+    private boolean header;
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        ServerTimingResponse timedResponse = null;
+        if (header && request.getHeader(OPT_IN_HEADER) != null) {
+            timing.requestHeader();
+            timedResponse = new ServerTimingResponse(response, timing);
+        }
+        try {
+            filterChain.doFilter(request, timedResponse == null ? response : timedResponse);
+        } finally {
+            RequestTiming.stop();
+
+            double totalMillis = timing.totalMillis();
+            if (request.isAsyncStarted() == false && slowRequestLog.isSlow(totalMillis)) {
+                slowRequestLog.add(new SlowRequest(Instant.now(), request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        request.getRemoteUser(), Math.round(totalMillis * 10) / 10.0, timing.toMillis(), timing.countOf(TimingPhase.DB)));
+                log.info("Slow request " + request.getMethod() + " " + request.getRequestURI() + ", " + timing.toServerTiming());
+            }
+        }
+    }
+
+    // Only while Spring Security has the caller's authentication, on the request's thread
+    static boolean isReported(RequestTiming timing) {
+        if (timing == null || timing.isHeaderRequested() == false)
+            return false;
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() && authentication.getAuthorities().stream()
+                .anyMatch(authority -> REPORTED_ROLE.equals(authority.getAuthority()));
+    }
+
+}
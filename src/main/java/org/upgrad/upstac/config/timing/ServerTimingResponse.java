@@ -0,0 +1,70 @@
+package org.upgrad.upstac.config.timing;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Adds the Server-Timing header at the last moment headers can still change, when the body
+ * is first asked for or the response is sent some other way, if the caller may see it.
+ */
+class ServerTimingResponse extends HttpServletResponseWrapper {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final RequestTiming timing;
+    private boolean written;
+
+
+    ServerTimingResponse(HttpServletResponse response, RequestTiming timing) {
+        super(response);
+        this.timing = timing;
+    }
+
+
+    void writeHeader() {
+        if (written || isCommitted() || ServerTimingFilter.isReported(timing) == false)
+            return;
+        written = true;
+        setHeader(SERVER_TIMING, timing.toServerTiming());
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        writeHeader();
+        return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        writeHeader();
+        return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        writeHeader();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        writeHeader();
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        writeHeader();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        writeHeader();
+        super.sendRedirect(location);
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.upgrad.upstac.config.timing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class SlowRequest {
+
+    private Instant finishedAt;
+    private String method;
+    private String uri;
+    private int status;
+    private String user;
+
+    private double totalMillis;
+
+    // By Server-Timing name
+    private Map<String, Double> phaseMillis;
+    private int statements;
+
+}
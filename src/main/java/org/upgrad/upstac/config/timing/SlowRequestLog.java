@@ -0,0 +1,53 @@
+package org.upgrad.upstac.config.timing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last capacity requests that took threshold-ms or longer, in a ring that overwrites
+ * the oldest. Requests under the threshold cost one comparison.
+ */
+@Component
+public class SlowRequestLog {
+
+    private final SlowRequest[] entries;
+    private final double thresholdMillis;
+
+    private int next;
+    private long recorded;
+
+
+    public SlowRequestLog(@Value("${app.timing.slow.capacity:200}") int capacity,
+                          @Value("${app.timing.slow.threshold-ms:500}") double thresholdMillis) {
+        this.entries = new SlowRequest[capacity];
+        this.thresholdMillis = thresholdMillis;
+    }
+
+
+    public boolean isSlow(double totalMillis) {
+        return totalMillis >= thresholdMillis;
+    }
+
+    public synchronized void add(SlowRequest slowRequest) {
+        entries[next] = slowRequest;
+        next = (next + 1) % entries.length;
+        recorded++;
+    }
+
+    // Newest first
+    public synchronized List<SlowRequest> recent() {
+        int size = (int) Math.min(recorded, entries.length);
+        List<SlowRequest> recent = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++)
+            recent.add(entries[(next - i + entries.length) % entries.length]);
+        return recent;
+    }
+
+    public synchronized long getRecorded() {
+        return recorded;
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.upgrad.upstac.config.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Times JSON serialization. For responses getting a Server-Timing header the body is
+ * serialized into memory first, so the time it took is known before the first byte commits
+ * the response. Other responses are written straight out and their time includes writing.
+ * Large lists should be streamed (?stream=true), which does not go through message converters.
+ */
+class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private static final int INITIAL_BUFFER = 8 * 1024;
+
+
+    TimedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        long began = System.nanoTime();
+        if (ServerTimingFilter.isReported(timing) == false) {
+            super.writeInternal(object, type, outputMessage);
+            RequestTiming.end(TimingPhase.SERIALIZATION, began);
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_BUFFER);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        RequestTiming.end(TimingPhase.SERIALIZATION, began);
+
+        buffer.writeTo(outputMessage.getBody());
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.upgrad.upstac.config.timing;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/timing")
+public class TimingController {
+
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+
+    @GetMapping("/slow-requests")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<SlowRequest> getSlowRequests() {
+
+        return slowRequestLog.recent();
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.upgrad.upstac.config.timing;
+
+/**
+ * Parts of a request timed for the Server-Timing header. They overlap, the user lookup is
+ * part of auth and statements run inside the service layer.
+ */
+public enum TimingPhase {
+
+    AUTH("auth", "JWT authentication"),
+    USER("user", "User lookup"),
+    SERVICE("svc", "Service layer"),
+    DB("db", "JDBC execution"),
+    SERIALIZATION("ser", "Response serialization");
+
+    private final String metricName;
+    private final String description;
+
+
+    TimingPhase(String metricName, String description) {
+        this.metricName = metricName;
+        this.description = description;
+    }
+
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+}
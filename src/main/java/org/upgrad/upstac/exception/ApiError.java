@@ -0,0 +1,20 @@
+package org.upgrad.upstac.exception;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+// The body Spring Boot's error controller returns, with the catalogue code added
+@Getter
+@AllArgsConstructor
+public class ApiError {
+
+    private Instant timestamp;
+    private int status;
+    private String error;
+    private String code;
+    private String message;
+    private String path;
+
+}
@@ -0,0 +1,27 @@
+package org.upgrad.upstac.exception;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Instant;
+
+/**
+ * Answers AppExceptions from any controller with their code's status, in place of every
+ * controller wrapping them into a ResponseStatusException. The body is written here, not
+ * by a second dispatch to /error.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(AppException.class)
+    public ResponseEntity<ApiError> handle(AppException e, HttpServletRequest request) {
+        ErrorCode code = e.getErrorCode();
+        String message = e.getMessage() == null ? code.getMessage() : e.getMessage();
+
+        return ResponseEntity.status(code.getStatus())
+                .body(new ApiError(Instant.now(), code.getStatus().value(), code.getStatus().getReasonPhrase(), code.name(), message, request.getRequestURI()));
+    }
+
+}
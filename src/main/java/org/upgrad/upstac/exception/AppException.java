@@ -1,21 +1,46 @@
 package org.upgrad.upstac.exception;
 
+/**
+ * An expected business outcome, mapped to its ErrorCode's status by ApiExceptionHandler.
+ *
+ * These are thrown on routine paths, rejected transitions and duplicate registrations, so
+ * they are stackless: filling in a stack trace is most of the cost of an exception, and
+ * the code and message already say where it came from. A cause keeps its own stack trace.
+ */
 public class AppException extends RuntimeException {
+
+    private final ErrorCode errorCode;
+
+
+    public AppException(ErrorCode errorCode, String message) {
+        this(errorCode, message, null);
+    }
+
+    public AppException(ErrorCode errorCode, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.errorCode = errorCode;
+    }
+
     public AppException() {
-        super();
+        this(ErrorCode.INVALID_REQUEST, null, null);
     }
 
 
     public AppException(String message) {
-        super(message);
+        this(ErrorCode.INVALID_REQUEST, message, null);
     }
 
 
     public AppException(String message, Throwable cause) {
-        super(message, cause);
+        this(ErrorCode.INVALID_REQUEST, message, cause);
     }
 
     public AppException(Throwable cause) {
-        super(cause);
+        this(ErrorCode.INVALID_REQUEST, cause == null ? null : cause.toString(), cause);
+    }
+
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
     }
 }
@@ -0,0 +1,84 @@
+package org.upgrad.upstac.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected business outcomes with their HTTP status and message. Each code keeps one
+ * precomputed exception, thrown as is when the message needs no detail:
+ *
+ *   orElseThrow(ErrorCode.INVALID_ID::exception)
+ *   throw ErrorCode.USERNAME_EXISTS.exception(user.getUserName());
+ */
+public enum ErrorCode {
+
+    INVALID_REQUEST(HttpStatus.BAD_REQUEST, "Invalid request"),
+    INVALID_INPUT(HttpStatus.BAD_REQUEST, "Invalid Input"),
+    INVALID_DATE(HttpStatus.BAD_REQUEST, "Invalid Date String"),
+    INVALID_ID(HttpStatus.BAD_REQUEST, "Invalid ID"),
+    INVALID_ID_OR_STATE(HttpStatus.BAD_REQUEST, "Invalid ID or State"),
+    INVALID_USER_ID(HttpStatus.BAD_REQUEST, "Invalid User ID"),
+    INVALID_ATTACHMENT_ID(HttpStatus.BAD_REQUEST, "Invalid attachment ID"),
+    INVALID_ROLE(HttpStatus.BAD_REQUEST, "Invalid Role"),
+    INVALID_BLOOD_PRESSURE(HttpStatus.BAD_REQUEST, "Systolic pressure must be above diastolic pressure"),
+    USERNAME_EXISTS(HttpStatus.BAD_REQUEST, "Username already exists"),
+    EMAIL_EXISTS(HttpStatus.BAD_REQUEST, "User with Same email already exists"),
+    PHONE_NUMBER_EXISTS(HttpStatus.BAD_REQUEST, "User with Same Phone number already exists"),
+    USER_DATA_EXISTS(HttpStatus.BAD_REQUEST, "User with same data Already exists, Email/Phone should be unique"),
+    REQUEST_IN_PROGRESS(HttpStatus.BAD_REQUEST, "A Request with same PhoneNumber or Email is already in progress"),
+    USER_NOT_APPROVED(HttpStatus.FORBIDDEN, "User Not Approved"),
+    NOT_ENABLED(HttpStatus.BAD_REQUEST, "Not enabled"),
+    INVALID_PAGE(HttpStatus.BAD_REQUEST, "Page should be positive and size between 1 and"),
+    INVALID_DATE_RANGE(HttpStatus.BAD_REQUEST, "from must not be after to"),
+    INVALID_OXYGEN_THRESHOLD(HttpStatus.BAD_REQUEST, "Oxygen saturation threshold must be between 0 and 100"),
+    INVALID_PIN_CODE_PREFIX(HttpStatus.BAD_REQUEST, "PinCode prefix must be one to six digits"),
+    UNKNOWN_SHARD(HttpStatus.BAD_REQUEST, "Unknown shard"),
+    SEARCH_CRITERIA_REQUIRED(HttpStatus.BAD_REQUEST, "Provide a search text, status or pinCode"),
+    UNREADABLE_UPLOAD(HttpStatus.BAD_REQUEST, "Could not read"),
+    CSV_HEADER_MISSING(HttpStatus.BAD_REQUEST, "CSV files must start with a header naming a requestId column"),
+    JSON_ARRAY_EXPECTED(HttpStatus.BAD_REQUEST, "JSON files must hold an array of results"),
+    NO_LAB_TEST(HttpStatus.BAD_REQUEST, "Request has no lab test to attach to"),
+    FILE_NAME_REQUIRED(HttpStatus.BAD_REQUEST, "File name is required"),
+    ATTACHMENT_EMPTY(HttpStatus.BAD_REQUEST, "Attachment is empty"),
+    ATTACHMENT_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "Attachments can be at most"),
+    ATTACHMENT_CONTENT_MISSING(HttpStatus.NOT_FOUND, "Attachment content is missing"),
+    REPORT_NOT_READY(HttpStatus.BAD_REQUEST, "Reports are only available for COMPLETED requests"),
+    REPORT_NOT_FOUND(HttpStatus.NOT_FOUND, "No such report"),
+    DAY_NOT_RETAINED(HttpStatus.BAD_REQUEST, "Counts by pinCode and day are not kept for that day"),
+    AUDIT_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Audit log is busy, try again");
+
+    private final HttpStatus status;
+    private final String message;
+
+    private AppException exception;
+
+
+    ErrorCode(HttpStatus status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    static {
+        for (ErrorCode code : values())
+            code.exception = new AppException(code, code.message);
+    }
+
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // Shared, an AppException carries no stack trace or suppressed exceptions to change
+    public AppException exception() {
+        return exception;
+    }
+
+    // The message followed by detail, e.g. the clashing user name
+    public AppException exception(Object detail) {
+        return new AppException(this, message + " " + detail);
+    }
+
+}
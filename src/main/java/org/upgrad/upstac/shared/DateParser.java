@@ -1,7 +1,8 @@
 package org.upgrad.upstac.shared;
 
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -18,10 +19,8 @@ public class DateParser {
             String pattern = "yyyy-MM-dd";
             SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern);
             return asLocalDate(simpleDateFormat.parse(input));
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new AppException("Invalid Date String" + input);
-
+        } catch (ParseException | RuntimeException e) {
+            throw ErrorCode.INVALID_DATE.exception(input);
         }
 
 
@@ -41,7 +40,7 @@ public class DateParser {
     public static LocalDate asLocalDate(Date input) {
         return Optional.ofNullable(input)
                 .map(date -> Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate())
-                .orElseThrow(() -> new AppException("Invalid Input"));
+                .orElseThrow(ErrorCode.INVALID_INPUT::exception);
 
     }
 
@@ -49,7 +48,7 @@ public class DateParser {
 
         return Optional.ofNullable(input)
                 .map(date -> Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()))
-                .orElseThrow(() -> new AppException("Invalid Input"));
+                .orElseThrow(ErrorCode.INVALID_INPUT::exception);
 
     }
 
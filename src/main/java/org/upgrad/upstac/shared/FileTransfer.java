@@ -0,0 +1,61 @@
+package org.upgrad.upstac.shared;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sends part of a file as the response body without copying it through the heap. Tomcat
+ * hands the file to sendfile once the headers are written when it supports it, otherwise
+ * FileChannel.transferTo writes it to the response. Status and headers are set by the caller.
+ *
+ * A file shorter than the part asked for fails with an EOFException, before the response is
+ * started when that is already the case, otherwise leaving it short of its Content-Length.
+ */
+public final class FileTransfer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileTransfer() {
+    }
+
+
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file, long start, long length) throws IOException {
+        long size = Files.size(file);
+        if (start + length > size)
+            throw new EOFException(file + " has " + size + " bytes, " + (start + length) + " were to be sent");
+
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()))
+            return;
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+            long sent = 0;
+            while (sent < length) {
+                long transferred = channel.transferTo(start + sent, length - sent, body);
+                if (transferred == 0 && start + sent >= channel.size())
+                    throw new EOFException(file + " was cut to " + channel.size() + " bytes while " + (start + length) + " were being sent");
+                sent += transferred;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.upgrad.upstac.shared;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes rows to the response as one JSON array page by page, instead of collecting a List
+ * and serializing it in one go.
+ *
+ * Pages are read by key, the rows after the last one written, each in its own short
+ * read-only transaction that also serializes them. The connection is back in the pool
+ * before the page goes out, so a slow client holds a buffer of app.streaming.batch-size
+ * rows and no database resources. The first row is read and flushed on its own so clients
+ * see data as soon as the query returns it.
+ */
+@Component
+public class JsonArrayStreamer {
+
+    /**
+     * Rows with ids above afterId in id order, at most size of them.
+     */
+    public interface KeysetPage<T> {
+        List<T> after(long afterId, int size);
+    }
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private static Logger logger = LoggerFactory.getLogger(JsonArrayStreamer.class);
+
+
+    @Autowired
+    public JsonArrayStreamer(PlatformTransactionManager transactionManager, EntityManager entityManager, ObjectMapper objectMapper,
+                             @Value("${app.streaming.batch-size:500}") int batchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setName(JsonArrayStreamer.class.getName() + ".stream");
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(Class<T> type, ToLongFunction<T> idOf, KeysetPage<T> page) {
+        StreamingResponseBody body = outputStream -> write(type, idOf, page, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    public <T> long write(Class<T> type, ToLongFunction<T> idOf, KeysetPage<T> page, OutputStream outputStream) throws IOException {
+        long started = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(type);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        long written = 0;
+        long afterId = 0;
+        int size = 1;
+        outputStream.write('[');
+        while (true) {
+            buffer.reset();
+            List<T> rows = readPage(writer, page, afterId, size, written > 0, buffer);
+
+            buffer.writeTo(outputStream);
+            outputStream.flush();
+            written += rows.size();
+
+            if (rows.size() < size)
+                break;
+            afterId = idOf.applyAsLong(rows.get(rows.size() - 1));
+            size = batchSize;
+        }
+        outputStream.write(']');
+        outputStream.flush();
+
+        logger.debug("Streamed " + written + " " + type.getSimpleName() + " rows in " + (System.currentTimeMillis() - started) + " ms");
+        return written;
+    }
+
+    private <T> List<T> readPage(ObjectWriter writer, KeysetPage<T> page, long afterId, int size, boolean separateFirst, ByteArrayOutputStream buffer) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<T> rows = page.after(afterId, size);
+                try {
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0 || separateFirst)
+                            buffer.write(',');
+                        writer.writeValue(buffer, rows.get(i));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.clear();
+                return rows;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+}
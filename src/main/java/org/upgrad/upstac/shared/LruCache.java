@@ -0,0 +1,112 @@
+package org.upgrad.upstac.shared;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small synchronized least-recently-used cache holding at most maxEntries values, counting
+ * hits, misses, puts and evictions for its metrics.
+ *
+ * Removals bump an invalidation count per stripe of keys. A value loaded outside the lock is
+ * put with the stamp taken before loading and dropped if its key was invalidated meanwhile,
+ * so a load racing a removal never caches the value the removal was meant to discard.
+ */
+public class LruCache<K, V> {
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final Map<K, V> entries;
+
+    private final long[] invalidations = new long[INVALIDATION_STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    public LruCache(int maxEntries) {
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= maxEntries)
+                    return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        puts.increment();
+        entries.put(key, value);
+    }
+
+    public synchronized V remove(K key) {
+        invalidations[stripeOf(key)]++;
+        return entries.remove(key);
+    }
+
+    // Take before loading a value, and pass to putIfNotInvalidated() with the loaded value
+    public synchronized long stamp(K key) {
+        return invalidations[stripeOf(key)];
+    }
+
+    public synchronized boolean putIfNotInvalidated(K key, V value, long stamp) {
+        if (invalidations[stripeOf(key)] != stamp)
+            return false;
+        put(key, value);
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < invalidations.length; i++)
+            invalidations[i]++;
+        entries.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            long stamp = stamp(key);
+            value = loader.apply(key);
+            if (value != null)
+                putIfNotInvalidated(key, value, stamp);
+        }
+        return value;
+    }
+
+    private static int stripeOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash ^ (hash >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+}
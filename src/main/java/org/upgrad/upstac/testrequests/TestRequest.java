@@ -7,6 +7,7 @@ import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.models.Gender;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Data
@@ -23,6 +24,11 @@ public class TestRequest {
 
     private LocalDate created=LocalDate.now();
 
+    private Instant createdAt=Instant.now();
+
+    // When the request entered its current status
+    private Instant statusChangedAt=Instant.now();
+
     private RequestStatus status = RequestStatus.INITIATED;
 
 
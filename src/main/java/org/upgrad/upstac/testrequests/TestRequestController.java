@@ -4,18 +4,19 @@ package org.upgrad.upstac.testrequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.shared.JsonArrayStreamer;
+import org.upgrad.upstac.testrequests.flow.TestRequestTimelineService;
+import org.upgrad.upstac.testrequests.flow.TimelineEntry;
 import org.upgrad.upstac.users.User;
 
 import java.util.List;
 
-import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
-
 
 @RestController
 public class TestRequestController {
@@ -32,16 +33,18 @@ public class TestRequestController {
     @Autowired
     private TestRequestQueryService testRequestQueryService;
 
+    @Autowired
+    private TestRequestTimelineService testRequestTimelineService;
+
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+
 
     @PostMapping("/api/testrequests")
     public TestRequest createRequest(@RequestBody CreateTestRequest testRequest) {
-        try {
-            User user = userLoggedInService.getLoggedInUser();
-            TestRequest result = testRequestService.createTestRequestFrom(user, testRequest);
-            return result;
-        }  catch (AppException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
+        User user = userLoggedInService.getLoggedInUser();
+        TestRequest result = testRequestService.createTestRequestFrom(user, testRequest);
+        return result;
 
     }
     @PreAuthorize("hasAnyRole('USER')")
@@ -54,6 +57,24 @@ public class TestRequestController {
 
     }
 
+    @PreAuthorize("hasAnyRole('USER')")
+    @GetMapping(value = "/api/testrequests", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> requestHistoryStreamed() {
+
+        User user = userLoggedInService.getLoggedInUser();
+        return jsonArrayStreamer.stream(TestRequest.class, TestRequest::getRequestId,
+                (afterId, size) -> testRequestService.findHistoryPageFor(user, afterId, size));
+    }
+
+    @PreAuthorize("hasAnyRole('USER','GOVERNMENT_AUTHORITY','TESTER','DOCTOR')")
+    @GetMapping("/api/testrequests/{id}/timeline")
+    public List<TimelineEntry> getTimeline(@PathVariable Long id) {
+        User user = userLoggedInService.getLoggedInUser();
+        TestRequest testRequest = testRequestQueryService.findTestRequestForUserByID(user, id)
+                .orElseThrow(ErrorCode.INVALID_ID::exception);
+        return testRequestTimelineService.getTimeline(testRequest);
+    }
+
 
 
 }
@@ -3,21 +3,23 @@ package org.upgrad.upstac.testrequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
-import org.upgrad.upstac.exception.AppException;
-import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
 import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
-import org.upgrad.upstac.testrequests.lab.LabResult;
 import org.upgrad.upstac.testrequests.lab.LabResultRepository;
 import org.upgrad.upstac.users.User;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @Validated
+@Transactional(readOnly = true)
 public class TestRequestQueryService {
 
     @Autowired
@@ -31,6 +33,12 @@ public class TestRequestQueryService {
     @Autowired
     private ConsultationRepository consultationRepository;
 
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     private static Logger logger = LoggerFactory.getLogger(TestRequestQueryService.class);
 
 
@@ -53,22 +61,26 @@ public class TestRequestQueryService {
 
     }
 
+    // Testers and doctors pick up requests of their own region, which all live on one shard
+    public List<TestRequest> findInRegionOf(User user, RequestStatus requestStatus) {
+        return shardRouter.onShard(shardRouter.shardOf(user.getPinCode()), () -> testRequestRepository.findByStatus(requestStatus));
+    }
+
+    public List<TestRequest> findPageInRegionOf(User user, RequestStatus requestStatus, long afterId, int size) {
+        return shardRouter.onShard(shardRouter.shardOf(user.getPinCode()),
+                () -> testRequestRepository.findByStatusAfter(requestStatus, afterId, PageRequest.of(0, size)));
+    }
+
 
 
     public List<TestRequest> findByTester(User user) {
 
-        return  labResultRepository.findByTester(user)
-                .stream()
-                .map(LabResult::getRequest)
-                .collect(Collectors.toList());
+        return  testRequestRepository.findByTester(user);
 
     }
 
     public List<TestRequest> findByDoctor(User user) {
-        return  consultationRepository.findByDoctor(user)
-                .stream()
-                .map(Consultation::getRequest)
-                .collect(Collectors.toList());
+        return  testRequestRepository.findByDoctor(user);
     }
 
 
@@ -77,6 +89,17 @@ public class TestRequestQueryService {
 
         logger.info("findTestRequestForUserByID" + user.getRoles().toString());
 
+        Optional<TestRequest> testRequest = findActiveTestRequestForUserByID(user, id);
+        if (testRequest.isPresent())
+            return testRequest;
+
+        return archivedTestRequestRepository.findByRequestId(id)
+                .filter(archived -> isVisibleTo(user, archived));
+
+    }
+
+    private Optional<TestRequest> findActiveTestRequestForUserByID(User user,Long id) {
+
         if(user.doesRoleIsUser())
             return  findByUserAndID(user,id);
         else if(user.doesRoleIsTester())
@@ -86,12 +109,28 @@ public class TestRequestQueryService {
         else if(user.doesRoleIsAuthority())
             return testRequestRepository.findByRequestId(id);
         else
-            throw new AppException("Invalid Role");
+            throw ErrorCode.INVALID_ROLE.exception();
 
     }
 
 
 
+    private boolean isVisibleTo(User user, TestRequest archived) {
+
+        if(user.doesRoleIsUser())
+            return isSameUser(user, archived.getCreatedBy());
+        else if(user.doesRoleIsTester())
+            return archived.getLabResult() != null && isSameUser(user, archived.getLabResult().getTester());
+        else if(user.doesRoleIsDoctor())
+            return archived.getConsultation() != null && isSameUser(user, archived.getConsultation().getDoctor());
+        else
+            return user.doesRoleIsAuthority();
+    }
+
+    private boolean isSameUser(User user, User other) {
+        return other != null && user.getId().equals(other.getId());
+    }
+
     public Optional<TestRequest> findByDoctorAndID(User doctor,Long id) {
 
 
@@ -1,8 +1,14 @@
 package org.upgrad.upstac.testrequests;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.upgrad.upstac.testrequests.search.TestRequestSearchDocument;
+import org.upgrad.upstac.testrequests.stats.StatisticsCount;
 import org.upgrad.upstac.users.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +18,11 @@ public interface TestRequestRepository extends JpaRepository<TestRequest,Long> {
 
 	Optional<TestRequest> findByRequestId(Long id);
 
-	List<TestRequest> findByCreatedBy(User user);
+	// The mappedBy one-to-ones on TestRequest cannot be lazy, fetching them here avoids two selects per row
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where t.createdBy = :user")
+	List<TestRequest> findByCreatedBy(@Param("user") User user);
 
 	Optional<TestRequest> findByRequestIdAndStatus(Long id,RequestStatus status);
 	Optional<TestRequest> findByCreatedByAndRequestId(User user,Long id);
@@ -29,7 +39,44 @@ public interface TestRequestRepository extends JpaRepository<TestRequest,Long> {
 	
 	List<TestRequest> findByName(String name);
 
-	List<TestRequest> findByStatus(RequestStatus status);
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where t.status = :status")
+	List<TestRequest> findByStatus(@Param("status") RequestStatus status);
+
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where l.tester = :tester order by l.resultId")
+	List<TestRequest> findByTester(@Param("tester") User tester);
+
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where c.doctor = :doctor order by c.id")
+	List<TestRequest> findByDoctor(@Param("doctor") User doctor);
+
+	// Same rows as findByStatus a page at a time, the ones after afterId
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where t.status = :status and t.requestId > :afterId order by t.requestId")
+	List<TestRequest> findByStatusAfter(@Param("status") RequestStatus status, @Param("afterId") Long afterId, Pageable pageable);
+
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where t.createdBy = :user and t.requestId > :afterId order by t.requestId")
+	List<TestRequest> findByCreatedByAfter(@Param("user") User user, @Param("afterId") Long afterId, Pageable pageable);
+
+	@Query("select t from TestRequest t left join fetch t.createdBy " +
+			"left join fetch t.labResult l left join fetch l.tester left join fetch t.consultation c left join fetch c.doctor " +
+			"where t.requestId in :requestIds")
+	List<TestRequest> findWithResultsByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+	@Query("select new org.upgrad.upstac.testrequests.search.TestRequestSearchDocument(t.requestId, t.name, t.email, t.phoneNumber, t.address, t.status, t.pinCode) " +
+			"from TestRequest t where t.requestId > :afterId order by t.requestId")
+	List<TestRequestSearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+	@Query("select new org.upgrad.upstac.testrequests.stats.StatisticsCount(t.status, t.pinCode, t.created, count(t)) " +
+			"from TestRequest t group by t.status, t.pinCode, t.created")
+	List<StatisticsCount> countByStatusPinCodeAndDay();
 	
 
 }
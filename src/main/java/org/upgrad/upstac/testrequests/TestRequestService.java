@@ -3,11 +3,19 @@ package org.upgrad.upstac.testrequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.upgrad.upstac.exception.AppException;
+import org.springframework.transaction.annotation.Transactional;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+import org.upgrad.upstac.testrequests.assignment.TesterAssignmentService;
 import org.upgrad.upstac.users.User;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -16,6 +24,14 @@ public class TestRequestService {
     @Autowired
     private TestRequestRepository testRequestRepository;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    @Autowired
+    private TesterAssignmentService testerAssignmentService;
 
 
     private static Logger logger = LoggerFactory.getLogger(TestRequestService.class);
@@ -30,6 +46,8 @@ public class TestRequestService {
 
         testRequest.setName(createTestRequest.getName());
         testRequest.setCreated(LocalDate.now());
+        testRequest.setCreatedAt(Instant.now());
+        testRequest.setStatusChangedAt(testRequest.getCreatedAt());
         testRequest.setStatus(RequestStatus.INITIATED);
         testRequest.setAge(createTestRequest.getAge());
         testRequest.setEmail(createTestRequest.getEmail());
@@ -39,7 +57,9 @@ public class TestRequestService {
         testRequest.setGender(createTestRequest.getGender());
 
         testRequest.setCreatedBy(user);
-        return testRequestRepository.save(testRequest);
+        TestRequest savedRequest = testRequestRepository.save(testRequest);
+        applicationEventPublisher.publishEvent(new TestRequestStatusChangedEvent(this, savedRequest, null, RequestStatus.INITIATED));
+        return testerAssignmentService.assignOnCreation(savedRequest);
     }
 
     public void validateExistingRequestsNotPresentWithSameDetails(CreateTestRequest createTestRequest) {
@@ -49,19 +69,34 @@ public class TestRequestService {
         for (TestRequest testRequest : testRequests) {
 
             if (testRequest.getStatus().equals(RequestStatus.COMPLETED) == false)
-                throw new AppException("A Request with same PhoneNumber or Email is already in progress ");
+                throw ErrorCode.REQUEST_IN_PROGRESS.exception();
         }
 
     }
 
+    @Transactional(readOnly = true)
     public List<TestRequest> findByStatus(RequestStatus requestStatus){
 
         return testRequestRepository.findByStatus(requestStatus);
     }
 
+    @Transactional(readOnly = true)
     public List<TestRequest> getHistoryFor(User loggedInUser){
 
-        return testRequestRepository.findByCreatedBy(loggedInUser);
+        // Archived requests are older, so they come first as they did before being archived
+        List<TestRequest> history = new ArrayList<>(archivedTestRequestRepository.findByCreatedBy(loggedInUser));
+        history.addAll(testRequestRepository.findByCreatedBy(loggedInUser));
+        return history;
+    }
+
+    // The next size requests after afterId, archived and hot ones merged in id order
+    @Transactional(readOnly = true)
+    public List<TestRequest> findHistoryPageFor(User loggedInUser, long afterId, int size){
+
+        List<TestRequest> page = new ArrayList<>(archivedTestRequestRepository.findByCreatedByAfter(loggedInUser, afterId, size));
+        page.addAll(testRequestRepository.findByCreatedByAfter(loggedInUser, afterId, PageRequest.of(0, size)));
+        page.sort(Comparator.comparing(TestRequest::getRequestId));
+        return page.size() > size ? new ArrayList<>(page.subList(0, size)) : page;
     }
 
 
@@ -0,0 +1,31 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a test request is created or moves to a new status.
+ * fromStatus is null for a freshly created request.
+ */
+@Getter
+public class TestRequestStatusChangedEvent extends ApplicationEvent {
+
+    private final TestRequest testRequest;
+
+    private final RequestStatus fromStatus;
+
+    private final RequestStatus toStatus;
+
+
+    public TestRequestStatusChangedEvent(Object source, TestRequest testRequest, RequestStatus fromStatus, RequestStatus toStatus) {
+        super(source);
+        this.testRequest = testRequest;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+    }
+
+    public boolean isCreation() {
+        return fromStatus == null;
+    }
+
+}
@@ -2,9 +2,10 @@ package org.upgrad.upstac.testrequests;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
 import org.upgrad.upstac.testrequests.consultation.Consultation;
 import org.upgrad.upstac.testrequests.consultation.ConsultationService;
 import org.upgrad.upstac.testrequests.consultation.CreateConsultationRequest;
@@ -15,6 +16,7 @@ import org.upgrad.upstac.testrequests.lab.CreateLabResult;
 import org.upgrad.upstac.users.User;
 
 import javax.transaction.Transactional;
+import java.time.Instant;
 import javax.validation.Valid;
 
 @Service
@@ -37,6 +39,9 @@ public class TestRequestUpdateService {
     @Autowired
     private ConsultationService consultationService;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
 
     @Transactional
     public TestRequest saveTestRequest(@Valid TestRequest result) {
@@ -47,31 +52,54 @@ public class TestRequestUpdateService {
 
 
     TestRequest updateStatusAndSave(TestRequest testRequest, RequestStatus status) {
+        RequestStatus previousStatus = testRequest.getStatus();
         testRequest.setStatus(status);
-        return saveTestRequest(testRequest);
+        testRequest.setStatusChangedAt(Instant.now());
+        TestRequest savedRequest = saveTestRequest(testRequest);
+        applicationEventPublisher.publishEvent(new TestRequestStatusChangedEvent(this, savedRequest, previousStatus, status));
+        return savedRequest;
     }
 
 
+    /**
+     * Each transition commits its lab result or consultation, its flow entry and the new status
+     * together, so a transition whose flow entry cannot be journaled leaves nothing behind to
+     * trip up a retry.
+     */
+    @Transactional
     public TestRequest assignForLabTest(Long id, User tester) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.INITIATED).orElseThrow(()-> new AppException("Invalid ID"));
+        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.INITIATED).orElseThrow(ErrorCode.INVALID_ID::exception);
         LabResult labResult= labResultService.assignForLabTest(testRequest,tester);
         testRequestFlowService.log(testRequest, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, tester);
         testRequest.setLabResult(labResult);
         return updateStatusAndSave(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS);
     }
 
+    /**
+     * Hands a lab test in progress to another tester. The move and its flow entry commit
+     * together, and nothing changes when the test finished or moved since it was read.
+     */
+    @Transactional
+    public void reassignTester(TestRequest testRequest, User from, User to) {
+        labResultService.reassignTester(testRequest, from, to);
+        testRequestFlowService.logReassignment(testRequest, to);
+        applicationEventPublisher.publishEvent(new TesterReassignedEvent(this, testRequest, from, to));
+    }
+
+    @Transactional
     public TestRequest updateLabTest(Long id,@Valid CreateLabResult createLabResult, User tester) {
 
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_IN_PROGRESS).orElseThrow(()-> new AppException("Invalid ID or State"));
+        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_IN_PROGRESS).orElseThrow(ErrorCode.INVALID_ID_OR_STATE::exception);
 
 
-        labResultService.updateLabTest(testRequest,createLabResult);
+        testRequest.setLabResult(labResultService.updateLabTest(testRequest,createLabResult));
         testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, tester);
         return updateStatusAndSave(testRequest, RequestStatus.LAB_TEST_COMPLETED);
     }
 
+    @Transactional
     public TestRequest assignForConsultation(Long id, User doctor) {
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_COMPLETED).orElseThrow(()-> new AppException("Invalid ID or State"));
+        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.LAB_TEST_COMPLETED).orElseThrow(ErrorCode.INVALID_ID_OR_STATE::exception);
         Consultation consultation =consultationService.assignForConsultation(testRequest,doctor);
         testRequestFlowService.log(testRequest, RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, doctor);
         testRequest.setConsultation(consultation);
@@ -79,10 +107,11 @@ public class TestRequestUpdateService {
     }
 
 
+    @Transactional
     public TestRequest updateConsultation(Long id, @Valid CreateConsultationRequest createConsultationRequest, User doctor) {
 
-        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.DIAGNOSIS_IN_PROCESS).orElseThrow(()-> new AppException("Invalid ID or State"));
-        consultationService.updateConsultation(testRequest,createConsultationRequest);
+        TestRequest testRequest = testRequestRepository.findByRequestIdAndStatus(id,RequestStatus.DIAGNOSIS_IN_PROCESS).orElseThrow(ErrorCode.INVALID_ID_OR_STATE::exception);
+        testRequest.setConsultation(consultationService.updateConsultation(testRequest,createConsultationRequest));
         testRequestFlowService.log(testRequest, RequestStatus.DIAGNOSIS_IN_PROCESS, RequestStatus.COMPLETED, doctor);
         return updateStatusAndSave(testRequest, RequestStatus.COMPLETED);
     }
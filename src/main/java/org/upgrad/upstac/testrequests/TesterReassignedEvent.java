@@ -0,0 +1,28 @@
+package org.upgrad.upstac.testrequests;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+import org.upgrad.upstac.users.User;
+
+/**
+ * Published after a request in LAB_TEST_IN_PROGRESS was handed from one tester to another.
+ * Its status does not change.
+ */
+@Getter
+public class TesterReassignedEvent extends ApplicationEvent {
+
+    private final TestRequest testRequest;
+
+    private final User fromTester;
+
+    private final User toTester;
+
+
+    public TesterReassignedEvent(Object source, TestRequest testRequest, User fromTester, User toTester) {
+        super(source);
+        this.testRequest = testRequest;
+        this.fromTester = fromTester;
+        this.toTester = toTester;
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.config.shard.ShardRouter;
+
+import javax.annotation.PostConstruct;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Cold copies of the test request tables. Columns are listed explicitly so the
+ * archive keeps working when the hot tables gain columns.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ArchiveTables {
+
+    static final String TEST_REQUEST_COLUMNS = "request_id, created_by_id, created, created_at, status_changed_at, status, name, gender, address, age, email, phone_number, pin_code";
+    static final String LAB_RESULT_COLUMNS = "result_id, request_request_id, systolic_pressure, diastolic_pressure, heart_rate, body_temperature, oxygen_saturation, comments, result, updated_on, tester_id";
+    static final String CONSULTATION_COLUMNS = "id, request_request_id, suggestion, comments, updated_on, doctor_id";
+    static final String FLOW_COLUMNS = "id, request_request_id, from_status, to_status, changed_by_id, happened_on, happened_at, journal_sequence";
+
+    private static final String[] TABLES = {
+            "create table if not exists archived_test_request (request_id bigint not null primary key, created_by_id bigint, created date, created_at timestamp null, " +
+                    "status_changed_at timestamp null, status integer, name varchar(255), gender integer, address varchar(255), age integer, email varchar(255), " +
+                    "phone_number varchar(255), pin_code integer, archived_on date)",
+            "create table if not exists archived_lab_result (result_id bigint not null primary key, request_request_id bigint, systolic_pressure smallint, " +
+                    "diastolic_pressure smallint, heart_rate smallint, body_temperature decimal(4,1), oxygen_saturation tinyint, comments varchar(255), " +
+                    "result integer, updated_on date, tester_id bigint)",
+            "create table if not exists archived_consultation (id bigint not null primary key, request_request_id bigint, suggestion integer, " +
+                    "comments varchar(255), updated_on date, doctor_id bigint)",
+            "create table if not exists archived_test_request_flow (id bigint not null primary key, request_request_id bigint, from_status integer, " +
+                    "to_status integer, changed_by_id bigint, happened_on date, happened_at timestamp null, journal_sequence bigint)"
+    };
+
+    // Typed vitals for archives created with the free text ones, which LabResultVitalsBackfill converts.
+    // Table, column and definition
+    private static final String[][] ADDED_COLUMNS = {
+            {"archived_lab_result", "systolic_pressure", "smallint"},
+            {"archived_lab_result", "diastolic_pressure", "smallint"},
+            {"archived_lab_result", "heart_rate", "smallint"},
+            {"archived_lab_result", "body_temperature", "decimal(4,1)"},
+            {"archived_lab_result", "oxygen_saturation", "tinyint"}
+    };
+
+    // Table, index and column
+    private static final String[][] INDEXES = {
+            {"archived_test_request", "archived_test_request_created_by", "created_by_id"},
+            {"archived_lab_result", "archived_lab_result_request", "request_request_id"},
+            {"archived_lab_result", "archived_lab_result_tester", "tester_id"},
+            {"archived_consultation", "archived_consultation_request", "request_request_id"},
+            {"archived_consultation", "archived_consultation_doctor", "doctor_id"},
+            {"archived_test_request_flow", "archived_test_request_flow_request", "request_request_id"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveTables.class);
+
+
+    @PostConstruct
+    public void createTables() {
+        shardRouter.onEachShard(shard -> createTablesOnCurrentShard());
+    }
+
+    private void createTablesOnCurrentShard() {
+        for (String table : TABLES)
+            jdbcTemplate.execute(table);
+
+        for (String[] column : ADDED_COLUMNS) {
+            if (columnExists(column[0], column[1]) == false)
+                execute("alter table " + column[0] + " add column " + column[1] + " " + column[2]);
+        }
+
+        // Not every database supports "if not exists" on indexes, so existing ones are looked up
+        for (String[] index : INDEXES) {
+            if (indexExists(index[0], index[1]) == false)
+                execute("create index " + index[1] + " on " + index[0] + " (" + index[2] + ")");
+        }
+    }
+
+    private void execute(String statement) {
+        try {
+            jdbcTemplate.execute(statement);
+        } catch (DataAccessException e) {
+            log.warn("Unable to update the archive tables with \"" + statement + "\", " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private boolean columnExists(String table, String column) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, stored(metaData, table), stored(metaData, column))) {
+                return columns.next();
+            }
+        });
+    }
+
+    private boolean indexExists(String table, String index) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, stored(metaData, table), false, true)) {
+                while (indexes.next()) {
+                    if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME")))
+                        return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    // Unquoted names as the database stores them, metadata lookups match them exactly
+    private static String stored(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers())
+            return name.toUpperCase();
+        if (metaData.storesLowerCaseIdentifiers())
+            return name.toLowerCase();
+        return name;
+    }
+
+}
@@ -0,0 +1,242 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.flow.TimelineEntry;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.testrequests.stats.StatisticsCount;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Read access to archived requests, mapped back onto the regular entities so callers
+ * can return them alongside hot rows. The returned objects are detached, never save them.
+ *
+ * Requests are archived on the shard they live on, so lookups by id go to the shard holding
+ * the request and everything else is read from every shard.
+ */
+@Repository
+public class ArchivedTestRequestRepository {
+
+    private static final String SELECT_REQUEST = "select t.request_id, t.created_by_id, t.created, t.created_at, t.status_changed_at, t.status, t.name, t.gender, " +
+            "t.address, t.age, t.email, t.phone_number, t.pin_code, " +
+            "l.result_id, l.systolic_pressure, l.diastolic_pressure, l.heart_rate, l.body_temperature, l.oxygen_saturation, l.comments as lab_comments, l.result, l.updated_on as lab_updated_on, l.tester_id, " +
+            "c.id as consultation_id, c.suggestion, c.comments as consultation_comments, c.updated_on as consultation_updated_on, c.doctor_id " +
+            "from archived_test_request t " +
+            "left join archived_lab_result l on l.request_request_id = t.request_id " +
+            "left join archived_consultation c on c.request_request_id = t.request_id ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+
+    public List<TestRequest> findByCreatedBy(User user) {
+        List<TestRequest> testRequests = fromEveryShard(() -> {
+            Map<Long, Optional<User>> users = new HashMap<>();
+            users.put(user.getId(), Optional.of(user));
+
+            return jdbcTemplate.query(SELECT_REQUEST + "where t.created_by_id = ? order by t.request_id",
+                    (resultSet, rowNum) -> mapTestRequest(resultSet, users), user.getId());
+        });
+        testRequests.sort(Comparator.comparing(TestRequest::getRequestId));
+        return testRequests;
+    }
+
+    // At most limit requests after afterId from every shard, the caller trims the merged list
+    public List<TestRequest> findByCreatedByAfter(User user, long afterId, int limit) {
+        List<TestRequest> testRequests = fromEveryShard(() -> {
+            Map<Long, Optional<User>> users = new HashMap<>();
+            users.put(user.getId(), Optional.of(user));
+
+            return jdbcTemplate.query(SELECT_REQUEST + "where t.created_by_id = ? and t.request_id > ? order by t.request_id",
+                    preparedStatement -> {
+                        preparedStatement.setLong(1, user.getId());
+                        preparedStatement.setLong(2, afterId);
+                        preparedStatement.setMaxRows(limit);
+                    },
+                    (resultSet, rowNum) -> mapTestRequest(resultSet, users));
+        });
+        testRequests.sort(Comparator.comparing(TestRequest::getRequestId));
+        return testRequests;
+    }
+
+    public Optional<TestRequest> findByRequestId(Long requestId) {
+        return fromShardHolding(requestId, () -> {
+            Map<Long, Optional<User>> users = new HashMap<>();
+
+            return jdbcTemplate.query(SELECT_REQUEST + "where t.request_id = ?",
+                    (resultSet, rowNum) -> mapTestRequest(resultSet, users), requestId);
+        })
+                .stream()
+                .findFirst();
+    }
+
+    public List<TimelineEntry> findTimelineByRequestId(Long requestId) {
+        return fromShardHolding(requestId, () -> {
+            Map<Long, Optional<User>> users = new HashMap<>();
+
+            return jdbcTemplate.query("select from_status, to_status, changed_by_id, happened_on, happened_at " +
+                            "from archived_test_request_flow where request_request_id = ? order by id",
+                    (resultSet, rowNum) -> {
+                        User changedBy = userOf(resultSet, "changed_by_id", users);
+                        return new TimelineEntry(
+                                enumOf(RequestStatus.values(), resultSet, "from_status"),
+                                enumOf(RequestStatus.values(), resultSet, "to_status"),
+                                changedBy == null ? null : changedBy.getUserName(),
+                                localDateOf(resultSet, "happened_on"),
+                                instantOf(resultSet, "happened_at"));
+                    }, requestId);
+        });
+    }
+
+    public List<StatisticsCount> countByStatusPinCodeAndDay() {
+        return fromEveryShard(() -> jdbcTemplate.query("select status, pin_code, created, count(*) from archived_test_request group by status, pin_code, created",
+                (resultSet, rowNum) -> new StatisticsCount(enumOf(RequestStatus.values(), resultSet, "status"),
+                        integerOf(resultSet, "pin_code"), localDateOf(resultSet, "created"), resultSet.getLong(4))));
+    }
+
+    public List<StatisticsCount> countByResultPinCodeAndDay() {
+        return fromEveryShard(() -> jdbcTemplate.query("select l.result, t.pin_code, l.updated_on, count(*) from archived_lab_result l " +
+                        "join archived_test_request t on t.request_id = l.request_request_id " +
+                        "where l.result is not null group by l.result, t.pin_code, l.updated_on",
+                (resultSet, rowNum) -> new StatisticsCount(enumOf(TestStatus.values(), resultSet, "result"),
+                        integerOf(resultSet, "pin_code"), localDateOf(resultSet, "updated_on"), resultSet.getLong(4))));
+    }
+
+    public List<StatisticsCount> countBySuggestionPinCodeAndDay() {
+        return fromEveryShard(() -> jdbcTemplate.query("select c.suggestion, t.pin_code, c.updated_on, count(*) from archived_consultation c " +
+                        "join archived_test_request t on t.request_id = c.request_request_id " +
+                        "where c.suggestion is not null group by c.suggestion, t.pin_code, c.updated_on",
+                (resultSet, rowNum) -> new StatisticsCount(enumOf(DoctorSuggestion.values(), resultSet, "suggestion"),
+                        integerOf(resultSet, "pin_code"), localDateOf(resultSet, "updated_on"), resultSet.getLong(4))));
+    }
+
+    private <T> List<T> fromEveryShard(Supplier<List<T>> query) {
+        List<T> rows = new ArrayList<>();
+        for (ShardRouter.ShardResult<List<T>> result : shardRouter.scatter(query))
+            rows.addAll(result.getValue());
+        return rows;
+    }
+
+    private <T> List<T> fromShardHolding(Long requestId, Supplier<List<T>> query) {
+        List<T> rows = Collections.emptyList();
+        for (String shard : shardRouter.candidatesForId(requestId, true)) {
+            rows = shardRouter.onShard(shard, query);
+            if (rows.isEmpty() == false)
+                break;
+        }
+        return rows;
+    }
+
+    private TestRequest mapTestRequest(ResultSet resultSet, Map<Long, Optional<User>> users) throws SQLException {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(resultSet.getLong("request_id"));
+        testRequest.setCreatedBy(userOf(resultSet, "created_by_id", users));
+        testRequest.setCreated(localDateOf(resultSet, "created"));
+        testRequest.setCreatedAt(instantOf(resultSet, "created_at"));
+        testRequest.setStatusChangedAt(instantOf(resultSet, "status_changed_at"));
+        testRequest.setStatus(enumOf(RequestStatus.values(), resultSet, "status"));
+        testRequest.setName(resultSet.getString("name"));
+        testRequest.setGender(enumOf(Gender.values(), resultSet, "gender"));
+        testRequest.setAddress(resultSet.getString("address"));
+        testRequest.setAge(integerOf(resultSet, "age"));
+        testRequest.setEmail(resultSet.getString("email"));
+        testRequest.setPhoneNumber(resultSet.getString("phone_number"));
+        testRequest.setPinCode(integerOf(resultSet, "pin_code"));
+
+        long resultId = resultSet.getLong("result_id");
+        if (resultSet.wasNull() == false) {
+            LabResult labResult = new LabResult();
+            labResult.setResultId(resultId);
+            labResult.setRequest(testRequest);
+            labResult.setSystolicPressure(shortOf(resultSet, "systolic_pressure"));
+            labResult.setDiastolicPressure(shortOf(resultSet, "diastolic_pressure"));
+            labResult.setHeartRate(shortOf(resultSet, "heart_rate"));
+            labResult.setTemperature(resultSet.getBigDecimal("body_temperature"));
+            labResult.setOxygenSaturation(byteOf(resultSet, "oxygen_saturation"));
+            labResult.setComments(resultSet.getString("lab_comments"));
+            labResult.setResult(enumOf(TestStatus.values(), resultSet, "result"));
+            labResult.setUpdatedOn(localDateOf(resultSet, "lab_updated_on"));
+            labResult.setTester(userOf(resultSet, "tester_id", users));
+            testRequest.setLabResult(labResult);
+        }
+
+        long consultationId = resultSet.getLong("consultation_id");
+        if (resultSet.wasNull() == false) {
+            Consultation consultation = new Consultation();
+            consultation.setId(consultationId);
+            consultation.setRequest(testRequest);
+            consultation.setSuggestion(enumOf(DoctorSuggestion.values(), resultSet, "suggestion"));
+            consultation.setComments(resultSet.getString("consultation_comments"));
+            consultation.setUpdatedOn(localDateOf(resultSet, "consultation_updated_on"));
+            consultation.setDoctor(userOf(resultSet, "doctor_id", users));
+            testRequest.setConsultation(consultation);
+        }
+
+        return testRequest;
+    }
+
+    // Users are few compared to requests, each one is loaded once per query
+    private User userOf(ResultSet resultSet, String column, Map<Long, Optional<User>> users) throws SQLException {
+        long userId = resultSet.getLong(column);
+        if (resultSet.wasNull())
+            return null;
+        return users.computeIfAbsent(userId, userRepository::findById).orElse(null);
+    }
+
+    private static <E extends Enum<E>> E enumOf(E[] values, ResultSet resultSet, String column) throws SQLException {
+        int ordinal = resultSet.getInt(column);
+        if (resultSet.wasNull())
+            return null;
+        return values[ordinal];
+    }
+
+    private static Integer integerOf(ResultSet resultSet, String column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static Short shortOf(ResultSet resultSet, String column) throws SQLException {
+        short value = resultSet.getShort(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static Byte byteOf(ResultSet resultSet, String column) throws SQLException {
+        byte value = resultSet.getByte(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static LocalDate localDateOf(ResultSet resultSet, String column) throws SQLException {
+        Date date = resultSet.getDate(column);
+        return date == null ? null : date.toLocalDate();
+    }
+
+    private static Instant instantOf(ResultSet resultSet, String column) throws SQLException {
+        Timestamp timestamp = resultSet.getTimestamp(column);
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+}
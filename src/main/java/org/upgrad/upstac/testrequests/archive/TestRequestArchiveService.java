@@ -0,0 +1,118 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.upgrad.upstac.testrequests.archive.ArchiveTables.*;
+
+/**
+ * Moves COMPLETED requests older than app.archive.after-days, with their lab results,
+ * consultations and flow entries, out of the hot tables and into the archive tables.
+ * Each batch is copied and deleted in one transaction, on the shard it lives on.
+ */
+@Service
+public class TestRequestArchiveService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${app.archive.after-days:30}")
+    private int afterDays;
+
+    @Value("${app.archive.batch-size:1000}")
+    private int batchSize;
+
+    private static final Logger log = LoggerFactory.getLogger(TestRequestArchiveService.class);
+
+
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void archiveCompletedRequests() {
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+
+        // Every shard archives into its own archive tables
+        shardRouter.onEachShard(shard -> archiveCompletedRequests(shard, cutoff));
+    }
+
+    private void archiveCompletedRequests(String shard, LocalDate cutoff) {
+        long archived = 0;
+
+        List<Long> batch;
+        do {
+            batch = findArchivable(cutoff);
+            if (batch.isEmpty() == false) {
+                archive(batch);
+                archived += batch.size();
+            }
+        } while (batch.size() == batchSize);
+
+        log.info("Archived " + archived + " completed test requests created before " + cutoff + " on shard " + shard);
+    }
+
+    List<Long> findArchivable(LocalDate cutoff) {
+        return jdbcTemplate.query(
+                "select request_id from test_request where status = ? and created < ? order by request_id",
+                preparedStatement -> {
+                    preparedStatement.setInt(1, RequestStatus.COMPLETED.ordinal());
+                    preparedStatement.setDate(2, Date.valueOf(cutoff));
+                    preparedStatement.setMaxRows(batchSize);
+                },
+                (resultSet, rowNum) -> resultSet.getLong(1));
+    }
+
+    void archive(List<Long> requestIds) {
+        String ids = placeholders(requestIds.size());
+        Object[] idArguments = requestIds.toArray();
+        Object[] archiveArguments = new Object[requestIds.size() + 1];
+        archiveArguments[0] = Date.valueOf(LocalDate.now());
+        System.arraycopy(idArguments, 0, archiveArguments, 1, idArguments.length);
+
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.update(copy("test_request_flow", FLOW_COLUMNS, "request_request_id", ids), idArguments);
+            jdbcTemplate.update(copy("consultation", CONSULTATION_COLUMNS, "request_request_id", ids), idArguments);
+            jdbcTemplate.update(copy("lab_result", LAB_RESULT_COLUMNS, "request_request_id", ids), idArguments);
+            jdbcTemplate.update("insert into archived_test_request (archived_on, " + TEST_REQUEST_COLUMNS + ") " +
+                    "select ?, " + TEST_REQUEST_COLUMNS + " from test_request where request_id in (" + ids + ")", archiveArguments);
+
+            jdbcTemplate.update("delete from test_request_flow where request_request_id in (" + ids + ")", idArguments);
+            jdbcTemplate.update("delete from consultation where request_request_id in (" + ids + ")", idArguments);
+            jdbcTemplate.update("delete from lab_result where request_request_id in (" + ids + ")", idArguments);
+            jdbcTemplate.update("delete from test_request where request_id in (" + ids + ")", idArguments);
+            return null;
+        });
+
+        applicationEventPublisher.publishEvent(new TestRequestsArchivedEvent(this, new ArrayList<>(requestIds)));
+    }
+
+    private static String copy(String table, String columns, String requestColumn, String ids) {
+        return "insert into archived_" + table + " (" + columns + ") select " + columns + " from " + table + " where " + requestColumn + " in (" + ids + ")";
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+}
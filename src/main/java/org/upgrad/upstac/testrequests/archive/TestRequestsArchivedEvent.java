@@ -0,0 +1,22 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published after a batch of completed requests has moved to the archive tables.
+ */
+@Getter
+public class TestRequestsArchivedEvent extends ApplicationEvent {
+
+    private final List<Long> requestIds;
+
+
+    public TestRequestsArchivedEvent(Object source, List<Long> requestIds) {
+        super(source);
+        this.requestIds = requestIds;
+    }
+
+}
@@ -0,0 +1,13 @@
+package org.upgrad.upstac.testrequests.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AssignmentRebalanceResult {
+
+    private int assigned;
+    private int moved;
+
+}
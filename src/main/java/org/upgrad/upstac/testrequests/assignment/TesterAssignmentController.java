@@ -0,0 +1,37 @@
+package org.upgrad.upstac.testrequests.assignment;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+
+@RestController
+@RequestMapping("/api/labrequests/assignments")
+public class TesterAssignmentController {
+
+
+    @Autowired
+    private TesterAssignmentService testerAssignmentService;
+
+
+    @GetMapping("/loads")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public Map<String, Integer> getLoads() {
+
+        return testerAssignmentService.getLoads();
+    }
+
+    @PostMapping("/rebalance")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public AssignmentRebalanceResult rebalance() {
+
+        return testerAssignmentService.rebalance();
+    }
+
+}
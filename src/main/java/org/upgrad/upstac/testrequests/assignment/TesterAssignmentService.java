@@ -0,0 +1,281 @@
+package org.upgrad.upstac.testrequests.assignment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.TesterReassignedEvent;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns new requests to the approved tester with the lowest score among those serving
+ * the request's pinCode, where
+ *
+ *   score = requests in progress * load-weight + distance * distance-weight
+ *
+ * and distance is the number of trailing pinCode digits that differ. A tester serves a
+ * pinCode sharing at least pin-code-match-digits leading digits with their own, and takes
+ * no more than max-per-tester requests. Requests nobody can take stay INITIATED for testers
+ * to pick up by hand, and rebalance() hands them out later.
+ *
+ * Loads are counted in memory from status change and reassignment events and recounted
+ * from the database at startup and on every rebalance.
+ */
+@Service
+public class TesterAssignmentService {
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.assignment.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.assignment.pin-code-match-digits:3}")
+    private int matchDigits;
+
+    @Value("${app.assignment.load-weight:1.0}")
+    private double loadWeight;
+
+    @Value("${app.assignment.distance-weight:0.5}")
+    private double distanceWeight;
+
+    @Value("${app.assignment.max-per-tester:25}")
+    private int maxPerTester;
+
+    private final Map<Long, TesterLoad> loads = new ConcurrentHashMap<>();
+
+    // Picking a tester and reserving them is one step, creations run concurrently
+    private final Object pickLock = new Object();
+
+    private volatile List<User> testers = Collections.emptyList();
+
+    private static final Logger log = LoggerFactory.getLogger(TesterAssignmentService.class);
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled)
+            reload();
+    }
+
+    // Newly approved testers start receiving requests after the next refresh
+    @Scheduled(initialDelayString = "${app.assignment.tester-refresh:60000}", fixedDelayString = "${app.assignment.tester-refresh:60000}")
+    public void refreshTesters() {
+        if (enabled)
+            testers = loadTesters();
+    }
+
+    /**
+     * Returns the request assigned to a tester, or unchanged when assignment is disabled
+     * or no tester serving its pinCode has room.
+     */
+    public TestRequest assignOnCreation(TestRequest testRequest) {
+        if (enabled == false)
+            return testRequest;
+        return assign(testRequest).orElse(testRequest);
+    }
+
+    @EventListener
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        LabResult labResult = event.getTestRequest().getLabResult();
+        if (enabled == false || labResult == null || labResult.getTester() == null)
+            return;
+
+        TesterLoad load = loadOf(labResult.getTester().getId());
+        if (event.getToStatus() == RequestStatus.LAB_TEST_IN_PROGRESS)
+            load.inProgress.incrementAndGet();
+        if (event.getFromStatus() == RequestStatus.LAB_TEST_IN_PROGRESS)
+            load.inProgress.decrementAndGet();
+    }
+
+    @EventListener
+    public void onTesterReassigned(TesterReassignedEvent event) {
+        if (enabled == false)
+            return;
+
+        loadOf(event.getFromTester().getId()).inProgress.decrementAndGet();
+        loadOf(event.getToTester().getId()).inProgress.incrementAndGet();
+    }
+
+    /**
+     * Recounts loads, assigns the INITIATED backlog oldest first, then moves in-progress
+     * requests, newest first, to a tester where they score lower than where they are.
+     */
+    public synchronized AssignmentRebalanceResult rebalance() {
+        if (enabled == false)
+            throw new AppException(ErrorCode.NOT_ENABLED, "Automatic assignment is not enabled");
+
+        reload();
+
+        int assigned = 0;
+        List<TestRequest> backlog = new ArrayList<>(testRequestRepository.findByStatus(RequestStatus.INITIATED));
+        backlog.sort(Comparator.comparing(TestRequest::getRequestId));
+        for (TestRequest testRequest : backlog)
+            if (assign(testRequest).isPresent())
+                assigned++;
+
+        int moved = 0;
+        List<TestRequest> inProgress = new ArrayList<>(testRequestRepository.findByStatus(RequestStatus.LAB_TEST_IN_PROGRESS));
+        inProgress.sort(Comparator.comparing(TestRequest::getRequestId).reversed());
+        for (TestRequest testRequest : inProgress)
+            if (move(testRequest))
+                moved++;
+
+        log.info("Rebalanced testers, assigned " + assigned + " waiting requests and moved " + moved);
+        return new AssignmentRebalanceResult(assigned, moved);
+    }
+
+    // Requests in progress per approved tester, by user name
+    public Map<String, Integer> getLoads() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (User tester : testers)
+            result.put(tester.getUserName(), loadOf(tester.getId()).current());
+        return result;
+    }
+
+    private Optional<TestRequest> assign(TestRequest testRequest) {
+        User tester;
+        TesterLoad load;
+        synchronized (pickLock) {
+            Optional<User> chosen = chooseTester(testRequest.getPinCode(), null);
+            if (chosen.isPresent() == false)
+                return Optional.empty();
+
+            tester = chosen.get();
+            load = loadOf(tester.getId());
+            load.reserved.incrementAndGet();
+        }
+
+        try {
+            return Optional.of(testRequestUpdateService.assignForLabTest(testRequest.getRequestId(), tester));
+        } catch (AppException e) {
+            // Picked up by hand in the meantime
+            log.info("Request " + testRequest.getRequestId() + " was not assigned to " + tester.getUserName() + ", " + e.getMessage());
+            return Optional.empty();
+        } finally {
+            load.reserved.decrementAndGet();
+        }
+    }
+
+    private boolean move(TestRequest testRequest) {
+        if (testRequest.getLabResult() == null || testRequest.getLabResult().getTester() == null)
+            return false;
+
+        User current = testRequest.getLabResult().getTester();
+        TesterLoad currentLoad = loadOf(current.getId());
+        Optional<User> target = chooseTester(testRequest.getPinCode(), current.getId());
+        if (target.isPresent() == false)
+            return false;
+
+        TesterLoad targetLoad = loadOf(target.get().getId());
+        int currentDistance = Math.max(distance(current.getPinCode(), testRequest.getPinCode()), 0);
+        int targetDistance = distance(target.get().getPinCode(), testRequest.getPinCode());
+        if (score(targetLoad.current() + 1, targetDistance) >= score(currentLoad.current(), currentDistance))
+            return false;
+
+        try {
+            testRequestUpdateService.reassignTester(testRequest, current, target.get());
+        } catch (AppException e) {
+            // Finished or moved by hand since the rebalance read it
+            log.info("Request " + testRequest.getRequestId() + " was not moved to " + target.get().getUserName() + ", " + e.getMessage());
+            return false;
+        }
+        log.info("Moved request " + testRequest.getRequestId() + " from " + current.getUserName() + " to " + target.get().getUserName());
+        return true;
+    }
+
+    private Optional<User> chooseTester(Integer pinCode, Long excludedTesterId) {
+        User best = null;
+        double bestScore = 0;
+
+        for (User tester : testers) {
+            if (tester.getId().equals(excludedTesterId))
+                continue;
+
+            int distance = distance(tester.getPinCode(), pinCode);
+            int load = loadOf(tester.getId()).current();
+            if (distance < 0 || load >= maxPerTester)
+                continue;
+
+            double score = score(load, distance);
+            if (best == null || score < bestScore) {
+                best = tester;
+                bestScore = score;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private double score(int load, int distance) {
+        return load * loadWeight + distance * distanceWeight;
+    }
+
+    // Trailing digits that differ, -1 when the tester does not serve the pinCode
+    int distance(Integer testerPinCode, Integer pinCode) {
+        if (testerPinCode == null || pinCode == null)
+            return -1;
+
+        String tester = testerPinCode.toString();
+        String request = pinCode.toString();
+        int common = 0;
+        while (common < tester.length() && common < request.length() && tester.charAt(common) == request.charAt(common))
+            common++;
+
+        if (common < Math.min(matchDigits, request.length()))
+            return -1;
+        return Math.max(tester.length(), request.length()) - common;
+    }
+
+    private void reload() {
+        testers = loadTesters();
+
+        Map<Long, Long> counted = new HashMap<>();
+        for (TesterLoadCount count : labResultRepository.countByTesterWithRequestStatus(RequestStatus.LAB_TEST_IN_PROGRESS))
+            counted.merge(count.getTesterId(), count.getCount(), Long::sum);
+
+        for (Map.Entry<Long, TesterLoad> entry : loads.entrySet())
+            if (counted.containsKey(entry.getKey()) == false)
+                entry.getValue().inProgress.set(0);
+        counted.forEach((testerId, count) -> loadOf(testerId).inProgress.set(count.intValue()));
+    }
+
+    private List<User> loadTesters() {
+        return userRepository.findByStatus(AccountStatus.APPROVED).stream()
+                .filter(User::doesRoleIsTester)
+                .sorted(Comparator.comparing(User::getId))
+                .collect(Collectors.toList());
+    }
+
+    private TesterLoad loadOf(Long testerId) {
+        return loads.computeIfAbsent(testerId, id -> new TesterLoad());
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.upgrad.upstac.testrequests.assignment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory load of one tester. inProgress follows the LAB_TEST_IN_PROGRESS requests they
+ * hold, reserved covers assignments chosen but not yet saved, so concurrent creations
+ * see each other's picks.
+ */
+class TesterLoad {
+
+    final AtomicInteger inProgress = new AtomicInteger();
+    final AtomicInteger reserved = new AtomicInteger();
+
+
+    int current() {
+        return inProgress.get() + reserved.get();
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.upgrad.upstac.testrequests.assignment;
+
+import lombok.Getter;
+
+/**
+ * Requests a tester holds in one status, as counted by the database.
+ */
+@Getter
+public class TesterLoadCount {
+
+    private final Long testerId;
+    private final long count;
+
+
+    public TesterLoadCount(Long testerId, Long count) {
+        this.testerId = testerId;
+        this.count = count;
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.exception.ErrorCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Attachment content on local disk under its SHA-256, {dir}/{first two hex digits}/{hash},
+ * so identical uploads are kept once.
+ *
+ * An upload is streamed through one fixed buffer into a temporary file while it is hashed,
+ * then moved to its hash, or dropped when that content is already stored. Memory per upload
+ * is the buffer whatever the file size.
+ */
+@Component
+public class AttachmentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Storing and releasing one hash never interleave, a file is not deleted as it is reused
+    private final Object[] hashLocks = new Object[64];
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentStore.class);
+
+
+    public AttachmentStore(@Value("${app.attachments.dir:data/attachments}") String directory,
+                           @Value("${app.attachments.max-bytes:52428800}") long maxBytes) throws IOException {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < hashLocks.length; i++)
+            hashLocks[i] = new Object();
+        Files.createDirectories(this.directory);
+    }
+
+
+    /**
+     * Stores the stream's content and hands its hash, size and file to record, which saves
+     * the row referring to it before release() can look at the hash again.
+     */
+    public <T> T store(InputStream inputStream, Function<StoredContent, T> record) throws IOException {
+        Path temporary = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (ReadableByteChannel in = Channels.newChannel(inputStream);
+                 FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    size += buffer.remaining();
+                    if (size > maxBytes)
+                        throw ErrorCode.ATTACHMENT_TOO_LARGE.exception(maxBytes + " bytes");
+
+                    digest.update(buffer.array(), buffer.position(), buffer.remaining());
+                    while (buffer.hasRemaining())
+                        out.write(buffer);
+                    buffer.clear();
+                }
+                out.force(false);
+            }
+            if (size == 0)
+                throw ErrorCode.ATTACHMENT_EMPTY.exception();
+
+            String hash = hex(digest.digest());
+            Path file = fileOf(hash);
+            synchronized (lockOf(hash)) {
+                if (Files.exists(file) == false) {
+                    Files.createDirectories(file.getParent());
+                    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return record.apply(new StoredContent(hash, size, file));
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public Path fileOf(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    // Deletes the content when inUse, asked under the hash's lock, says no row refers to it any more
+    public void release(String hash, BooleanSupplier inUse) {
+        synchronized (lockOf(hash)) {
+            if (inUse.getAsBoolean())
+                return;
+            try {
+                Files.deleteIfExists(fileOf(hash));
+            } catch (IOException e) {
+                log.warn("Could not delete attachment content " + hash + ", " + e.getMessage());
+            }
+        }
+    }
+
+    private Object lockOf(String hash) {
+        return hashLocks[Integer.parseInt(hash.substring(0, 2), 16) % hashLocks.length];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = digits[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = digits[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+}
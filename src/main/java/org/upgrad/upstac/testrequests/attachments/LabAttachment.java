@@ -0,0 +1,43 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import lombok.Data;
+import org.upgrad.upstac.users.User;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * A file attached to the lab result of a request. The content is kept once per hash in
+ * the AttachmentStore, rows only refer to it.
+ *
+ * The request is referenced by id without a foreign key, so attachments stay in place
+ * when their request moves to the archive tables.
+ */
+@Data
+@Entity
+@Table(indexes = {
+        @Index(name = "lab_attachment_request", columnList = "request_id"),
+        @Index(name = "lab_attachment_sha256", columnList = "sha256")
+})
+public class LabAttachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "request_id", nullable = false)
+    private Long requestId;
+
+    private String fileName;
+    private String contentType;
+    private long size;
+
+    @Column(length = 64, nullable = false)
+    private String sha256;
+
+    @ManyToOne
+    private User uploadedBy;
+
+    private Instant uploadedAt;
+
+}
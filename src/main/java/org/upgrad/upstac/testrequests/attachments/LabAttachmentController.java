@@ -0,0 +1,145 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.shared.FileTransfer;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestQueryService;
+import org.upgrad.upstac.users.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
+
+
+/**
+ * Files attached to a request's lab result. Uploads are the raw request body, with the
+ * file's content type and a fileName parameter. Downloads answer single byte ranges.
+ */
+@RestController
+@RequestMapping("/api/labrequests/{id}/attachments")
+public class LabAttachmentController {
+
+
+    @Autowired
+    private LabAttachmentService labAttachmentService;
+
+    @Autowired
+    private TestRequestQueryService testRequestQueryService;
+
+    @Autowired
+    private UserLoggedInService userLoggedInService;
+
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public LabAttachment upload(@PathVariable Long id, @RequestParam String fileName, HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/"))
+            throw asBadRequest("Send the file itself as the request body");
+
+        try (InputStream content = request.getInputStream()) {
+            User tester = userLoggedInService.getLoggedInUser();
+            TestRequest testRequest = testRequestQueryService.findByTesterAndID(tester, id).orElseThrow(ErrorCode.INVALID_ID::exception);
+            return labAttachmentService.upload(testRequest, fileName, contentType, content, tester);
+        } catch (IOException e) {
+            throw asBadRequest("Upload could not be read, " + e.getMessage());
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER','GOVERNMENT_AUTHORITY','TESTER','DOCTOR')")
+    public List<LabAttachment> list(@PathVariable Long id) {
+        return labAttachmentService.findFor(findVisible(id));
+    }
+
+    @GetMapping("/{attachmentId}")
+    @PreAuthorize("hasAnyRole('USER','GOVERNMENT_AUTHORITY','TESTER','DOCTOR')")
+    public void download(@PathVariable Long id, @PathVariable Long attachmentId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        LabAttachment attachment;
+        attachment = labAttachmentService.find(findVisible(id), attachmentId).orElseThrow(ErrorCode.INVALID_ATTACHMENT_ID::exception);
+
+        Path content = labAttachmentService.contentOf(attachment);
+        if (Files.exists(content) == false)
+            throw ErrorCode.ATTACHMENT_CONTENT_MISSING.exception();
+
+        // Content under an id never changes, its hash is a strong validator
+        String etag = "\"" + attachment.getSha256() + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        if (new ServletWebRequest(request, response).checkNotModified(etag))
+            return;
+
+        response.setContentType(attachment.getContentType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : attachment.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+                .filename(attachment.getFileName(), StandardCharsets.UTF_8).build().toString());
+
+        long size = attachment.getSize();
+        List<HttpRange> ranges = rangesOf(request, etag);
+        // Several ranges get the whole file, which HTTP allows
+        if (ranges.size() == 1) {
+            long start;
+            long end;
+            try {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            FileTransfer.send(request, response, content, start, end - start + 1);
+            return;
+        }
+
+        FileTransfer.send(request, response, content, 0, size);
+    }
+
+    @DeleteMapping("/{attachmentId}")
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public void delete(@PathVariable Long id, @PathVariable Long attachmentId) {
+        User tester = userLoggedInService.getLoggedInUser();
+        TestRequest testRequest = testRequestQueryService.findByTesterAndID(tester, id).orElseThrow(ErrorCode.INVALID_ID::exception);
+        labAttachmentService.delete(testRequest, attachmentId);
+    }
+
+    private TestRequest findVisible(Long id) {
+        User user = userLoggedInService.getLoggedInUser();
+        return testRequestQueryService.findTestRequestForUserByID(user, id).orElseThrow(ErrorCode.INVALID_ID::exception);
+    }
+
+    // The requested ranges, none when there is no Range header or If-Range names other content
+    private static List<HttpRange> rangesOf(HttpServletRequest request, String etag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && ifRange.equals(etag) == false))
+            return Collections.emptyList();
+
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+    }
+
+}
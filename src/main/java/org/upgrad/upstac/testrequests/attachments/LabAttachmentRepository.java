@@ -0,0 +1,17 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+
+public interface LabAttachmentRepository extends JpaRepository<LabAttachment, Long> {
+
+    List<LabAttachment> findByRequestIdOrderById(Long requestId);
+
+    Optional<LabAttachment> findByRequestIdAndId(Long requestId, Long id);
+
+    long countBySha256(String sha256);
+
+}
@@ -0,0 +1,77 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.users.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class LabAttachmentService {
+
+    @Autowired
+    private LabAttachmentRepository labAttachmentRepository;
+
+    @Autowired
+    private AttachmentStore attachmentStore;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private static final Logger log = LoggerFactory.getLogger(LabAttachmentService.class);
+
+
+    public LabAttachment upload(TestRequest testRequest, String fileName, String contentType, InputStream content, User tester) throws IOException {
+        if (testRequest.getLabResult() == null)
+            throw new AppException(ErrorCode.NO_LAB_TEST, "Request " + testRequest.getRequestId() + " has no lab test to attach to");
+        if (fileName == null || fileName.trim().isEmpty())
+            throw ErrorCode.FILE_NAME_REQUIRED.exception();
+
+        String shard = shardRouter.shardOf(testRequest.getPinCode());
+        LabAttachment saved = attachmentStore.store(content, stored -> shardRouter.onShard(shard, () -> {
+            LabAttachment attachment = new LabAttachment();
+            attachment.setRequestId(testRequest.getRequestId());
+            attachment.setFileName(fileName.trim());
+            attachment.setContentType(contentType);
+            attachment.setSize(stored.getSize());
+            attachment.setSha256(stored.getSha256());
+            attachment.setUploadedBy(tester);
+            attachment.setUploadedAt(Instant.now());
+            return labAttachmentRepository.save(attachment);
+        }));
+
+        log.info("Attached " + saved.getFileName() + " (" + saved.getSize() + " bytes) to request " + testRequest.getRequestId());
+        return saved;
+    }
+
+    public List<LabAttachment> findFor(TestRequest testRequest) {
+        return labAttachmentRepository.findByRequestIdOrderById(testRequest.getRequestId());
+    }
+
+    public Optional<LabAttachment> find(TestRequest testRequest, Long attachmentId) {
+        return labAttachmentRepository.findByRequestIdAndId(testRequest.getRequestId(), attachmentId);
+    }
+
+    public Path contentOf(LabAttachment attachment) {
+        return attachmentStore.fileOf(attachment.getSha256());
+    }
+
+    public void delete(TestRequest testRequest, Long attachmentId) {
+        LabAttachment attachment = find(testRequest, attachmentId).orElseThrow(ErrorCode.INVALID_ATTACHMENT_ID::exception);
+
+        shardRouter.onShard(shardRouter.shardOf(testRequest.getPinCode()), () -> labAttachmentRepository.delete(attachment));
+        attachmentStore.release(attachment.getSha256(), () -> labAttachmentRepository.countBySha256(attachment.getSha256()) > 0);
+    }
+
+}
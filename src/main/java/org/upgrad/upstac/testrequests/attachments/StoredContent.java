@@ -0,0 +1,16 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+@AllArgsConstructor
+public class StoredContent {
+
+    private final String sha256;
+    private final long size;
+    private final Path file;
+
+}
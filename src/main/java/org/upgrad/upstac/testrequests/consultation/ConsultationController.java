@@ -4,23 +4,26 @@ package org.upgrad.upstac.testrequests.consultation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.JsonArrayStreamer;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.TestRequestQueryService;
 import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.events.QueueEventBroadcaster;
+import org.upgrad.upstac.testrequests.events.RequestQueue;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
 import org.upgrad.upstac.users.User;
 
 import javax.validation.ConstraintViolationException;
 import java.util.List;
 
-import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
 
 
@@ -46,17 +49,43 @@ public class ConsultationController {
     @Autowired
     private UserLoggedInService userLoggedInService;
 
+    @Autowired
+    private QueueEventBroadcaster queueEventBroadcaster;
+
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+
+    @Autowired
+    private ConsultationQueueService consultationQueueService;
+
 
 
     @GetMapping("/in-queue")
     @PreAuthorize("hasAnyRole('DOCTOR')")
-    public List<TestRequest> getForConsultations()  {
+    public List<TestRequest> getForConsultations(@RequestParam(required = false) Integer limit)  {
         //Implement this method to get the list of test requests having status as 'LAB_TEST_COMPLETED'
         // make use of the findBy() method from testRequestQueryService class
         //return the result
         // For reference check the method requestHistory() method from TestRequestController class
-        return testRequestQueryService.findBy(RequestStatus.LAB_TEST_COMPLETED);
+        // Most urgent first, limit returns only the top ones
+        return consultationQueueService.findInRegionOf(userLoggedInService.getLoggedInUser(), limit);
+
+    }
+
+    @GetMapping(value = "/in-queue", params = "stream=true")
+    @PreAuthorize("hasAnyRole('DOCTOR')")
+    public ResponseEntity<StreamingResponseBody> getForConsultationsStreamed() {
+
+        User user = userLoggedInService.getLoggedInUser();
+        return jsonArrayStreamer.stream(TestRequest.class, TestRequest::getRequestId,
+                (afterId, size) -> testRequestQueryService.findPageInRegionOf(user, RequestStatus.LAB_TEST_COMPLETED, afterId, size));
+    }
+
+    @GetMapping(value = "/in-queue/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('DOCTOR')")
+    public SseEmitter streamForConsultations(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
 
+        return queueEventBroadcaster.subscribe(RequestQueue.IN_QUEUE, lastEventId);
     }
 
     @GetMapping
@@ -84,15 +113,9 @@ public class ConsultationController {
         //Create an object of TestRequest class and use the assignForConsultation() method of testRequestUpdateService to assign the particular id to the current user
         // return the above created object
         // Refer to the method createRequest() from the TestRequestController class
-        try {
-
-            User user = userLoggedInService.getLoggedInUser();
-            TestRequest result = testRequestUpdateService.assignForConsultation(id, user);
-            return  result;
-
-        }catch (AppException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
+        User user = userLoggedInService.getLoggedInUser();
+        TestRequest result = testRequestUpdateService.assignForConsultation(id, user);
+        return  result;
     }
 
 
@@ -113,8 +136,6 @@ public class ConsultationController {
 
         } catch (ConstraintViolationException e) {
             throw asConstraintViolation(e);
-        }catch (AppException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
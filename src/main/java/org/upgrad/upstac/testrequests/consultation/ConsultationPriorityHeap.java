@@ -0,0 +1,150 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import java.util.*;
+
+/**
+ * Max-heap of request ids by priority, indexed by request id so an entry can be updated or
+ * removed in O(log n). top() walks the heap from the root with a frontier of candidates and
+ * returns the k highest entries in O(k log k) without disturbing the heap. Each region keeps
+ * a heap of its own, so every entry visited is one to return.
+ *
+ * Not thread safe, callers synchronize.
+ */
+class ConsultationPriorityHeap {
+
+    private long[] requestIds = new long[64];
+    private double[] priorities = new double[64];
+    private int size;
+
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+
+    void put(long requestId, double priority) {
+        Integer position = positions.get(requestId);
+        if (position != null) {
+            double previous = priorities[position];
+            priorities[position] = priority;
+            if (priority > previous)
+                siftUp(position);
+            else
+                siftDown(position);
+            return;
+        }
+
+        ensureCapacity();
+        requestIds[size] = requestId;
+        priorities[size] = priority;
+        positions.put(requestId, size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    boolean remove(long requestId) {
+        Integer position = positions.remove(requestId);
+        if (position == null)
+            return false;
+
+        size--;
+        if (position == size)
+            return true;
+
+        move(size, position);
+        if (position > 0 && higher(position, parent(position)))
+            siftUp(position);
+        else
+            siftDown(position);
+        return true;
+    }
+
+    // The ids of the k highest entries, highest first
+    List<Long> top(int k) {
+        List<Long> result = new ArrayList<>(Math.min(k, size));
+        if (size == 0 || k <= 0)
+            return result;
+
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> higher(a, b) ? -1 : higher(b, a) ? 1 : 0);
+        frontier.add(0);
+        while (frontier.isEmpty() == false && result.size() < k) {
+            int position = frontier.poll();
+            result.add(requestIds[position]);
+
+            int left = 2 * position + 1;
+            if (left < size)
+                frontier.add(left);
+            if (left + 1 < size)
+                frontier.add(left + 1);
+        }
+        return result;
+    }
+
+    boolean contains(long requestId) {
+        return positions.containsKey(requestId);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        positions.clear();
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0 && higher(position, parent(position))) {
+            swap(position, parent(position));
+            position = parent(position);
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size)
+                return;
+
+            int child = left + 1 < size && higher(left + 1, left) ? left + 1 : left;
+            if (higher(child, position) == false)
+                return;
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    // Ties go to the older request
+    private boolean higher(int a, int b) {
+        if (priorities[a] != priorities[b])
+            return priorities[a] > priorities[b];
+        return requestIds[a] < requestIds[b];
+    }
+
+    private void swap(int a, int b) {
+        long requestId = requestIds[a];
+        double priority = priorities[a];
+
+        move(b, a);
+
+        requestIds[b] = requestId;
+        priorities[b] = priority;
+        positions.put(requestId, b);
+    }
+
+    private void move(int from, int to) {
+        requestIds[to] = requestIds[from];
+        priorities[to] = priorities[from];
+        positions.put(requestIds[to], to);
+    }
+
+    private static int parent(int position) {
+        return (position - 1) / 2;
+    }
+
+    private void ensureCapacity() {
+        if (size < requestIds.length)
+            return;
+        int capacity = requestIds.length * 2;
+        requestIds = Arrays.copyOf(requestIds, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+    }
+
+}
@@ -0,0 +1,212 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.config.startup.StartupLoads;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The LAB_TEST_COMPLETED queue in the order doctors should take it, most urgent first:
+ *
+ *   positive-weight                        for a POSITIVE result
+ * + oxygen-weight per point below oxygen-threshold
+ * + age-weight per year above age-threshold
+ * + wait-weight per hour waited
+ *
+ * Waiting raises every request at the same rate, so the order only depends on when each one
+ * started waiting and the heap never needs reordering as time passes.
+ *
+ * Each region, the shard its pinCodes are placed on, has a heap of its own, so a doctor's
+ * queue is read without stepping over other regions. The heaps follow status change events
+ * and are rebuilt from the database at startup and every rebuild-interval, which also picks
+ * up changes made by other instances. Events arriving while a rebuild reads the database are
+ * applied to the new heaps as well.
+ */
+@Service
+public class ConsultationQueueService {
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private StartupLoads startupLoads;
+
+    @Value("${app.consultation.priority.positive-weight:100}")
+    private double positiveWeight;
+
+    @Value("${app.consultation.priority.oxygen-threshold:95}")
+    private double oxygenThreshold;
+
+    @Value("${app.consultation.priority.oxygen-weight:5}")
+    private double oxygenWeight;
+
+    @Value("${app.consultation.priority.age-threshold:50}")
+    private int ageThreshold;
+
+    @Value("${app.consultation.priority.age-weight:0.5}")
+    private double ageWeight;
+
+    @Value("${app.consultation.priority.wait-weight:1}")
+    private double waitWeight;
+
+    @Value("${app.consultation.queue.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${app.consultation.queue.max-limit:500}")
+    private int maxLimit;
+
+    private volatile Map<String, ConsultationPriorityHeap> heaps = new HashMap<>();
+
+    // Heaps being filled by a rebuild, kept up to date with live changes until they are swapped in.
+    // Requests changed live during the rebuild are not overwritten by the older rows it loads.
+    private final Object rebuildLock = new Object();
+    private Map<String, ConsultationPriorityHeap> rebuilding;
+    private Set<Long> changedDuringRebuild;
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultationQueueService.class);
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startupLoads.run("consultation-queue", this::rebuild);
+    }
+
+    @Scheduled(initialDelayString = "${app.consultation.priority.rebuild-interval:600000}", fixedDelayString = "${app.consultation.priority.rebuild-interval:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            Map<String, ConsultationPriorityHeap> rebuilt = new HashMap<>();
+            synchronized (this) {
+                rebuilding = rebuilt;
+                changedDuringRebuild = new HashSet<>();
+            }
+            try {
+                List<TestRequest> waiting = testRequestRepository.findByStatus(RequestStatus.LAB_TEST_COMPLETED);
+                synchronized (this) {
+                    for (TestRequest testRequest : waiting)
+                        if (changedDuringRebuild.contains(testRequest.getRequestId()) == false)
+                            put(rebuilt, testRequest);
+                    heaps = rebuilt;
+                }
+            } finally {
+                synchronized (this) {
+                    rebuilding = null;
+                    changedDuringRebuild = null;
+                }
+            }
+            log.info("Consultation queue rebuilt with " + rebuilt.values().stream().mapToInt(ConsultationPriorityHeap::size).sum() + " requests in " + rebuilt.size() + " regions");
+        }
+    }
+
+    @EventListener
+    public synchronized void onStatusChanged(TestRequestStatusChangedEvent event) {
+        apply(heaps, event);
+        if (rebuilding != null) {
+            apply(rebuilding, event);
+            changedDuringRebuild.add(event.getTestRequest().getRequestId());
+        }
+    }
+
+    private void apply(Map<String, ConsultationPriorityHeap> target, TestRequestStatusChangedEvent event) {
+        TestRequest testRequest = event.getTestRequest();
+
+        if (event.getToStatus() == RequestStatus.LAB_TEST_COMPLETED)
+            put(target, testRequest);
+        else if (event.getFromStatus() == RequestStatus.LAB_TEST_COMPLETED)
+            for (ConsultationPriorityHeap heap : target.values())
+                heap.remove(testRequest.getRequestId());
+    }
+
+    // A request whose pinCode has been assigned to another region leaves the heap of the old one
+    private void put(Map<String, ConsultationPriorityHeap> target, TestRequest testRequest) {
+        String region = regionOf(testRequest.getPinCode());
+        for (Map.Entry<String, ConsultationPriorityHeap> entry : target.entrySet())
+            if (entry.getKey().equals(region) == false)
+                entry.getValue().remove(testRequest.getRequestId());
+
+        target.computeIfAbsent(region, key -> new ConsultationPriorityHeap()).put(testRequest.getRequestId(), priorityOf(testRequest));
+    }
+
+    /**
+     * The most urgent requests waiting in the doctor's region, default-limit of them when no
+     * limit is given and never more than max-limit.
+     */
+    public List<TestRequest> findInRegionOf(User doctor, Integer limit) {
+        String region = regionOf(doctor.getPinCode());
+        int count = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+
+        List<Long> requestIds;
+        synchronized (this) {
+            ConsultationPriorityHeap heap = heaps.get(region);
+            requestIds = heap == null ? new ArrayList<>() : heap.top(count);
+        }
+        if (requestIds.isEmpty())
+            return new ArrayList<>();
+
+        Map<Long, TestRequest> loaded = shardRouter.onShard(region, () -> testRequestRepository.findWithResultsByRequestIdIn(requestIds)).stream()
+                .collect(Collectors.toMap(TestRequest::getRequestId, testRequest -> testRequest));
+
+        // A request can have moved on elsewhere since it was queued here
+        return requestIds.stream()
+                .map(loaded::get)
+                .filter(testRequest -> testRequest != null && testRequest.getStatus() == RequestStatus.LAB_TEST_COMPLETED)
+                .collect(Collectors.toList());
+    }
+
+    private String regionOf(Integer pinCode) {
+        return shardRouter.isSharded() ? shardRouter.shardOf(pinCode) : ShardRouter.DEFAULT_SHARD;
+    }
+
+    double priorityOf(TestRequest testRequest) {
+        double priority = 0;
+
+        LabResult labResult = testRequest.getLabResult();
+        if (labResult != null) {
+            if (labResult.getResult() == TestStatus.POSITIVE)
+                priority += positiveWeight;
+
+            Byte oxygenSaturation = labResult.getOxygenSaturation();
+            if (oxygenSaturation != null && oxygenSaturation < oxygenThreshold)
+                priority += (oxygenThreshold - oxygenSaturation) * oxygenWeight;
+        }
+
+        Integer age = testRequest.getAge();
+        if (age != null && age > ageThreshold)
+            priority += (age - ageThreshold) * ageWeight;
+
+        return priority - waitWeight * hoursSinceEpoch(waitingSince(testRequest));
+    }
+
+    private static Instant waitingSince(TestRequest testRequest) {
+        if (testRequest.getStatusChangedAt() != null)
+            return testRequest.getStatusChangedAt();
+        if (testRequest.getCreated() != null)
+            return testRequest.getCreated().atStartOfDay(ZoneId.systemDefault()).toInstant();
+        return Instant.now();
+    }
+
+    private static double hoursSinceEpoch(Instant instant) {
+        return instant.getEpochSecond() / 3600.0;
+    }
+
+}
@@ -1,8 +1,10 @@
 package org.upgrad.upstac.testrequests.consultation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.stats.StatisticsCount;
 import org.upgrad.upstac.users.User;
 
 import java.util.List;
@@ -27,5 +29,9 @@ public interface ConsultationRepository extends JpaRepository<Consultation,Long>
 
     Optional<Consultation> findByDoctorAndRequest(User doctor,TestRequest testRequest);
 
+    @Query("select new org.upgrad.upstac.testrequests.stats.StatisticsCount(c.suggestion, r.pinCode, c.updatedOn, count(c)) " +
+            "from Consultation c join c.request r where c.suggestion is not null group by c.suggestion, r.pinCode, c.updatedOn")
+    List<StatisticsCount> countBySuggestionPinCodeAndDay();
+
 
 }
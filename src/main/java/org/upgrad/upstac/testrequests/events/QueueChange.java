@@ -0,0 +1,14 @@
+package org.upgrad.upstac.testrequests.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class QueueChange {
+
+    private long eventId;
+    private Long requestId;
+    private QueueChangeType type;
+
+}
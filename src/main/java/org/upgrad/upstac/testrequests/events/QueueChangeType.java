@@ -0,0 +1,5 @@
+package org.upgrad.upstac.testrequests.events;
+
+public enum QueueChangeType {
+    ENTERED,LEFT
+}
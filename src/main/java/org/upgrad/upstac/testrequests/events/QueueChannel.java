@@ -0,0 +1,142 @@
+package org.upgrad.upstac.testrequests.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscribers and recent history of one queue.
+ *
+ * History, replays and subscriptions are handled on a single thread per queue, which keeps
+ * events in id order for every client without locking. That thread only hands events to
+ * each subscriber's buffer, the writes to the clients run on the shared writer pool, so a
+ * slow client never delays the others. Emitters are async, they hold no thread.
+ */
+class QueueChannel {
+
+    static final String RESET_EVENT = "reset";
+    static final String CHANGE_EVENT = "change";
+    static final String SUBSCRIBED_EVENT = "subscribed";
+    static final long RECONNECT_MILLIS = 3000;
+
+    private final RequestQueue queue;
+    private final int historySize;
+    private final int bufferSize;
+    private final Executor writers;
+
+    private final List<QueueSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<QueueChange> history = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private long lastEventId;
+
+    private final ExecutorService sender;
+
+    private static final Logger log = LoggerFactory.getLogger(QueueChannel.class);
+
+
+    QueueChannel(RequestQueue queue, int historySize, int backlog, int bufferSize, Executor writers) {
+        this.queue = queue;
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.writers = writers;
+        this.sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(backlog),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sse-" + queue.name().toLowerCase());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    void subscribe(SseEmitter emitter, Long lastSeenEventId) {
+        QueueSubscriber subscriber = new QueueSubscriber(emitter, bufferSize, writers, subscribers::remove);
+        submit(() -> {
+            subscribers.add(subscriber);
+
+            if (lastSeenEventId != null)
+                replay(subscriber, lastSeenEventId);
+            else
+                send(subscriber, SseEmitter.event().id(String.valueOf(lastEventId)).name(SUBSCRIBED_EVENT).data(queue.name()).reconnectTime(RECONNECT_MILLIS));
+        });
+    }
+
+    // Ids are taken before handing off, so a change dropped on a full backlog still leaves a gap
+    synchronized void publish(Long requestId, QueueChangeType type) {
+        long eventId = sequence.incrementAndGet();
+        submit(() -> {
+            QueueChange change = new QueueChange(eventId, requestId, type);
+            lastEventId = eventId;
+            history.addLast(change);
+            if (history.size() > historySize)
+                history.removeFirst();
+
+            for (QueueSubscriber subscriber : subscribers)
+                send(subscriber, SseEmitter.event().id(String.valueOf(change.getEventId())).name(CHANGE_EVENT).data(change));
+        });
+    }
+
+    void heartbeat() {
+        submit(() -> {
+            for (QueueSubscriber subscriber : subscribers)
+                send(subscriber, SseEmitter.event().comment("heartbeat"));
+        });
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    void shutdown() {
+        sender.shutdownNow();
+        for (QueueSubscriber subscriber : subscribers)
+            subscriber.close();
+    }
+
+    // Runs on the sender thread
+    private void replay(QueueSubscriber subscriber, long lastSeenEventId) {
+        QueueChange oldest = history.peekFirst();
+        boolean missedEvents = oldest == null ? lastSeenEventId < lastEventId : lastSeenEventId < oldest.getEventId() - 1;
+
+        // A replay that does not fit the buffer would close the stream and start over on every reconnect
+        boolean tooManyEvents = lastEventId - lastSeenEventId > subscriber.capacity();
+
+        if (missedEvents || tooManyEvents || lastSeenEventId > lastEventId) {
+            send(subscriber, SseEmitter.event().id(String.valueOf(lastEventId)).name(RESET_EVENT).data(queue.name()).reconnectTime(RECONNECT_MILLIS));
+            return;
+        }
+
+        Iterator<QueueChange> iterator = history.iterator();
+        while (iterator.hasNext()) {
+            QueueChange change = iterator.next();
+            if (change.getEventId() > lastSeenEventId)
+                send(subscriber, SseEmitter.event().id(String.valueOf(change.getEventId())).name(CHANGE_EVENT).data(change));
+        }
+    }
+
+    private void send(QueueSubscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.offer(event))
+            return;
+
+        // Closed, or too far behind, the client reconnects with Last-Event-ID and catches up from there
+        if (subscribers.remove(subscriber)) {
+            log.info("Closing " + queue + " queue stream, the client fell " + subscriber.capacity() + " events behind");
+            subscriber.close();
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Clients notice the gap in event ids and reload the queue
+            log.warn("Dropping " + queue + " queue event, sender backlog is full");
+        }
+    }
+
+}
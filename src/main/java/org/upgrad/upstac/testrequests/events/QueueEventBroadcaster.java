@@ -0,0 +1,90 @@
+package org.upgrad.upstac.testrequests.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes "request entered/left queue" deltas to testers and doctors over Server-Sent Events,
+ * so dashboards load a queue once instead of polling it.
+ *
+ * Clients should subscribe first and then load the queue, the first event carries the id
+ * to resume from. A reconnect with Last-Event-ID replays what was missed, or sends a
+ * reset event when the history no longer covers the gap.
+ */
+@Component
+public class QueueEventBroadcaster {
+
+    private final Map<RequestQueue, QueueChannel> channels = new EnumMap<>(RequestQueue.class);
+
+    private final long emitterTimeout;
+
+    // Writes to the clients, shared by every queue
+    private final ExecutorService writers;
+
+
+    @Autowired
+    public QueueEventBroadcaster(@Value("${app.sse.history-size:1000}") int historySize,
+                                 @Value("${app.sse.backlog:10000}") int backlog,
+                                 @Value("${app.sse.emitter-timeout:1800000}") long emitterTimeout,
+                                 @Value("${app.sse.client-buffer:256}") int clientBuffer,
+                                 @Value("${app.sse.writer-threads:8}") int writerThreads) {
+        this.emitterTimeout = emitterTimeout;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-writer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (RequestQueue queue : RequestQueue.values())
+            channels.put(queue, new QueueChannel(queue, historySize, backlog, clientBuffer, writers));
+    }
+
+
+    public SseEmitter subscribe(RequestQueue queue, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        channels.get(queue).subscribe(emitter, lastEventId);
+        return emitter;
+    }
+
+    @EventListener
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        Long requestId = event.getTestRequest().getRequestId();
+
+        for (RequestQueue queue : RequestQueue.values()) {
+            if (queue.getStatus() == event.getFromStatus())
+                channels.get(queue).publish(requestId, QueueChangeType.LEFT);
+            if (queue.getStatus() == event.getToStatus())
+                channels.get(queue).publish(requestId, QueueChangeType.ENTERED);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-interval:15000}")
+    public void heartbeat() {
+        channels.values().forEach(QueueChannel::heartbeat);
+    }
+
+    public int subscriberCount(RequestQueue queue) {
+        return channels.get(queue).subscriberCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(QueueChannel::shutdown);
+        writers.shutdown();
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.upgrad.upstac.testrequests.events;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One open stream and the events waiting to be written to it.
+ *
+ * The channel thread only queues events here, the writes run on the shared writer pool,
+ * one drain at a time per subscriber so events keep their order. A client that falls
+ * behind by more than the buffer is closed, it reconnects with Last-Event-ID and gets a
+ * replay or a reset, and never holds up the other subscribers of its queue.
+ */
+class QueueSubscriber {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+    private final Executor writers;
+    private final Consumer<QueueSubscriber> onClosed;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+
+    QueueSubscriber(SseEmitter emitter, int bufferSize, Executor writers, Consumer<QueueSubscriber> onClosed) {
+        this.emitter = emitter;
+        this.pending = new ArrayBlockingQueue<>(bufferSize);
+        this.writers = writers;
+        this.onClosed = onClosed;
+
+        emitter.onCompletion(this::closed);
+        emitter.onTimeout(this::closed);
+        emitter.onError(error -> closed());
+    }
+
+    // Returns false when the subscriber is closed or its buffer is full
+    boolean offer(SseEmitter.SseEventBuilder event) {
+        if (closed || pending.offer(event) == false)
+            return false;
+
+        scheduleDrain();
+        return true;
+    }
+
+    int capacity() {
+        return pending.size() + pending.remainingCapacity();
+    }
+
+    /**
+     * Drops what is still queued and completes the emitter. The emitter is completed from
+     * the writer pool, after a write in progress returns, so the caller never waits on it.
+     */
+    void close() {
+        closed();
+        pending.clear();
+        scheduleDrain();
+    }
+
+    private void closed() {
+        if (closed)
+            return;
+        closed = true;
+        onClosed.accept(this);
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true) == false)
+            return;
+
+        try {
+            writers.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            if (closed) {
+                pending.clear();
+                emitter.complete();
+                return;
+            }
+
+            SseEmitter.SseEventBuilder event = pending.poll();
+            if (event == null) {
+                draining.set(false);
+                // An event queued after the poll but before the flag was cleared
+                if (pending.isEmpty() || draining.compareAndSet(false, true) == false)
+                    return;
+                continue;
+            }
+
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                closed();
+                pending.clear();
+                emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.upgrad.upstac.testrequests.events;
+
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+/**
+ * Work queues staff keep open, each holding the requests in one status.
+ */
+public enum RequestQueue {
+
+    TO_BE_TESTED(RequestStatus.INITIATED), IN_QUEUE(RequestStatus.LAB_TEST_COMPLETED);
+
+    private final RequestStatus status;
+
+    RequestQueue(RequestStatus status) {
+        this.status = status;
+    }
+
+    public RequestStatus getStatus() {
+        return status;
+    }
+}
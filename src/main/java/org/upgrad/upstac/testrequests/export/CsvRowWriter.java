@@ -0,0 +1,60 @@
+package org.upgrad.upstac.testrequests.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+class CsvRowWriter implements ExportRowWriter {
+
+    private static final ExportColumn[] COLUMNS = ExportColumn.values();
+
+    private final Writer writer;
+
+
+    CsvRowWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0)
+                writer.write(',');
+            writer.write(COLUMNS[i].getLabel());
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void writeRow(String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                writer.write(',');
+            if (values[i] != null)
+                writeEscaped(values[i]);
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && needsQuotes == false; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (needsQuotes == false) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.upgrad.upstac.testrequests.export;
+
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Columns of the export, in the order they are selected by TestRequestExportService.
+ * Enums are stored as ordinals, so they are mapped back to names here.
+ */
+enum ExportColumn {
+
+    REQUEST_ID("request_id", true, null),
+    CREATED("created", false, null),
+    STATUS("status", false, RequestStatus.values()),
+    NAME("name", false, null),
+    GENDER("gender", false, Gender.values()),
+    AGE("age", true, null),
+    EMAIL("email", false, null),
+    PHONE_NUMBER("phone_number", false, null),
+    ADDRESS("address", false, null),
+    PIN_CODE("pin_code", true, null),
+    LAB_RESULT("lab_result", false, TestStatus.values()),
+    SYSTOLIC_PRESSURE("systolic_pressure", true, null),
+    DIASTOLIC_PRESSURE("diastolic_pressure", true, null),
+    HEART_RATE("heart_rate", true, null),
+    TEMPERATURE("temperature", true, null),
+    OXYGEN_SATURATION("oxygen_saturation", true, null),
+    LAB_COMMENTS("lab_comments", false, null),
+    LAB_UPDATED_ON("lab_updated_on", false, null),
+    SUGGESTION("suggestion", false, DoctorSuggestion.values()),
+    DOCTOR_COMMENTS("doctor_comments", false, null),
+    CONSULTATION_UPDATED_ON("consultation_updated_on", false, null);
+
+    private final String label;
+    private final boolean numeric;
+    private final Enum<?>[] enumValues;
+
+    ExportColumn(String label, boolean numeric, Enum<?>[] enumValues) {
+        this.label = label;
+        this.numeric = numeric;
+        this.enumValues = enumValues;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    boolean isNumeric() {
+        return numeric;
+    }
+
+    String read(ResultSet resultSet) throws SQLException {
+        Object value = resultSet.getObject(ordinal() + 1);
+        if (value == null)
+            return null;
+        if (enumValues != null)
+            return enumValues[((Number) value).intValue()].name();
+        return value.toString();
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.upgrad.upstac.testrequests.export;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDate;
+
+import static org.upgrad.upstac.shared.DateParser.getStringFromDate;
+
+
+@RestController
+@RequestMapping("/api/exports")
+public class ExportController {
+
+
+    @Autowired
+    private TestRequestExportService testRequestExportService;
+
+    // Exports run far longer than other async requests, so they get a timeout of their own
+    @Value("${app.export.timeout:3600000}")
+    private long timeout;
+
+
+    @GetMapping("/testrequests")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public WebAsyncTask<Void> exportTestRequests(@RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                 @RequestParam(required = false) RequestStatus status,
+                                                 @RequestParam(required = false) Integer pinCode,
+                                                 @RequestParam(defaultValue = "true") boolean archived,
+                                                 HttpServletResponse response) {
+
+        ExportFilter filter = new ExportFilter();
+        filter.setCreatedFrom(from);
+        filter.setCreatedTo(to);
+        filter.setStatus(status);
+        filter.setPinCode(pinCode);
+        filter.setIncludeArchived(archived);
+
+        String fileName = "testrequests-" + getStringFromDate(LocalDate.now()) + "." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(format.getContentType());
+
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        return new WebAsyncTask<>(timeout, () -> {
+            testRequestExportService.export(filter, format, gzip, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.upgrad.upstac.testrequests.export;
+
+import lombok.Data;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.LocalDate;
+
+@Data
+public class ExportFilter {
+
+    private LocalDate createdFrom;
+    private LocalDate createdTo;
+    private RequestStatus status;
+    private Integer pinCode;
+    private boolean includeArchived = true;
+
+}
@@ -0,0 +1,13 @@
+package org.upgrad.upstac.testrequests.export;
+
+import java.io.IOException;
+
+interface ExportRowWriter {
+
+    void writeHeader() throws IOException;
+
+    void writeRow(String[] values) throws IOException;
+
+    void finish() throws IOException;
+
+}
@@ -0,0 +1,45 @@
+package org.upgrad.upstac.testrequests.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+class NdjsonRowWriter implements ExportRowWriter {
+
+    private static final ExportColumn[] COLUMNS = ExportColumn.values();
+
+    private final JsonGenerator generator;
+
+
+    NdjsonRowWriter(JsonGenerator generator) {
+        this.generator = generator;
+        this.generator.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public void writeHeader() {
+    }
+
+    @Override
+    public void writeRow(String[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            generator.writeFieldName(COLUMNS[i].getLabel());
+            if (values[i] == null)
+                generator.writeNull();
+            else if (COLUMNS[i].isNumeric())
+                generator.writeNumber(values[i]);
+            else
+                generator.writeString(values[i]);
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+}
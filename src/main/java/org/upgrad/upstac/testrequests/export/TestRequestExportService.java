@@ -0,0 +1,154 @@
+package org.upgrad.upstac.testrequests.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.shard.ShardRouter;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams test requests joined with their lab result and consultation straight from a
+ * forward-only JDBC cursor to the response, one row at a time, so heap use does not
+ * grow with the size of the table. On MySQL the cursor needs useCursorFetch=true on the url.
+ * When sharded, the shards are exported one after the other.
+ *
+ * Archived requests come first unless left out by the filter, then the hot ones. Both are read in
+ * one read-only transaction per shard so a request archived meanwhile is exported exactly once.
+ */
+@Service
+public class TestRequestExportService {
+
+    // Table prefix, "" for the hot tables and "archived_" for the archive
+    private static final String SELECT = "select t.request_id, t.created, t.status, t.name, t.gender, t.age, t.email, t.phone_number, t.address, t.pin_code, " +
+            "l.result as lab_result, l.systolic_pressure, l.diastolic_pressure, l.heart_rate, l.body_temperature as temperature, l.oxygen_saturation, l.comments as lab_comments, l.updated_on as lab_updated_on, " +
+            "c.suggestion, c.comments as doctor_comments, c.updated_on as consultation_updated_on " +
+            "from %1$stest_request t " +
+            "left join %1$slab_result l on l.request_request_id = t.request_id " +
+            "left join %1$sconsultation c on c.request_request_id = t.request_id " +
+            "where 1 = 1";
+
+    private static final String ARCHIVED = "archived_";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ExportColumn[] COLUMNS = ExportColumn.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final ShardRouter shardRouter;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private static Logger logger = LoggerFactory.getLogger(TestRequestExportService.class);
+
+
+    @Autowired
+    public TestRequestExportService(DataSource dataSource, ObjectMapper objectMapper, ShardRouter shardRouter, PlatformTransactionManager transactionManager,
+                                    @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+
+    public long export(ExportFilter filter, ExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+
+        long started = System.currentTimeMillis();
+        OutputStream target = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        ExportRowWriter rowWriter = createRowWriter(format, target);
+
+        List<Object> parameters = new ArrayList<>();
+        List<String> queries = new ArrayList<>();
+        if (filter.isIncludeArchived())
+            queries.add(buildQuery(ARCHIVED, filter, new ArrayList<>()));
+        queries.add(buildQuery("", filter, parameters));
+
+        long[] rows = {0};
+        RowCallbackHandler writeRow = resultSet -> {
+            String[] values = new String[COLUMNS.length];
+            for (int i = 0; i < COLUMNS.length; i++)
+                values[i] = COLUMNS[i].read(resultSet);
+            try {
+                rowWriter.writeRow(values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        };
+
+        rowWriter.writeHeader();
+        List<String> shards = filter.getPinCode() == null ? shardRouter.shards() : Collections.singletonList(shardRouter.shardOf(filter.getPinCode()));
+        try {
+            for (String shard : shards)
+                shardRouter.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+                    for (String sql : queries)
+                        jdbcTemplate.query(sql, writeRow, parameters.toArray());
+                    return null;
+                }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.finish();
+
+        if (target instanceof GZIPOutputStream)
+            ((GZIPOutputStream) target).finish();
+        target.flush();
+
+        logger.info("Exported " + rows[0] + " test requests as " + format + " in " + (System.currentTimeMillis() - started) + " ms");
+        return rows[0];
+    }
+
+    String buildQuery(String tablePrefix, ExportFilter filter, List<Object> parameters) {
+        StringBuilder sql = new StringBuilder(String.format(SELECT, tablePrefix));
+
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" and t.created >= ?");
+            parameters.add(Date.valueOf(filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            sql.append(" and t.created <= ?");
+            parameters.add(Date.valueOf(filter.getCreatedTo()));
+        }
+        if (filter.getStatus() != null) {
+            sql.append(" and t.status = ?");
+            parameters.add(filter.getStatus().ordinal());
+        }
+        if (filter.getPinCode() != null) {
+            sql.append(" and t.pin_code = ?");
+            parameters.add(filter.getPinCode());
+        }
+        return sql.append(" order by t.request_id").toString();
+    }
+
+    private ExportRowWriter createRowWriter(ExportFormat format, OutputStream target) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(target, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return new NdjsonRowWriter(generator);
+        }
+        return new CsvRowWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+    }
+
+}
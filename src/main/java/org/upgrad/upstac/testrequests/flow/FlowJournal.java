@@ -0,0 +1,165 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of fixed size, checksummed flow records behind a header with the format version.
+ * Records are forced to disk once per group, and a torn record at the end is ignored on read.
+ * A journal in another format is moved aside on open rather than misread.
+ */
+class FlowJournal implements AutoCloseable {
+
+    // "FLOW", then the version, bumped whenever the record layout changes
+    static final int MAGIC = 0x464C4F57;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 4;
+
+    static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 4 + 8 + 8 + 8;
+
+    private static final RequestStatus[] STATUSES = RequestStatus.values();
+
+    private final FileChannel channel;
+
+    private static final Logger log = LoggerFactory.getLogger(FlowJournal.class);
+
+
+    FlowJournal(Path path) throws IOException {
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        if (Files.exists(path) && Files.size(path) > 0 && hasCurrentHeader(path) == false) {
+            Path aside = Paths.get(path + ".unrecognized");
+            Files.move(path, aside, StandardCopyOption.REPLACE_EXISTING);
+            log.warn("Flow journal " + path + " is not in format version " + VERSION + ", moved it to " + aside + " and starting a new one");
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE)
+            writeHeader();
+        this.channel.position(channel.size());
+    }
+
+    void append(List<FlowRecord> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        for (FlowRecord record : records)
+            write(buffer, record);
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        channel.force(false);
+    }
+
+    List<FlowRecord> readAll() throws IOException {
+        List<FlowRecord> records = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        long position = HEADER_SIZE;
+
+        while (position + RECORD_SIZE <= channel.size()) {
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                    break;
+            }
+            buffer.flip();
+
+            FlowRecord record = read(buffer);
+            if (record == null) {
+                log.warn("Flow journal has a damaged record at " + position + ", ignoring the rest");
+                break;
+            }
+            records.add(record);
+            position += RECORD_SIZE;
+        }
+        return records;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    void truncate() throws IOException {
+        channel.truncate(0);
+        writeHeader();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        channel.position(0);
+        while (header.hasRemaining())
+            channel.write(header);
+        channel.force(true);
+    }
+
+    private static boolean hasCurrentHeader(Path path) throws IOException {
+        try (FileChannel existing = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (existing.read(header) < 0)
+                    break;
+            }
+            header.flip();
+            return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == VERSION;
+        }
+    }
+
+    private static void write(ByteBuffer buffer, FlowRecord record) {
+        int start = buffer.position();
+        buffer.putLong(record.getSequence());
+        buffer.putLong(record.getRequestId());
+        buffer.putInt(record.getPinCode() == null ? -1 : record.getPinCode());
+        buffer.putInt(record.getFromStatus().ordinal());
+        buffer.putInt(record.getToStatus().ordinal());
+        buffer.putLong(record.getChangedById() == null ? -1L : record.getChangedById());
+        buffer.putLong(record.getHappenedAt().toEpochMilli());
+        buffer.putLong(checksum(buffer, start, RECORD_SIZE - 8));
+    }
+
+    private static FlowRecord read(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_SIZE)
+            return null;
+        if (checksum(buffer, 0, RECORD_SIZE - 8) != buffer.getLong(RECORD_SIZE - 8))
+            return null;
+
+        long sequence = buffer.getLong();
+        long requestId = buffer.getLong();
+        int pinCode = buffer.getInt();
+        int from = buffer.getInt();
+        int to = buffer.getInt();
+        long changedById = buffer.getLong();
+        long epochMilli = buffer.getLong();
+        if (from < 0 || from >= STATUSES.length || to < 0 || to >= STATUSES.length)
+            return null;
+
+        return new FlowRecord(sequence, requestId, pinCode < 0 ? null : pinCode, STATUSES[from], STATUSES[to],
+                changedById < 0 ? null : changedById, Instant.ofEpochMilli(epochMilli));
+    }
+
+    private static long checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        for (int i = offset; i < offset + length; i++)
+            crc.update(buffer.get(i));
+        return crc.getValue();
+    }
+
+}
@@ -0,0 +1,24 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.Value;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+
+/**
+ * A transition waiting to be written to the TestRequestFlow table.
+ * The sequence orders the journal and is stored with the row so replay can skip what was flushed.
+ * The pinCode places the row on the shard of its request.
+ */
+@Value
+class FlowRecord {
+
+    long sequence;
+    long requestId;
+    Integer pinCode;
+    RequestStatus fromStatus;
+    RequestStatus toStatus;
+    Long changedById;
+    Instant happenedAt;
+
+}
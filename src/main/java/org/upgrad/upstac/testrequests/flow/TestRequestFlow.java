@@ -7,6 +7,7 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Data
@@ -32,6 +33,13 @@ public class TestRequestFlow {
 
     private LocalDate happenedOn=LocalDate.now();
 
+    private Instant happenedAt=Instant.now();
+
+    // Position in the write-behind journal, used to replay entries without duplicates
+    @JsonIgnore
+    @Column(unique = true)
+    private Long journalSequence;
+
 
 
 
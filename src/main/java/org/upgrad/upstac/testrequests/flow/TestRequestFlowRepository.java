@@ -1,6 +1,8 @@
 package org.upgrad.upstac.testrequests.flow;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.upgrad.upstac.testrequests.TestRequest;
 
 import java.util.List;
@@ -22,5 +24,9 @@ public interface TestRequestFlowRepository extends JpaRepository<TestRequestFlow
 
     List<TestRequestFlow> findByRequest(TestRequest request);
 
+    @Query("select new org.upgrad.upstac.testrequests.flow.TimelineEntry(f.fromStatus, f.toStatus, u.userName, f.happenedOn, f.happenedAt) " +
+            "from TestRequestFlow f left join f.changedBy u where f.request.requestId = :requestId order by f.id")
+    List<TimelineEntry> findTimelineByRequestId(@Param("requestId") Long requestId);
+
 
 }
@@ -5,9 +5,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.stats.StageDwellTimeService;
 import org.upgrad.upstac.users.User;
 
-import javax.transaction.Transactional;
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -17,18 +18,36 @@ public class TestRequestFlowService {
     @Autowired
     private TestRequestFlowRepository testRequestFlowRepository;
 
+    @Autowired
+    private TestRequestFlowWriter testRequestFlowWriter;
+
+    @Autowired
+    private StageDwellTimeService stageDwellTimeService;
+
 
-    @Transactional
+    // Returns once the entry is journaled, the row itself is written in the background
     public void log(TestRequest testRequest, RequestStatus from, RequestStatus to, User changedBy) {
-        TestRequestFlow testRequestFlow = new TestRequestFlow();
-        testRequestFlow.setChangedBy(changedBy);
-        testRequestFlow.setRequest(testRequest);
-        testRequestFlow.setFromStatus(from);
-        testRequestFlow.setToStatus(to);
-        testRequestFlowRepository.save(testRequestFlow);
+        Instant happenedAt = Instant.now();
+        stageDwellTimeService.record(testRequest, from, happenedAt);
+
+        Long changedById = changedBy == null ? null : changedBy.getId();
+        testRequestFlowWriter.append(testRequest.getRequestId(), testRequest.getPinCode(), from, to, changedById, happenedAt);
     }
 
+    // The same transition of several requests, journaled together once they are all made
+    public void logAll(List<TestRequest> testRequests, RequestStatus from, RequestStatus to, User changedBy) {
+        Instant happenedAt = Instant.now();
+        for (TestRequest testRequest : testRequests)
+            stageDwellTimeService.record(testRequest, from, happenedAt);
+
+        Long changedById = changedBy == null ? null : changedBy.getId();
+        testRequestFlowWriter.appendAll(testRequests, from, to, changedById, happenedAt);
+    }
 
+    // An entry without a status change, it ends no stage so no dwell time is recorded
+    public void logReassignment(TestRequest testRequest, User tester) {
+        testRequestFlowWriter.append(testRequest.getRequestId(), testRequest.getPinCode(), testRequest.getStatus(), testRequest.getStatus(), tester.getId(), Instant.now());
+    }
 
     public List<TestRequestFlow> findByRequest(TestRequest testRequest) {
 
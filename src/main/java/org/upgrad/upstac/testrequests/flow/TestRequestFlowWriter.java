@@ -0,0 +1,463 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind pipeline for the TestRequestFlow audit log.
+ *
+ * append() returns once the transition is in the local journal, which a single journal
+ * thread forces to disk once per group of concurrent callers. A second thread drains
+ * journaled groups into the database with multi-row inserts. Every row carries its
+ * journal sequence, unique in the table, so entries left in the journal by a crash are
+ * replayed at startup, and batches retried after a partial failure, without duplicating
+ * the ones already flushed.
+ *
+ * At most capacity entries are between append() and the database, both queues are bounded
+ * by it. A caller that cannot get a slot, or whose entry is not durable, within the append
+ * timeout fails with AUDIT_UNAVAILABLE. Callers append inside the transaction of the
+ * transition, so it is rolled back rather than left unaudited.
+ *
+ * Entries are inserted on the shard the request's pinCode is assigned to. A batch that
+ * violates a constraint is not retried, its entries are placed one at a time on the shard
+ * that holds their request, and an entry that still fails is logged and dropped.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class TestRequestFlowWriter {
+
+    private static final String INSERT = "insert into test_request_flow (journal_sequence, request_request_id, from_status, to_status, changed_by_id, happened_on, happened_at) values ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] ROW_TYPES = {Types.BIGINT, Types.BIGINT, Types.INTEGER, Types.INTEGER, Types.BIGINT, Types.DATE, Types.TIMESTAMP};
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final String journalPath;
+    private final int batchSize;
+    private final int capacity;
+    private final long journalMaxBytes;
+    private final long appendTimeout;
+
+    // Never full, an entry only goes in with a permit and every group holds at least one entry
+    private final ArrayBlockingQueue<PendingRecord> incoming;
+    private final ArrayBlockingQueue<List<FlowRecord>> toDatabase;
+    // One permit per entry not yet in the database
+    private final Semaphore inFlight;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile long journaledSequence;
+    private volatile long flushedSequence;
+    private volatile boolean running;
+
+    private FlowJournal journal;
+    private Thread journalThread;
+    private Thread databaseThread;
+
+    private static final Logger log = LoggerFactory.getLogger(TestRequestFlowWriter.class);
+
+
+    @Autowired
+    public TestRequestFlowWriter(JdbcTemplate jdbcTemplate,
+                                 ShardRouter shardRouter,
+                                 @Value("${app.audit.journal:data/test-request-flow.journal}") String journalPath,
+                                 @Value("${app.audit.batch-size:500}") int batchSize,
+                                 @Value("${app.audit.capacity:20000}") int capacity,
+                                 @Value("${app.audit.journal-max-bytes:67108864}") long journalMaxBytes,
+                                 @Value("${app.audit.append-timeout:5000}") long appendTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.journalPath = journalPath;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.journalMaxBytes = journalMaxBytes;
+        this.appendTimeout = appendTimeout;
+        this.incoming = new ArrayBlockingQueue<>(capacity);
+        this.toDatabase = new ArrayBlockingQueue<>(capacity);
+        this.inFlight = new Semaphore(capacity);
+    }
+
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = new FlowJournal(Paths.get(journalPath));
+        replayJournal();
+
+        running = true;
+        journalThread = new Thread(this::runJournal, "flow-journal");
+        databaseThread = new Thread(this::runDatabase, "flow-writer");
+        journalThread.start();
+        databaseThread.start();
+    }
+
+    /**
+     * Queues a transition and waits until it is durable in the journal.
+     */
+    public void append(Long requestId, Integer pinCode, RequestStatus from, RequestStatus to, Long changedById, Instant happenedAt) {
+        journal(Collections.singletonList(new PendingRecord(requestId, pinCode, from, to, changedById, happenedAt)));
+    }
+
+    /**
+     * Queues the same transition of several requests together, so they are usually journaled
+     * with a single write, and waits until all of them are durable.
+     */
+    public void appendAll(List<TestRequest> testRequests, RequestStatus from, RequestStatus to, Long changedById, Instant happenedAt) {
+        if (testRequests.isEmpty())
+            return;
+
+        List<PendingRecord> group = new ArrayList<>(testRequests.size());
+        for (TestRequest testRequest : testRequests)
+            group.add(new PendingRecord(testRequest.getRequestId(), testRequest.getPinCode(), from, to, changedById, happenedAt));
+        journal(group);
+    }
+
+    private void journal(List<PendingRecord> group) {
+        try {
+            if (inFlight.tryAcquire(group.size(), appendTimeout, TimeUnit.MILLISECONDS) == false) {
+                log.warn("Flow writer has " + capacity + " entries waiting for the database, failing the transition of request " + group.get(0).requestId);
+                throw ErrorCode.AUDIT_UNAVAILABLE.exception();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ErrorCode.AUDIT_UNAVAILABLE.exception();
+        }
+
+        incoming.addAll(group);
+        for (int i = 0; i < group.size(); i++) {
+            try {
+                awaitJournaled(group.get(i));
+            } catch (AppException e) {
+                // The rest of the group is withdrawn with it, unless the journal thread already took them
+                for (PendingRecord rest : group.subList(i + 1, group.size()))
+                    rest.claim();
+                throw e;
+            }
+        }
+    }
+
+    private void awaitJournaled(PendingRecord pending) {
+        try {
+            pending.journaled.get(appendTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+
+            if (pending.claim()) {
+                // Withdrawn before the journal thread took it, so it is never written.
+                // It keeps its slot in the queue until the journal thread drops it and releases the permit.
+                log.warn("Flow entry for request " + pending.requestId + " was not journaled in " + appendTimeout + "ms, failing the transition");
+                throw ErrorCode.AUDIT_UNAVAILABLE.exception();
+            }
+            // Already taken by the journal thread, the write in progress completes it either way
+            try {
+                pending.journaled.join();
+            } catch (CompletionException failed) {
+                throw ErrorCode.AUDIT_UNAVAILABLE.exception();
+            }
+        } catch (ExecutionException e) {
+            throw ErrorCode.AUDIT_UNAVAILABLE.exception();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        journalThread.join();
+        databaseThread.join();
+        journal.close();
+    }
+
+    private void runJournal() {
+        List<PendingRecord> group = new ArrayList<>();
+
+        while (running || incoming.isEmpty() == false) {
+            PendingRecord first;
+            try {
+                first = incoming.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null)
+                continue;
+
+            List<PendingRecord> taken = new ArrayList<>();
+            taken.add(first);
+            incoming.drainTo(taken, capacity - 1);
+
+            // Callers that timed out have withdrawn their entries, their slots are free once they leave the queue
+            for (PendingRecord pending : taken) {
+                if (pending.claim())
+                    group.add(pending);
+                else
+                    inFlight.release();
+            }
+            if (group.isEmpty())
+                continue;
+
+            List<FlowRecord> records = new ArrayList<>(group.size());
+            for (PendingRecord pending : group)
+                records.add(pending.toRecord(sequence.incrementAndGet()));
+
+            try {
+                writeToJournal(records);
+            } catch (IOException e) {
+                // Not durable, so the transitions fail instead of going to the database unprotected
+                log.error("Unable to journal " + records.size() + " flow entries", e);
+                for (PendingRecord pending : group)
+                    pending.journaled.completeExceptionally(e);
+                inFlight.release(group.size());
+                group.clear();
+                continue;
+            }
+
+            for (PendingRecord pending : group)
+                pending.journaled.complete(null);
+
+            toDatabase.add(records);
+            group.clear();
+        }
+    }
+
+    private void writeToJournal(List<FlowRecord> records) throws IOException {
+        if (flushedSequence == journaledSequence && journal.size() > journalMaxBytes)
+            journal.truncate();
+        journal.append(records);
+        journaledSequence = records.get(records.size() - 1).getSequence();
+    }
+
+    private void runDatabase() {
+        List<FlowRecord> batch = new ArrayList<>();
+
+        while (true) {
+            List<FlowRecord> records;
+            try {
+                records = toDatabase.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (records == null) {
+                if (running == false && journalThread.isAlive() == false && toDatabase.isEmpty())
+                    return;
+                continue;
+            }
+
+            batch.addAll(records);
+            List<FlowRecord> more;
+            while (batch.size() < batchSize && (more = toDatabase.poll()) != null)
+                batch.addAll(more);
+
+            if (insertWithRetry(batch) == false)
+                return;
+
+            flushedSequence = batch.get(batch.size() - 1).getSequence();
+            inFlight.release(batch.size());
+            batch.clear();
+        }
+    }
+
+    private boolean insertWithRetry(List<FlowRecord> records) {
+        boolean retry = false;
+        while (true) {
+            try {
+                // A retry may follow a failure after some shards committed their part
+                insertOrPlaceSeparately(records, retry);
+                return true;
+            } catch (RuntimeException e) {
+                log.error("Unable to write " + records.size() + " flow entries, they stay in the journal", e);
+                if (running == false)
+                    return false;
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                retry = true;
+            }
+        }
+    }
+
+    private void insertOrPlaceSeparately(List<FlowRecord> records, boolean skipExisting) {
+        try {
+            insert(records, skipExisting);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Flow entries " + records.get(0).getSequence() + " to " + records.get(records.size() - 1).getSequence() + " violate a constraint, inserting them one at a time", e);
+            insertSeparately(records);
+        }
+    }
+
+    void insert(List<FlowRecord> records, boolean skipExisting) {
+        Map<String, List<FlowRecord>> byShard = new LinkedHashMap<>();
+        for (FlowRecord record : records)
+            byShard.computeIfAbsent(shardRouter.shardOf(record.getPinCode()), shard -> new ArrayList<>()).add(record);
+
+        byShard.forEach((shard, shardRecords) -> shardRouter.onShard(shard, () -> insertOnCurrentShard(shardRecords, skipExisting)));
+    }
+
+    // Retrying the same statement cannot fix a violation, the request may have moved or be gone
+    private void insertSeparately(List<FlowRecord> records) {
+        for (FlowRecord record : records) {
+            String shard = shardHolding(record.getRequestId());
+            if (shard == null) {
+                log.error("Dropping " + record + ", its request is on no shard");
+                continue;
+            }
+            try {
+                shardRouter.onShard(shard, () -> insertOnCurrentShard(Collections.singletonList(record), true));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Dropping " + record + ", it violates a constraint on shard " + shard, e);
+            }
+        }
+    }
+
+    private String shardHolding(Long requestId) {
+        for (String shard : shardRouter.candidatesForId(requestId, true)) {
+            Long found = shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject("select count(*) from test_request where request_id = ?", Long.class, requestId));
+            if (found != null && found > 0)
+                return shard;
+        }
+        return null;
+    }
+
+    private void insertOnCurrentShard(List<FlowRecord> records, boolean skipExisting) {
+        for (int from = 0; from < records.size(); from += batchSize) {
+            List<FlowRecord> chunk = records.subList(from, Math.min(from + batchSize, records.size()));
+            if (skipExisting)
+                chunk = withoutExisting(chunk);
+            if (chunk.isEmpty())
+                continue;
+
+            StringBuilder sql = new StringBuilder(INSERT);
+            Object[] arguments = new Object[chunk.size() * ROW_TYPES.length];
+            int[] types = new int[arguments.length];
+
+            for (int i = 0; i < chunk.size(); i++) {
+                FlowRecord record = chunk.get(i);
+                if (i > 0)
+                    sql.append(", ");
+                sql.append(ROW);
+
+                int offset = i * ROW_TYPES.length;
+                arguments[offset] = record.getSequence();
+                arguments[offset + 1] = record.getRequestId();
+                arguments[offset + 2] = record.getFromStatus().ordinal();
+                arguments[offset + 3] = record.getToStatus().ordinal();
+                arguments[offset + 4] = record.getChangedById();
+                arguments[offset + 5] = Date.valueOf(record.getHappenedAt().atZone(ZoneId.systemDefault()).toLocalDate());
+                arguments[offset + 6] = Timestamp.from(record.getHappenedAt());
+                System.arraycopy(ROW_TYPES, 0, types, offset, ROW_TYPES.length);
+            }
+            jdbcTemplate.update(sql.toString(), arguments, types);
+        }
+    }
+
+    private List<FlowRecord> withoutExisting(List<FlowRecord> records) {
+        long lowest = Long.MAX_VALUE;
+        long highest = Long.MIN_VALUE;
+        for (FlowRecord record : records) {
+            lowest = Math.min(lowest, record.getSequence());
+            highest = Math.max(highest, record.getSequence());
+        }
+
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "select journal_sequence from test_request_flow where journal_sequence between ? and ?", Long.class, lowest, highest));
+        if (existing.isEmpty())
+            return records;
+
+        List<FlowRecord> missing = new ArrayList<>(records.size());
+        for (FlowRecord record : records)
+            if (existing.contains(record.getSequence()) == false)
+                missing.add(record);
+        return missing;
+    }
+
+    private void replayJournal() throws IOException {
+        // Shards commit their part of a batch one after the other, so each has its own position
+        Map<String, Long> flushedOn = new HashMap<>();
+        shardRouter.onEachShard(shard -> {
+            Long flushed = jdbcTemplate.queryForObject("select coalesce(max(journal_sequence), 0) from test_request_flow", Long.class);
+            flushedOn.put(shard, flushed == null ? 0 : flushed);
+        });
+        long lastFlushed = flushedOn.values().stream().mapToLong(Long::longValue).max().orElse(0);
+
+        List<FlowRecord> pending = new ArrayList<>();
+        long lastJournaled = 0;
+        for (FlowRecord record : journal.readAll()) {
+            lastJournaled = Math.max(lastJournaled, record.getSequence());
+            if (record.getSequence() > flushedOn.getOrDefault(shardRouter.shardOf(record.getPinCode()), 0L))
+                pending.add(record);
+        }
+
+        if (pending.isEmpty() == false) {
+            log.info("Replaying " + pending.size() + " flow entries from the journal");
+            insertOrPlaceSeparately(pending, true);
+        }
+
+        journal.truncate();
+        sequence.set(Math.max(lastFlushed, lastJournaled));
+        journaledSequence = sequence.get();
+        flushedSequence = sequence.get();
+    }
+
+
+    private static class PendingRecord {
+
+        final Long requestId;
+        final Integer pinCode;
+        final RequestStatus from;
+        final RequestStatus to;
+        final Long changedById;
+        final Instant happenedAt;
+        final CompletableFuture<Void> journaled = new CompletableFuture<>();
+        // Taken either by the journal thread to write it, or by the caller to withdraw it
+        final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingRecord(Long requestId, Integer pinCode, RequestStatus from, RequestStatus to, Long changedById, Instant happenedAt) {
+            this.requestId = requestId;
+            this.pinCode = pinCode;
+            this.from = from;
+            this.to = to;
+            this.changedById = changedById;
+            this.happenedAt = happenedAt;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        FlowRecord toRecord(long sequence) {
+            return new FlowRecord(sequence, requestId, pinCode, from, to, changedById, happenedAt);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.config.metrics.LruCacheMetrics;
+import org.upgrad.upstac.shared.LruCache;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.TesterReassignedEvent;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered status history of a request, with actor usernames resolved in the same query.
+ *
+ * Timelines are cached until the request moves again, which for COMPLETED requests is never.
+ * Flow rows are written behind, so a timeline that does not reach the request's current
+ * status yet is returned but not cached. A cached timeline is only served while it still
+ * ends in the request's status, and one loaded while the request moved is not cached.
+ */
+@Service
+public class TestRequestTimelineService {
+
+    @Autowired
+    private TestRequestFlowRepository testRequestFlowRepository;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    private final LruCache<Long, List<TimelineEntry>> timelines;
+
+
+    @Autowired
+    public TestRequestTimelineService(@Value("${app.timeline.cache-size:10000}") int cacheSize) {
+        this.timelines = LruCacheMetrics.monitor(new LruCache<>(cacheSize), "timelines");
+    }
+
+
+    public List<TimelineEntry> getTimeline(TestRequest testRequest) {
+        Long requestId = testRequest.getRequestId();
+        List<TimelineEntry> cached = timelines.get(requestId);
+        if (cached != null && isUpToDate(cached, testRequest))
+            return cached;
+
+        long stamp = timelines.stamp(requestId);
+        List<TimelineEntry> found = testRequestFlowRepository.findTimelineByRequestId(requestId);
+        if (found.isEmpty())
+            found = archivedTestRequestRepository.findTimelineByRequestId(requestId);
+
+        List<TimelineEntry> timeline = Collections.unmodifiableList(found);
+        if (isUpToDate(timeline, testRequest))
+            timelines.putIfNotInvalidated(requestId, timeline, stamp);
+        return timeline;
+    }
+
+    @EventListener
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        timelines.remove(event.getTestRequest().getRequestId());
+    }
+
+    @EventListener
+    public void onTesterReassigned(TesterReassignedEvent event) {
+        timelines.remove(event.getTestRequest().getRequestId());
+    }
+
+    private boolean isUpToDate(List<TimelineEntry> timeline, TestRequest testRequest) {
+        if (timeline.isEmpty())
+            return false;
+        return timeline.get(timeline.size() - 1).getToStatus() == testRequest.getStatus();
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class TimelineEntry {
+
+    private RequestStatus fromStatus;
+    private RequestStatus toStatus;
+    private String changedBy;
+    private LocalDate happenedOn;
+    private Instant happenedAt;
+
+}
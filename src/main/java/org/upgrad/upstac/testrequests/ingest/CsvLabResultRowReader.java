@@ -0,0 +1,105 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.upgrad.upstac.exception.ErrorCode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A header line naming the columns, then one result per line. Values containing commas,
+ * quotes or line breaks are quoted, with quotes doubled, as the export writes them.
+ */
+class CsvLabResultRowReader extends LabResultRowReader {
+
+    private final BufferedReader reader;
+    private final List<String> header;
+    private long row;
+    private boolean ended;
+
+
+    CsvLabResultRowReader(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        super(objectMapper);
+        this.reader = reader;
+        this.header = readRecord();
+        if (header == null || header.contains(REQUEST_ID) == false)
+            throw ErrorCode.CSV_HEADER_MISSING.exception();
+    }
+
+    @Override
+    IngestRow next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null)
+                return null;
+        } while (record.size() == 1 && record.get(0).trim().isEmpty());
+
+        row++;
+        if (record.size() != header.size())
+            return IngestRow.failed(row, null, "Expected " + header.size() + " columns, found " + record.size());
+
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < record.size(); i++)
+            if (record.get(i).trim().isEmpty() == false)
+                values.put(header.get(i).trim(), record.get(i).trim());
+        return toRow(row, values);
+    }
+
+    // The fields of the next line, null at the end of the file
+    private List<String> readRecord() throws IOException {
+        if (ended)
+            return null;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                ended = true;
+                if (read == false)
+                    return null;
+                fields.add(field.toString());
+                return fields;
+            }
+            read = true;
+
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    reader.reset();
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
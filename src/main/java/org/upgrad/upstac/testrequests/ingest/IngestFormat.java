@@ -0,0 +1,14 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+public enum IngestFormat {
+
+    CSV, JSON;
+
+    // By extension when not given, CSV unless the file ends in .json
+    static IngestFormat of(String fileName) {
+        if (fileName != null && fileName.toLowerCase().endsWith(".json"))
+            return JSON;
+        return CSV;
+    }
+
+}
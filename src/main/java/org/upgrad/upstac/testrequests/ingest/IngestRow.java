@@ -0,0 +1,34 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import lombok.Getter;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+
+/**
+ * One result read from an uploaded file, or the reason it could not be read.
+ */
+@Getter
+class IngestRow {
+
+    private final long row;
+    private final Long requestId;
+    private final CreateLabResult createLabResult;
+    private String error;
+
+
+    IngestRow(long row, Long requestId, CreateLabResult createLabResult) {
+        this.row = row;
+        this.requestId = requestId;
+        this.createLabResult = createLabResult;
+    }
+
+    static IngestRow failed(long row, Long requestId, String error) {
+        IngestRow ingestRow = new IngestRow(row, requestId, null);
+        ingestRow.error = error;
+        return ingestRow;
+    }
+
+    void fail(String error) {
+        this.error = error;
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IngestRowError {
+
+    // 1-based, header excluded
+    private final long row;
+    private final Long requestId;
+    private final String message;
+
+}
@@ -0,0 +1,66 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.upgrad.upstac.exception.ErrorCode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * An array of result objects, read one element at a time. A syntax error ends the file,
+ * nothing after it can be read reliably.
+ */
+class JsonLabResultRowReader extends LabResultRowReader {
+
+    private static final TypeReference<Map<String, Object>> VALUES = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final JsonParser parser;
+    private final ObjectMapper objectMapper;
+    private long row;
+    private boolean ended;
+
+
+    JsonLabResultRowReader(Reader reader, ObjectMapper objectMapper) throws IOException {
+        super(objectMapper);
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(reader);
+        if (parser.nextToken() != JsonToken.START_ARRAY)
+            throw ErrorCode.JSON_ARRAY_EXPECTED.exception();
+    }
+
+    @Override
+    IngestRow next() throws IOException {
+        if (ended)
+            return null;
+
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                ended = true;
+                return null;
+            }
+
+            row++;
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return IngestRow.failed(row, null, "Expected an object");
+            }
+            return toRow(row, objectMapper.readValue(parser, VALUES));
+        } catch (JsonProcessingException e) {
+            ended = true;
+            return IngestRow.failed(Math.max(row, 1), null, "Invalid JSON, the rest of the file was not read: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.users.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+@RestController
+@RequestMapping("/api/labrequests/results")
+public class LabResultIngestController {
+
+
+    @Autowired
+    private LabResultIngestService labResultIngestService;
+
+    @Autowired
+    private UserLoggedInService userLoggedInService;
+
+
+    // An instrument result file, CSV unless format says otherwise or the file name ends in .json
+    @PostMapping("/upload")
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public LabResultIngestReport upload(@RequestParam("file") MultipartFile file,
+                                        @RequestParam(required = false) IngestFormat format) {
+
+        User tester = userLoggedInService.getLoggedInUser();
+        IngestFormat fileFormat = format == null ? IngestFormat.of(file.getOriginalFilename()) : format;
+
+        try (InputStream inputStream = file.getInputStream()) {
+            return labResultIngestService.ingest(inputStream, fileFormat, tester);
+        } catch (IOException e) {
+            throw ErrorCode.UNREADABLE_UPLOAD.exception(file.getOriginalFilename());
+        }
+    }
+
+}
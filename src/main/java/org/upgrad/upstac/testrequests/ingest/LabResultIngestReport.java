@@ -0,0 +1,48 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What became of an uploaded file: every row is either updated or failed, and the first
+ * app.ingest.max-errors failures say why.
+ */
+@Getter
+public class LabResultIngestReport {
+
+    private long rows;
+    private long updated;
+    private long failed;
+    private final List<IngestRowError> errors = new ArrayList<>();
+    private long elapsedMillis;
+
+    @Getter(AccessLevel.NONE)
+    private final int maxErrors;
+
+
+    LabResultIngestReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    void read() {
+        rows++;
+    }
+
+    void updated() {
+        updated++;
+    }
+
+    void failed(IngestRow row) {
+        failed++;
+        if (errors.size() < maxErrors)
+            errors.add(new IngestRowError(row.getRow(), row.getRequestId(), row.getError()));
+    }
+
+    void finished(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+}
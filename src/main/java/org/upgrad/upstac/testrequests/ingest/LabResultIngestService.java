@@ -0,0 +1,277 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+import org.upgrad.upstac.users.User;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Completes lab tests from instrument result files:
+ *
+ * rows are read one at a time and validated like PUT /api/labrequests/update/{id},
+ * every app.ingest.chunk-size valid rows are matched to their requests with one query,
+ * the requests still LAB_TEST_IN_PROGRESS are locked and completed with two batched updates per shard,
+ * then, once committed, their transitions are journaled as one group and status change events
+ * published as for a single update.
+ *
+ * Only requests still in progress when locked are completed, so a request completed by
+ * someone else meanwhile, or twice in one file, fails its row instead of being overwritten.
+ * Each chunk commits on its own: rows before a failure stay applied, and a chunk the database
+ * rejects fails its rows in the report.
+ */
+@Service
+public class LabResultIngestService {
+
+    private static final String COMPLETE_REQUEST = "update test_request set status = ?, status_changed_at = ? where request_id = ? and status = ?";
+    private static final int[] COMPLETE_REQUEST_TYPES = {Types.INTEGER, Types.TIMESTAMP, Types.BIGINT, Types.INTEGER};
+
+    private static final String UPDATE_LAB_RESULT = "update lab_result set systolic_pressure = ?, diastolic_pressure = ?, heart_rate = ?, " +
+            "body_temperature = ?, oxygen_saturation = ?, comments = ?, result = ?, updated_on = ? where result_id = ?";
+    private static final int[] UPDATE_LAB_RESULT_TYPES = {Types.SMALLINT, Types.SMALLINT, Types.SMALLINT, Types.DECIMAL, Types.TINYINT,
+            Types.VARCHAR, Types.INTEGER, Types.DATE, Types.BIGINT};
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private LabResultService labResultService;
+
+    @Autowired
+    private TestRequestFlowService testRequestFlowService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.ingest.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.ingest.max-errors:1000}")
+    private int maxErrors;
+
+    private static final Logger log = LoggerFactory.getLogger(LabResultIngestService.class);
+
+
+    public LabResultIngestReport ingest(InputStream inputStream, IngestFormat format, User tester) throws IOException {
+        long started = System.currentTimeMillis();
+        LabResultIngestReport report = new LabResultIngestReport(maxErrors);
+
+        try (LabResultRowReader reader = open(inputStream, format)) {
+            List<IngestRow> chunk = new ArrayList<>(chunkSize);
+            IngestRow row;
+            while ((row = reader.next()) != null) {
+                report.read();
+                if (row.getError() == null)
+                    validate(row);
+                if (row.getError() != null) {
+                    report.failed(row);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    apply(chunk, tester, report);
+                    chunk.clear();
+                }
+            }
+            if (chunk.isEmpty() == false)
+                apply(chunk, tester, report);
+        }
+
+        report.finished(System.currentTimeMillis() - started);
+        log.info("Ingested lab results of " + tester.getUserName() + ", " + report.getUpdated() + " of " + report.getRows() +
+                " rows updated in " + report.getElapsedMillis() + " ms");
+        return report;
+    }
+
+    private LabResultRowReader open(InputStream inputStream, IngestFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        return format == IngestFormat.JSON ? new JsonLabResultRowReader(reader, objectMapper) : new CsvLabResultRowReader(reader, objectMapper);
+    }
+
+    private void validate(IngestRow row) {
+        Set<ConstraintViolation<CreateLabResult>> violations = validator.validate(row.getCreateLabResult());
+        if (violations.isEmpty() == false) {
+            row.fail(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+
+        try {
+            labResultService.validate(row.getCreateLabResult());
+        } catch (AppException e) {
+            row.fail(e.getMessage());
+        }
+    }
+
+    private void apply(List<IngestRow> chunk, User tester, LabResultIngestReport report) {
+        Map<Long, IngestRow> rowsByRequestId = new LinkedHashMap<>();
+        for (IngestRow row : chunk) {
+            if (rowsByRequestId.putIfAbsent(row.getRequestId(), row) != null) {
+                row.fail("Request " + row.getRequestId() + " appears more than once in the file");
+                report.failed(row);
+            }
+        }
+
+        List<TestRequest> loaded = testRequestRepository.findWithResultsByRequestIdIn(rowsByRequestId.keySet());
+        // Detached, so the changes below are only written by the batched updates
+        entityManager.clear();
+
+        Map<Long, IngestRow> missing = new LinkedHashMap<>(rowsByRequestId);
+        Map<String, List<TestRequest>> byShard = new LinkedHashMap<>();
+        for (TestRequest testRequest : loaded) {
+            IngestRow row = missing.remove(testRequest.getRequestId());
+            if (row == null)
+                continue;
+
+            if (testRequest.getStatus() != RequestStatus.LAB_TEST_IN_PROGRESS || testRequest.getLabResult() == null) {
+                row.fail("Request " + testRequest.getRequestId() + " is " + testRequest.getStatus() + ", not " + RequestStatus.LAB_TEST_IN_PROGRESS);
+                report.failed(row);
+                continue;
+            }
+            byShard.computeIfAbsent(shardRouter.shardOf(testRequest.getPinCode()), shard -> new ArrayList<>()).add(testRequest);
+        }
+
+        for (IngestRow row : missing.values()) {
+            row.fail("Request " + row.getRequestId() + " does not exist");
+            report.failed(row);
+        }
+
+        for (Map.Entry<String, List<TestRequest>> entry : byShard.entrySet()) {
+            List<TestRequest> testRequests = entry.getValue();
+            Instant now = Instant.now();
+
+            List<TestRequest> completed;
+            try {
+                completed = shardRouter.onShard(entry.getKey(),
+                        () -> transactionTemplate.execute(status -> complete(testRequests, rowsByRequestId, now)));
+            } catch (DataAccessException | TransactionException e) {
+                // Rolled back as a whole, the chunks before it stay applied
+                log.error("Unable to complete " + testRequests.size() + " ingested lab results on shard " + entry.getKey(), e);
+                for (TestRequest testRequest : testRequests) {
+                    IngestRow row = rowsByRequestId.get(testRequest.getRequestId());
+                    row.fail("Request " + testRequest.getRequestId() + " was not updated, the database rejected its chunk");
+                    report.failed(row);
+                }
+                continue;
+            }
+
+            for (TestRequest testRequest : testRequests) {
+                IngestRow row = rowsByRequestId.get(testRequest.getRequestId());
+                if (row.getError() != null)
+                    report.failed(row);
+            }
+            completed(completed, now, tester, report);
+        }
+    }
+
+    // Locks the requests still in progress first, so what the driver reports for the batched update does not matter
+    private List<TestRequest> complete(List<TestRequest> testRequests, Map<Long, IngestRow> rowsByRequestId, Instant now) {
+        Object[] lockArguments = new Object[testRequests.size() + 1];
+        for (int i = 0; i < testRequests.size(); i++)
+            lockArguments[i] = testRequests.get(i).getRequestId();
+        lockArguments[testRequests.size()] = RequestStatus.LAB_TEST_IN_PROGRESS.ordinal();
+        Set<Long> inProgress = new HashSet<>(jdbcTemplate.queryForList("select request_id from test_request where request_id in (" +
+                String.join(", ", Collections.nCopies(testRequests.size(), "?")) + ") and status = ? for update", Long.class, lockArguments));
+
+        List<TestRequest> completed = new ArrayList<>(testRequests.size());
+        List<Object[]> requestUpdates = new ArrayList<>(testRequests.size());
+        List<Object[]> labResultUpdates = new ArrayList<>(testRequests.size());
+        for (TestRequest testRequest : testRequests) {
+            IngestRow row = rowsByRequestId.get(testRequest.getRequestId());
+            if (inProgress.contains(testRequest.getRequestId()) == false) {
+                row.fail("Request " + testRequest.getRequestId() + " is no longer " + RequestStatus.LAB_TEST_IN_PROGRESS);
+                continue;
+            }
+
+            requestUpdates.add(new Object[]{RequestStatus.LAB_TEST_COMPLETED.ordinal(), Timestamp.from(now),
+                    testRequest.getRequestId(), RequestStatus.LAB_TEST_IN_PROGRESS.ordinal()});
+
+            LabResult labResult = labResultService.applyTo(testRequest.getLabResult(), row.getCreateLabResult());
+            labResultUpdates.add(new Object[]{labResult.getSystolicPressure(), labResult.getDiastolicPressure(), labResult.getHeartRate(),
+                    labResult.getTemperature(), labResult.getOxygenSaturation(), labResult.getComments(), labResult.getResult().ordinal(),
+                    Date.valueOf(labResult.getUpdatedOn()), labResult.getResultId()});
+            completed.add(testRequest);
+        }
+
+        if (completed.isEmpty() == false) {
+            jdbcTemplate.batchUpdate(COMPLETE_REQUEST, requestUpdates, COMPLETE_REQUEST_TYPES);
+            jdbcTemplate.batchUpdate(UPDATE_LAB_RESULT, labResultUpdates, UPDATE_LAB_RESULT_TYPES);
+        }
+        return completed;
+    }
+
+    // Only once committed, so a chunk that failed leaves no flow entries, dwell times or events behind
+    private void completed(List<TestRequest> completed, Instant now, User tester, LabResultIngestReport report) {
+        if (completed.isEmpty())
+            return;
+
+        try {
+            // Before the status changes, the dwell times are measured from when the requests entered the stage
+            testRequestFlowService.logAll(completed, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, tester);
+        } catch (AppException e) {
+            log.error("Flow entries of " + completed.size() + " ingested lab results could not be journaled, the results are committed", e);
+        }
+
+        for (TestRequest testRequest : completed) {
+            testRequest.setStatus(RequestStatus.LAB_TEST_COMPLETED);
+            testRequest.setStatusChangedAt(now);
+            report.updated();
+            applicationEventPublisher.publishEvent(new TestRequestStatusChangedEvent(this, testRequest,
+                    RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED));
+        }
+    }
+
+}
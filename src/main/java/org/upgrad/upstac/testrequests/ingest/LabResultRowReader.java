@@ -0,0 +1,59 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads an uploaded file one result at a time. Values are named like the fields of
+ * CreateLabResult, plus requestId.
+ */
+abstract class LabResultRowReader implements Closeable {
+
+    static final String REQUEST_ID = "requestId";
+
+    private final ObjectMapper objectMapper;
+
+
+    LabResultRowReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // null after the last row
+    abstract IngestRow next() throws IOException;
+
+    IngestRow toRow(long row, Map<String, Object> values) {
+        Object requestIdValue = values.remove(REQUEST_ID);
+        Long requestId;
+        try {
+            requestId = requestIdValue == null ? null : Long.valueOf(requestIdValue.toString().trim());
+        } catch (NumberFormatException e) {
+            return IngestRow.failed(row, null, "requestId is not a number");
+        }
+        if (requestId == null)
+            return IngestRow.failed(row, null, "requestId is missing");
+
+        try {
+            return new IngestRow(row, requestId, objectMapper.convertValue(values, CreateLabResult.class));
+        } catch (IllegalArgumentException e) {
+            return IngestRow.failed(row, requestId, unreadable(e));
+        }
+    }
+
+    private static String unreadable(IllegalArgumentException e) {
+        if (e.getCause() instanceof JsonMappingException) {
+            String fields = ((JsonMappingException) e.getCause()).getPath().stream()
+                    .map(JsonMappingException.Reference::getFieldName)
+                    .collect(Collectors.joining("."));
+            if (fields.isEmpty() == false)
+                return fields + " could not be read";
+        }
+        return "Row could not be read";
+    }
+
+}
@@ -2,19 +2,32 @@ package org.upgrad.upstac.testrequests.lab;
 
 import lombok.Data;
 
-import javax.validation.constraints.NotNull;
+import javax.validation.constraints.*;
+import java.math.BigDecimal;
 
 @Data
 public class CreateLabResult {
 
     @NotNull
-    private String bloodPressure;
+    @Min(50) @Max(300)
+    private Short systolicPressure;
 
     @NotNull
-    private String heartBeat;
+    @Min(20) @Max(200)
+    private Short diastolicPressure;
+
+    @NotNull
+    @Min(20) @Max(300)
+    private Short heartRate;
+
+    // °F
     @NotNull
-    private String temperature;
-    private String oxygenLevel;
+    @DecimalMin("80.0") @DecimalMax("115.0") @Digits(integer = 3, fraction = 1)
+    private BigDecimal temperature;
+
+    @Min(0) @Max(100)
+    private Byte oxygenSaturation;
+
     private String comments;
     @NotNull
     private TestStatus result;
@@ -4,23 +4,26 @@ package org.upgrad.upstac.testrequests.lab;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.upgrad.upstac.config.security.UserLoggedInService;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.shared.JsonArrayStreamer;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.testrequests.TestRequestQueryService;
 import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.events.QueueEventBroadcaster;
+import org.upgrad.upstac.testrequests.events.RequestQueue;
 import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
 import org.upgrad.upstac.users.User;
 
 import javax.validation.ConstraintViolationException;
 import java.util.List;
 
-import static org.upgrad.upstac.exception.UpgradResponseStatusException.asBadRequest;
 import static org.upgrad.upstac.exception.UpgradResponseStatusException.asConstraintViolation;
 
 
@@ -43,6 +46,12 @@ public class LabRequestController {
     @Autowired
     private UserLoggedInService userLoggedInService;
 
+    @Autowired
+    private QueueEventBroadcaster queueEventBroadcaster;
+
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+
 
     @GetMapping("/to-be-tested")
     @PreAuthorize("hasAnyRole('TESTER')")
@@ -52,8 +61,24 @@ public class LabRequestController {
         //Make use of the findBy() method from testRequestQueryService class to get the list
         // For reference check the method requestHistory() method from TestRequestController class
 
-        return testRequestQueryService.findBy(RequestStatus.INITIATED);
+        return testRequestQueryService.findInRegionOf(userLoggedInService.getLoggedInUser(), RequestStatus.INITIATED);
+
+    }
+
+    @GetMapping(value = "/to-be-tested", params = "stream=true")
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public ResponseEntity<StreamingResponseBody> getForTestsStreamed() {
+
+        User user = userLoggedInService.getLoggedInUser();
+        return jsonArrayStreamer.stream(TestRequest.class, TestRequest::getRequestId,
+                (afterId, size) -> testRequestQueryService.findPageInRegionOf(user, RequestStatus.INITIATED, afterId, size));
+    }
+
+    @GetMapping(value = "/to-be-tested/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('TESTER')")
+    public SseEmitter streamForTests(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
 
+        return queueEventBroadcaster.subscribe(RequestQueue.TO_BE_TESTED, lastEventId);
     }
 
     @GetMapping
@@ -81,15 +106,9 @@ public class LabRequestController {
         // return the above created object
         // Refer to the method createRequest() from the TestRequestController class
 
-        try {
-
-            User user = userLoggedInService.getLoggedInUser();
-            TestRequest result = testRequestUpdateService.assignForLabTest(id, user);
-            return result;
-
-        } catch (AppException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
+        User user = userLoggedInService.getLoggedInUser();
+        TestRequest result = testRequestUpdateService.assignForLabTest(id, user);
+        return result;
     }
 
     @PreAuthorize("hasAnyRole('TESTER')")
@@ -108,8 +127,6 @@ public class LabRequestController {
 
         } catch (ConstraintViolationException e) {
             throw asConstraintViolation(e);
-        } catch (AppException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
@@ -7,10 +7,19 @@ import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
 
 import javax.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
+/**
+ * Vitals are stored typed so they can be ranged over and aggregated in the database:
+ * pressures and heart rate as small ints, temperature in °F with one decimal, SpO2 in %.
+ */
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "lab_result_updated_on", columnList = "updated_on"),
+        @Index(name = "lab_result_oxygen_saturation", columnList = "oxygen_saturation")
+})
 public class LabResult {
 
 
@@ -23,10 +32,14 @@ public class LabResult {
     @ToString.Exclude
     private TestRequest request;
 
-    private String bloodPressure;
-    private String heartBeat;
-    private String temperature;
-    private String oxygenLevel;
+    private Short systolicPressure;
+    private Short diastolicPressure;
+    private Short heartRate;
+
+    @Column(name = "body_temperature", precision = 4, scale = 1)
+    private BigDecimal temperature;
+
+    private Byte oxygenSaturation;
     private String comments;
     private TestStatus result;
     private LocalDate updatedOn;
@@ -1,9 +1,19 @@
 package org.upgrad.upstac.testrequests.lab;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.assignment.TesterLoadCount;
+import org.upgrad.upstac.testrequests.stats.StatisticsCount;
+import org.upgrad.upstac.testrequests.stats.VitalsAlert;
+import org.upgrad.upstac.testrequests.stats.VitalsSummary;
 import org.upgrad.upstac.users.User;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,5 +35,29 @@ public interface LabResultRepository extends JpaRepository<LabResult,Long> {
     Optional<LabResult> findByTesterAndRequest(User user,TestRequest testRequest);
     Optional<LabResult> findByRequest(TestRequest request);
 
+    // Only while the request is still in the given status and with the given tester
+    @Modifying
+    @Transactional
+    @Query("update LabResult l set l.tester = :to where l.request = :request and l.tester = :from " +
+            "and exists (select r from TestRequest r where r = :request and r.status = :status)")
+    int reassignTester(@Param("request") TestRequest request, @Param("status") RequestStatus status, @Param("from") User from, @Param("to") User to);
+
+    @Query("select new org.upgrad.upstac.testrequests.stats.StatisticsCount(l.result, r.pinCode, l.updatedOn, count(l)) " +
+            "from LabResult l join l.request r where l.result is not null group by l.result, r.pinCode, l.updatedOn")
+    List<StatisticsCount> countByResultPinCodeAndDay();
+
+    @Query("select new org.upgrad.upstac.testrequests.assignment.TesterLoadCount(l.tester.id, count(l)) " +
+            "from LabResult l join l.request r where r.status = :status group by l.tester.id")
+    List<TesterLoadCount> countByTesterWithRequestStatus(@Param("status") RequestStatus status);
+
+    @Query("select new org.upgrad.upstac.testrequests.stats.VitalsSummary(r.pinCode, count(l), avg(l.systolicPressure), avg(l.diastolicPressure), " +
+            "avg(l.heartRate), avg(l.temperature), avg(l.oxygenSaturation), sum(case when l.oxygenSaturation < :threshold then 1 else 0 end)) " +
+            "from LabResult l join l.request r where l.updatedOn between :from and :to group by r.pinCode")
+    List<VitalsSummary> summarizeVitalsByPinCode(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("threshold") Byte oxygenThreshold);
+
+    @Query("select new org.upgrad.upstac.testrequests.stats.VitalsAlert(r.requestId, r.pinCode, l.oxygenSaturation, l.updatedOn) " +
+            "from LabResult l join l.request r where l.oxygenSaturation < :threshold and l.updatedOn >= :since")
+    List<VitalsAlert> findOxygenSaturationBelow(@Param("threshold") Byte oxygenThreshold, @Param("since") LocalDate since);
+
 
 }
@@ -5,7 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
 import org.upgrad.upstac.testrequests.RequestStatus;
 import org.upgrad.upstac.testrequests.TestRequest;
 import org.upgrad.upstac.users.User;
@@ -53,23 +53,45 @@ public class LabResultService {
     }
 
 
+    // Fails when the lab test finished or changed hands since the caller read it
+    public void reassignTester(TestRequest testRequest, User from, User to) {
+
+        if (labResultRepository.reassignTester(testRequest, RequestStatus.LAB_TEST_IN_PROGRESS, from, to) == 0)
+            throw ErrorCode.INVALID_ID_OR_STATE.exception();
+    }
+
+
     public LabResult updateLabTest(TestRequest testRequest, CreateLabResult createLabResult) {
 
         //Implement this method to update the lab test
         // create an object of LabResult and make use of setters to set Blood Pressure, Comments,
-        // HeartBeat, OxygenLevel, Temperature, Result and UpdatedOn values
+        // Heart Rate, Oxygen Saturation, Temperature, Result and UpdatedOn values
         // make use of the saveLabResult() method to return the object of LabResult
 
-        LabResult labResult = labResultRepository.findByRequest(testRequest).orElseThrow(()-> new AppException("Invalid ID"));
-        labResult.setBloodPressure(createLabResult.getBloodPressure());
+        validate(createLabResult);
+
+        LabResult labResult = labResultRepository.findByRequest(testRequest).orElseThrow(ErrorCode.INVALID_ID::exception);
+        applyTo(labResult, createLabResult);
+        return  saveLabResult(labResult);
+
+    }
+
+    // The rules bean validation cannot express on single fields
+    public void validate(CreateLabResult createLabResult) {
+        if (createLabResult.getSystolicPressure() <= createLabResult.getDiastolicPressure())
+            throw ErrorCode.INVALID_BLOOD_PRESSURE.exception();
+    }
+
+    public LabResult applyTo(LabResult labResult, CreateLabResult createLabResult) {
+        labResult.setSystolicPressure(createLabResult.getSystolicPressure());
+        labResult.setDiastolicPressure(createLabResult.getDiastolicPressure());
         labResult.setComments(createLabResult.getComments());
-        labResult.setHeartBeat(createLabResult.getHeartBeat());
-        labResult.setOxygenLevel(createLabResult.getOxygenLevel());
+        labResult.setHeartRate(createLabResult.getHeartRate());
+        labResult.setOxygenSaturation(createLabResult.getOxygenSaturation());
         labResult.setTemperature(createLabResult.getTemperature());
         labResult.setResult(createLabResult.getResult());
         labResult.setUpdatedOn(LocalDateTime.now().toLocalDate());
-        return  saveLabResult(labResult);
-
+        return labResult;
     }
 
 
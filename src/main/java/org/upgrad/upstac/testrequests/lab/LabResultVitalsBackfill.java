@@ -0,0 +1,169 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.config.startup.StartupLoads;
+
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.*;
+
+/**
+ * Converts the free text vitals of lab results written before they were typed, in
+ * lab_result and archived_lab_result, on every shard. Text that is read is cleared,
+ * text that is not stays for someone to look at and is counted in the log.
+ *
+ * Tables created with the typed columns have no text columns and are skipped, which is
+ * read from the database metadata. Once a run
+ * reports nothing left to convert, blood_pressure, heart_beat, temperature and oxygen_level
+ * can be dropped.
+ */
+@Component
+public class LabResultVitalsBackfill {
+
+    private static final String[] TABLES = {"lab_result", "archived_lab_result"};
+
+    private static final List<String> LEGACY_COLUMNS = Arrays.asList("blood_pressure", "heart_beat", "temperature", "oxygen_level");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private StartupLoads startupLoads;
+
+    @Value("${app.vitals.backfill-batch-size:500}")
+    private int batchSize;
+
+    private static final Logger log = LoggerFactory.getLogger(LabResultVitalsBackfill.class);
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startupLoads.run("vitals-backfill", this::backfill);
+    }
+
+    public void backfill() {
+        shardRouter.onEachShard(shard -> {
+            for (String table : TABLES)
+                backfill(shard, table);
+        });
+    }
+
+    private void backfill(String shard, String table) {
+        if (Collections.disjoint(columnsOf(table), LEGACY_COLUMNS)) {
+            log.debug("No free text vitals in " + table + " on shard " + shard);
+            return;
+        }
+
+        long converted = 0;
+        long unreadable = 0;
+        long afterId = 0;
+
+        while (true) {
+            List<Object[]> batch = findLegacy(table, afterId);
+            if (batch.isEmpty())
+                break;
+
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                Object[] update = convert(row);
+                updates.add(update);
+                if (update[5] == null && update[6] == null && update[7] == null && update[8] == null)
+                    converted++;
+                else
+                    unreadable++;
+            }
+
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate("update " + table + " set systolic_pressure = ?, diastolic_pressure = ?, " +
+                    "heart_rate = ?, body_temperature = ?, oxygen_saturation = ?, blood_pressure = ?, heart_beat = ?, temperature = ?, oxygen_level = ? " +
+                    "where result_id = ?", updates));
+
+            afterId = (Long) batch.get(batch.size() - 1)[0];
+            if (batch.size() < batchSize)
+                break;
+        }
+
+        if (converted > 0 || unreadable > 0)
+            log.info("Converted the vitals of " + converted + " rows of " + table + " on shard " + shard + ", " + unreadable + " had text that could not be read");
+    }
+
+    // Lower case column names, none for a table that does not exist
+    private Set<String> columnsOf(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<Set<String>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+
+            Set<String> columns = new HashSet<>();
+            try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                while (resultSet.next())
+                    columns.add(resultSet.getString("COLUMN_NAME").toLowerCase());
+            }
+            return columns;
+        });
+    }
+
+    private List<Object[]> findLegacy(String table, long afterId) {
+        return jdbcTemplate.query(
+                "select result_id, blood_pressure, heart_beat, temperature, oxygen_level, systolic_pressure, diastolic_pressure, heart_rate, " +
+                        "body_temperature, oxygen_saturation from " + table + " where result_id > ? and (blood_pressure is not null or heart_beat is not null " +
+                        "or temperature is not null or oxygen_level is not null) order by result_id",
+                preparedStatement -> {
+                    preparedStatement.setLong(1, afterId);
+                    preparedStatement.setMaxRows(batchSize);
+                },
+                (resultSet, rowNum) -> {
+                    Object[] row = new Object[10];
+                    for (int i = 0; i < row.length; i++)
+                        row[i] = resultSet.getObject(i + 1);
+                    row[0] = resultSet.getLong(1);
+                    return row;
+                });
+    }
+
+    // The update arguments: typed values, the text left unread, then the id
+    private static Object[] convert(Object[] row) {
+        String bloodPressure = (String) row[1];
+        String heartBeat = (String) row[2];
+        String temperature = (String) row[3];
+        String oxygenLevel = (String) row[4];
+
+        Short[] pressures = LegacyVitals.bloodPressure(bloodPressure);
+        Short heartRate = LegacyVitals.heartRate(heartBeat);
+        BigDecimal bodyTemperature = LegacyVitals.temperature(temperature);
+        Byte oxygenSaturation = LegacyVitals.oxygenSaturation(oxygenLevel);
+
+        return new Object[]{
+                pressures == null ? row[5] : pressures[0],
+                pressures == null ? row[6] : pressures[1],
+                heartRate == null ? row[7] : heartRate,
+                bodyTemperature == null ? row[8] : bodyTemperature,
+                oxygenSaturation == null ? row[9] : oxygenSaturation,
+                pressures == null ? blankToNull(bloodPressure) : null,
+                heartRate == null ? blankToNull(heartBeat) : null,
+                bodyTemperature == null ? blankToNull(temperature) : null,
+                oxygenSaturation == null ? blankToNull(oxygenLevel) : null,
+                row[0]
+        };
+    }
+
+    private static String blankToNull(String text) {
+        return text == null || text.trim().isEmpty() ? null : text;
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the vitals lab results used to hold as free text, "120/80 mmHg", "72 bpm", "98.6F",
+ * "37.2 C" or "97%". Values that cannot be read or are out of the range CreateLabResult
+ * accepts come back null.
+ */
+final class LegacyVitals {
+
+    private static final Pattern BLOOD_PRESSURE = Pattern.compile("(\\d{2,3})\\s*[/\\\\-]\\s*(\\d{2,3})");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+
+    // Below this a temperature can only be in °C
+    private static final double CELSIUS_BELOW = 50;
+
+    private LegacyVitals() {
+    }
+
+
+    static Short[] bloodPressure(String text) {
+        if (text == null)
+            return null;
+        Matcher matcher = BLOOD_PRESSURE.matcher(text);
+        if (matcher.find() == false)
+            return null;
+
+        int systolic = Integer.parseInt(matcher.group(1));
+        int diastolic = Integer.parseInt(matcher.group(2));
+        if (systolic < 50 || systolic > 300 || diastolic < 20 || diastolic > 200 || systolic <= diastolic)
+            return null;
+        return new Short[]{(short) systolic, (short) diastolic};
+    }
+
+    static Short heartRate(String text) {
+        Double value = number(text);
+        if (value == null || value < 20 || value > 300)
+            return null;
+        return (short) Math.round(value);
+    }
+
+    static BigDecimal temperature(String text) {
+        Double value = number(text);
+        if (value == null)
+            return null;
+
+        boolean celsius = value < CELSIUS_BELOW || text.trim().toUpperCase().endsWith("C");
+        double fahrenheit = celsius ? value * 9 / 5 + 32 : value;
+        if (fahrenheit < 80 || fahrenheit > 115)
+            return null;
+        return BigDecimal.valueOf(fahrenheit).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    static Byte oxygenSaturation(String text) {
+        Double value = number(text);
+        if (value == null || value > 100)
+            return null;
+        return (byte) Math.round(value);
+    }
+
+    private static Double number(String text) {
+        if (text == null)
+            return null;
+        Matcher matcher = NUMBER.matcher(text);
+        return matcher.find() ? Double.valueOf(matcher.group()) : null;
+    }
+
+}
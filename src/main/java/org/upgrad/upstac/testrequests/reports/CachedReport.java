@@ -0,0 +1,18 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+@AllArgsConstructor
+public class CachedReport {
+
+    private final Long requestId;
+    private final Path file;
+    // Strong validator, the SHA-256 of the file
+    private final String etag;
+    private final long size;
+
+}
@@ -0,0 +1,99 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes lines of text as an A4 PDF in the standard Helvetica fonts, which every reader has,
+ * so nothing is embedded. The output only depends on the lines, the same report always
+ * produces the same bytes.
+ */
+class PdfTextDocument {
+
+    private static final String HEADING = "# ";
+
+    private static final int PAGE_WIDTH = 595;
+    private static final int PAGE_HEIGHT = 842;
+    private static final int MARGIN = 56;
+    private static final int LEADING = 16;
+    private static final int LINES_PER_PAGE = (PAGE_HEIGHT - 2 * MARGIN) / LEADING;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final List<Integer> offsets = new ArrayList<>();
+
+
+    static byte[] render(List<String> lines) {
+        return new PdfTextDocument().write(lines);
+    }
+
+    private byte[] write(List<String> lines) {
+        List<List<String>> pages = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i += LINES_PER_PAGE)
+            pages.add(lines.subList(i, Math.min(lines.size(), i + LINES_PER_PAGE)));
+        if (pages.isEmpty())
+            pages.add(new ArrayList<>());
+
+        // 1 catalog, 2 page tree, 3 and 4 fonts, then a page and its content per page
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pages.size(); i++)
+            kids.append(i == 0 ? "" : " ").append(5 + 2 * i).append(" 0 R");
+
+        append("%PDF-1.4\n");
+        object("<< /Type /Catalog /Pages 2 0 R >>");
+        object("<< /Type /Pages /Kids [" + kids + "] /Count " + pages.size() + " >>");
+        object("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        object("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+
+        for (int i = 0; i < pages.size(); i++) {
+            String content = content(pages.get(i));
+            object("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "] " +
+                    "/Resources << /Font << /F1 3 0 R /F2 4 0 R >> >> /Contents " + (6 + 2 * i) + " 0 R >>");
+            object("<< /Length " + content.getBytes(StandardCharsets.ISO_8859_1).length + " >>\nstream\n" + content + "\nendstream");
+        }
+
+        int xref = out.size();
+        append("xref\n0 " + (offsets.size() + 1) + "\n0000000000 65535 f \n");
+        for (int offset : offsets)
+            append(String.format("%010d 00000 n \n", offset));
+        append("trailer\n<< /Size " + (offsets.size() + 1) + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        return out.toByteArray();
+    }
+
+    private static String content(List<String> lines) {
+        StringBuilder content = new StringBuilder("BT\n" + LEADING + " TL\n" + MARGIN + " " + (PAGE_HEIGHT - MARGIN) + " Td\n");
+        for (String line : lines) {
+            boolean heading = line.startsWith(HEADING);
+            content.append(heading ? "/F2 13 Tf (" : "/F1 11 Tf (")
+                    .append(escape(heading ? line.substring(HEADING.length()) : line))
+                    .append(") Tj T*\n");
+        }
+        return content.append("ET").toString();
+    }
+
+    // Helvetica is WinAnsi encoded, characters outside Latin-1 print as ?
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '(' || c == ')' || c == '\\')
+                escaped.append('\\').append(c);
+            else if (c < 32 || c > 255)
+                escaped.append('?');
+            else
+                escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private void object(String body) {
+        offsets.add(out.size());
+        append(offsets.size() + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void append(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rendered reports on local disk, named {requestId}-{template version}-{etag}.pdf, least
+ * recently used first out once they take more than maxBytes. The index is rebuilt from the
+ * directory at startup, dropping reports of other template versions.
+ *
+ * Evicted and replaced files are only deleted deleteDelayMillis later, downloads that got
+ * them just before may still be sending them.
+ */
+class ReportFileCache {
+
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d+)-([0-9a-f]+)-([0-9a-f]{64})\\.pdf");
+
+    private final Path directory;
+    private final String templateVersion;
+    private final long maxBytes;
+    private final long deleteDelayMillis;
+
+    private final LinkedHashMap<Long, CachedReport> reports = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    // Files no longer in the index, to when they left it
+    private final LinkedHashMap<Path, Long> retired = new LinkedHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(ReportFileCache.class);
+
+
+    ReportFileCache(Path directory, String templateVersion, long maxBytes, long deleteDelayMillis) throws IOException {
+        this.directory = directory;
+        this.templateVersion = templateVersion;
+        this.maxBytes = maxBytes;
+        this.deleteDelayMillis = deleteDelayMillis;
+
+        Files.createDirectories(directory);
+        load();
+    }
+
+    synchronized CachedReport get(Long requestId) {
+        return reports.get(requestId);
+    }
+
+    // Written to a temporary file first, readers only ever see complete reports
+    CachedReport put(Long requestId, byte[] pdf, String etag) throws IOException {
+        Path file = directory.resolve(requestId + "-" + templateVersion + "-" + etag + ".pdf");
+        Path temporary = Files.createTempFile(directory, requestId + "-", ".tmp");
+        try {
+            Files.write(temporary, pdf);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        CachedReport report = new CachedReport(requestId, file, etag, pdf.length);
+        synchronized (this) {
+            retired.remove(file);
+            CachedReport previous = reports.put(requestId, report);
+            bytes += report.getSize();
+            if (previous != null) {
+                bytes -= previous.getSize();
+                if (previous.getFile().equals(file) == false)
+                    retire(previous);
+            }
+            evict();
+            deleteRetired();
+        }
+        return report;
+    }
+
+    // For a report whose file is gone from under the cache, so it is rendered again
+    synchronized void remove(CachedReport report) {
+        if (reports.remove(report.getRequestId(), report))
+            bytes -= report.getSize();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized int size() {
+        return reports.size();
+    }
+
+    private void evict() {
+        Iterator<CachedReport> eldest = reports.values().iterator();
+        // The report just added stays even when it is larger than the cap on its own
+        while (bytes > maxBytes && reports.size() > 1) {
+            CachedReport report = eldest.next();
+            eldest.remove();
+            bytes -= report.getSize();
+            retire(report);
+        }
+    }
+
+    private void retire(CachedReport report) {
+        retired.put(report.getFile(), System.currentTimeMillis());
+    }
+
+    private void deleteRetired() {
+        long deleteBefore = System.currentTimeMillis() - deleteDelayMillis;
+        Iterator<Map.Entry<Path, Long>> oldest = retired.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<Path, Long> file = oldest.next();
+            if (file.getValue() > deleteBefore)
+                break;
+            oldest.remove();
+            delete(file.getKey());
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(directory)) {
+            files = listed.collect(Collectors.toList());
+        }
+        files.sort(Comparator.comparingLong(ReportFileCache::lastModified));
+
+        for (Path file : files) {
+            Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+            if (matcher.matches() == false || matcher.group(2).equals(templateVersion) == false) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+
+            CachedReport report = new CachedReport(Long.valueOf(matcher.group(1)), file, matcher.group(3), Files.size(file));
+            CachedReport previous = reports.put(report.getRequestId(), report);
+            bytes += report.getSize();
+            if (previous != null) {
+                bytes -= previous.getSize();
+                delete(previous.getFile());
+            }
+        }
+        // Nothing is being downloaded yet
+        evict();
+        retired.keySet().forEach(ReportFileCache::delete);
+        retired.clear();
+        log.info("Report cache in " + directory + " holds " + reports.size() + " reports, " + bytes + " bytes");
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached report " + file + ", " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Where the report of a request can be downloaded without logging in, for sharing with
+ * whoever needs to see the certificate, until it expires.
+ */
+@Getter
+@AllArgsConstructor
+public class ReportLink {
+
+    private final Long requestId;
+    private final String url;
+    private final Instant expiresAt;
+
+}
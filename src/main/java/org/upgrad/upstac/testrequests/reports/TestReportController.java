@@ -0,0 +1,61 @@
+package org.upgrad.upstac.testrequests.reports;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.shared.FileTransfer;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestQueryService;
+import org.upgrad.upstac.users.User;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+
+@RestController
+public class TestReportController {
+
+    @Autowired
+    private TestReportService testReportService;
+
+    @Autowired
+    private TestRequestQueryService testRequestQueryService;
+
+    @Autowired
+    private UserLoggedInService userLoggedInService;
+
+
+    @PreAuthorize("hasAnyRole('USER','GOVERNMENT_AUTHORITY','TESTER','DOCTOR')")
+    @GetMapping("/api/testrequests/{id}/report")
+    public ReportLink getReportLink(@PathVariable Long id) {
+        User user = userLoggedInService.getLoggedInUser();
+        TestRequest testRequest = testRequestQueryService.findTestRequestForUserByID(user, id)
+                .orElseThrow(ErrorCode.INVALID_ID::exception);
+        return testReportService.getLink(testRequest);
+    }
+
+    // Open to anyone holding a link, see TestReportService
+    @GetMapping("/documents/reports/{fileName:.+}")
+    public void getReport(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        CachedReport report = testReportService.getReport(fileName)
+                .orElseThrow(ErrorCode.REPORT_NOT_FOUND::exception);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + report.getEtag() + "\""))
+            return;
+
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"test-report-" + report.getRequestId() + ".pdf\"");
+        FileTransfer.send(request, response, report.getFile(), 0, report.getSize());
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.upgrad.upstac.shared.DateParser.getStringFromDate;
+
+/**
+ * PDF reports of COMPLETED requests, which never change once completed.
+ *
+ * A report is rendered on its first download and kept in the disk cache, later downloads
+ * are served from the file without touching the database. Download links carry their
+ * expiry and an HMAC of the request id and expiry, keyed with a secret of their own, so
+ * /documents/reports can be open while only people given a link can read a report, and
+ * only until the link expires.
+ */
+@Service
+public class TestReportService {
+
+    private static final String LINK_PREFIX = "/documents/reports/";
+    private static final Pattern LINK_FILE_NAME = Pattern.compile("(\\d{1,18})-(\\d{1,12})-([0-9a-f]{32})\\.pdf");
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    @Autowired
+    private TestReportTemplate testReportTemplate;
+
+    @Value("${app.reports.cache-dir:${java.io.tmpdir}/upstac-reports}")
+    private String cacheDirectory;
+
+    @Value("${app.reports.cache-max-bytes:268435456}")
+    private long cacheMaxBytes;
+
+    @Value("${app.reports.cache-delete-delay:60000}")
+    private long cacheDeleteDelay;
+
+    @Value("${app.reports.link-secret}")
+    private String linkSecret;
+
+    @Value("${token.secret}")
+    private String tokenSecret;
+
+    @Value("${app.reports.link-valid-days:7}")
+    private long linkValidDays;
+
+    private ReportFileCache cache;
+
+    // Concurrent first downloads of one report render it once
+    private final Object[] renderLocks = new Object[64];
+
+    private static final Logger log = LoggerFactory.getLogger(TestReportService.class);
+
+
+    @PostConstruct
+    public void openCache() throws IOException {
+        if (linkSecret.trim().isEmpty() || linkSecret.equals(tokenSecret))
+            throw new IllegalStateException("app.reports.link-secret must be set, to a secret other than token.secret");
+
+        for (int i = 0; i < renderLocks.length; i++)
+            renderLocks[i] = new Object();
+        cache = new ReportFileCache(Paths.get(cacheDirectory), testReportTemplate.version(), cacheMaxBytes, cacheDeleteDelay);
+
+        Gauge.builder("upstac.reports.cache.size", cache, ReportFileCache::size).description("Rendered reports on disk").register(Metrics.globalRegistry);
+        Gauge.builder("upstac.reports.cache.bytes", cache, ReportFileCache::bytes).description("Bytes of rendered reports on disk").register(Metrics.globalRegistry);
+    }
+
+    public ReportLink getLink(TestRequest testRequest) {
+        if (testRequest.getStatus() != RequestStatus.COMPLETED)
+            throw ErrorCode.REPORT_NOT_READY.exception();
+
+        Long requestId = testRequest.getRequestId();
+        Instant expiresAt = Instant.now().plus(linkValidDays, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        long expires = expiresAt.getEpochSecond();
+        return new ReportLink(requestId, LINK_PREFIX + requestId + "-" + expires + "-" + sign(requestId, expires) + ".pdf", expiresAt);
+    }
+
+    /**
+     * The report a link file name points to, empty when the link is not genuine, has expired
+     * or the request is not COMPLETED.
+     */
+    public Optional<CachedReport> getReport(String linkFileName) {
+        Matcher matcher = LINK_FILE_NAME.matcher(linkFileName);
+        if (matcher.matches() == false)
+            return Optional.empty();
+
+        Long requestId = Long.valueOf(matcher.group(1));
+        long expires = Long.parseLong(matcher.group(2));
+        byte[] expected = sign(requestId, expires).getBytes(StandardCharsets.US_ASCII);
+        if (MessageDigest.isEqual(expected, matcher.group(3).getBytes(StandardCharsets.US_ASCII)) == false)
+            return Optional.empty();
+        if (Instant.now().getEpochSecond() > expires)
+            return Optional.empty();
+
+        CachedReport cached = cache.get(requestId);
+        if (isOnDisk(cached))
+            return Optional.of(cached);
+
+        synchronized (renderLocks[(int) (requestId % renderLocks.length)]) {
+            cached = cache.get(requestId);
+            if (isOnDisk(cached))
+                return Optional.of(cached);
+            if (cached != null) {
+                log.warn("Cached report " + cached.getFile() + " is gone, rendering it again");
+                cache.remove(cached);
+            }
+
+            return findCompleted(requestId).map(this::render);
+        }
+    }
+
+    // Files are only deleted well after leaving the cache, unless something else cleans the directory
+    private static boolean isOnDisk(CachedReport cached) {
+        return cached != null && Files.exists(cached.getFile());
+    }
+
+    private Optional<TestRequest> findCompleted(Long requestId) {
+        Optional<TestRequest> testRequest = testRequestRepository.findWithResultsByRequestIdIn(Collections.singletonList(requestId)).stream().findFirst();
+        if (testRequest.isPresent() == false)
+            testRequest = archivedTestRequestRepository.findByRequestId(requestId);
+        return testRequest.filter(found -> found.getStatus() == RequestStatus.COMPLETED);
+    }
+
+    private CachedReport render(TestRequest testRequest) {
+        byte[] pdf = PdfTextDocument.render(testReportTemplate.render(valuesOf(testRequest)));
+        try {
+            CachedReport report = cache.put(testRequest.getRequestId(), pdf, sha256(pdf));
+            log.info("Rendered report of request " + testRequest.getRequestId() + ", cache holds " + cache.size() + " reports, " + cache.bytes() + " bytes");
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, String> valuesOf(TestRequest testRequest) {
+        Map<String, String> values = new HashMap<>();
+        values.put("requestId", String.valueOf(testRequest.getRequestId()));
+        values.put("name", testRequest.getName());
+        values.put("age", text(testRequest.getAge()));
+        values.put("gender", text(testRequest.getGender()));
+        values.put("pinCode", text(testRequest.getPinCode()));
+        values.put("created", date(testRequest.getCreated()));
+
+        LabResult labResult = testRequest.getLabResult();
+        if (labResult != null) {
+            values.put("result", text(labResult.getResult()));
+            values.put("testedOn", date(labResult.getUpdatedOn()));
+            if (labResult.getSystolicPressure() != null && labResult.getDiastolicPressure() != null)
+                values.put("bloodPressure", labResult.getSystolicPressure() + "/" + labResult.getDiastolicPressure() + " mmHg");
+            if (labResult.getHeartRate() != null)
+                values.put("heartRate", labResult.getHeartRate() + " bpm");
+            if (labResult.getTemperature() != null)
+                values.put("temperature", labResult.getTemperature().toPlainString() + " °F");
+            if (labResult.getOxygenSaturation() != null)
+                values.put("oxygenSaturation", labResult.getOxygenSaturation() + " %");
+            values.put("labComments", labResult.getComments());
+        }
+
+        Consultation consultation = testRequest.getConsultation();
+        if (consultation != null) {
+            values.put("suggestion", text(consultation.getSuggestion()));
+            values.put("doctorComments", consultation.getComments());
+            values.put("consultedOn", date(consultation.getUpdatedOn()));
+            // Issued when completed, so a report rendered again comes out the same
+            values.put("issuedOn", date(consultation.getUpdatedOn()));
+        }
+        return values;
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static String date(LocalDate date) {
+        return date == null ? null : getStringFromDate(date);
+    }
+
+    private String sign(Long requestId, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(linkSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return hex(mac.doFinal(("report:" + requestId + ":" + expires).getBytes(StandardCharsets.UTF_8)), 16);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(content), 32);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes, int length) {
+        StringBuilder hex = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++)
+            hex.append(String.format("%02x", bytes[i]));
+        return hex.toString();
+    }
+
+}
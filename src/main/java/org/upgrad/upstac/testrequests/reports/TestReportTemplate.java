@@ -0,0 +1,73 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.upgrad.upstac.shared.FileReader;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The report template, read from the classpath once. Lines are printed as they are with
+ * {{name}} placeholders filled in, lines starting with "# " are headings.
+ *
+ * The version is a hash of the template, so reports rendered from an older one are not
+ * served after it changes.
+ */
+@Component
+public class TestReportTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(\\w+)}}");
+
+    private final List<String> lines;
+    private final String version;
+
+
+    public TestReportTemplate(@Value("${app.reports.template:reports/test-report.txt}") String template) {
+        String content = FileReader.readFromClassPath(template);
+        List<String> parsed = new ArrayList<>();
+        for (String line : content.split("\n", -1))
+            parsed.add(line.replace("\r", ""));
+        this.lines = parsed;
+        this.version = hash(content);
+    }
+
+
+    List<String> render(Map<String, String> values) {
+        List<String> rendered = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            Matcher matcher = PLACEHOLDER.matcher(line);
+            StringBuffer result = new StringBuffer();
+            while (matcher.find()) {
+                String value = values.get(matcher.group(1));
+                matcher.appendReplacement(result, Matcher.quoteReplacement(value == null ? "-" : value));
+            }
+            matcher.appendTail(result);
+            rendered.add(result.toString());
+        }
+        return rendered;
+    }
+
+    String version() {
+        return version;
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++)
+                hex.append(String.format("%02x", digest[i]));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
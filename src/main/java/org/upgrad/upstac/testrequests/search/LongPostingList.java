@@ -0,0 +1,190 @@
+package org.upgrad.upstac.testrequests.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted set of request ids backed by a primitive long array.
+ * Ids are generated in increasing order, so add() is an append in the common case.
+ *
+ * Status transitions move old ids between lists, so neither side shifts the main array:
+ * a removal only sets a tombstone and an out of order id goes to a small sorted side array.
+ * Both are merged back in one pass once they grow past a fraction of the list.
+ * Not thread safe, callers guard it with the index lock.
+ */
+class LongPostingList {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int MIN_MERGE = 32;
+
+    private long[] ids = EMPTY;
+    private int length;
+
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    private long[] inserted = EMPTY;
+    private int insertedCount;
+
+
+    boolean add(long id) {
+        int position = Arrays.binarySearch(ids, 0, length, id);
+        if (position >= 0) {
+            if (removed.get(position) == false)
+                return false;
+            removed.clear(position);
+            removedCount--;
+            return true;
+        }
+        if (-position - 1 == length) {
+            if (length == ids.length)
+                ids = Arrays.copyOf(ids, Math.max(4, length + (length >> 1)));
+            ids[length++] = id;
+            return true;
+        }
+
+        int insertAt = Arrays.binarySearch(inserted, 0, insertedCount, id);
+        if (insertAt >= 0)
+            return false;
+        insertAt = -insertAt - 1;
+        if (insertedCount == inserted.length)
+            inserted = Arrays.copyOf(inserted, Math.max(4, insertedCount * 2));
+        System.arraycopy(inserted, insertAt, inserted, insertAt + 1, insertedCount - insertAt);
+        inserted[insertAt] = id;
+        insertedCount++;
+
+        if (insertedCount > Math.max(MIN_MERGE, (int) Math.sqrt(length)))
+            merge();
+        return true;
+    }
+
+    boolean remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, length, id);
+        if (position >= 0) {
+            if (removed.get(position))
+                return false;
+            removed.set(position);
+            removedCount++;
+            if (removedCount > Math.max(MIN_MERGE, length >> 3))
+                merge();
+            return true;
+        }
+
+        int insertAt = Arrays.binarySearch(inserted, 0, insertedCount, id);
+        if (insertAt < 0)
+            return false;
+        System.arraycopy(inserted, insertAt + 1, inserted, insertAt, insertedCount - insertAt - 1);
+        insertedCount--;
+        return true;
+    }
+
+    boolean contains(long id) {
+        int position = Arrays.binarySearch(ids, 0, length, id);
+        if (position >= 0)
+            return removed.get(position) == false;
+        return Arrays.binarySearch(inserted, 0, insertedCount, id) >= 0;
+    }
+
+    int size() {
+        return length - removedCount + insertedCount;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    long[] toArray() {
+        if (removedCount == 0 && insertedCount == 0)
+            return Arrays.copyOf(ids, length);
+
+        long[] result = new long[size()];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < length; i++) {
+            if (removed.get(i))
+                continue;
+            while (j < insertedCount && inserted[j] < ids[i])
+                result[count++] = inserted[j++];
+            result[count++] = ids[i];
+        }
+        while (j < insertedCount)
+            result[count++] = inserted[j++];
+        return result;
+    }
+
+    long[] retainAll(long[] candidates) {
+        return retainAll(candidates, candidates.length);
+    }
+
+    long[] retainAll(LongPostingList candidates) {
+        if (candidates.removedCount == 0 && candidates.insertedCount == 0)
+            return retainAll(candidates.ids, candidates.length);
+        return retainAll(candidates.toArray());
+    }
+
+    /**
+     * Intersects the first length ids of a sorted array with this list. The main array and the
+     * side array hold disjoint ids, so their two sorted intersections are merged into the result.
+     */
+    private long[] retainAll(long[] candidates, int length) {
+        long[] fromIds = new long[Math.min(length, this.length)];
+        int idCount = intersect(candidates, length, ids, this.length, removed, fromIds);
+        if (insertedCount == 0)
+            return Arrays.copyOf(fromIds, idCount);
+
+        long[] fromInserted = new long[Math.min(length, insertedCount)];
+        int insertedMatches = intersect(candidates, length, inserted, insertedCount, null, fromInserted);
+
+        long[] result = new long[idCount + insertedMatches];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < idCount && j < insertedMatches)
+            result[count++] = fromIds[i] < fromInserted[j] ? fromIds[i++] : fromInserted[j++];
+        while (i < idCount)
+            result[count++] = fromIds[i++];
+        while (j < insertedMatches)
+            result[count++] = fromInserted[j++];
+        return result;
+    }
+
+    // Probes with binary search when the list is much larger than the candidates
+    private static int intersect(long[] candidates, int length, long[] ids, int size, BitSet skip, long[] result) {
+        int count = 0;
+
+        if (length * 8 < size) {
+            for (int i = 0; i < length; i++) {
+                int position = Arrays.binarySearch(ids, 0, size, candidates[i]);
+                if (position >= 0 && (skip == null || skip.get(position) == false))
+                    result[count++] = candidates[i];
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < length && j < size) {
+                if (candidates[i] == ids[j]) {
+                    if (skip == null || skip.get(j) == false)
+                        result[count++] = candidates[i];
+                    i++;
+                    j++;
+                } else if (candidates[i] < ids[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void merge() {
+        long[] merged = toArray();
+        ids = merged;
+        length = merged.length;
+        removed.clear();
+        removedCount = 0;
+        inserted = EMPTY;
+        insertedCount = 0;
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.upgrad.upstac.testrequests.search;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+
+@RestController
+@RequestMapping("/api/testrequests/search")
+public class TestRequestSearchController {
+
+
+    @Autowired
+    private TestRequestSearchService testRequestSearchService;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public TestRequestSearchResult search(@RequestParam(value = "q", required = false) String query,
+                                          @RequestParam(required = false) RequestStatus status,
+                                          @RequestParam(required = false) Integer pinCode,
+                                          @RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "20") int size) {
+        return testRequestSearchService.search(query, status, pinCode, page, size);
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ResponseEntity<?> rebuild() {
+
+        int indexed = testRequestSearchService.rebuild();
+        return ResponseEntity.ok("Indexed " + indexed + " test requests");
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.upgrad.upstac.testrequests.search;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+/**
+ * The searchable fields of a test request. Loaded through a JPQL constructor
+ * expression so a rebuild never materializes full entities.
+ */
+@Getter
+@ToString
+public class TestRequestSearchDocument {
+
+    private final Long requestId;
+    private final String name;
+    private final String email;
+    private final String phoneNumber;
+    private final String address;
+    private final RequestStatus status;
+    private final Integer pinCode;
+
+
+    public TestRequestSearchDocument(Long requestId, String name, String email, String phoneNumber, String address, RequestStatus status, Integer pinCode) {
+        this.requestId = requestId;
+        this.name = name;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.address = address;
+        this.status = status;
+        this.pinCode = pinCode;
+    }
+
+    public static TestRequestSearchDocument from(TestRequest testRequest) {
+        return new TestRequestSearchDocument(testRequest.getRequestId(),
+                testRequest.getName(),
+                testRequest.getEmail(),
+                testRequest.getPhoneNumber(),
+                testRequest.getAddress(),
+                testRequest.getStatus(),
+                testRequest.getPinCode());
+    }
+
+}
@@ -0,0 +1,254 @@
+package org.upgrad.upstac.testrequests.search;
+
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over name, phone number, email and address of test requests.
+ *
+ * Every word is indexed by its trigrams and by its one and two character prefixes,
+ * so a query term of three or more characters matches anywhere inside a word
+ * (partial names, phone suffixes) and shorter terms match the start of a word.
+ * Status and pinCode are kept as separate posting lists so they can be intersected
+ * with the text matches.
+ */
+public class TestRequestSearchIndex {
+
+    private static final String PREFIX_MARKER = "^";
+
+    private final Map<String, LongPostingList> postings = new HashMap<>();
+    private final Map<RequestStatus, LongPostingList> byStatus = new EnumMap<>(RequestStatus.class);
+    private final Map<Integer, LongPostingList> byPinCode = new HashMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    public void put(TestRequestSearchDocument document) {
+        if (document.getRequestId() == null)
+            return;
+
+        String[] words = wordsOf(document);
+        long id = document.getRequestId();
+
+        lock.writeLock().lock();
+        try {
+            IndexedDocument existing = documents.put(id, new IndexedDocument(document, words));
+            if (existing == null) {
+                for (String gram : gramsOf(words))
+                    postings.computeIfAbsent(gram, key -> new LongPostingList()).add(id);
+                addTo(byStatus, document.getStatus(), id);
+                addTo(byPinCode, document.getPinCode(), id);
+                return;
+            }
+
+            // Transitions usually change only the status, so only what differs is re-indexed
+            if (Arrays.equals(existing.words, words) == false) {
+                Set<String> oldGrams = gramsOf(existing.words);
+                Set<String> newGrams = gramsOf(words);
+                for (String gram : oldGrams)
+                    if (newGrams.contains(gram) == false)
+                        removeFrom(postings, gram, id);
+                for (String gram : newGrams)
+                    if (oldGrams.contains(gram) == false)
+                        postings.computeIfAbsent(gram, key -> new LongPostingList()).add(id);
+            }
+            if (existing.document.getStatus() != document.getStatus()) {
+                removeFrom(byStatus, existing.document.getStatus(), id);
+                addTo(byStatus, document.getStatus(), id);
+            }
+            if (Objects.equals(existing.document.getPinCode(), document.getPinCode()) == false) {
+                removeFrom(byPinCode, existing.document.getPinCode(), id);
+                addTo(byPinCode, document.getPinCode(), id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long requestId) {
+        lock.writeLock().lock();
+        try {
+            removeUnderLock(requestId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids matching every term of the query and the optional filters, newest first.
+     */
+    public long[] search(String query, RequestStatus status, Integer pinCode) {
+        List<String> terms = tokenize(query);
+
+        lock.readLock().lock();
+        try {
+            List<LongPostingList> lists = new ArrayList<>();
+            for (String term : terms) {
+                for (String gram : queryGramsOf(term)) {
+                    LongPostingList list = postings.get(gram);
+                    if (list == null)
+                        return new long[0];
+                    lists.add(list);
+                }
+            }
+            if (status != null) {
+                LongPostingList list = byStatus.get(status);
+                if (list == null)
+                    return new long[0];
+                lists.add(list);
+            }
+            if (pinCode != null) {
+                LongPostingList list = byPinCode.get(pinCode);
+                if (list == null)
+                    return new long[0];
+                lists.add(list);
+            }
+            if (lists.isEmpty())
+                return new long[0];
+
+            // The smallest list is read in place unless it has pending tombstones or inserts
+            lists.sort(Comparator.comparingInt(LongPostingList::size));
+            long[] candidates = lists.size() == 1 ? lists.get(0).toArray() : lists.get(1).retainAll(lists.get(0));
+            for (int i = 2; i < lists.size() && candidates.length > 0; i++)
+                candidates = lists.get(i).retainAll(candidates);
+
+            return newestFirst(verify(candidates, terms));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Trigram hits can come from different words, so long terms are checked against the words kept at indexing time
+    private long[] verify(long[] candidates, List<String> terms) {
+        boolean needsCheck = terms.stream().anyMatch(term -> term.length() >= 3);
+        if (needsCheck == false)
+            return candidates;
+
+        long[] result = new long[candidates.length];
+        int count = 0;
+        for (long candidate : candidates) {
+            if (containsAll(documents.get(candidate).words, terms))
+                result[count++] = candidate;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean containsAll(String[] words, List<String> terms) {
+        for (String term : terms) {
+            if (containsTerm(words, term) == false)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean containsTerm(String[] words, String term) {
+        for (String word : words) {
+            if (term.length() < 3 ? word.startsWith(term) : word.contains(term))
+                return true;
+        }
+        return false;
+    }
+
+    private static long[] newestFirst(long[] ids) {
+        for (int i = 0, j = ids.length - 1; i < j; i++, j--) {
+            long swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private void removeUnderLock(Long requestId) {
+        IndexedDocument existing = documents.remove(requestId);
+        if (existing == null)
+            return;
+
+        for (String gram : gramsOf(existing.words))
+            removeFrom(postings, gram, requestId);
+        removeFrom(byStatus, existing.document.getStatus(), requestId);
+        removeFrom(byPinCode, existing.document.getPinCode(), requestId);
+    }
+
+    private static <K> void addTo(Map<K, LongPostingList> map, K key, long id) {
+        if (key != null)
+            map.computeIfAbsent(key, ignored -> new LongPostingList()).add(id);
+    }
+
+    private static <K> void removeFrom(Map<K, LongPostingList> map, K key, long id) {
+        if (key == null)
+            return;
+        LongPostingList list = map.get(key);
+        if (list != null && list.remove(id) && list.isEmpty())
+            map.remove(key);
+    }
+
+    static Set<String> gramsOf(String[] words) {
+        Set<String> grams = new HashSet<>();
+        for (String word : words) {
+            for (int length = 1; length <= Math.min(2, word.length()); length++)
+                grams.add(PREFIX_MARKER + word.substring(0, length));
+            for (int i = 0; i + 3 <= word.length(); i++)
+                grams.add(word.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    static List<String> queryGramsOf(String term) {
+        if (term.length() < 3)
+            return Collections.singletonList(PREFIX_MARKER + term);
+
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= term.length(); i++)
+            grams.add(term.substring(i, i + 3));
+        return grams;
+    }
+
+    // Sorted and distinct, so two versions of a document compare with Arrays.equals
+    static String[] wordsOf(TestRequestSearchDocument document) {
+        Set<String> words = new TreeSet<>();
+        words.addAll(tokenize(document.getName()));
+        words.addAll(tokenize(document.getEmail()));
+        words.addAll(tokenize(document.getAddress()));
+        if (document.getPhoneNumber() != null)
+            words.addAll(tokenize(document.getPhoneNumber().replaceAll("[^0-9]", "")));
+        return words.toArray(new String[0]);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty())
+            return Collections.emptyList();
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (token.isEmpty() == false)
+                tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // The words are tokenized once per change and kept for verifying trigram matches
+    private static class IndexedDocument {
+
+        private final TestRequestSearchDocument document;
+        private final String[] words;
+
+        private IndexedDocument(TestRequestSearchDocument document, String[] words) {
+            this.document = document;
+            this.words = words;
+        }
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.upgrad.upstac.testrequests.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TestRequestSearchResult {
+
+    private long total;
+    private int page;
+    private int size;
+    private List<TestRequest> requests;
+
+}
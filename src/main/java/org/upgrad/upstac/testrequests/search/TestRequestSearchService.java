@@ -0,0 +1,145 @@
+package org.upgrad.upstac.testrequests.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.config.startup.StartupLoads;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.archive.TestRequestsArchivedEvent;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class TestRequestSearchService {
+
+    static final int REBUILD_BATCH_SIZE = 5000;
+    static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private StartupLoads startupLoads;
+
+    private volatile TestRequestSearchIndex index = new TestRequestSearchIndex();
+
+    // Index being filled by a rebuild, kept up to date with live changes until it is swapped in.
+    // Ids changed live during the rebuild are not overwritten by the older rows it loads.
+    private final Object rebuildLock = new Object();
+    private TestRequestSearchIndex rebuilding;
+    private Set<Long> changedDuringRebuild;
+
+    private static Logger logger = LoggerFactory.getLogger(TestRequestSearchService.class);
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startupLoads.run("search-index", this::rebuild);
+    }
+
+    @EventListener
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        TestRequestSearchDocument document = TestRequestSearchDocument.from(event.getTestRequest());
+
+        synchronized (rebuildLock) {
+            index.put(document);
+            if (rebuilding != null) {
+                rebuilding.put(document);
+                changedDuringRebuild.add(document.getRequestId());
+            }
+        }
+    }
+
+    // The index covers the hot tables only, like the queue and export endpoints
+    @EventListener
+    public void onArchived(TestRequestsArchivedEvent event) {
+        synchronized (rebuildLock) {
+            for (Long requestId : event.getRequestIds()) {
+                index.remove(requestId);
+                if (rebuilding != null) {
+                    rebuilding.remove(requestId);
+                    changedDuringRebuild.add(requestId);
+                }
+            }
+        }
+    }
+
+    public synchronized int rebuild() {
+        TestRequestSearchIndex fresh = new TestRequestSearchIndex();
+        synchronized (rebuildLock) {
+            rebuilding = fresh;
+            changedDuringRebuild = new HashSet<>();
+        }
+        try {
+            Long afterId = 0L;
+            List<TestRequestSearchDocument> batch;
+            do {
+                batch = testRequestRepository.findSearchDocumentsAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                synchronized (rebuildLock) {
+                    for (TestRequestSearchDocument document : batch)
+                        if (changedDuringRebuild.contains(document.getRequestId()) == false)
+                            fresh.put(document);
+                }
+                if (batch.isEmpty() == false)
+                    afterId = batch.get(batch.size() - 1).getRequestId();
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+
+            synchronized (rebuildLock) {
+                index = fresh;
+            }
+        } finally {
+            synchronized (rebuildLock) {
+                rebuilding = null;
+                changedDuringRebuild = null;
+            }
+        }
+
+        logger.info("Search index rebuilt with " + fresh.size() + " test requests");
+        return fresh.size();
+    }
+
+    public TestRequestSearchResult search(String query, RequestStatus status, Integer pinCode, int page, int size) {
+
+        boolean hasQuery = query != null && query.trim().isEmpty() == false;
+        if (hasQuery == false && status == null && pinCode == null)
+            throw ErrorCode.SEARCH_CRITERIA_REQUIRED.exception();
+
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE)
+            throw ErrorCode.INVALID_PAGE.exception(MAX_PAGE_SIZE);
+
+        long[] ids = index.search(query, status, pinCode);
+
+        int from = (int) Math.min((long) page * size, ids.length);
+        int to = Math.min(from + size, ids.length);
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            pageIds.add(ids[i]);
+
+        return new TestRequestSearchResult(ids.length, page, size, loadInOrder(pageIds));
+    }
+
+    private List<TestRequest> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        Map<Long, TestRequest> byId = testRequestRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(TestRequest::getRequestId, Function.identity()));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,11 @@
+package org.upgrad.upstac.testrequests.shards;
+
+import lombok.Data;
+
+@Data
+public class ShardAssignment {
+
+    private String pinCodePrefix;
+    private String shard;
+
+}
@@ -0,0 +1,41 @@
+package org.upgrad.upstac.testrequests.shards;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+
+@RestController
+@RequestMapping("/api/shards")
+public class ShardController {
+
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ShardOverview getOverview() {
+
+        return shardRebalancer.getOverview();
+    }
+
+    @PostMapping("/assignments")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ShardOverview assign(@RequestBody ShardAssignment shardAssignment) {
+
+        shardRebalancer.assign(shardAssignment.getPinCodePrefix(), shardAssignment.getShard());
+        return shardRebalancer.getOverview();
+    }
+
+    @PostMapping("/rebalance")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public ShardOverview rebalance() {
+
+        shardRebalancer.rebalance();
+        return shardRebalancer.getOverview();
+    }
+
+}
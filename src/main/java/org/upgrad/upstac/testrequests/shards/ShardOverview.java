@@ -0,0 +1,16 @@
+package org.upgrad.upstac.testrequests.shards;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ShardOverview {
+
+    private String defaultShard;
+    private Map<String, String> pinCodePrefixes;
+    private Map<String, Long> requestsByShard;
+
+}
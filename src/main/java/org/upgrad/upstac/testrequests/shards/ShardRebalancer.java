@@ -0,0 +1,276 @@
+package org.upgrad.upstac.testrequests.shards;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.shard.ReferenceDataReplicator;
+import org.upgrad.upstac.config.shard.ShardMap;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Keeps pinCode prefix assignments in the shard_assignment table of the default shard and
+ * moves requests, with their lab results, consultations, flow entries, attachments and archived copies,
+ * to the shard their pinCode is assigned to.
+ *
+ * A batch is read with its rows locked on the source, copied to the target in a transaction
+ * of the target's, and deleted in the source transaction that holds the locks, so writes to
+ * those requests wait for the move and then fail rather than being deleted unseen. Copies
+ * skip rows the target already has, so a rebalance interrupted between the commits is
+ * finished by running it again. A new assignment takes effect once its requests have moved.
+ *
+ * Every instance reads the assignments again at app.sharding.assignment-refresh, so a new one
+ * reaches the others within that interval. Requests they create on the source until then are
+ * moved by a second pass, started once the assignment has had time to reach every instance.
+ *
+ * At startup, shards added after users and roles were written get a copy of them.
+ */
+@Service
+@DependsOn({"entityManagerFactory", "archiveTables"})
+public class ShardRebalancer {
+
+    // Parents first, {table, id column, request id column}
+    private static final String[][] HOT_TABLES = {
+            {"test_request", "request_id", "request_id"},
+            {"lab_result", "result_id", "request_request_id"},
+            {"consultation", "id", "request_request_id"},
+            {"test_request_flow", "id", "request_request_id"},
+            {"lab_attachment", "id", "request_id"}
+    };
+
+    private static final String[][] ARCHIVED_TABLES = {
+            {"archived_test_request", "request_id", "request_id"},
+            {"archived_lab_result", "result_id", "request_request_id"},
+            {"archived_consultation", "id", "request_request_id"},
+            {"archived_test_request_flow", "id", "request_request_id"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ReferenceDataReplicator referenceDataReplicator;
+
+    @Value("${app.sharding.rebalance-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.sharding.assignment-refresh:5000}")
+    private long assignmentRefresh;
+
+    private final Object assignmentLock = new Object();
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+
+    @PostConstruct
+    public void loadAssignments() {
+        if (shardRouter.isSharded() == false)
+            return;
+
+        shardRouter.onShard(shardRouter.defaultShard(), () -> jdbcTemplate.execute("create table if not exists shard_assignment (prefix varchar(6) not null primary key, shard varchar(64) not null)"));
+        refreshAssignments();
+        referenceDataReplicator.replicateAll();
+    }
+
+    @Scheduled(initialDelayString = "${app.sharding.assignment-refresh:5000}", fixedDelayString = "${app.sharding.assignment-refresh:5000}")
+    public void refreshAssignments() {
+        if (shardRouter.isSharded() == false)
+            return;
+
+        // A read started before assign() writes the table would undo its assignment until the next one
+        synchronized (assignmentLock) {
+            applyAssignments();
+        }
+    }
+
+    private void applyAssignments() {
+        Map<String, String> assignments = new TreeMap<>();
+        shardRouter.onShard(shardRouter.defaultShard(), () -> jdbcTemplate.query("select prefix, shard from shard_assignment", (RowCallbackHandler) resultSet -> {
+            String prefix = resultSet.getString("prefix");
+            String shard = resultSet.getString("shard");
+            if (shardRouter.shards().contains(shard))
+                assignments.put(prefix, shard);
+            else
+                log.warn("Ignoring assignment of pinCode prefix " + prefix + " to unknown shard " + shard);
+        }));
+
+        if (assignments.equals(shardRouter.shardMap().assigned()) == false)
+            log.info("PinCode prefix assignments are now " + assignments);
+        shardRouter.shardMap().assignAll(assignments);
+    }
+
+    public ShardOverview getOverview() {
+        Map<String, Long> requests = new LinkedHashMap<>();
+        for (ShardRouter.ShardResult<Long> result : shardRouter.scatter(() -> jdbcTemplate.queryForObject("select count(*) from test_request", Long.class)))
+            requests.put(result.getShard(), result.getValue());
+
+        return new ShardOverview(shardRouter.defaultShard(), shardRouter.shardMap().prefixes(), requests);
+    }
+
+    public synchronized long assign(String prefix, String shard) {
+        if (shardRouter.isSharded() == false)
+            throw new AppException(ErrorCode.NOT_ENABLED, "Sharding is not enabled");
+        if (prefix == null || prefix.matches("[0-9]{1,6}") == false)
+            throw ErrorCode.INVALID_PIN_CODE_PREFIX.exception();
+        if (shardRouter.shards().contains(shard) == false)
+            throw ErrorCode.UNKNOWN_SHARD.exception(shard);
+
+        // Writes keep going to the source until the requests are on the target
+        long moved = rebalance(shardRouter.shardMap().with(prefix, shard));
+
+        synchronized (assignmentLock) {
+            shardRouter.onShard(shardRouter.defaultShard(), () -> transactionTemplate.execute(status -> {
+                jdbcTemplate.update("delete from shard_assignment where prefix = ?", prefix);
+                jdbcTemplate.update("insert into shard_assignment (prefix, shard) values (?, ?)", prefix, shard);
+                return null;
+            }));
+            shardRouter.shardMap().assign(prefix, shard);
+        }
+        log.info("Assigned pinCode prefix " + prefix + " to shard " + shard);
+
+        // Requests created on the source while the first pass ran, or by instances yet to refresh
+        awaitRefreshOfOtherInstances();
+        return moved + rebalance();
+    }
+
+    // Two intervals, an instance may have read the table just before the write
+    private void awaitRefreshOfOtherInstances() {
+        try {
+            Thread.sleep(2 * assignmentRefresh);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Moves every request whose pinCode is assigned to another shard than the one it is on.
+     * Returns the number of requests moved, hot and archived.
+     */
+    public synchronized long rebalance() {
+        return rebalance(shardRouter.shardMap());
+    }
+
+    private long rebalance(ShardMap placement) {
+        long moved = 0;
+        for (String shard : shardRouter.shards()) {
+            moved += rebalance(shard, HOT_TABLES, placement);
+            moved += rebalance(shard, ARCHIVED_TABLES, placement);
+        }
+        log.info("Rebalanced " + moved + " test requests");
+        return moved;
+    }
+
+    private long rebalance(String source, String[][] tables, ShardMap placement) {
+        String requestTable = tables[0][0];
+        long moved = 0;
+        long afterId = 0;
+
+        while (true) {
+            long after = afterId;
+            List<Map<String, Object>> requests = shardRouter.onShard(source, () -> jdbcTemplate.query(
+                    "select request_id, pin_code from " + requestTable + " where request_id > ? order by request_id",
+                    preparedStatement -> {
+                        preparedStatement.setLong(1, after);
+                        preparedStatement.setMaxRows(batchSize);
+                    },
+                    (resultSet, rowNum) -> {
+                        Map<String, Object> request = new HashMap<>();
+                        request.put("request_id", resultSet.getLong(1));
+                        int pinCode = resultSet.getInt(2);
+                        request.put("pin_code", resultSet.wasNull() ? null : pinCode);
+                        return request;
+                    }));
+            if (requests.isEmpty())
+                return moved;
+
+            Map<String, List<Long>> byTarget = new LinkedHashMap<>();
+            for (Map<String, Object> request : requests) {
+                String target = placement.shardOf((Integer) request.get("pin_code"));
+                if (target.equals(source) == false)
+                    byTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add((Long) request.get("request_id"));
+            }
+
+            for (Map.Entry<String, List<Long>> entry : byTarget.entrySet()) {
+                move(source, entry.getKey(), entry.getValue(), tables);
+                moved += entry.getValue().size();
+            }
+
+            if (requests.size() < batchSize)
+                return moved;
+            afterId = (Long) requests.get(requests.size() - 1).get("request_id");
+        }
+    }
+
+    private void move(String source, String target, List<Long> requestIds, String[][] tables) {
+        String ids = String.join(", ", Collections.nCopies(requestIds.size(), "?"));
+        Object[] idArguments = requestIds.toArray();
+
+        shardRouter.onShard(source, () -> transactionTemplate.execute(status -> {
+            Map<String[], List<Map<String, Object>>> rows = new LinkedHashMap<>();
+            for (String[] table : tables)
+                rows.put(table, jdbcTemplate.queryForList("select * from " + table[0] + " where " + table[2] + " in (" + ids + ") for update", idArguments));
+
+            // Committed before the source rows are deleted, a failure in between leaves copies the next run skips
+            shardRouter.onShard(target, () -> transactionTemplate.execute(copy -> {
+                rows.forEach(this::insertMissing);
+                return null;
+            }));
+
+            for (int i = tables.length - 1; i >= 0; i--)
+                jdbcTemplate.update("delete from " + tables[i][0] + " where " + tables[i][2] + " in (" + ids + ")", idArguments);
+            return null;
+        }));
+
+        for (Long requestId : requestIds)
+            shardRouter.remember(requestId, target);
+        log.info("Moved " + requestIds.size() + " requests from " + tables[0][0] + " of shard " + source + " to shard " + target);
+    }
+
+    private void insertMissing(String[] table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty())
+            return;
+
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "insert into " + table[0] + " (" + String.join(", ", columns) + ") values (" +
+                String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+
+        String[] keys = table[1].split(", ");
+        String existingSql = "select count(*) from " + table[0] + " where " + String.join(" = ? and ", keys) + " = ?";
+
+        List<Object[]> missing = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Object[] key = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++)
+                key[i] = row.get(keys[i]);
+            Integer existing = jdbcTemplate.queryForObject(existingSql, Integer.class, key);
+            if (existing != null && existing > 0)
+                continue;
+
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = row.get(columns.get(i));
+            missing.add(values);
+        }
+
+        if (missing.isEmpty() == false)
+            jdbcTemplate.batchUpdate(sql, missing);
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size log-linear histogram of durations in milliseconds, in the style of HdrHistogram.
+ *
+ * Values below 128 get their own bucket, above that every power of two is split into
+ * 64 buckets, so recorded values are accurate to within about 1.6%. Recording is a
+ * single atomic increment and memory stays constant however many values are recorded.
+ *
+ * The 64 buckets of a power of two are allocated on its first value, dwell times of a
+ * stage span a few of them, so an empty or narrow histogram costs a few hundred bytes.
+ */
+public class DwellTimeHistogram {
+
+    static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    // Covers up to 2^41 ms, around 69 years
+    private static final int MAX_SHIFT = 35;
+
+    private static final int ROWS = MAX_SHIFT + 2;
+
+    private final AtomicReferenceArray<AtomicLongArray> rows = new AtomicReferenceArray<>(ROWS);
+    private final LongAdder total = new LongAdder();
+
+
+    public void record(long millis) {
+        int bucket = bucketOf(Math.max(0, millis));
+        rowOf(bucket).incrementAndGet(bucket % SUB_BUCKETS);
+        total.increment();
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Highest value equivalent to the bucket holding the given percentile, 0 when empty.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[ROWS * SUB_BUCKETS];
+        long recorded = 0;
+        for (int row = 0; row < ROWS; row++) {
+            AtomicLongArray counts = rows.get(row);
+            if (counts == null)
+                continue;
+            for (int i = 0; i < SUB_BUCKETS; i++) {
+                snapshot[row * SUB_BUCKETS + i] = counts.get(i);
+                recorded += snapshot[row * SUB_BUCKETS + i];
+            }
+        }
+        if (recorded == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * recorded));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return highestValueIn(i);
+        }
+        return highestValueIn(snapshot.length - 1);
+    }
+
+    int allocatedRows() {
+        int allocated = 0;
+        for (int row = 0; row < ROWS; row++) {
+            if (rows.get(row) != null)
+                allocated++;
+        }
+        return allocated;
+    }
+
+    private AtomicLongArray rowOf(int bucket) {
+        int row = bucket / SUB_BUCKETS;
+        AtomicLongArray counts = rows.get(row);
+        if (counts == null) {
+            rows.compareAndSet(row, null, new AtomicLongArray(SUB_BUCKETS));
+            counts = rows.get(row);
+        }
+        return counts;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT)
+            return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT)
+            return ROWS * SUB_BUCKETS - 1;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >> shift) - SUB_BUCKETS);
+    }
+
+    static long lowestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return lowestValueIn(bucket) + (1L << shift) - 1;
+    }
+
+}
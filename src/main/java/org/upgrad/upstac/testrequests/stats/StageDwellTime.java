@@ -0,0 +1,20 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+/**
+ * Time requests spent in one status before moving on, in milliseconds.
+ */
+@Data
+@AllArgsConstructor
+public class StageDwellTime {
+
+    private RequestStatus stage;
+    private long count;
+    private long p50;
+    private long p90;
+    private long p99;
+
+}
@@ -0,0 +1,92 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dwell time histograms per stage, overall and per pinCode, fed by every logged transition.
+ * Served straight from memory, they start empty after a restart.
+ *
+ * At most app.stats.dwell-time-pin-codes pinCodes get their own histograms, transitions
+ * of pinCodes past that only count towards the overall ones.
+ */
+@Service
+public class StageDwellTimeService {
+
+    private final Map<RequestStatus, DwellTimeHistogram> overall = newHistograms();
+
+    private final ConcurrentHashMap<Integer, Map<RequestStatus, DwellTimeHistogram>> byPinCode = new ConcurrentHashMap<>();
+
+    @Value("${app.stats.dwell-time-pin-codes:1000}")
+    private int maxPinCodes = 1000;
+
+    private final AtomicBoolean pinCodesFull = new AtomicBoolean();
+
+    private static final Logger log = LoggerFactory.getLogger(StageDwellTimeService.class);
+
+
+    public void record(TestRequest testRequest, RequestStatus stage, Instant leftAt) {
+        Instant enteredAt = testRequest.getStatusChangedAt();
+        if (enteredAt == null || stage == null)
+            return;
+
+        long millis = Duration.between(enteredAt, leftAt).toMillis();
+        overall.get(stage).record(millis);
+
+        Map<RequestStatus, DwellTimeHistogram> histograms = histogramsOf(testRequest.getPinCode());
+        if (histograms != null)
+            histograms.get(stage).record(millis);
+    }
+
+    public List<StageDwellTime> getDwellTimes(Integer pinCode) {
+        Map<RequestStatus, DwellTimeHistogram> histograms = pinCode == null ? overall : byPinCode.get(pinCode);
+
+        List<StageDwellTime> result = new ArrayList<>();
+        for (RequestStatus stage : RequestStatus.values()) {
+            if (stage == RequestStatus.COMPLETED)
+                continue;
+
+            DwellTimeHistogram histogram = histograms == null ? new DwellTimeHistogram() : histograms.get(stage);
+            result.add(new StageDwellTime(stage,
+                    histogram.count(),
+                    histogram.percentile(50),
+                    histogram.percentile(90),
+                    histogram.percentile(99)));
+        }
+        return result;
+    }
+
+    private Map<RequestStatus, DwellTimeHistogram> histogramsOf(Integer pinCode) {
+        if (pinCode == null)
+            return null;
+
+        Map<RequestStatus, DwellTimeHistogram> histograms = byPinCode.get(pinCode);
+        if (histograms != null)
+            return histograms;
+
+        if (byPinCode.size() >= maxPinCodes) {
+            if (pinCodesFull.compareAndSet(false, true))
+                log.warn("Tracking dwell times of " + maxPinCodes + " pinCodes, new pinCodes only count towards the overall histograms");
+            return null;
+        }
+        return byPinCode.computeIfAbsent(pinCode, key -> newHistograms());
+    }
+
+    private static Map<RequestStatus, DwellTimeHistogram> newHistograms() {
+        Map<RequestStatus, DwellTimeHistogram> histograms = new EnumMap<>(RequestStatus.class);
+        for (RequestStatus status : RequestStatus.values())
+            histograms.put(status, new DwellTimeHistogram());
+        return histograms;
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.upgrad.upstac.testrequests.stats;
+
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatisticsController {
+
+
+    @Autowired
+    private TestRequestStatisticsService testRequestStatisticsService;
+
+    @Autowired
+    private StageDwellTimeService stageDwellTimeService;
+
+    @Autowired
+    private VitalsStatisticsService vitalsStatisticsService;
+
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public TestRequestStatistics getStatistics(@RequestParam(required = false) Integer pinCode,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day) {
+
+        return testRequestStatisticsService.getStatistics(pinCode, day);
+    }
+
+    @GetMapping("/turnaround")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<StageDwellTime> getTurnaround(@RequestParam(required = false) Integer pinCode) {
+
+        return stageDwellTimeService.getDwellTimes(pinCode);
+    }
+
+    @GetMapping("/vitals")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<VitalsSummary> getVitals(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return vitalsStatisticsService.getSummaries(from, to);
+    }
+
+    @GetMapping("/vitals/alerts")
+    @PreAuthorize("hasAnyRole('GOVERNMENT_AUTHORITY')")
+    public List<VitalsAlert> getVitalsAlerts(@RequestParam(required = false) Integer oxygenBelow,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since) {
+        return vitalsStatisticsService.getAlerts(oxygenBelow, since);
+    }
+
+}
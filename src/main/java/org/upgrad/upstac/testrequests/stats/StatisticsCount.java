@@ -0,0 +1,26 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * One row of a grouped count query, used to rebuild and reconcile the counters.
+ */
+@Getter
+public class StatisticsCount {
+
+    private final Enum<?> value;
+    private final Integer pinCode;
+    private final LocalDate day;
+    private final long count;
+
+
+    public StatisticsCount(Enum<?> value, Integer pinCode, LocalDate day, Long count) {
+        this.value = value;
+        this.pinCode = pinCode;
+        this.day = day;
+        this.count = count;
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Striped counters kept in four views, by value, pinCode and day, by value and pinCode,
+ * by value and day, and by value alone. Every read is one lookup per enum constant in
+ * the view matching its filters.
+ *
+ * Adds take no lock. A reconciliation corrects each counter by adding the difference,
+ * so adds that land while it runs are kept. The pinCode and day view only keeps days
+ * from detailFrom on, older keys are dropped on reconciliation as no add reaches them.
+ * Other counts that drop to zero stay, removing one could lose an add holding it.
+ */
+class StatisticsCounters {
+
+    private static final int DETAIL = 0;
+    private static final int BY_PIN_CODE = 1;
+    private static final int BY_DAY = 2;
+    private static final int TOTAL = 3;
+
+    private static final List<UnaryOperator<StatisticsKey>> PROJECTIONS = Arrays.asList(
+            key -> key,
+            key -> new StatisticsKey(key.getValue(), key.getPinCode(), null),
+            key -> new StatisticsKey(key.getValue(), null, key.getDay()),
+            key -> new StatisticsKey(key.getValue(), null, null));
+
+    private final List<ConcurrentHashMap<StatisticsKey, LongAdder>> views = new ArrayList<>();
+
+    private volatile LocalDate detailFrom;
+
+    // Changes since tracking started, swapped for a fresh generation by each startTracking()
+    private volatile ConcurrentHashMap<StatisticsKey, LongAdder> changes;
+
+
+    StatisticsCounters(LocalDate detailFrom) {
+        this.detailFrom = detailFrom;
+        for (int i = 0; i < PROJECTIONS.size(); i++)
+            views.add(new ConcurrentHashMap<>());
+    }
+
+    void add(Enum<?> value, Integer pinCode, LocalDate day, long delta) {
+        if (value == null)
+            return;
+
+        StatisticsKey key = new StatisticsKey(value, pinCode, day);
+
+        // Recorded first, so a reconciliation never sees the count without the change
+        ConcurrentHashMap<StatisticsKey, LongAdder> generation = changes;
+        if (generation != null)
+            generation.computeIfAbsent(key, changed -> new LongAdder()).add(delta);
+
+        for (int i = 0; i < views.size(); i++) {
+            if (i == DETAIL && day != null && day.isBefore(detailFrom))
+                continue;
+            views.get(i).computeIfAbsent(PROJECTIONS.get(i).apply(key), projected -> new LongAdder()).add(delta);
+        }
+    }
+    void addAll(List<StatisticsCount> counts) {
+        for (StatisticsCount count : counts)
+            add(count.getValue(), count.getPinCode(), count.getDay(), count.getCount());
+    }
+
+    <E extends Enum<E>> Map<E, Long> totalsOf(Class<E> type) {
+        return countsOf(type, null, null);
+    }
+
+    long totalOf(Enum<?> value) {
+        return sumOf(views.get(TOTAL).get(new StatisticsKey(value, null, null)));
+    }
+
+    <E extends Enum<E>> Map<E, Long> countsOf(Class<E> type, Integer pinCode, LocalDate day) {
+        ConcurrentHashMap<StatisticsKey, LongAdder> view = views.get(pinCode != null
+                ? (day != null ? DETAIL : BY_PIN_CODE)
+                : (day != null ? BY_DAY : TOTAL));
+
+        Map<E, Long> result = new EnumMap<>(type);
+        for (E value : type.getEnumConstants())
+            result.put(value, sumOf(view.get(new StatisticsKey(value, pinCode, day))));
+        return result;
+    }
+
+    LocalDate getDetailFrom() {
+        return detailFrom;
+    }
+
+    int size() {
+        return views.stream().mapToInt(Map::size).sum();
+    }
+
+    // Call before loading the counts to reconcile with
+    void startTracking() {
+        changes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Moves every counter to its count in expected and returns the number of counters corrected.
+     *
+     * The database read may or may not include the changes made since startTracking(), so a
+     * changed counter is right anywhere between expected and expected plus those changes. It is
+     * only moved when it is outside that range, and then to the nearest end, by adding the
+     * difference. Counters nobody changed are set to expected exactly.
+     */
+    synchronized int reconcileWith(StatisticsCounters expected) {
+        ConcurrentHashMap<StatisticsKey, LongAdder> generation = changes;
+        changes = null;
+        detailFrom = expected.detailFrom;
+
+        int corrected = 0;
+        for (int i = 0; i < views.size(); i++) {
+            Map<StatisticsKey, Long> changedInView = new HashMap<>();
+            if (generation != null) {
+                for (Map.Entry<StatisticsKey, LongAdder> change : generation.entrySet())
+                    changedInView.merge(PROJECTIONS.get(i).apply(change.getKey()), change.getValue().sum(), Long::sum);
+            }
+            corrected += correct(views.get(i), expected.views.get(i), changedInView, i == DETAIL ? detailFrom : LocalDate.MIN);
+        }
+        return corrected;
+    }
+
+    private static int correct(ConcurrentHashMap<StatisticsKey, LongAdder> live, ConcurrentHashMap<StatisticsKey, LongAdder> expected,
+                               Map<StatisticsKey, Long> changed, LocalDate keepFrom) {
+        Set<StatisticsKey> keys = new HashSet<>(live.keySet());
+        keys.addAll(expected.keySet());
+
+        int corrected = 0;
+        for (StatisticsKey key : keys) {
+            if (key.getDay() != null && key.getDay().isBefore(keepFrom)) {
+                live.remove(key);
+                continue;
+            }
+
+            long want = sumOf(expected.get(key));
+            long change = changed.getOrDefault(key, 0L);
+            long have = sumOf(live.get(key));
+
+            long low = Math.min(want, want + change);
+            long high = Math.max(want, want + change);
+            long target = have < low ? low : Math.min(have, high);
+            if (target != have) {
+                live.computeIfAbsent(key, missing -> new LongAdder()).add(target - have);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    private static long sumOf(LongAdder counter) {
+        return counter == null ? 0L : counter.sum();
+    }
+
+}
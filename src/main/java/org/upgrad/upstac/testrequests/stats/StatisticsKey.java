@@ -0,0 +1,17 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Counter key, value is a RequestStatus, TestStatus or DoctorSuggestion.
+ */
+@Value
+class StatisticsKey {
+
+    Enum<?> value;
+    Integer pinCode;
+    LocalDate day;
+
+}
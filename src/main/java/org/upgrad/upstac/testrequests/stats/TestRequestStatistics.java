@@ -0,0 +1,22 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class TestRequestStatistics {
+
+    private Integer pinCode;
+    private LocalDate day;
+    private Map<RequestStatus, Long> requestsByStatus;
+    private Map<TestStatus, Long> labResults;
+    private Map<DoctorSuggestion, Long> suggestions;
+
+}
@@ -0,0 +1,129 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.config.startup.StartupLoads;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+import org.upgrad.upstac.testrequests.consultation.Consultation;
+import org.upgrad.upstac.testrequests.consultation.ConsultationRepository;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Live dashboard counts, kept in memory and moved on every status change.
+ * Request counts are bucketed by the day the request was created,
+ * lab results and suggestions by the day they were recorded. Counts by pinCode and
+ * day together are kept for the last day-retention days.
+ */
+@Service
+public class TestRequestStatisticsService {
+
+    @Autowired
+    private TestRequestRepository testRequestRepository;
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    @Autowired
+    private StartupLoads startupLoads;
+
+    @Value("${app.stats.day-retention:90}")
+    private int dayRetention;
+
+    private final StatisticsCounters counters = new StatisticsCounters(LocalDate.MIN);
+
+    private static Logger logger = LoggerFactory.getLogger(TestRequestStatisticsService.class);
+
+
+    // Changes from here on are tracked, so they survive a load that finishes after them
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        counters.startTracking();
+        startupLoads.run("statistics", () -> {
+            counters.reconcileWith(loadFromDatabase());
+            logger.info("Statistics loaded with " + counters.size() + " counters");
+        });
+    }
+
+    @EventListener
+    public void onStatusChanged(TestRequestStatusChangedEvent event) {
+        TestRequest testRequest = event.getTestRequest();
+        Integer pinCode = testRequest.getPinCode();
+
+        if (event.isCreation() == false)
+            counters.add(event.getFromStatus(), pinCode, testRequest.getCreated(), -1);
+        counters.add(event.getToStatus(), pinCode, testRequest.getCreated(), 1);
+
+        if (event.getToStatus() == RequestStatus.LAB_TEST_COMPLETED && testRequest.getLabResult() != null) {
+            LabResult labResult = testRequest.getLabResult();
+            counters.add(labResult.getResult(), pinCode, labResult.getUpdatedOn(), 1);
+        }
+
+        if (event.getToStatus() == RequestStatus.COMPLETED && testRequest.getConsultation() != null) {
+            Consultation consultation = testRequest.getConsultation();
+            counters.add(consultation.getSuggestion(), pinCode, consultation.getUpdatedOn(), 1);
+        }
+    }
+
+    /**
+     * Recounts everything from the database and corrects the counters in place, logging any drift.
+     * Counters changed while the recount runs are corrected only by drift the recount cannot explain.
+     */
+    @Scheduled(initialDelayString = "${app.stats.reconcile.interval:900000}", fixedDelayString = "${app.stats.reconcile.interval:900000}")
+    public void reconcile() {
+        counters.startTracking();
+        int corrected = counters.reconcileWith(loadFromDatabase());
+
+        if (corrected > 0)
+            logger.warn("Statistics drifted from the database, corrected " + corrected + " counters");
+    }
+
+    public TestRequestStatistics getStatistics(Integer pinCode, LocalDate day) {
+        if (pinCode != null && day != null && day.isBefore(counters.getDetailFrom()))
+            throw new AppException(ErrorCode.DAY_NOT_RETAINED, "Counts by pinCode and day are kept for the last " + dayRetention + " days");
+
+        return new TestRequestStatistics(pinCode, day,
+                counters.countsOf(RequestStatus.class, pinCode, day),
+                counters.countsOf(TestStatus.class, pinCode, day),
+                counters.countsOf(DoctorSuggestion.class, pinCode, day));
+    }
+
+    // Hot and archived, for the metrics
+    public long countOf(RequestStatus status) {
+        return counters.totalOf(status);
+    }
+
+    private StatisticsCounters loadFromDatabase() {
+        StatisticsCounters loaded = new StatisticsCounters(LocalDate.now().minusDays(dayRetention));
+        loaded.addAll(testRequestRepository.countByStatusPinCodeAndDay());
+        loaded.addAll(labResultRepository.countByResultPinCodeAndDay());
+        loaded.addAll(consultationRepository.countBySuggestionPinCodeAndDay());
+        loaded.addAll(archivedTestRequestRepository.countByStatusPinCodeAndDay());
+        loaded.addAll(archivedTestRequestRepository.countByResultPinCodeAndDay());
+        loaded.addAll(archivedTestRequestRepository.countBySuggestionPinCodeAndDay());
+        return loaded;
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * A lab result whose oxygen saturation is below the alert threshold.
+ */
+@Getter
+public class VitalsAlert {
+
+    private final Long requestId;
+    private final Integer pinCode;
+    private final Byte oxygenSaturation;
+    private final LocalDate updatedOn;
+
+
+    public VitalsAlert(Long requestId, Integer pinCode, Byte oxygenSaturation, LocalDate updatedOn) {
+        this.requestId = requestId;
+        this.pinCode = pinCode;
+        this.oxygenSaturation = oxygenSaturation;
+        this.updatedOn = updatedOn;
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Vitals aggregates, grouped and filtered by the database over the indexed
+ * updated_on and oxygen_saturation columns of lab_result.
+ */
+@Service
+public class VitalsStatisticsService {
+
+    @Autowired
+    private LabResultRepository labResultRepository;
+
+    @Value("${app.vitals.oxygen-alert-threshold:92}")
+    private byte oxygenAlertThreshold;
+
+    @Value("${app.vitals.default-days:30}")
+    private int defaultDays;
+
+
+    public List<VitalsSummary> getSummaries(LocalDate from, LocalDate to) {
+        LocalDate until = to == null ? LocalDate.now() : to;
+        LocalDate since = from == null ? until.minusDays(defaultDays) : from;
+        if (since.isAfter(until))
+            throw ErrorCode.INVALID_DATE_RANGE.exception();
+
+        return labResultRepository.summarizeVitalsByPinCode(since, until, oxygenAlertThreshold).stream()
+                .sorted(Comparator.comparing(VitalsSummary::getPinCode, Comparator.nullsLast(Comparator.<Integer>naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    // Lowest saturation first, shards return their alerts separately
+    public List<VitalsAlert> getAlerts(Integer threshold, LocalDate since) {
+        if (threshold != null && (threshold < 0 || threshold > 100))
+            throw ErrorCode.INVALID_OXYGEN_THRESHOLD.exception();
+
+        byte below = threshold == null ? oxygenAlertThreshold : threshold.byteValue();
+        LocalDate after = since == null ? LocalDate.now().minusDays(defaultDays) : since;
+
+        return labResultRepository.findOxygenSaturationBelow(below, after).stream()
+                .sorted(Comparator.comparing(VitalsAlert::getOxygenSaturation).thenComparing(VitalsAlert::getRequestId))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import lombok.Getter;
+
+/**
+ * Averages of the vitals recorded in one pinCode, computed by the database.
+ */
+@Getter
+public class VitalsSummary {
+
+    private final Integer pinCode;
+    private final long results;
+    private final Double systolicPressure;
+    private final Double diastolicPressure;
+    private final Double heartRate;
+    private final Double temperature;
+    private final Double oxygenSaturation;
+    private final long belowOxygenThreshold;
+
+
+    public VitalsSummary(Integer pinCode, Long results, Double systolicPressure, Double diastolicPressure, Double heartRate,
+                         Double temperature, Double oxygenSaturation, Long belowOxygenThreshold) {
+        this.pinCode = pinCode;
+        this.results = results;
+        this.systolicPressure = systolicPressure;
+        this.diastolicPressure = diastolicPressure;
+        this.heartRate = heartRate;
+        this.temperature = temperature;
+        this.oxygenSaturation = oxygenSaturation;
+        this.belowOxygenThreshold = belowOxygenThreshold == null ? 0 : belowOxygenThreshold;
+    }
+
+}
@@ -16,6 +16,7 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
     List<User> findAll();
     List<User> findByStatus(AccountStatus status);
+    long countByStatus(AccountStatus status);
 
     void deleteById(Long id);
 
@@ -8,9 +8,10 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.upgrad.upstac.auth.register.RegisterRequest;
-import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
 import org.upgrad.upstac.users.models.AccountStatus;
 import org.upgrad.upstac.users.models.UpdateUserDetailRequest;
 import org.upgrad.upstac.users.roles.Role;
@@ -45,18 +46,21 @@ public class UserService {
 
 
     @Cacheable("user")
+    @Transactional(readOnly = true)
     public User findByUserName(String userName) {
 
         return userRepository.findByUserName(userName);
 
     }
 
+    @Transactional(readOnly = true)
     public List<User> findPendingApprovals() {
 
         return userRepository.findByStatus(AccountStatus.INITIATED);
 
     }
 
+    @Transactional(readOnly = true)
     public boolean isApprovedUser(String userName) {
 
         return userRepository.findByUserName(userName).getStatus() == AccountStatus.APPROVED;
@@ -66,18 +70,19 @@ public class UserService {
     public void validateUserWithSameDataExists(RegisterRequest user) {
 
         if((null != findByUserName(user.getUserName())))
-            throw new AppException("Username already exists " + user.getUserName());
+            throw ErrorCode.USERNAME_EXISTS.exception(user.getUserName());
 
         userRepository.findByEmail(user.getEmail()).ifPresent(user1 ->  {
-            throw new AppException("User with Same email already exists " + user.getEmail());
+            throw ErrorCode.EMAIL_EXISTS.exception(user.getEmail());
         });
         userRepository.findByPhoneNumber(user.getPhoneNumber()).ifPresent(user1 ->  {
-            throw new AppException("User with Same Phone number already exists " + user.getPhoneNumber());
+            throw ErrorCode.PHONE_NUMBER_EXISTS.exception(user.getPhoneNumber());
         });
 
     }
 
 
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         List<User> list = new ArrayList<>();
         userRepository.findAll().iterator().forEachRemaining(list::add);
@@ -88,6 +93,7 @@ public class UserService {
 
 
 
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
@@ -145,7 +151,7 @@ public class UserService {
 
     @CachePut(value = "user")
     public User updateApprovalStatus(Long userId,AccountStatus status) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new AppException("Invalid User ID"));
+        User user = userRepository.findById(userId).orElseThrow(ErrorCode.INVALID_USER_ID::exception);
 
         return updateStatusAndSave(user, status);
 
@@ -162,10 +168,8 @@ public class UserService {
             return userRepository.save(newUser);
         }
         catch (DataIntegrityViolationException e) {
-
-            e.printStackTrace();
-            throw new AppException("User with same data Already exists, Email/Phone should be unique");
-
+            log.info("Rejected user " + newUser.getUserName() + ", " + e.getMostSpecificCause().getMessage());
+            throw ErrorCode.USER_DATA_EXISTS.exception();
         }
 
     }
@@ -212,10 +216,12 @@ public class UserService {
         return bCryptPasswordEncoder.encode(password);
     }
 
+    @Transactional(readOnly = true)
     public User findByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     public User findByPhoneNumber(String email) {
         return userRepository.findByPhoneNumber(email).orElse(null);
     }
@@ -2,6 +2,7 @@ package org.upgrad.upstac.users.roles;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -22,15 +23,18 @@ public class RoleService {
     }
 
 
+    @Transactional(readOnly = true)
     public List<Role> findAll() {
         return roleRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Role findByRole(UserRole userRole) {
 
        return roleRepository.findByName(userRole.name());
     }
 
+    // Stays on the primary, a replica still catching up would seed the roles twice
     public boolean shouldInitialize() {
 		return roleRepository.findAll().size() <=0;
 	}
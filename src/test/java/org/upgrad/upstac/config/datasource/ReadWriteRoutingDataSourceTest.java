@@ -0,0 +1,157 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private JdbcTemplate routed;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+    private ReadYourWritesGuard guard;
+
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource primaryDataSource = new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", "");
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primary.execute("create table item (id bigint primary key, name varchar(50))");
+        replica.execute("create table item (id bigint primary key, name varchar(50))");
+
+        guard = new ReadYourWritesGuard(60000, 100);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, guard));
+        routed = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        readTransaction.setName("org.upgrad.upstac.testrequests.TestRequestQueryService.findAll");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.execute("drop table item");
+        replica.execute("drop table item");
+    }
+
+    @Test
+    public void when_reading_in_read_only_transaction_expect_replica_until_replicated() {
+
+        writeTransaction.execute(status -> routed.update("insert into item values (1, 'swab')"));
+
+        assertEquals(0, countItems(readTransaction));
+        replicate();
+        assertEquals(1, countItems(readTransaction));
+    }
+
+    @Test
+    public void when_read_only_transaction_comes_from_repository_expect_primary() {
+
+        primary.update("insert into item values (1, 'swab')");
+        readTransaction.setName("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+
+        assertEquals(1, countItems(readTransaction));
+    }
+
+    @Test
+    public void when_user_has_written_recently_expect_their_reads_on_primary() {
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tester", "password", "ROLE_TESTER"));
+        writeTransaction.execute(status -> routed.update("insert into item values (1, 'swab')"));
+
+        assertEquals(1, countItems(readTransaction));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("doctor", "password", "ROLE_DOCTOR"));
+        assertEquals(0, countItems(readTransaction));
+    }
+
+    @Test
+    public void when_reading_behind_the_auth_filter_expect_primary_without_a_user() throws Exception {
+
+        // Registered a moment ago, not on the replica yet
+        primary.update("insert into item values (1, 'swab')");
+        MockHttpServletRequest login = new MockHttpServletRequest("POST", "/auth/login");
+        login.setServletPath("/auth/login");
+        AtomicInteger countOnLogin = new AtomicInteger();
+
+        new AuthOnPrimaryFilter().doFilter(login, new MockHttpServletResponse(),
+                (request, response) -> countOnLogin.set(countItems(readTransaction)));
+
+        assertEquals(1, countOnLogin.get());
+        assertEquals(0, countItems(readTransaction));
+    }
+
+    @Test
+    public void when_the_next_request_carries_the_write_cookie_expect_primary_on_another_instance() throws Exception {
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tester", "password", "ROLE_TESTER"));
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        new ReadYourWritesFilter(60000).doFilter(new MockHttpServletRequest("PUT", "/api/labrequests/update/1"), written,
+                (request, response) -> writeTransaction.execute(status -> routed.update("insert into item values (1, 'swab')")));
+
+        Cookie lastWrite = written.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(lastWrite);
+
+        // Another instance has never seen the tester write
+        guard.recordWrite("tester", 0);
+        MockHttpServletRequest next = new MockHttpServletRequest("GET", "/api/labrequests");
+        next.setCookies(lastWrite);
+        AtomicInteger countWithCookie = new AtomicInteger();
+        new ReadYourWritesFilter(60000).doFilter(next, new MockHttpServletResponse(),
+                (request, response) -> countWithCookie.set(countItems(readTransaction)));
+
+        assertEquals(1, countWithCookie.get());
+        assertEquals(0, countItems(readTransaction));
+    }
+
+    @Test
+    public void when_write_window_has_passed_expect_user_no_longer_pinned() {
+
+        ReadYourWritesGuard shortGuard = new ReadYourWritesGuard(1000, 10);
+        shortGuard.recordWrite("tester", 5000);
+
+        assertTrue(shortGuard.hasRecentWrite("tester", 5500));
+        assertFalse(shortGuard.hasRecentWrite("tester", 6000));
+        assertFalse(shortGuard.hasRecentWrite("doctor", 5500));
+    }
+
+    private int countItems(TransactionTemplate transaction) {
+        Integer count = transaction.execute(status -> routed.queryForObject("select count(*) from item", Integer.class));
+        return count == null ? 0 : count;
+    }
+
+    // Stands in for MySQL replication, copies the primary's rows when the test says so
+    private void replicate() {
+        List<Map<String, Object>> rows = primary.queryForList("select id, name from item");
+        replica.update("delete from item");
+        for (Map<String, Object> row : rows)
+            replica.update("insert into item values (?, ?)", row.get("ID"), row.get("NAME"));
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.upgrad.upstac.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The routing decision as the application reaches it, through a @Transactional service and
+ * Spring Data repositories on JPA, with two H2 databases replicated by hand.
+ */
+@SpringJUnitConfig(ReadWriteRoutingJpaTest.Config.class)
+class ReadWriteRoutingJpaTest {
+
+    private static final DriverManagerDataSource PRIMARY = new DriverManagerDataSource("jdbc:h2:mem:jpa-primary;DB_CLOSE_DELAY=-1", "sa", "");
+    private static final DriverManagerDataSource REPLICA = new DriverManagerDataSource("jdbc:h2:mem:jpa-replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private final JdbcTemplate primary = new JdbcTemplate(PRIMARY);
+    private final JdbcTemplate replica = new JdbcTemplate(REPLICA);
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemQueryService itemQueryService;
+
+
+    @BeforeEach
+    public void setUp() {
+        primary.execute("create table item (id bigint primary key, name varchar(50))");
+        replica.execute("create table item (id bigint primary key, name varchar(50))");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.execute("drop table item");
+        replica.execute("drop table item");
+    }
+
+    @Test
+    public void when_a_read_only_service_reads_through_a_repository_expect_replica() {
+
+        primary.update("insert into item values (1, 'swab')");
+
+        assertEquals(0, itemQueryService.count());
+        replicate();
+        assertEquals(1, itemQueryService.count());
+    }
+
+    @Test
+    public void when_a_repository_is_called_outside_a_service_transaction_expect_primary() {
+
+        primary.update("insert into item values (1, 'swab')");
+
+        assertEquals(1, itemRepository.count());
+    }
+
+    @Test
+    public void when_a_user_saved_through_a_repository_expect_their_service_reads_on_primary() {
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tester", "password", "ROLE_TESTER"));
+        itemRepository.save(new Item(1L, "swab"));
+
+        assertEquals(1, itemQueryService.count());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("doctor", "password", "ROLE_DOCTOR"));
+        assertEquals(0, itemQueryService.count());
+    }
+
+    private void replicate() {
+        replica.update("delete from item");
+        for (Item item : primary.query("select id, name from item", (row, index) -> new Item(row.getLong(1), row.getString(2))))
+            replica.update("insert into item values (?, ?)", item.getId(), item.getName());
+    }
+
+
+    @Entity
+    @Table(name = "item")
+    public static class Item {
+
+        @Id
+        private Long id;
+
+        private String name;
+
+        public Item() {
+        }
+
+        public Item(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public interface ItemRepository extends CrudRepository<Item, Long> {
+    }
+
+    public static class ItemQueryService {
+
+        @Autowired
+        private ItemRepository itemRepository;
+
+        @Transactional(readOnly = true)
+        public long count() {
+            return itemRepository.count();
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = ReadWriteRoutingJpaTest.class, considerNestedRepositories = true,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ItemRepository.class))
+    static class Config {
+
+        @Bean
+        public DataSource dataSource() {
+            return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(PRIMARY, REPLICA, new ReadYourWritesGuard(60000, 100)));
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(ReadWriteRoutingJpaTest.class.getPackage().getName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaProperties(properties);
+            return factory;
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        public ItemQueryService itemQueryService() {
+            return new ItemQueryService();
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.shared.LruCache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class LruCacheMetricsTest {
+
+
+    @Test
+    public void when_the_cache_is_used_expect_hits_misses_and_evictions_reported() {
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        LruCache<Long, String> cache = new LruCache<>(2);
+        new LruCacheMetrics(cache, "timelines").bindTo(registry);
+
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.get(1L);
+        cache.put(3L, "three");
+        cache.get(2L);
+
+        assertThat(registry.get("cache.gets").tag("cache", "timelines").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+        assertThat(registry.get("cache.gets").tag("cache", "timelines").tag("result", "miss").functionCounter().count(), equalTo(1.0));
+        assertThat(registry.get("cache.puts").tag("cache", "timelines").functionCounter().count(), equalTo(3.0));
+        assertThat(registry.get("cache.evictions").tag("cache", "timelines").functionCounter().count(), equalTo(1.0));
+        assertThat(registry.get("cache.size").tag("cache", "timelines").gauge().value(), equalTo(2.0));
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.upgrad.upstac.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServiceTimingAspectTest {
+
+
+    @Test
+    public void when_a_service_is_called_expect_its_time_and_its_failures_by_error_code_recorded() {
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ServiceTimingAspect aspect = new ServiceTimingAspect();
+        ReflectionTestUtils.setField(aspect, "meterRegistry", registry);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new LabResultService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        LabResultService labResultService = factory.getProxy();
+
+        labResultService.validate(pressures(120, 80));
+        assertThrows(AppException.class, () -> labResultService.validate(pressures(80, 120)));
+
+        assertThat(registry.get("upstac.service.calls").tag("service", "LabResultService").tag("method", "validate").timer().count(), equalTo(2L));
+        assertThat(registry.get("upstac.exceptions").tag("type", "AppException").tag("code", ErrorCode.INVALID_BLOOD_PRESSURE.name()).counter().count(), equalTo(1.0));
+    }
+
+    private static CreateLabResult pressures(int systolic, int diastolic) {
+        CreateLabResult createLabResult = new CreateLabResult();
+        createLabResult.setSystolicPressure((short) systolic);
+        createLabResult.setDiastolicPressure((short) diastolic);
+        return createLabResult;
+    }
+
+}
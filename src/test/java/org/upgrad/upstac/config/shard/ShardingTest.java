@@ -0,0 +1,266 @@
+package org.upgrad.upstac.config.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.upgrad.upstac.config.loaddata.AppInitializationService;
+import org.upgrad.upstac.testrequests.*;
+import org.upgrad.upstac.testrequests.shards.ShardRebalancer;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.upgrad.upstac.config.loaddata.AppInitializationService.createRegisterRequestWith;
+
+/**
+ * Two in-memory H2 shards, pinCodes starting with 7 on east and everything else on north.
+ */
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.names=north,east",
+        "app.sharding.pin-codes=7:east",
+        "app.sharding.shard.north.url=jdbc:h2:mem:shard-north;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.sharding.shard.east.url=jdbc:h2:mem:shard-east;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.sharding.shard.north.username=sa",
+        "app.sharding.shard.east.username=sa",
+        "app.sharding.assignment-refresh=200",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class ShardingTest {
+
+    // Entries left by an earlier run would be replayed against shards that no longer have their requests
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        Path journal = Files.createTempFile("sharding-test", ".journal");
+        journal.toFile().deleteOnExit();
+        registry.add("app.audit.journal", journal::toString);
+    }
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    ShardRebalancer shardRebalancer;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    AppInitializationService appInitializationService;
+
+    @Autowired
+    ReferenceDataReplicator referenceDataReplicator;
+
+    @Autowired
+    TestRequestRepository testRequestRepository;
+
+    @Autowired
+    TestRequestService testRequestService;
+
+    @Autowired
+    TestRequestQueryService testRequestQueryService;
+
+    @Autowired
+    TestRequestUpdateService testRequestUpdateService;
+
+
+    @Test
+    public void requests_should_be_stored_on_the_shard_of_their_pin_code() {
+
+        TestRequest east = createRequest(716768);
+        TestRequest north = createRequest(560001);
+
+        assertThat(countOn("east", east.getRequestId()), equalTo(1L));
+        assertThat(countOn("north", east.getRequestId()), equalTo(0L));
+        assertThat(countOn("north", north.getRequestId()), equalTo(1L));
+        assertThat(east.getRequestId(), greaterThan(ShardRouter.ID_RANGE));
+    }
+
+    @Test
+    public void users_should_be_copied_to_every_shard() {
+
+        User user = appInitializationService.createUserFrom(uniqueName("copied"), 560001);
+
+        for (String shard : shardRouter.shards())
+            assertThat(shardRouter.onShard(shard, () -> userRepository.findById(user.getId()).isPresent()), equalTo(true));
+    }
+
+    @Test
+    public void users_should_get_the_same_id_on_every_shard_when_identities_drifted_apart() {
+
+        shardRouter.onShard("east", () -> {
+            Long highest = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from user", Long.class);
+            jdbcTemplate.execute("alter table user alter column id restart with " + (highest + 1000));
+        });
+
+        User user = appInitializationService.createUserFrom(uniqueName("drifted"), 560001);
+
+        for (String shard : shardRouter.shards())
+            assertThat(shardRouter.onShard(shard, () -> userRepository.findById(user.getId()).map(User::getUserName).orElse(null)), equalTo(user.getUserName()));
+    }
+
+    @Test
+    public void copies_of_users_that_drifted_from_the_default_shard_should_be_repaired() {
+
+        User user = appInitializationService.createUserFrom(uniqueName("repaired"), 560001);
+        shardRouter.onShard("east", () -> {
+            jdbcTemplate.update("update user set first_name = 'stale' where id = ?", user.getId());
+            jdbcTemplate.update("delete from user_roles where user_id = ?", user.getId());
+        });
+
+        referenceDataReplicator.replicateAll();
+
+        assertThat(shardRouter.onShard("east", () -> jdbcTemplate.queryForObject("select first_name from user where id = ?", String.class, user.getId())), equalTo(user.getFirstName()));
+        assertThat(shardRouter.onShard("east", () -> jdbcTemplate.queryForObject("select count(*) from user_roles where user_id = ?", Long.class, user.getId())), equalTo((long) user.getRoles().size()));
+    }
+
+    @Test
+    public void pages_read_from_every_shard_should_follow_the_requested_sort() {
+
+        createRequest(716768);
+        createRequest(560001);
+        createRequest(716769);
+
+        Page<TestRequest> first = testRequestRepository.findAll(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "requestId")));
+        Page<TestRequest> second = testRequestRepository.findAll(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "requestId")));
+
+        List<Long> ids = requestIds(first.getContent());
+        ids.addAll(requestIds(second.getContent()));
+        assertThat(ids, hasSize(4));
+        for (int i = 1; i < ids.size(); i++)
+            assertThat(ids.get(i), lessThan(ids.get(i - 1)));
+        assertThat(first.getTotalElements(), equalTo(testRequestRepository.count()));
+    }
+
+    @Test
+    public void repositories_returning_results_that_cannot_be_merged_should_be_refused() {
+
+        assertThrows(IllegalStateException.class, () -> ShardedRepositoryHandler.checkMergeable(UnmergeableRepository.class));
+    }
+
+    @Test
+    public void testers_should_only_see_the_queue_of_their_region() {
+
+        TestRequest east = createRequest(716768);
+        TestRequest north = createRequest(560001);
+        User tester = userService.addTester(createRegisterRequestWith(uniqueName("tester"), 712345));
+
+        List<Long> queue = requestIds(testRequestQueryService.findInRegionOf(tester, RequestStatus.INITIATED));
+
+        assertThat(queue, hasItem(east.getRequestId()));
+        assertThat(queue, not(hasItem(north.getRequestId())));
+    }
+
+    @Test
+    public void queries_without_a_region_should_read_every_shard() {
+
+        TestRequest east = createRequest(716768);
+        TestRequest north = createRequest(560001);
+
+        List<Long> all = requestIds(testRequestQueryService.findBy(RequestStatus.INITIATED));
+
+        assertThat(all, hasItems(east.getRequestId(), north.getRequestId()));
+    }
+
+    @Test
+    public void transitions_by_id_should_find_the_request_on_its_shard() {
+
+        TestRequest east = createRequest(716768);
+        User tester = userService.addTester(createRegisterRequestWith(uniqueName("tester"), 712345));
+
+        TestRequest assigned = testRequestUpdateService.assignForLabTest(east.getRequestId(), tester);
+
+        assertThat(assigned.getStatus(), equalTo(RequestStatus.LAB_TEST_IN_PROGRESS));
+        assertThat(shardRouter.onShard("east", () -> jdbcTemplate.queryForObject("select count(*) from lab_result where request_request_id = ?", Long.class, east.getRequestId())), equalTo(1L));
+    }
+
+    @Test
+    public void assigning_a_prefix_should_move_its_requests() {
+
+        TestRequest moving = createRequest(400001);
+        assertThat(countOn("north", moving.getRequestId()), equalTo(1L));
+
+        shardRebalancer.assign("40", "east");
+
+        assertThat(countOn("north", moving.getRequestId()), equalTo(0L));
+        assertThat(countOn("east", moving.getRequestId()), equalTo(1L));
+        assertThat(testRequestQueryService.getTestRequestById(moving.getRequestId()).isPresent(), equalTo(true));
+    }
+
+    @Test
+    public void flow_entries_of_a_moved_request_should_be_written_on_its_new_shard() throws InterruptedException {
+
+        TestRequest moving = createRequest(410001);
+        shardRebalancer.assign("41", "east");
+        User tester = userService.addTester(createRegisterRequestWith(uniqueName("tester"), 412345));
+
+        testRequestUpdateService.assignForLabTest(moving.getRequestId(), tester);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flowCountOn("east", moving.getRequestId()) == 0 && System.nanoTime() < deadline)
+            Thread.sleep(20);
+        assertThat(flowCountOn("east", moving.getRequestId()), equalTo(1L));
+        assertThat(flowCountOn("north", moving.getRequestId()), equalTo(0L));
+    }
+
+    private long flowCountOn(String shard, Long requestId) {
+        return shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject("select count(*) from test_request_flow where request_request_id = ?", Long.class, requestId));
+    }
+
+    private long countOn(String shard, Long requestId) {
+        return shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject("select count(*) from test_request where request_id = ?", Long.class, requestId));
+    }
+
+    private TestRequest createRequest(int pinCode) {
+        User user = appInitializationService.createUserFrom(uniqueName("sharded"), pinCode);
+
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setName(user.getFirstName());
+        createTestRequest.setGender(Gender.OTHER);
+        createTestRequest.setAddress("Shard street");
+        createTestRequest.setAge(30);
+        createTestRequest.setEmail(user.getEmail());
+        createTestRequest.setPhoneNumber(user.getPhoneNumber());
+        createTestRequest.setPinCode(pinCode);
+        return testRequestService.createTestRequestFrom(user, createTestRequest);
+    }
+
+    private static List<Long> requestIds(List<TestRequest> testRequests) {
+        return testRequests.stream().map(TestRequest::getRequestId).collect(Collectors.toList());
+    }
+
+    private static String uniqueName(String prefix) {
+        return prefix + ThreadLocalRandom.current().nextInt(1_000_000_000);
+    }
+
+
+    interface UnmergeableRepository {
+        Map<Integer, Long> countByPinCode();
+    }
+
+}
@@ -0,0 +1,49 @@
+package org.upgrad.upstac.config.sql;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Assertions on the number of JDBC statements a block of code executes.
+ * Failures list every statement with the repository method that issued it.
+ */
+public final class StatementBudget {
+
+    public interface Work {
+        void run() throws Exception;
+    }
+
+
+    private StatementBudget() {
+    }
+
+
+    public static SqlRecording record(Work work) throws Exception {
+        SqlRecording recording = SqlStatementRecorder.start();
+        try {
+            work.run();
+        } finally {
+            SqlStatementRecorder.stop(recording);
+        }
+        return recording;
+    }
+
+    public static SqlRecording assertAtMost(int budget, String label, Work work) throws Exception {
+        SqlRecording recording = record(work);
+        if (recording.getCount() > budget)
+            fail(label + " executed " + recording.getCount() + " statements, budget is " + budget + "\n" + recording.describe());
+        return recording;
+    }
+
+    /**
+     * Fails when the work runs more statements than an earlier recording, which is how an
+     * N+1 shows up once more rows exist.
+     */
+    public static SqlRecording assertNoMoreThan(SqlRecording earlier, String label, Work work) throws Exception {
+        SqlRecording recording = record(work);
+        if (recording.getCount() > earlier.getCount())
+            fail(label + " went from " + earlier.getCount() + " to " + recording.getCount() + " statements as rows were added\n"
+                    + "Before:\n" + earlier.describe() + "After:\n" + recording.describe());
+        return recording;
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.upgrad.upstac.config.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatementCountingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new StatementCountingDataSource(new DriverManagerDataSource("jdbc:h2:mem:counting;DB_CLOSE_DELAY=-1", "sa", "")));
+        jdbcTemplate.execute("create table item (id bigint primary key, name varchar(50))");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("drop table item");
+    }
+
+    @Test
+    public void when_statements_run_inside_recording_expect_each_one_counted_with_its_sql() throws Exception {
+
+        SqlRecording recording = StatementBudget.record(() -> {
+            jdbcTemplate.update("insert into item values (?, ?)", 1, "swab");
+            jdbcTemplate.queryForList("select name from item");
+            jdbcTemplate.batchUpdate("insert into item values (?, ?)", Arrays.asList(new Object[]{2, "mask"}, new Object[]{3, "kit"}));
+        });
+
+        assertEquals(3, recording.getCount());
+        assertEquals("select name from item", recording.getStatements().get(1).getSql());
+    }
+
+    @Test
+    public void when_statements_run_outside_recording_expect_nothing_recorded() throws Exception {
+
+        jdbcTemplate.update("insert into item values (?, ?)", 1, "swab");
+
+        SqlRecording recording = StatementBudget.record(() -> { });
+        assertEquals(0, recording.getCount());
+    }
+
+    @Test
+    public void when_budget_exceeded_expect_failure_listing_statements() {
+
+        AssertionError error = assertThrows(AssertionError.class, () ->
+                StatementBudget.assertAtMost(1, "two selects", () -> {
+                    jdbcTemplate.queryForList("select id from item");
+                    jdbcTemplate.queryForList("select name from item");
+                }));
+
+        assertThat(error.getMessage(), containsString("executed 2 statements, budget is 1"));
+        assertThat(error.getMessage(), containsString("2. select name from item"));
+    }
+
+}
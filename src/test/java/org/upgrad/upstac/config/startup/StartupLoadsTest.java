@@ -0,0 +1,68 @@
+package org.upgrad.upstac.config.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StartupLoadsTest {
+
+    private final StartupTimeline timeline = new StartupTimeline();
+
+
+    @Test
+    public void when_loading_async_expect_run_to_return_before_the_load_finishes() throws InterruptedException {
+
+        StartupLoads startupLoads = loads(true);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        startupLoads.run("slow", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        assertThat(timeline.report(10).getLoads(), empty());
+
+        release.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS), equalTo(true));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (timeline.report(10).getLoads().isEmpty() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        LoadTiming load = timeline.report(10).getLoads().get(0);
+        assertThat(load.getName(), equalTo("slow"));
+        assertThat(load.isBackground(), equalTo(true));
+        assertThat(load.isFailed(), equalTo(false));
+    }
+
+    @Test
+    public void when_loading_on_the_main_thread_expect_a_failure_timed_and_rethrown() {
+
+        StartupLoads startupLoads = loads(false);
+
+        assertThrows(IllegalStateException.class, () -> startupLoads.run("broken", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        LoadTiming load = timeline.report(10).getLoads().get(0);
+        assertThat(load.isBackground(), equalTo(false));
+        assertThat(load.isFailed(), equalTo(true));
+    }
+
+    private StartupLoads loads(boolean async) {
+        StartupLoads startupLoads = new StartupLoads();
+        ReflectionTestUtils.setField(startupLoads, "startupTimeline", timeline);
+        ReflectionTestUtils.setField(startupLoads, "loadAsync", async);
+        return startupLoads;
+    }
+
+}
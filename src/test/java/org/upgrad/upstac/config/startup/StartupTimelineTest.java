@@ -0,0 +1,54 @@
+package org.upgrad.upstac.config.startup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class StartupTimelineTest {
+
+
+    @Test
+    public void when_a_bean_pulls_in_another_expect_its_self_time_without_it() throws InterruptedException {
+
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.postProcessBeforeInstantiation(Object.class, "service");
+        timeline.postProcessBeforeInstantiation(Object.class, "repository");
+        Thread.sleep(20);
+        timeline.postProcessAfterInitialization(new Object(), "repository");
+        timeline.postProcessAfterInitialization(new Object(), "service");
+
+        Map<String, BeanTiming> timings = byName(timeline.report(10).getSlowestBeans());
+
+        assertThat(timings.keySet(), containsInAnyOrder("service", "repository"));
+        assertThat(timings.get("repository").getSelfMillis(), greaterThanOrEqualTo(20.0));
+        assertThat(timings.get("service").getTotalMillis(), greaterThanOrEqualTo(timings.get("repository").getTotalMillis()));
+        assertThat(timings.get("service").getSelfMillis(), closeTo(timings.get("service").getTotalMillis() - timings.get("repository").getTotalMillis(), 0.01));
+    }
+
+    @Test
+    public void when_a_creation_fails_expect_it_skipped_and_its_parent_timed() {
+
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.postProcessBeforeInstantiation(Object.class, "service");
+        timeline.postProcessBeforeInstantiation(Object.class, "failing");
+        timeline.postProcessAfterInitialization(new Object(), "service");
+        timeline.postProcessAfterInitialization(new Object(), "madeByFactory");
+
+        StartupReport report = timeline.report(10);
+
+        assertThat(report.getBeanCount(), equalTo(1));
+        assertThat(report.getSlowestBeans().get(0).getName(), equalTo("service"));
+        assertThat(report.getReadyAfterMillis(), nullValue());
+    }
+
+    private static Map<String, BeanTiming> byName(List<BeanTiming> timings) {
+        return timings.stream().collect(Collectors.toMap(BeanTiming::getName, Function.identity()));
+    }
+
+}
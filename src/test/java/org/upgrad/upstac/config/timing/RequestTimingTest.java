@@ -0,0 +1,59 @@
+package org.upgrad.upstac.config.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RequestTimingTest {
+
+
+    @AfterEach
+    public void tearDown() {
+        RequestTiming.stop();
+    }
+
+    @Test
+    public void when_phases_ran_expect_them_in_the_header_in_order() {
+
+        RequestTiming timing = RequestTiming.start();
+        timing.add(TimingPhase.DB, 2_000_000);
+        timing.add(TimingPhase.AUTH, 1_250_000);
+        timing.add(TimingPhase.DB, 1_000_000);
+
+        String header = timing.toServerTiming();
+
+        assertThat(header, startsWith("auth;dur=1.3;desc=\"JWT authentication\", db;dur=3.0;desc=\"JDBC execution, 2 calls\", total;dur="));
+        assertThat(header, not(containsString("ser;")));
+        assertThat(timing.toMillis().keySet(), contains("auth", "db"));
+    }
+
+    @Test
+    public void when_no_request_is_timed_expect_spans_ignored() {
+
+        RequestTiming.end(TimingPhase.DB, System.nanoTime());
+
+        assertThat(RequestTiming.current(), nullValue());
+    }
+
+    @Test
+    public void when_the_slow_log_is_full_expect_the_oldest_overwritten() {
+
+        SlowRequestLog slowRequestLog = new SlowRequestLog(2, 500);
+        for (String uri : new String[]{"/first", "/second", "/third"})
+            slowRequestLog.add(new SlowRequest(Instant.now(), "GET", uri, 200, null, 600, Collections.emptyMap(), 0));
+
+        List<String> uris = slowRequestLog.recent().stream().map(SlowRequest::getUri).collect(Collectors.toList());
+
+        assertThat(uris, contains("/third", "/second"));
+        assertThat(slowRequestLog.isSlow(499.9), equalTo(false));
+        assertThat(slowRequestLog.getRecorded(), equalTo(3L));
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.upgrad.upstac.config.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter();
+
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void when_an_authority_asks_for_the_header_expect_it() throws Exception {
+
+        MockHttpServletResponse response = serve(true, true, "ROLE_GOVERNMENT_AUTHORITY");
+
+        assertThat(response.getHeader(ServerTimingResponse.SERVER_TIMING), startsWith("total;dur="));
+    }
+
+    @Test
+    public void when_another_role_asks_for_the_header_expect_none() throws Exception {
+
+        MockHttpServletResponse response = serve(true, true, "ROLE_USER");
+
+        assertThat(response.getHeader(ServerTimingResponse.SERVER_TIMING), nullValue());
+    }
+
+    @Test
+    public void when_the_header_is_not_asked_for_or_turned_off_expect_none() throws Exception {
+
+        assertThat(serve(true, false, "ROLE_GOVERNMENT_AUTHORITY").getHeader(ServerTimingResponse.SERVER_TIMING), nullValue());
+        assertThat(serve(false, true, "ROLE_GOVERNMENT_AUTHORITY").getHeader(ServerTimingResponse.SERVER_TIMING), nullValue());
+    }
+
+    private MockHttpServletResponse serve(boolean enabled, boolean optIn, String role) throws Exception {
+        ReflectionTestUtils.setField(filter, "header", enabled);
+        ReflectionTestUtils.setField(filter, "slowRequestLog", new SlowRequestLog(10, 60000));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/testrequests");
+        if (optIn)
+            request.addHeader(ServerTimingFilter.OPT_IN_HEADER, "1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Authenticates the way Spring Security does, only for as long as the chain runs
+        FilterChain chain = (chainRequest, chainResponse) -> {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("someone", null,
+                    Collections.singletonList(new SimpleGrantedAuthority(role))));
+            try {
+                chainResponse.getWriter().write("{}");
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.upgrad.upstac.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ApiExceptionHandlerTest {
+
+    private final ApiExceptionHandler apiExceptionHandler = new ApiExceptionHandler();
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+
+
+    @Test
+    public void when_a_coded_exception_is_handled_expect_its_status_code_and_message() {
+
+        ResponseEntity<ApiError> response = apiExceptionHandler.handle(ErrorCode.USER_NOT_APPROVED.exception(), request);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.FORBIDDEN));
+        assertThat(response.getBody().getStatus(), equalTo(403));
+        assertThat(response.getBody().getCode(), equalTo("USER_NOT_APPROVED"));
+        assertThat(response.getBody().getMessage(), equalTo("User Not Approved"));
+        assertThat(response.getBody().getPath(), equalTo("/auth/login"));
+    }
+
+    @Test
+    public void when_an_uncoded_exception_is_handled_expect_a_bad_request_with_its_message() {
+
+        ResponseEntity<ApiError> response = apiExceptionHandler.handle(new AppException("Unknown shard west"), request);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+        assertThat(response.getBody().getCode(), equalTo("INVALID_REQUEST"));
+        assertThat(response.getBody().getMessage(), equalTo("Unknown shard west"));
+    }
+
+    @Test
+    public void app_exceptions_should_be_stackless_and_shared_per_code() {
+
+        AppException exception = ErrorCode.INVALID_ID_OR_STATE.exception();
+
+        assertThat(exception, sameInstance(ErrorCode.INVALID_ID_OR_STATE.exception()));
+        assertThat(exception.getStackTrace().length, equalTo(0));
+        assertThat(new AppException("Invalid data").getStackTrace().length, equalTo(0));
+        assertThat(ErrorCode.INVALID_USER_ID.exception(42).getMessage(), equalTo("Invalid User ID 42"));
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.upgrad.upstac.shared;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileTransferTest {
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    public void when_sending_part_of_a_file_expect_only_that_part() throws IOException {
+
+        Path file = Files.write(directory.resolve("report.txt"), "0123456789".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileTransfer.send(new MockHttpServletRequest("GET", "/"), response, file, 2, 5);
+
+        assertThat(response.getContentAsString(), equalTo("23456"));
+        assertThat(response.getContentLengthLong(), equalTo(5L));
+    }
+
+    @Test
+    public void when_the_file_is_shorter_than_the_part_expect_the_response_to_fail_unstarted() throws IOException {
+
+        Path file = Files.write(directory.resolve("report.txt"), "0123456789".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(EOFException.class, () -> FileTransfer.send(new MockHttpServletRequest("GET", "/"), response, file, 0, 20));
+        assertThat(response.getContentAsByteArray().length, equalTo(0));
+        assertThat(response.isCommitted(), equalTo(false));
+    }
+
+}
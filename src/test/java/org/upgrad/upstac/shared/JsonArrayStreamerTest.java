@@ -0,0 +1,125 @@
+package org.upgrad.upstac.shared;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JsonArrayStreamerTest {
+
+    private PlatformTransactionManager transactionManager;
+    private EntityManager entityManager;
+    private ObjectMapper objectMapper;
+    private JsonArrayStreamer jsonArrayStreamer;
+
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        entityManager = mock(EntityManager.class);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        jsonArrayStreamer = new JsonArrayStreamer(transactionManager, entityManager, objectMapper, 2);
+    }
+
+    @Test
+    public void when_streaming_rows_expect_same_json_as_the_list() throws Exception {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long written = jsonArrayStreamer.write(TestRequest.class, TestRequest::getRequestId, pagesOf(5), outputStream);
+
+        assertEquals(5, written);
+        TestRequest[] rows = objectMapper.readValue(outputStream.toByteArray(), TestRequest[].class);
+        assertThat(rows.length, equalTo(5));
+        assertThat(rows[4].getRequestId(), equalTo(5L));
+    }
+
+    @Test
+    public void when_streaming_rows_expect_one_transaction_per_page_read_after_the_last_id() throws Exception {
+
+        List<Long> afterIds = new ArrayList<>();
+        JsonArrayStreamer.KeysetPage<TestRequest> pages = (afterId, size) -> {
+            afterIds.add(afterId);
+            return pagesOf(5).after(afterId, size);
+        };
+
+        jsonArrayStreamer.write(TestRequest.class, TestRequest::getRequestId, pages, new ByteArrayOutputStream());
+
+        // The first row on its own, then pages of two until one comes back short
+        assertThat(afterIds, contains(0L, 1L, 3L, 5L));
+        verify(transactionManager, times(4)).commit(any());
+        verify(entityManager, times(4)).clear();
+    }
+
+    @Test
+    public void when_a_page_is_written_expect_its_transaction_committed_before() throws Exception {
+
+        List<String> events = new ArrayList<>();
+        doAnswer(invocation -> {
+            events.add("commit");
+            return null;
+        }).when(transactionManager).commit(any());
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void flush() throws IOException {
+                events.add("flush");
+            }
+        };
+
+        jsonArrayStreamer.write(TestRequest.class, TestRequest::getRequestId, pagesOf(1), outputStream);
+
+        // Two pages, one with the row and an empty one, then the closing bracket
+        assertThat(events, contains("commit", "flush", "commit", "flush", "flush"));
+    }
+
+    @Test
+    public void when_there_are_no_rows_expect_empty_array() throws Exception {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        jsonArrayStreamer.write(TestRequest.class, TestRequest::getRequestId, (afterId, size) -> Collections.emptyList(), outputStream);
+
+        assertThat(outputStream.toString("UTF-8"), equalTo("[]"));
+    }
+
+    private static JsonArrayStreamer.KeysetPage<TestRequest> pagesOf(long rows) {
+        return (afterId, size) -> LongStream.rangeClosed(afterId + 1, rows)
+                .limit(size)
+                .mapToObj(JsonArrayStreamerTest::testRequest)
+                .collect(Collectors.toList());
+    }
+
+    private static TestRequest testRequest(long id) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(id);
+        testRequest.setName("Request " + id);
+        testRequest.setStatus(RequestStatus.INITIATED);
+        return testRequest;
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.upgrad.upstac.shared;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class LruCacheTest {
+
+    @Test
+    public void when_a_key_is_removed_while_its_value_loads_expect_the_loaded_value_not_cached() {
+
+        LruCache<Long, String> cache = new LruCache<>(10);
+
+        String loaded = cache.computeIfAbsent(7L, key -> {
+            // The change the load raced with
+            cache.remove(7L);
+            return "stale";
+        });
+
+        assertThat(loaded, equalTo("stale"));
+        assertThat(cache.get(7L), nullValue());
+        assertThat(cache.computeIfAbsent(7L, key -> "fresh"), equalTo("fresh"));
+        assertThat(cache.get(7L), equalTo("fresh"));
+    }
+
+    @Test
+    public void when_capacity_is_reached_expect_the_least_recently_used_evicted() {
+
+        LruCache<Long, String> cache = new LruCache<>(2);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.get(1L);
+        cache.put(3L, "three");
+
+        assertThat(cache.get(2L), nullValue());
+        assertThat(cache.get(1L), equalTo("one"));
+        assertThat(cache.evictionCount(), equalTo(1L));
+    }
+
+}
@@ -11,7 +11,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.parameters.P;
 import org.springframework.security.test.context.support.WithUserDetails;
-import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.testrequests.TestRequest;
@@ -85,7 +84,7 @@ class ConsultationControllerTest {
 
         assertNotNull(result);
         assertEquals(result.getRequestId(), testRequest.getRequestId());
-        assertEquals(RequestStatus.DIAGNOSIS_IN_PROCESS, result.getStatus());
+        assertEquals(RequestStatus.DIAGNOSIS_IN_PROCESS, result.getErrorCode().getStatus());
 
     }
 
@@ -109,16 +108,16 @@ class ConsultationControllerTest {
         Mockito.when(userLoggedInService.getLoggedInUser()).thenReturn(user);
         Mockito.when(testRequestUpdateService.assignForConsultation(InvalidRequestId, user)).thenThrow(new AppException("Invalid ID"));
 
-        // Create an object of ResponseStatusException . Use assertThrows() method and pass assignForConsultation() method
+        // Create an object of AppException . Use assertThrows() method and pass assignForConsultation() method
         // of consultationController with InvalidRequestId as Id
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
             consultationController.assignForConsultation(InvalidRequestId);
         });
 
         //Use assertThat() method to perform the following comparison
         //  the exception message should be contain the string "Invalid ID"
         assertNotNull(result);
-        assertEquals("Invalid ID", result.getReason());
+        assertEquals("Invalid ID", result.getMessage());
 
     }
 
@@ -174,18 +173,18 @@ class ConsultationControllerTest {
         CreateConsultationRequest createConsultationRequest = getCreateConsultationRequest(testRequest);
 
         Mockito.when(testRequestUpdateService.updateConsultation(InvalidRequestId, createConsultationRequest, user)).thenThrow(new AppException("Invalid ID"));
-        // Create an object of ResponseStatusException . Use assertThrows() method and pass updateConsultation() method
+        // Create an object of AppException . Use assertThrows() method and pass updateConsultation() method
         // of consultationController with a negative long value as Id and the above created object as second parameter
         //Refer to the TestRequestControllerTest to check how to use assertThrows() method
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
             consultationController.updateConsultation(InvalidRequestId, createConsultationRequest);
         });
 
         //Use assertThat() method to perform the following comparison
         //  the exception message should be contain the string "Invalid ID"
         assertNotNull(result);
-        assertEquals(HttpStatus.BAD_REQUEST, result.getStatus());
-        assertEquals("Invalid ID", result.getReason());
+        assertEquals(HttpStatus.BAD_REQUEST, result.getErrorCode().getStatus());
+        assertEquals("Invalid ID", result.getMessage());
     }
 
     @Test
@@ -204,15 +203,15 @@ class ConsultationControllerTest {
         createConsultationRequest.setSuggestion(null);
 
         Mockito.when(testRequestUpdateService.updateConsultation(testRequest.getRequestId(), createConsultationRequest, user)).thenThrow(new AppException());
-        // Create an object of ResponseStatusException . Use assertThrows() method and pass updateConsultation() method
+        // Create an object of AppException . Use assertThrows() method and pass updateConsultation() method
         // of consultationController with request Id of the testRequest object and the above created object as second parameter
         //Refer to the TestRequestControllerTest to check how to use assertThrows() method
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
             consultationController.updateConsultation(testRequest.getRequestId(), createConsultationRequest);
         });
 
         assertNotNull(result);
-        assertEquals(HttpStatus.BAD_REQUEST, result.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, result.getErrorCode().getStatus());
 
     }
 
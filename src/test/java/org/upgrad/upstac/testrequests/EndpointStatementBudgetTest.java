@@ -0,0 +1,108 @@
+package org.upgrad.upstac.testrequests;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.upgrad.upstac.config.loaddata.AppInitializationService;
+import org.upgrad.upstac.config.sql.SqlRecording;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.upgrad.upstac.config.sql.StatementBudget.assertAtMost;
+import static org.upgrad.upstac.config.sql.StatementBudget.assertNoMoreThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets for the list endpoints. Each endpoint is called, more rows from new
+ * users are added, and it is called again, the count must not grow with the rows.
+ */
+@SpringBootTest(properties = "app.sql.statement-counting=true")
+@AutoConfigureMockMvc
+class EndpointStatementBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    AppInitializationService appInitializationService;
+
+    @Autowired
+    TestRequestService testRequestService;
+
+    @Autowired
+    TestRequestUpdateService testRequestUpdateService;
+
+
+    @Test
+    @WithUserDetails(value = "tester")
+    public void get_lab_requests_for_tester_should_stay_within_budget() throws Exception {
+
+        User tester = userService.findByUserName("tester");
+        assignToTester(tester, 2);
+        SqlRecording first = assertAtMost(5, "GET /api/labrequests", () -> mockMvc.perform(get("/api/labrequests")).andExpect(status().isOk()));
+
+        assignToTester(tester, 3);
+        assertNoMoreThan(first, "GET /api/labrequests", () -> mockMvc.perform(get("/api/labrequests")).andExpect(status().isOk()));
+    }
+
+    @Test
+    @WithUserDetails(value = "tester")
+    public void get_to_be_tested_should_stay_within_budget() throws Exception {
+
+        createRequests(2);
+        SqlRecording first = assertAtMost(5, "GET /api/labrequests/to-be-tested", () -> mockMvc.perform(get("/api/labrequests/to-be-tested")).andExpect(status().isOk()));
+
+        createRequests(3);
+        assertNoMoreThan(first, "GET /api/labrequests/to-be-tested", () -> mockMvc.perform(get("/api/labrequests/to-be-tested")).andExpect(status().isOk()));
+    }
+
+    @Test
+    @WithUserDetails(value = "authority")
+    public void list_users_should_stay_within_budget() throws Exception {
+
+        SqlRecording first = assertAtMost(5, "GET /users", () -> mockMvc.perform(get("/users")).andExpect(status().isOk()));
+
+        createUsers(3);
+        assertNoMoreThan(first, "GET /users", () -> mockMvc.perform(get("/users")).andExpect(status().isOk()));
+    }
+
+    private void assignToTester(User tester, int count) {
+        for (TestRequest testRequest : createRequests(count))
+            testRequestUpdateService.assignForLabTest(testRequest.getRequestId(), tester);
+    }
+
+    private TestRequest[] createRequests(int count) {
+        User[] users = createUsers(count);
+        TestRequest[] testRequests = new TestRequest[count];
+        for (int i = 0; i < count; i++) {
+            CreateTestRequest createTestRequest = new CreateTestRequest();
+            createTestRequest.setName(users[i].getFirstName());
+            createTestRequest.setGender(Gender.OTHER);
+            createTestRequest.setAddress("Budget street");
+            createTestRequest.setAge(30);
+            createTestRequest.setEmail(users[i].getEmail());
+            createTestRequest.setPhoneNumber(users[i].getPhoneNumber());
+            createTestRequest.setPinCode(716768);
+            testRequests[i] = testRequestService.createTestRequestFrom(users[i], createTestRequest);
+        }
+        return testRequests;
+    }
+
+    private User[] createUsers(int count) {
+        User[] users = new User[count];
+        for (int i = 0; i < count; i++)
+            users[i] = appInitializationService.createUserFrom("budget" + ThreadLocalRandom.current().nextInt(1_000_000_000), 716768);
+        return users;
+    }
+
+}
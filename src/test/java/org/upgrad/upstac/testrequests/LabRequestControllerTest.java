@@ -12,7 +12,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.test.context.support.WithUserDetails;
-import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.testrequests.consultation.Consultation;
@@ -22,6 +21,7 @@ import org.upgrad.upstac.testrequests.lab.LabResultService;
 import org.upgrad.upstac.testrequests.lab.TestStatus;
 import org.upgrad.upstac.users.User;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -73,7 +73,7 @@ class LabRequestControllerTest {
         // use getLabResult() method to get the lab result
         assertNotNull(result);
         assertEquals(result.getRequestId(), testRequest.getRequestId());
-        assertEquals(RequestStatus.INITIATED, result.getStatus());
+        assertEquals(RequestStatus.INITIATED, result.getErrorCode().getStatus());
 
     }
 
@@ -97,16 +97,16 @@ class LabRequestControllerTest {
         Mockito.when(userLoggedInService.getLoggedInUser()).thenReturn(user);
         Mockito.when(testRequestUpdateService.assignForLabTest(InvalidRequestId, user)).thenThrow(new AppException("Invalid ID"));
 
-        // Create an object of ResponseStatusException . Use assertThrows() method and pass assignForLabTest() method
+        // Create an object of AppException . Use assertThrows() method and pass assignForLabTest() method
         // of labRequestController with InvalidRequestId as Id
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
             labRequestController.assignForLabTest(InvalidRequestId);
         });
 
         //Use assertThat() method to perform the following comparison
         //  the exception message should be contain the string "Invalid ID"
         assertNotNull(result);
-        assertEquals(result.getReason(),"Invalid ID");
+        assertEquals(result.getMessage(),"Invalid ID");
     }
 
     @Test
@@ -157,18 +157,18 @@ class LabRequestControllerTest {
         CreateLabResult createLabResult = getCreateLabResult(testRequest);
 
         Mockito.when(testRequestUpdateService.updateLabTest(InvalidRequestId, createLabResult, user)).thenThrow(new AppException("Invalid ID"));
-        // Create an object of ResponseStatusException . Use assertThrows() method and pass updateLabTest() method
+        // Create an object of AppException . Use assertThrows() method and pass updateLabTest() method
         // of labRequestController with a negative long value as Id and the above created object as second parameter
         //Refer to the TestRequestControllerTest to check how to use assertThrows() method
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
             labRequestController.updateLabTest(InvalidRequestId, createLabResult);
         });
 
         //Use assertThat() method to perform the following comparison
         //  the exception message should be contain the string "Invalid ID"
         assertNotNull(result);
-        assertEquals(HttpStatus.BAD_REQUEST, result.getStatus());
-        assertEquals("Invalid ID", result.getReason());
+        assertEquals(HttpStatus.BAD_REQUEST, result.getErrorCode().getStatus());
+        assertEquals("Invalid ID", result.getMessage());
 
     }
 
@@ -188,18 +188,18 @@ class LabRequestControllerTest {
         createLabResult.setResult(null);
 
         Mockito.when(testRequestUpdateService.updateLabTest(testRequest.getRequestId(), createLabResult, user)).thenThrow(new AppException("ConstraintViolationException"));
-        // Create an object of ResponseStatusException . Use assertThrows() method and pass updateLabTest() method
+        // Create an object of AppException . Use assertThrows() method and pass updateLabTest() method
         // of labRequestController with request Id of the testRequest object and the above created object as second parameter
         //Refer to the TestRequestControllerTest to check how to use assertThrows() method
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
             labRequestController.updateLabTest(testRequest.getRequestId(), createLabResult);
         });
 
         //Use assertThat() method to perform the following comparison
         //  the exception message should be contain the string "ConstraintViolationException"
         assertNotNull(result);
-        assertEquals(HttpStatus.BAD_REQUEST, result.getStatus());
-        assertEquals("ConstraintViolationException", result.getReason());
+        assertEquals(HttpStatus.BAD_REQUEST, result.getErrorCode().getStatus());
+        assertEquals("ConstraintViolationException", result.getMessage());
     }
 
     public CreateLabResult getCreateLabResult(TestRequest testRequest) {
@@ -208,11 +208,12 @@ class LabRequestControllerTest {
         // Return the object
 
         CreateLabResult createLabResult = new CreateLabResult();
-        createLabResult.setBloodPressure("90");
+        createLabResult.setSystolicPressure((short) 120);
+        createLabResult.setDiastolicPressure((short) 80);
         createLabResult.setComments("Ok");
-        createLabResult.setHeartBeat("30");
-        createLabResult.setOxygenLevel("100");
-        createLabResult.setTemperature("80");
+        createLabResult.setHeartRate((short) 72);
+        createLabResult.setOxygenSaturation((byte) 98);
+        createLabResult.setTemperature(new BigDecimal("98.6"));
         createLabResult.setResult(TestStatus.NEGATIVE);
 
         return  createLabResult;
@@ -7,7 +7,6 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 import org.upgrad.upstac.config.security.UserLoggedInService;
 import org.upgrad.upstac.exception.AppException;
 import org.upgrad.upstac.users.User;
@@ -52,7 +51,7 @@ class TestRequestControllerTest {
     }
 
     @Test
-    public void when_testRequestCreateService_createTestRequestFrom_throws_appException_expect_response_status_exception_to_be_thrown(){
+    public void when_testRequestCreateService_createTestRequestFrom_throws_appException_expect_app_exception_to_be_thrown(){
 
         //Arrange
         User user= createUser();
@@ -62,7 +61,7 @@ class TestRequestControllerTest {
         Mockito.when(testRequestService.createTestRequestFrom(user,createTestRequest)).thenThrow(new AppException("Invalid data"));
 
         //Act
-        ResponseStatusException result = assertThrows(ResponseStatusException.class,()->{
+        AppException result = assertThrows(AppException.class,()->{
 
             testRequestController.createRequest(createTestRequest);
         });
@@ -70,8 +69,8 @@ class TestRequestControllerTest {
 
         //Assert
         assertNotNull(result);
-        assertEquals(HttpStatus.BAD_REQUEST, result.getStatus());
-        assertEquals("Invalid data",result.getReason());
+        assertEquals(HttpStatus.BAD_REQUEST, result.getErrorCode().getStatus());
+        assertEquals("Invalid data",result.getMessage());
 
     }
 
@@ -6,7 +6,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.assignment.TesterAssignmentService;
 import org.upgrad.upstac.users.User;
 import org.upgrad.upstac.users.models.Gender;
 
@@ -25,6 +27,11 @@ class TestRequestCreateServiceTest {
     @Mock
     TestRequestRepository testRequestRepository;
 
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    TesterAssignmentService testerAssignmentService;
 
     @InjectMocks
     TestRequestService testRequestService;
@@ -0,0 +1,87 @@
+package org.upgrad.upstac.testrequests.archive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.upgrad.upstac.config.loaddata.AppInitializationService;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+class TestRequestArchiveTest {
+
+    @Autowired
+    TestRequestArchiveService testRequestArchiveService;
+
+    @Autowired
+    ArchiveTables archiveTables;
+
+    @Autowired
+    TestRequestService testRequestService;
+
+    @Autowired
+    AppInitializationService appInitializationService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+
+    @Test
+    public void when_a_completed_request_is_old_expect_it_moved_to_the_archive() {
+
+        TestRequest old = createRequest();
+        TestRequest recent = createRequest();
+        jdbcTemplate.update("update test_request set status = ?, created = ? where request_id in (?, ?)",
+                RequestStatus.COMPLETED.ordinal(), Date.valueOf(LocalDate.now().minusDays(60)), old.getRequestId(), recent.getRequestId());
+        jdbcTemplate.update("update test_request set created = ? where request_id = ?",
+                Date.valueOf(LocalDate.now()), recent.getRequestId());
+
+        testRequestArchiveService.archiveCompletedRequests();
+
+        assertThat(count("test_request", old.getRequestId()), equalTo(0));
+        assertThat(count("archived_test_request", old.getRequestId()), equalTo(1));
+        assertThat(count("test_request", recent.getRequestId()), equalTo(1));
+        assertThat(count("archived_test_request", recent.getRequestId()), equalTo(0));
+    }
+
+    @Test
+    public void when_the_archive_tables_exist_expect_creating_them_again_to_succeed() {
+
+        // Columns and indexes are already there, nothing is added and nothing fails
+        archiveTables.createTables();
+
+        assertThat(count("archived_test_request", -1L), equalTo(0));
+    }
+
+    private int count(String table, Long requestId) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where request_id = ?", Integer.class, requestId);
+    }
+
+    private TestRequest createRequest() {
+        int pinCode = 900000 + ThreadLocalRandom.current().nextInt(99_999);
+        User user = appInitializationService.createUserFrom("archive" + ThreadLocalRandom.current().nextInt(1_000_000_000), pinCode);
+
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setName(user.getFirstName());
+        createTestRequest.setGender(Gender.OTHER);
+        createTestRequest.setAddress("Archive street");
+        createTestRequest.setAge(30);
+        createTestRequest.setEmail(user.getEmail());
+        createTestRequest.setPhoneNumber(user.getPhoneNumber());
+        createTestRequest.setPinCode(pinCode);
+        return testRequestService.createTestRequestFrom(user, createTestRequest);
+    }
+
+}
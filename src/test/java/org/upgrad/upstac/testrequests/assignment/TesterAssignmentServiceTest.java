@@ -0,0 +1,196 @@
+package org.upgrad.upstac.testrequests.assignment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.*;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserRepository;
+import org.upgrad.upstac.users.models.AccountStatus;
+import org.upgrad.upstac.users.roles.Role;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class TesterAssignmentServiceTest {
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Mock
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Mock
+    LabResultRepository labResultRepository;
+
+    @Mock
+    UserRepository userRepository;
+
+    @InjectMocks
+    TesterAssignmentService testerAssignmentService;
+
+    User nearby = tester(1L, 716768);
+    User sameDistrict = tester(2L, 716770);
+    User farAway = tester(3L, 110001);
+
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(testerAssignmentService, "enabled", true);
+        ReflectionTestUtils.setField(testerAssignmentService, "matchDigits", 3);
+        ReflectionTestUtils.setField(testerAssignmentService, "loadWeight", 1.0);
+        ReflectionTestUtils.setField(testerAssignmentService, "distanceWeight", 0.5);
+        ReflectionTestUtils.setField(testerAssignmentService, "maxPerTester", 25);
+    }
+
+    @Test
+    public void when_nearest_tester_is_busy_expect_less_loaded_tester_in_same_district() {
+
+        loadTesters(Collections.singletonList(new TesterLoadCount(1L, 3L)));
+        TestRequest testRequest = request(10L, 716768);
+        TestRequest assigned = request(10L, 716768);
+        Mockito.when(testRequestUpdateService.assignForLabTest(10L, sameDistrict)).thenReturn(assigned);
+
+        TestRequest result = testerAssignmentService.assignOnCreation(testRequest);
+
+        assertThat(result, sameInstance(assigned));
+    }
+
+    @Test
+    public void when_testers_are_equally_loaded_expect_the_closest_one() {
+
+        loadTesters(Collections.emptyList());
+        TestRequest testRequest = request(11L, 716768);
+        Mockito.when(testRequestUpdateService.assignForLabTest(11L, nearby)).thenReturn(testRequest);
+
+        testerAssignmentService.assignOnCreation(testRequest);
+
+        Mockito.verify(testRequestUpdateService).assignForLabTest(11L, nearby);
+    }
+
+    @Test
+    public void when_no_tester_serves_the_pin_code_expect_request_left_unassigned() {
+
+        loadTesters(Collections.emptyList());
+        TestRequest testRequest = request(12L, 560001);
+
+        TestRequest result = testerAssignmentService.assignOnCreation(testRequest);
+
+        assertThat(result, sameInstance(testRequest));
+        Mockito.verify(testRequestUpdateService, Mockito.never()).assignForLabTest(any(), any());
+    }
+
+    @Test
+    public void when_disabled_expect_request_left_unassigned() {
+
+        ReflectionTestUtils.setField(testerAssignmentService, "enabled", false);
+        TestRequest testRequest = request(13L, 716768);
+
+        TestRequest result = testerAssignmentService.assignOnCreation(testRequest);
+
+        assertThat(result, sameInstance(testRequest));
+        Mockito.verifyNoInteractions(testRequestUpdateService);
+    }
+
+    @Test
+    public void when_lab_tests_start_and_finish_expect_loads_to_follow() {
+
+        loadTesters(Collections.emptyList());
+        TestRequest first = assignedTo(nearby, 14L);
+        TestRequest second = assignedTo(nearby, 15L);
+
+        testerAssignmentService.onStatusChanged(new TestRequestStatusChangedEvent(this, first, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS));
+        testerAssignmentService.onStatusChanged(new TestRequestStatusChangedEvent(this, second, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS));
+        testerAssignmentService.onStatusChanged(new TestRequestStatusChangedEvent(this, first, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED));
+
+        assertThat(testerAssignmentService.getLoads(), hasEntry("tester1", 1));
+        assertThat(testerAssignmentService.getLoads(), hasEntry("tester2", 0));
+    }
+
+    @Test
+    public void when_a_lab_test_is_reassigned_expect_loads_to_follow() {
+
+        loadTesters(Collections.singletonList(new TesterLoadCount(2L, 2L)));
+
+        testerAssignmentService.onTesterReassigned(new TesterReassignedEvent(this, assignedTo(sameDistrict, 16L), sameDistrict, nearby));
+
+        assertThat(testerAssignmentService.getLoads(), hasEntry("tester1", 1));
+        assertThat(testerAssignmentService.getLoads(), hasEntry("tester2", 1));
+    }
+
+    @Test
+    public void when_a_lab_test_finished_before_it_could_be_moved_expect_it_left_where_it_is() {
+
+        loadTesters(Collections.singletonList(new TesterLoadCount(2L, 5L)));
+        TestRequest inProgress = assignedTo(sameDistrict, 17L);
+        Mockito.when(testRequestRepository.findByStatus(RequestStatus.INITIATED)).thenReturn(Collections.emptyList());
+        Mockito.when(testRequestRepository.findByStatus(RequestStatus.LAB_TEST_IN_PROGRESS)).thenReturn(Collections.singletonList(inProgress));
+        Mockito.doThrow(ErrorCode.INVALID_ID_OR_STATE.exception()).when(testRequestUpdateService).reassignTester(inProgress, sameDistrict, nearby);
+
+        AssignmentRebalanceResult result = testerAssignmentService.rebalance();
+
+        assertThat(result.getMoved(), equalTo(0));
+        assertThat(testerAssignmentService.getLoads(), hasEntry("tester1", 0));
+        assertThat(testerAssignmentService.getLoads(), hasEntry("tester2", 5));
+    }
+
+    @Test
+    public void when_distance_is_measured_expect_differing_trailing_digits() {
+
+        assertThat(testerAssignmentService.distance(716768, 716768), equalTo(0));
+        assertThat(testerAssignmentService.distance(716768, 716770), equalTo(2));
+        assertThat(testerAssignmentService.distance(716768, 716999), equalTo(3));
+        assertThat(testerAssignmentService.distance(716768, 710000), equalTo(-1));
+        assertThat(testerAssignmentService.distance(null, 716768), equalTo(-1));
+    }
+
+    private void loadTesters(List<TesterLoadCount> counts) {
+        Mockito.when(userRepository.findByStatus(AccountStatus.APPROVED)).thenReturn(Arrays.asList(farAway, sameDistrict, nearby));
+        Mockito.when(labResultRepository.countByTesterWithRequestStatus(RequestStatus.LAB_TEST_IN_PROGRESS)).thenReturn(counts);
+        testerAssignmentService.onApplicationReady();
+    }
+
+    private static TestRequest assignedTo(User tester, Long requestId) {
+        TestRequest testRequest = request(requestId, tester.getPinCode());
+        LabResult labResult = new LabResult();
+        labResult.setTester(tester);
+        testRequest.setLabResult(labResult);
+        return testRequest;
+    }
+
+    private static TestRequest request(Long requestId, int pinCode) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(requestId);
+        testRequest.setPinCode(pinCode);
+        testRequest.setStatus(RequestStatus.INITIATED);
+        return testRequest;
+    }
+
+    private static User tester(Long id, int pinCode) {
+        Role role = new Role();
+        role.setName("TESTER");
+
+        User user = new User();
+        user.setId(id);
+        user.setUserName("tester" + id);
+        user.setPinCode(pinCode);
+        user.setStatus(AccountStatus.APPROVED);
+        user.setRoles(Collections.singleton(role));
+        return user;
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.upgrad.upstac.exception.AppException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AttachmentStoreTest {
+
+    // SHA-256 of "abc"
+    private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    public void when_the_same_content_is_uploaded_twice_expect_one_file() throws IOException {
+
+        AttachmentStore store = new AttachmentStore(directory.toString(), 1024);
+
+        StoredContent first = store.store(streamOf("abc"), content -> content);
+        StoredContent second = store.store(streamOf("abc"), content -> content);
+
+        assertThat(first.getSha256(), equalTo(ABC));
+        assertThat(first.getSize(), equalTo(3L));
+        assertThat(second.getFile(), equalTo(first.getFile()));
+        assertThat(new String(Files.readAllBytes(first.getFile()), StandardCharsets.UTF_8), equalTo("abc"));
+        assertThat(filesIn(directory), equalTo(1L));
+    }
+
+    @Test
+    public void when_the_upload_is_too_large_expect_exception_and_nothing_kept() throws IOException {
+
+        AttachmentStore store = new AttachmentStore(directory.toString(), 2);
+
+        assertThrows(AppException.class, () -> store.store(streamOf("abc"), content -> content));
+        assertThat(filesIn(directory), equalTo(0L));
+    }
+
+    @Test
+    public void when_released_expect_content_deleted_only_once_unused() throws IOException {
+
+        AttachmentStore store = new AttachmentStore(directory.toString(), 1024);
+        StoredContent stored = store.store(streamOf("abc"), content -> content);
+
+        store.release(stored.getSha256(), () -> true);
+        assertThat(Files.exists(stored.getFile()), equalTo(true));
+
+        store.release(stored.getSha256(), () -> false);
+        assertThat(Files.exists(stored.getFile()), equalTo(false));
+    }
+
+    private static ByteArrayInputStream streamOf(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long filesIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.counting());
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.upgrad.upstac.testrequests.attachments;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.upgrad.upstac.config.security.UserLoggedInService;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestQueryService;
+import org.upgrad.upstac.users.User;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@ExtendWith(MockitoExtension.class)
+class LabAttachmentControllerTest {
+
+    private static final String SHA256 = "ab".concat(new String(new char[62]).replace('\0', '0'));
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    LabAttachmentService labAttachmentService;
+
+    @Mock
+    TestRequestQueryService testRequestQueryService;
+
+    @Mock
+    UserLoggedInService userLoggedInService;
+
+    @InjectMocks
+    LabAttachmentController labAttachmentController;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path content = Files.write(directory.resolve(SHA256), "0123456789".getBytes(StandardCharsets.US_ASCII));
+
+        LabAttachment attachment = new LabAttachment();
+        attachment.setId(3L);
+        attachment.setRequestId(7L);
+        attachment.setFileName("scan.txt");
+        attachment.setContentType("text/plain");
+        attachment.setSize(10);
+        attachment.setSha256(SHA256);
+
+        User user = new User();
+        TestRequest testRequest = new TestRequest();
+        Mockito.when(userLoggedInService.getLoggedInUser()).thenReturn(user);
+        Mockito.when(testRequestQueryService.findTestRequestForUserByID(user, 7L)).thenReturn(Optional.of(testRequest));
+        Mockito.when(labAttachmentService.find(testRequest, 3L)).thenReturn(Optional.of(attachment));
+        Mockito.when(labAttachmentService.contentOf(attachment)).thenReturn(content);
+    }
+
+    @Test
+    public void when_a_single_range_is_requested_expect_partial_content() throws Exception {
+
+        MockHttpServletResponse response = download("bytes=2-5", null);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.PARTIAL_CONTENT.value()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE), equalTo("bytes 2-5/10"));
+        assertThat(response.getContentAsString(), equalTo("2345"));
+    }
+
+    @Test
+    public void when_if_range_names_other_content_expect_the_whole_file() throws Exception {
+
+        MockHttpServletResponse response = download("bytes=2-5", "\"other\"");
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE), nullValue());
+        assertThat(response.getContentAsString(), equalTo("0123456789"));
+    }
+
+    @Test
+    public void when_if_range_matches_expect_partial_content() throws Exception {
+
+        MockHttpServletResponse response = download("bytes=-3", "\"" + SHA256 + "\"");
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.PARTIAL_CONTENT.value()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE), equalTo("bytes 7-9/10"));
+        assertThat(response.getContentAsString(), equalTo("789"));
+    }
+
+    @Test
+    public void when_the_range_starts_past_the_end_expect_range_not_satisfiable() throws Exception {
+
+        MockHttpServletResponse response = download("bytes=20-30", null);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE), equalTo("bytes */10"));
+        assertThat(response.getContentAsByteArray().length, equalTo(0));
+    }
+
+    private MockHttpServletResponse download(String range, String ifRange) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/labrequests/7/attachments/3");
+        request.addHeader(HttpHeaders.RANGE, range);
+        if (ifRange != null)
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        labAttachmentController.download(7L, 3L, request, response);
+        return response;
+    }
+
+}
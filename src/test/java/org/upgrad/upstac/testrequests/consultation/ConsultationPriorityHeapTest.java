@@ -0,0 +1,116 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ConsultationPriorityHeapTest {
+
+    @Test
+    public void when_taking_top_k_expect_highest_priorities_first() {
+
+        ConsultationPriorityHeap heap = new ConsultationPriorityHeap();
+        heap.put(1L, 10);
+        heap.put(2L, 50);
+        heap.put(3L, 30);
+        heap.put(4L, 40);
+
+        assertThat(heap.top(3), contains(2L, 4L, 3L));
+        assertThat(heap.size(), equalTo(4));
+    }
+
+    @Test
+    public void when_updating_and_removing_entries_expect_order_to_follow() {
+
+        ConsultationPriorityHeap heap = new ConsultationPriorityHeap();
+        heap.put(1L, 10);
+        heap.put(2L, 50);
+        heap.put(3L, 30);
+
+        heap.put(1L, 60);
+        heap.remove(2L);
+
+        assertThat(heap.top(10), contains(1L, 3L));
+        assertThat(heap.contains(2L), equalTo(false));
+    }
+
+    @Test
+    public void when_many_random_changes_are_made_expect_same_order_as_sorting() {
+
+        ConsultationPriorityHeap heap = new ConsultationPriorityHeap();
+        Random random = new Random(42);
+        double[] priorities = new double[500];
+        boolean[] present = new boolean[500];
+
+        for (int i = 0; i < 5000; i++) {
+            int requestId = random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                heap.remove(requestId);
+                present[requestId] = false;
+            } else {
+                priorities[requestId] = random.nextInt(1000);
+                present[requestId] = true;
+                heap.put(requestId, priorities[requestId]);
+            }
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (int requestId = 0; requestId < 500; requestId++)
+            if (present[requestId])
+                expected.add((long) requestId);
+        expected.sort((a, b) -> priorities[a.intValue()] != priorities[b.intValue()]
+                ? Double.compare(priorities[b.intValue()], priorities[a.intValue()])
+                : Long.compare(a, b));
+
+        assertThat(heap.top(50), equalTo(expected.subList(0, 50)));
+        assertThat(heap.size(), equalTo(expected.size()));
+    }
+
+    @Test
+    public void when_scoring_expect_positive_low_oxygen_and_long_waits_first() {
+
+        ConsultationQueueService consultationQueueService = new ConsultationQueueService();
+        ReflectionTestUtils.setField(consultationQueueService, "positiveWeight", 100.0);
+        ReflectionTestUtils.setField(consultationQueueService, "oxygenThreshold", 95.0);
+        ReflectionTestUtils.setField(consultationQueueService, "oxygenWeight", 5.0);
+        ReflectionTestUtils.setField(consultationQueueService, "ageThreshold", 50);
+        ReflectionTestUtils.setField(consultationQueueService, "ageWeight", 0.5);
+        ReflectionTestUtils.setField(consultationQueueService, "waitWeight", 1.0);
+
+        Instant now = Instant.now();
+        double negative = consultationQueueService.priorityOf(waiting(TestStatus.NEGATIVE, 98, 30, now));
+        double positive = consultationQueueService.priorityOf(waiting(TestStatus.POSITIVE, 98, 30, now));
+        double lowOxygen = consultationQueueService.priorityOf(waiting(TestStatus.POSITIVE, 88, 30, now));
+        double older = consultationQueueService.priorityOf(waiting(TestStatus.NEGATIVE, 98, 70, now));
+        double waitedLonger = consultationQueueService.priorityOf(waiting(TestStatus.NEGATIVE, 98, 30, now.minus(3, ChronoUnit.HOURS)));
+
+        assertThat(positive, greaterThan(negative));
+        assertThat(lowOxygen - positive, closeTo(35.0, 0.001));
+        assertThat(older - negative, closeTo(10.0, 0.001));
+        assertThat(waitedLonger - negative, closeTo(3.0, 0.001));
+    }
+
+    private static TestRequest waiting(TestStatus result, int oxygenSaturation, int age, Instant since) {
+        LabResult labResult = new LabResult();
+        labResult.setResult(result);
+        labResult.setOxygenSaturation((byte) oxygenSaturation);
+
+        TestRequest testRequest = new TestRequest();
+        testRequest.setAge(age);
+        testRequest.setStatusChangedAt(since);
+        testRequest.setLabResult(labResult);
+        return testRequest;
+    }
+
+}
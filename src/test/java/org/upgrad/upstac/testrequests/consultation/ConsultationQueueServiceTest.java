@@ -0,0 +1,79 @@
+package org.upgrad.upstac.testrequests.consultation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.users.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class ConsultationQueueServiceTest {
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Mock
+    ShardRouter shardRouter;
+
+    @InjectMocks
+    ConsultationQueueService consultationQueueService;
+
+
+    @Test
+    public void when_requests_change_during_a_rebuild_expect_the_rebuilt_queue_to_keep_the_changes() {
+
+        TestRequest taken = request(1L, RequestStatus.LAB_TEST_COMPLETED);
+        TestRequest waiting = request(2L, RequestStatus.LAB_TEST_COMPLETED);
+        TestRequest completedMeanwhile = request(3L, RequestStatus.LAB_TEST_COMPLETED);
+
+        // The rows are read before a doctor took the first request and the third one completed
+        Mockito.when(testRequestRepository.findByStatus(RequestStatus.LAB_TEST_COMPLETED)).thenAnswer(invocation -> {
+            consultationQueueService.onStatusChanged(new TestRequestStatusChangedEvent(this, taken, RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS));
+            consultationQueueService.onStatusChanged(new TestRequestStatusChangedEvent(this, completedMeanwhile, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED));
+            return Arrays.asList(taken, waiting);
+        });
+
+        consultationQueueService.rebuild();
+
+        assertThat(queuedIds(), containsInAnyOrder(2L, 3L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Long> queuedIds() {
+        ReflectionTestUtils.setField(consultationQueueService, "defaultLimit", 50);
+        Mockito.when(shardRouter.onShard(any(), any(Supplier.class))).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        ArgumentCaptor<Collection<Long>> requestIds = ArgumentCaptor.forClass(Collection.class);
+        Mockito.when(testRequestRepository.findWithResultsByRequestIdIn(requestIds.capture())).thenReturn(new ArrayList<>());
+
+        consultationQueueService.findInRegionOf(new User(), null);
+
+        return requestIds.getValue();
+    }
+
+    private static TestRequest request(Long requestId, RequestStatus status) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(requestId);
+        testRequest.setPinCode(716768);
+        testRequest.setStatus(status);
+        return testRequest;
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.upgrad.upstac.testrequests.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class QueueChannelTest {
+
+    ExecutorService writers = Executors.newFixedThreadPool(2);
+
+
+    @AfterEach
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    @Test
+    public void when_a_client_stalls_expect_the_others_served_and_the_stalled_one_closed() throws Exception {
+
+        QueueChannel channel = new QueueChannel(RequestQueue.TO_BE_TESTED, 100, 100, 2, writers);
+        RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter fast = new RecordingEmitter(null);
+
+        channel.subscribe(stalled, null);
+        channel.subscribe(fast, null);
+        awaitUntil(() -> fast.events().size() == 1);
+        for (long requestId = 1; requestId <= 5; requestId++) {
+            channel.publish(requestId, QueueChangeType.ENTERED);
+            int expected = (int) requestId + 1;
+            awaitUntil(() -> fast.events().size() == expected);
+        }
+
+        // The stalled client is still blocked on its first write, its buffer of two overflowed
+        awaitUntil(() -> channel.subscriberCount() == 1);
+        assertThat(stalled.completed.getCount(), equalTo(1L));
+
+        stalled.release.countDown();
+        assertThat(stalled.completed.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(fast.events().get(5), containsString("event:change"));
+    }
+
+    @Test
+    public void when_a_client_reconnects_expect_the_missed_events_or_a_reset() throws Exception {
+
+        QueueChannel channel = new QueueChannel(RequestQueue.IN_QUEUE, 100, 100, 2, writers);
+        for (long requestId = 1; requestId <= 4; requestId++)
+            channel.publish(requestId, QueueChangeType.ENTERED);
+
+        RecordingEmitter caughtUp = new RecordingEmitter(null);
+        channel.subscribe(caughtUp, 2L);
+        awaitUntil(() -> caughtUp.events().size() == 2);
+        assertThat(caughtUp.events().get(0), containsString("id:3"));
+        assertThat(caughtUp.events().get(1), containsString("id:4"));
+
+        // Three missed events do not fit a buffer of two
+        RecordingEmitter behind = new RecordingEmitter(null);
+        channel.subscribe(behind, 1L);
+        awaitUntil(() -> behind.events().size() == 1);
+        assertThat(behind.events().get(0), containsString("event:" + QueueChannel.RESET_EVENT));
+        assertThat(channel.subscriberCount(), equalTo(2));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (condition.getAsBoolean() == false) {
+            assertThat("Timed out", System.nanoTime() < deadline, equalTo(true));
+            Thread.sleep(10);
+        }
+    }
+
+    static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            events.add(builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        List<String> events() {
+            return events;
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.upgrad.upstac.testrequests.events;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueueEventsEndpointTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    QueueEventBroadcaster queueEventBroadcaster;
+
+
+    @Test
+    @WithUserDetails(value = "tester")
+    public void when_a_tester_subscribes_expect_a_stream_opened_with_the_resume_id() throws Exception {
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/labrequests/to-be-tested/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (response.getContentAsString().contains("event:" + QueueChannel.SUBSCRIBED_EVENT) == false && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        assertThat(response.getContentAsString(), containsString("event:" + QueueChannel.SUBSCRIBED_EVENT));
+        assertThat(response.getContentAsString(), containsString("data:" + RequestQueue.TO_BE_TESTED.name()));
+        assertThat(queueEventBroadcaster.subscriberCount(RequestQueue.TO_BE_TESTED), greaterThan(0));
+    }
+
+    @Test
+    @WithUserDetails(value = "doctor")
+    public void when_a_doctor_subscribes_to_the_lab_queue_expect_forbidden() throws Exception {
+
+        mockMvc.perform(get("/api/labrequests/to-be-tested/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+    }
+
+}
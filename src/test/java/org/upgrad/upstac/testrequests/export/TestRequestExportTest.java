@@ -0,0 +1,112 @@
+package org.upgrad.upstac.testrequests.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.upgrad.upstac.config.loaddata.AppInitializationService;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TestRequestExportTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TestRequestExportService testRequestExportService;
+
+    @Autowired
+    TestRequestService testRequestService;
+
+    @Autowired
+    AppInitializationService appInitializationService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    int pinCode = 900000 + ThreadLocalRandom.current().nextInt(99_999);
+
+
+    @Test
+    public void when_requests_were_archived_expect_them_exported_before_the_hot_ones() throws Exception {
+
+        TestRequest hot = createRequest();
+        long archivedId = hot.getRequestId() + 1_000_000;
+        jdbcTemplate.update("insert into archived_test_request (request_id, created, status, name, pin_code) values (?, ?, ?, ?, ?)",
+                archivedId, Date.valueOf(LocalDate.now().minusDays(60)), RequestStatus.COMPLETED.ordinal(), "Archived, Person", pinCode);
+
+        String withArchive = export(true);
+        String hotOnly = export(false);
+
+        assertThat(withArchive.split("\n").length, equalTo(3));
+        assertThat(withArchive, containsString("\n" + archivedId + ","));
+        assertThat(withArchive, containsString("\"Archived, Person\""));
+        assertThat(withArchive.indexOf(archivedId + ","), lessThan(withArchive.indexOf(hot.getRequestId() + ",")));
+        assertThat(hotOnly.split("\n").length, equalTo(2));
+        assertThat(hotOnly, not(containsString(archivedId + ",")));
+    }
+
+    @Test
+    @WithUserDetails(value = "authority")
+    public void export_endpoint_should_stream_an_attachment_asynchronously() throws Exception {
+
+        TestRequest hot = createRequest();
+
+        MvcResult started = mockMvc.perform(get("/api/exports/testrequests").param("pinCode", String.valueOf(pinCode)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", startsWith("attachment; filename=\"testrequests-")))
+                .andExpect(content().string(containsString("\n" + hot.getRequestId() + ",")));
+    }
+
+    private String export(boolean includeArchived) throws Exception {
+        ExportFilter filter = new ExportFilter();
+        filter.setPinCode(pinCode);
+        filter.setIncludeArchived(includeArchived);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        testRequestExportService.export(filter, ExportFormat.CSV, false, outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private TestRequest createRequest() {
+        User user = appInitializationService.createUserFrom("export" + ThreadLocalRandom.current().nextInt(1_000_000_000), pinCode);
+
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setName(user.getFirstName());
+        createTestRequest.setGender(Gender.OTHER);
+        createTestRequest.setAddress("Export street");
+        createTestRequest.setAge(30);
+        createTestRequest.setEmail(user.getEmail());
+        createTestRequest.setPhoneNumber(user.getPhoneNumber());
+        createTestRequest.setPinCode(pinCode);
+        return testRequestService.createTestRequestFrom(user, createTestRequest);
+    }
+
+}
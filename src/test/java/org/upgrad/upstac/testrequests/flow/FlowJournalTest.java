@@ -0,0 +1,92 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowJournalTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void when_records_appended_expect_same_records_read_back_after_reopen() throws IOException {
+
+        Path path = folder.resolve("flow.journal");
+        List<FlowRecord> records = Arrays.asList(
+                new FlowRecord(1, 10L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, 3L, Instant.parse("2020-08-01T10:15:30Z")),
+                new FlowRecord(2, 11L, null, RequestStatus.DIAGNOSIS_IN_PROCESS, RequestStatus.COMPLETED, null, Instant.parse("2020-08-02T10:15:30Z")));
+
+        try (FlowJournal journal = new FlowJournal(path)) {
+            journal.append(records);
+        }
+
+        try (FlowJournal journal = new FlowJournal(path)) {
+            List<FlowRecord> result = journal.readAll();
+            assertEquals(records, result);
+            assertNull(result.get(1).getChangedById());
+            assertNull(result.get(1).getPinCode());
+        }
+    }
+
+    @Test
+    public void when_last_record_is_torn_expect_only_complete_records_read() throws IOException {
+
+        Path path = folder.resolve("flow.journal");
+        try (FlowJournal journal = new FlowJournal(path)) {
+            journal.append(Arrays.asList(new FlowRecord(1, 10L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, 3L, Instant.parse("2020-08-01T10:15:30Z"))));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[FlowJournal.RECORD_SIZE - 5]));
+        }
+
+        try (FlowJournal journal = new FlowJournal(path)) {
+            assertEquals(1, journal.readAll().size());
+        }
+    }
+
+    @Test
+    public void when_record_is_corrupted_expect_it_and_later_records_ignored() throws IOException {
+
+        Path path = folder.resolve("flow.journal");
+        try (FlowJournal journal = new FlowJournal(path)) {
+            journal.append(Arrays.asList(
+                    new FlowRecord(1, 10L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, 3L, Instant.parse("2020-08-01T10:15:30Z")),
+                    new FlowRecord(2, 11L, null, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, 3L, Instant.parse("2020-08-01T10:15:30Z"))));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), FlowJournal.HEADER_SIZE + FlowJournal.RECORD_SIZE + 9);
+        }
+
+        try (FlowJournal journal = new FlowJournal(path)) {
+            assertEquals(1, journal.readAll().size());
+        }
+    }
+
+    @Test
+    public void when_journal_is_in_another_format_expect_it_moved_aside_and_a_new_one_started() throws IOException {
+
+        Path path = folder.resolve("flow.journal");
+        // A headerless journal from before the format was versioned
+        Files.write(path, new byte[FlowJournal.RECORD_SIZE * 2]);
+
+        try (FlowJournal journal = new FlowJournal(path)) {
+            assertTrue(journal.readAll().isEmpty());
+            assertEquals(FlowJournal.HEADER_SIZE, journal.size());
+        }
+        assertEquals(FlowJournal.RECORD_SIZE * 2, Files.size(folder.resolve("flow.journal.unrecognized")));
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.exception.ErrorCode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+class TestRequestFlowWriterTest {
+
+    @TempDir
+    Path folder;
+
+
+    @Test
+    public void when_the_database_falls_behind_expect_append_to_fail_after_the_timeout() throws Exception {
+
+        ShardRouter shardRouter = Mockito.mock(ShardRouter.class);
+        CountDownLatch databaseDown = new CountDownLatch(1);
+        CountDownLatch inserting = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            inserting.countDown();
+            databaseDown.await();
+            return null;
+        }).when(shardRouter).onShard(any(), any(Runnable.class));
+
+        TestRequestFlowWriter writer = new TestRequestFlowWriter(Mockito.mock(JdbcTemplate.class), shardRouter,
+                folder.resolve("flow.journal").toString(), 500, 1, 67108864, 200);
+        writer.start();
+        try {
+            // Journaled, and holds the only slot until the database takes it
+            writer.append(1L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, null, Instant.now());
+            assertThat(inserting.await(5, TimeUnit.SECONDS), equalTo(true));
+
+            AppException exception = assertThrows(AppException.class,
+                    () -> writer.append(2L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, null, Instant.now()));
+            assertThat(exception.getErrorCode(), equalTo(ErrorCode.AUDIT_UNAVAILABLE));
+        } finally {
+            databaseDown.countDown();
+            writer.stop();
+        }
+
+        // The failed transition left nothing in the journal
+        try (FlowJournal journal = new FlowJournal(folder.resolve("flow.journal"))) {
+            assertThat(journal.readAll().size(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void when_a_batch_violates_a_constraint_expect_it_dropped_instead_of_retried() throws Exception {
+
+        ShardRouter shardRouter = Mockito.mock(ShardRouter.class);
+        Mockito.doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(shardRouter).onShard(any(), any(Runnable.class));
+
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.update(anyString(), any(Object[].class), any(int[].class)))
+                .thenThrow(new DataIntegrityViolationException("request is gone"))
+                .thenReturn(1);
+
+        TestRequestFlowWriter writer = new TestRequestFlowWriter(jdbcTemplate, shardRouter,
+                folder.resolve("flow.journal").toString(), 500, 1, 67108864, 2000);
+        writer.start();
+        try {
+            writer.append(1L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, null, Instant.now());
+            // Only gets the single slot once the first entry was given up on
+            writer.append(2L, 560001, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, null, Instant.now());
+
+            Mockito.verify(jdbcTemplate, Mockito.timeout(5000).times(2)).update(anyString(), any(Object[].class), any(int[].class));
+        } finally {
+            writer.stop();
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TestRequestTimelineServiceTest {
+
+    TestRequestFlowRepository testRequestFlowRepository = Mockito.mock(TestRequestFlowRepository.class);
+
+    TestRequestTimelineService testRequestTimelineService = new TestRequestTimelineService(100);
+
+
+    @Test
+    public void when_the_request_moves_while_its_timeline_loads_expect_the_timeline_not_cached() {
+
+        ReflectionTestUtils.setField(testRequestTimelineService, "testRequestFlowRepository", testRequestFlowRepository);
+        ReflectionTestUtils.setField(testRequestTimelineService, "archivedTestRequestRepository", Mockito.mock(ArchivedTestRequestRepository.class));
+
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(42L);
+        testRequest.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+        List<TimelineEntry> timeline = Collections.singletonList(new TimelineEntry(RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, "tester", LocalDate.now(), Instant.now()));
+
+        Mockito.when(testRequestFlowRepository.findTimelineByRequestId(42L)).thenAnswer(invocation -> {
+            testRequestTimelineService.onStatusChanged(new TestRequestStatusChangedEvent(this, testRequest, RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED));
+            return timeline;
+        });
+        testRequestTimelineService.getTimeline(testRequest);
+
+        Mockito.when(testRequestFlowRepository.findTimelineByRequestId(42L)).thenReturn(timeline);
+        assertThat(testRequestTimelineService.getTimeline(testRequest), equalTo(timeline));
+        assertThat(testRequestTimelineService.getTimeline(testRequest), equalTo(timeline));
+
+        // Loaded by the first two calls, the third was served from the cache
+        verify(testRequestFlowRepository, times(2)).findTimelineByRequestId(42L);
+    }
+
+    @Test
+    public void when_the_cached_timeline_is_behind_the_request_expect_it_reloaded() {
+
+        ReflectionTestUtils.setField(testRequestTimelineService, "testRequestFlowRepository", testRequestFlowRepository);
+
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(43L);
+        testRequest.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+        TimelineEntry assigned = new TimelineEntry(RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, "tester", LocalDate.now(), Instant.now());
+        Mockito.when(testRequestFlowRepository.findTimelineByRequestId(43L)).thenReturn(Collections.singletonList(assigned));
+        testRequestTimelineService.getTimeline(testRequest);
+
+        testRequest.setStatus(RequestStatus.LAB_TEST_COMPLETED);
+        testRequestTimelineService.getTimeline(testRequest);
+
+        verify(testRequestFlowRepository, times(2)).findTimelineByRequestId(43L);
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.upgrad.upstac.testrequests.flow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.upgrad.upstac.config.loaddata.AppInitializationService;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestService;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TimelineEndpointTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TestRequestService testRequestService;
+
+    @Autowired
+    TestRequestUpdateService testRequestUpdateService;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    AppInitializationService appInitializationService;
+
+
+    @Test
+    @WithUserDetails(value = "authority")
+    public void when_a_request_was_assigned_expect_its_timeline_to_show_the_tester() throws Exception {
+
+        TestRequest testRequest = createRequest();
+        testRequestUpdateService.assignForLabTest(testRequest.getRequestId(), userService.findByUserName("tester"));
+
+        // Flow rows are written behind, the timeline catches up within a flush
+        String timeline = "";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (timeline.contains("LAB_TEST_IN_PROGRESS") == false && System.nanoTime() < deadline) {
+            timeline = mockMvc.perform(get("/api/testrequests/" + testRequest.getRequestId() + "/timeline"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            Thread.sleep(20);
+        }
+
+        assertThat(timeline, containsString("\"fromStatus\":\"INITIATED\""));
+        assertThat(timeline, containsString("\"toStatus\":\"LAB_TEST_IN_PROGRESS\""));
+        assertThat(timeline, containsString("\"changedBy\":\"tester\""));
+    }
+
+    @Test
+    @WithUserDetails(value = "authority")
+    public void when_the_request_does_not_exist_expect_bad_request() throws Exception {
+
+        mockMvc.perform(get("/api/testrequests/" + Long.MAX_VALUE + "/timeline"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private TestRequest createRequest() {
+        int pinCode = 900000 + ThreadLocalRandom.current().nextInt(99_999);
+        User user = appInitializationService.createUserFrom("timeline" + ThreadLocalRandom.current().nextInt(1_000_000_000), pinCode);
+
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setName(user.getFirstName());
+        createTestRequest.setGender(Gender.OTHER);
+        createTestRequest.setAddress("Timeline street");
+        createTestRequest.setAge(30);
+        createTestRequest.setEmail(user.getEmail());
+        createTestRequest.setPhoneNumber(user.getPhoneNumber());
+        createTestRequest.setPinCode(pinCode);
+        return testRequestService.createTestRequestFrom(user, createTestRequest);
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.upgrad.upstac.config.shard.ShardRouter;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+import org.upgrad.upstac.users.User;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class LabResultIngestServiceTest {
+
+    private static final String HEADER = "requestId,systolicPressure,diastolicPressure,heartRate,temperature,oxygenSaturation,comments,result\n";
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Spy
+    LabResultService labResultService = new LabResultService();
+
+    @Mock
+    TestRequestFlowService testRequestFlowService;
+
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @Mock
+    ShardRouter shardRouter;
+
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    Validator validator;
+
+    @InjectMocks
+    LabResultIngestService labResultIngestService;
+
+    private final Map<Long, TestRequest> requests = new HashMap<>();
+
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ReflectionTestUtils.setField(labResultIngestService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(labResultIngestService, "chunkSize", 3);
+        ReflectionTestUtils.setField(labResultIngestService, "maxErrors", 10);
+
+        for (long requestId = 1; requestId <= 4; requestId++)
+            requests.put(requestId, inProgress(requestId));
+
+        Mockito.when(testRequestRepository.findWithResultsByRequestIdIn(any())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                .map(requests::get)
+                .collect(Collectors.toList()));
+        Mockito.when(shardRouter.shardOf(any())).thenReturn("shard0");
+        Mockito.when(shardRouter.onShard(any(), any(Supplier.class))).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        Mockito.when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    public void when_rows_repeat_go_stale_or_are_rejected_expect_only_the_committed_ones_updated_and_logged() throws Exception {
+
+        // Chunks of three: 1, 1 again, 2 | 3, 4
+        String csv = HEADER +
+                "1,120,80,72,98.6,97,,NEGATIVE\n" +
+                "1,121,80,72,98.6,97,,POSITIVE\n" +
+                "2,120,80,72,98.6,97,,NEGATIVE\n" +
+                "3,120,80,72,98.6,97,,NEGATIVE\n" +
+                "4,120,80,72,98.6,97,,NEGATIVE\n";
+
+        // Request 2 was completed by someone else after it was read, before it was locked
+        Mockito.when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any()))
+                .thenReturn(Collections.singletonList(1L))
+                .thenReturn(Arrays.asList(3L, 4L));
+        // The driver gives no counts, and the database rejects the second chunk
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class)))
+                .thenReturn(new int[]{Statement.SUCCESS_NO_INFO})
+                .thenReturn(new int[]{Statement.SUCCESS_NO_INFO})
+                .thenThrow(new DataIntegrityViolationException("lab_result check constraint"));
+
+        User tester = new User();
+        tester.setUserName("tester");
+        LabResultIngestReport report = labResultIngestService.ingest(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), IngestFormat.CSV, tester);
+
+        assertThat(report.getRows(), equalTo(5L));
+        assertThat(report.getUpdated(), equalTo(1L));
+        assertThat(report.getFailed(), equalTo(4L));
+        assertThat(report.getErrors().stream().map(IngestRowError::getMessage).collect(Collectors.toList()), contains(
+                containsString("more than once"),
+                containsString("no longer " + RequestStatus.LAB_TEST_IN_PROGRESS),
+                containsString("rejected"),
+                containsString("rejected")));
+
+        // Journaled once, after the commit, for the completed request only
+        ArgumentCaptor<List<TestRequest>> logged = listCaptor();
+        Mockito.verify(testRequestFlowService).logAll(logged.capture(), eq(RequestStatus.LAB_TEST_IN_PROGRESS), eq(RequestStatus.LAB_TEST_COMPLETED), eq(tester));
+        assertThat(logged.getValue(), contains(requests.get(1L)));
+        Mockito.verify(applicationEventPublisher).publishEvent(any(TestRequestStatusChangedEvent.class));
+
+        assertThat(requests.get(1L).getStatus(), equalTo(RequestStatus.LAB_TEST_COMPLETED));
+        assertThat(requests.get(3L).getStatus(), equalTo(RequestStatus.LAB_TEST_IN_PROGRESS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<TestRequest>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static TestRequest inProgress(Long requestId) {
+        LabResult labResult = new LabResult();
+        labResult.setResultId(requestId);
+
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(requestId);
+        testRequest.setPinCode(716768);
+        testRequest.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+        testRequest.setLabResult(labResult);
+        return testRequest;
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.upgrad.upstac.testrequests.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.exception.AppException;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LabResultRowReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+
+    @Test
+    public void when_csv_has_quoted_values_expect_them_read_whole() throws IOException {
+
+        CsvLabResultRowReader reader = csv("requestId,systolicPressure,diastolicPressure,heartRate,temperature,oxygenSaturation,comments,result\n" +
+                "12,120,80,72,98.6,97,\"Mild, \"\"dry\"\" cough\",POSITIVE\r\n" +
+                "\n" +
+                "13,118,76,70,98.4,,,NEGATIVE\n");
+
+        IngestRow first = reader.next();
+        assertThat(first.getError(), nullValue());
+        assertThat(first.getRequestId(), equalTo(12L));
+        assertThat(first.getCreateLabResult().getComments(), equalTo("Mild, \"dry\" cough"));
+        assertThat(first.getCreateLabResult().getTemperature(), equalTo(new BigDecimal("98.6")));
+        assertThat(first.getCreateLabResult().getResult(), equalTo(TestStatus.POSITIVE));
+
+        IngestRow second = reader.next();
+        assertThat(second.getRow(), equalTo(2L));
+        assertThat(second.getCreateLabResult().getOxygenSaturation(), nullValue());
+        assertThat(reader.next(), nullValue());
+    }
+
+    @Test
+    public void when_csv_row_is_unreadable_expect_row_error() throws IOException {
+
+        CsvLabResultRowReader reader = csv("requestId,systolicPressure,result\n" +
+                "abc,120,POSITIVE\n" +
+                "14,high,POSITIVE\n" +
+                "15,120\n");
+
+        assertThat(reader.next().getError(), equalTo("requestId is not a number"));
+        assertThat(reader.next().getError(), equalTo("systolicPressure could not be read"));
+        assertThat(reader.next().getError(), startsWith("Expected 3 columns"));
+    }
+
+    @Test
+    public void when_csv_has_no_request_id_column_expect_exception() {
+
+        assertThrows(AppException.class, () -> csv("systolicPressure,result\n120,POSITIVE\n"));
+    }
+
+    @Test
+    public void when_json_breaks_off_expect_error_and_end() throws IOException {
+
+        JsonLabResultRowReader reader = new JsonLabResultRowReader(new StringReader(
+                "[{\"requestId\": 21, \"systolicPressure\": 125, \"result\": \"NEGATIVE\"}, 7, {\"requestId\": 22,"), objectMapper);
+
+        IngestRow first = reader.next();
+        assertThat(first.getRequestId(), equalTo(21L));
+        assertThat(first.getCreateLabResult().getSystolicPressure(), equalTo((short) 125));
+        assertThat(reader.next().getError(), equalTo("Expected an object"));
+        assertThat(reader.next().getError(), containsString("the rest of the file was not read"));
+        assertThat(reader.next(), nullValue());
+    }
+
+    private CsvLabResultRowReader csv(String content) throws IOException {
+        return new CsvLabResultRowReader(new BufferedReader(new StringReader(content)), objectMapper);
+    }
+
+}
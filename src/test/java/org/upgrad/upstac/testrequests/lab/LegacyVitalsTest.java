@@ -0,0 +1,42 @@
+package org.upgrad.upstac.testrequests.lab;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LegacyVitalsTest {
+
+    @Test
+    public void when_blood_pressure_written_with_units_expect_both_pressures() {
+
+        assertArrayEquals(new Short[]{120, 80}, LegacyVitals.bloodPressure("120/80"));
+        assertArrayEquals(new Short[]{135, 85}, LegacyVitals.bloodPressure("135 / 85 mmHg"));
+        assertNull(LegacyVitals.bloodPressure("90"));
+        assertNull(LegacyVitals.bloodPressure("80/120"));
+    }
+
+    @Test
+    public void when_temperature_in_celsius_expect_fahrenheit_with_one_decimal() {
+
+        assertEquals(new BigDecimal("98.6"), LegacyVitals.temperature("98.6"));
+        assertEquals(new BigDecimal("99.0"), LegacyVitals.temperature("37.2 C"));
+        assertEquals(new BigDecimal("100.4"), LegacyVitals.temperature("38"));
+        assertNull(LegacyVitals.temperature("80C"));
+        assertNull(LegacyVitals.temperature("normal"));
+    }
+
+    @Test
+    public void when_numbers_out_of_range_expect_null() {
+
+        assertEquals(Short.valueOf((short) 72), LegacyVitals.heartRate("72 bpm"));
+        assertEquals(Byte.valueOf((byte) 97), LegacyVitals.oxygenSaturation("97%"));
+        assertNull(LegacyVitals.heartRate("5"));
+        assertNull(LegacyVitals.oxygenSaturation("970"));
+        assertNull(LegacyVitals.oxygenSaturation(null));
+    }
+
+}
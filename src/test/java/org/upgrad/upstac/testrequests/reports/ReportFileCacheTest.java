@@ -0,0 +1,74 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ReportFileCacheTest {
+
+    private static final String ETAG = "ab".concat(new String(new char[62]).replace('\0', '0'));
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    public void when_over_the_cap_expect_least_recently_used_deleted() throws IOException {
+
+        ReportFileCache cache = new ReportFileCache(directory, "v1", 250, 0);
+        CachedReport first = cache.put(1L, new byte[100], ETAG);
+        cache.put(2L, new byte[100], ETAG);
+        cache.get(1L);
+        cache.put(3L, new byte[100], ETAG);
+
+        assertThat(cache.get(2L), nullValue());
+        assertThat(cache.get(1L), notNullValue());
+        assertThat(Files.exists(first.getFile()), equalTo(true));
+        assertThat(cache.bytes(), equalTo(200L));
+        assertThat(Files.list(directory).count(), equalTo(2L));
+    }
+
+    @Test
+    public void when_evicted_while_downloads_may_be_sending_it_expect_the_file_kept_until_the_delay_passed() throws IOException {
+
+        ReportFileCache cache = new ReportFileCache(directory, "v1", 150, 60000);
+        CachedReport evicted = cache.put(1L, new byte[100], ETAG);
+        cache.put(2L, new byte[100], ETAG);
+
+        assertThat(cache.get(1L), nullValue());
+        assertThat(Files.exists(evicted.getFile()), equalTo(true));
+        assertThat(cache.bytes(), equalTo(100L));
+    }
+
+    @Test
+    public void when_reopened_expect_reports_of_the_same_template_kept() throws IOException {
+
+        new ReportFileCache(directory, "v1", 1000, 0).put(1L, new byte[10], ETAG);
+
+        assertThat(new ReportFileCache(directory, "v1", 1000, 0).get(1L).getEtag(), equalTo(ETAG));
+        assertThat(new ReportFileCache(directory, "v2", 1000, 0).get(1L), nullValue());
+        assertThat(Files.list(directory).count(), equalTo(0L));
+    }
+
+    @Test
+    public void when_rendered_twice_expect_identical_pdf() {
+
+        byte[] first = PdfTextDocument.render(Arrays.asList("# Heading", "Name: (someone) \\ 98.6 °F"));
+        byte[] second = PdfTextDocument.render(Arrays.asList("# Heading", "Name: (someone) \\ 98.6 °F"));
+
+        String text = new String(first, StandardCharsets.ISO_8859_1);
+        assertThat(first, equalTo(second));
+        assertThat(text, startsWith("%PDF-1.4"));
+        assertThat(text, containsString("(Name: \\(someone\\) \\\\ 98.6 °F) Tj"));
+        assertThat(text, endsWith("%%EOF\n"));
+    }
+
+}
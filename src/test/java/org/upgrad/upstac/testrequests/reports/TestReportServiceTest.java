@@ -0,0 +1,110 @@
+package org.upgrad.upstac.testrequests.reports;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.archive.ArchivedTestRequestRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class TestReportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @Mock
+    ArchivedTestRequestRepository archivedTestRequestRepository;
+
+    @Spy
+    TestReportTemplate testReportTemplate = new TestReportTemplate("reports/test-report.txt");
+
+    @InjectMocks
+    TestReportService testReportService;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(testReportService, "cacheDirectory", directory.toString());
+        ReflectionTestUtils.setField(testReportService, "cacheMaxBytes", 1048576L);
+        ReflectionTestUtils.setField(testReportService, "cacheDeleteDelay", 60000L);
+        ReflectionTestUtils.setField(testReportService, "linkSecret", "report links");
+        ReflectionTestUtils.setField(testReportService, "tokenSecret", "tokens");
+        ReflectionTestUtils.setField(testReportService, "linkValidDays", 7L);
+        testReportService.openCache();
+    }
+
+    @Test
+    public void when_a_link_expired_or_its_expiry_was_changed_expect_no_report() {
+
+        String fileName = fileNameOf(testReportService.getLink(completed(5L)));
+        String[] parts = fileName.split("-");
+
+        String extended = parts[0] + "-" + (Long.parseLong(parts[1]) + 86400) + "-" + parts[2];
+        assertThat(testReportService.getReport(extended).isPresent(), equalTo(false));
+
+        ReflectionTestUtils.setField(testReportService, "linkValidDays", -1L);
+        String expired = fileNameOf(testReportService.getLink(completed(5L)));
+        assertThat(testReportService.getReport(expired).isPresent(), equalTo(false));
+
+        Mockito.verifyNoInteractions(testRequestRepository);
+    }
+
+    @Test
+    public void when_the_cached_file_is_gone_expect_the_report_rendered_again() throws Exception {
+
+        TestRequest testRequest = completed(5L);
+        Mockito.when(testRequestRepository.findWithResultsByRequestIdIn(any())).thenReturn(Collections.singletonList(testRequest));
+        String fileName = fileNameOf(testReportService.getLink(testRequest));
+
+        CachedReport first = testReportService.getReport(fileName).get();
+        Files.delete(first.getFile());
+
+        Optional<CachedReport> second = testReportService.getReport(fileName);
+        assertThat(second.isPresent(), equalTo(true));
+        assertThat(Files.exists(second.get().getFile()), equalTo(true));
+        assertThat(second.get().getEtag(), equalTo(first.getEtag()));
+    }
+
+    @Test
+    public void when_the_link_secret_is_the_token_secret_expect_startup_to_fail() {
+
+        ReflectionTestUtils.setField(testReportService, "linkSecret", "tokens");
+
+        assertThrows(IllegalStateException.class, () -> testReportService.openCache());
+    }
+
+    private static String fileNameOf(ReportLink link) {
+        return link.getUrl().substring(link.getUrl().lastIndexOf('/') + 1);
+    }
+
+    private static TestRequest completed(Long requestId) {
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(requestId);
+        testRequest.setName("someone");
+        testRequest.setStatus(RequestStatus.COMPLETED);
+        return testRequest;
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.upgrad.upstac.testrequests.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestRequestSearchIndexTest {
+
+    TestRequestSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new TestRequestSearchIndex();
+        index.put(document(1L, "Ravi Kumar", "ravi@upgrad.com", "9629151234", RequestStatus.INITIATED, 560003));
+        index.put(document(2L, "Ravindra Singh", "singh@upgrad.com", "9629155678", RequestStatus.COMPLETED, 110001));
+        index.put(document(3L, "Anita Kumari", "anita@upgrad.com", "9629159999", RequestStatus.INITIATED, 110001));
+    }
+
+    @Test
+    public void when_searching_partial_name_expect_all_matches_newest_first() {
+
+        long[] result = index.search("ravi", null, null);
+
+        assertArrayEquals(new long[]{2L, 1L}, result);
+    }
+
+    @Test
+    public void when_searching_phone_suffix_expect_single_match() {
+
+        long[] result = index.search("5678", null, null);
+
+        assertArrayEquals(new long[]{2L}, result);
+    }
+
+    @Test
+    public void when_searching_with_filters_expect_only_matching_status_and_pinCode() {
+
+        assertArrayEquals(new long[]{3L, 1L}, index.search("kum", RequestStatus.INITIATED, null));
+        assertArrayEquals(new long[]{3L}, index.search("kum", null, 110001));
+        assertArrayEquals(new long[]{3L, 2L}, index.search(null, null, 110001));
+    }
+
+    @Test
+    public void when_short_term_used_expect_word_prefix_match() {
+
+        assertArrayEquals(new long[]{3L}, index.search("an", null, null));
+    }
+
+    @Test
+    public void when_document_updated_expect_old_values_removed() {
+
+        index.put(document(1L, "Ravi Kumar", "ravi@upgrad.com", "9629151234", RequestStatus.LAB_TEST_IN_PROGRESS, 560003));
+
+        assertEquals(0, index.search("ravi", RequestStatus.INITIATED, null).length);
+        assertArrayEquals(new long[]{1L}, index.search("ravi", RequestStatus.LAB_TEST_IN_PROGRESS, null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void when_name_changed_expect_only_new_name_found() {
+
+        index.put(new TestRequestSearchDocument(1L, "Ravi Verma", "ravi@upgrad.com", "9629151234", "12 - Main Street", RequestStatus.INITIATED, 560003));
+
+        assertArrayEquals(new long[]{3L}, index.search("kumar", null, null));
+        assertArrayEquals(new long[]{1L}, index.search("verma", RequestStatus.INITIATED, 560003));
+    }
+
+    @Test
+    public void when_many_old_requests_change_status_expect_lists_to_stay_sorted() {
+
+        for (long id = 10; id < 1010; id++)
+            index.put(document(id, "Patient " + id, "p" + id + "@upgrad.com", "96291" + id, RequestStatus.INITIATED, 400001));
+        for (long id = 1009; id >= 10; id -= 2)
+            index.put(document(id, "Patient " + id, "p" + id + "@upgrad.com", "96291" + id, RequestStatus.COMPLETED, 400001));
+
+        long[] completed = index.search(null, RequestStatus.COMPLETED, 400001);
+        assertEquals(500, completed.length);
+        assertEquals(1009L, completed[0]);
+        assertEquals(11L, completed[499]);
+        assertEquals(500, index.search(null, RequestStatus.INITIATED, 400001).length);
+        assertArrayEquals(new long[]{1009L}, index.search("patient 1009", RequestStatus.COMPLETED, null));
+    }
+
+    @Test
+    public void when_trigrams_match_across_words_expect_no_false_positive() {
+
+        index.put(document(4L, "Tara Kumar", "tara@upgrad.com", "9629150000", RequestStatus.INITIATED, 400001));
+
+        // every trigram of "umara" is in "tara" or "kumar", but no single word contains it
+        assertEquals(0, index.search("umara", null, null).length);
+    }
+
+    private TestRequestSearchDocument document(Long id, String name, String email, String phone, RequestStatus status, Integer pinCode) {
+        return new TestRequestSearchDocument(id, name, email, phone, "12 - Main Street", status, pinCode);
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.upgrad.upstac.testrequests.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestStatusChangedEvent;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class TestRequestSearchServiceTest {
+
+    @Mock
+    TestRequestRepository testRequestRepository;
+
+    @InjectMocks
+    TestRequestSearchService testRequestSearchService;
+
+
+    @Test
+    public void when_a_request_changes_while_its_row_is_loaded_expect_the_live_change_to_win() {
+
+        TestRequest testRequest = new TestRequest();
+        testRequest.setRequestId(7L);
+        testRequest.setName("Ravi Kumar");
+        testRequest.setStatus(RequestStatus.LAB_TEST_IN_PROGRESS);
+
+        // The rebuild reads the row as it was, the transition lands before the batch is indexed
+        Mockito.when(testRequestRepository.findSearchDocumentsAfter(eq(0L), any())).thenAnswer(invocation -> {
+            testRequestSearchService.onStatusChanged(new TestRequestStatusChangedEvent(this, testRequest, RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS));
+            return Collections.singletonList(new TestRequestSearchDocument(7L, "Ravi Kumar", null, null, null, RequestStatus.INITIATED, null));
+        });
+
+        testRequestSearchService.rebuild();
+
+        assertThat(testRequestSearchService.search(null, RequestStatus.INITIATED, null, 0, 10).getTotal(), equalTo(0L));
+        assertThat(testRequestSearchService.search(null, RequestStatus.LAB_TEST_IN_PROGRESS, null, 0, 10).getTotal(), equalTo(1L));
+    }
+
+}
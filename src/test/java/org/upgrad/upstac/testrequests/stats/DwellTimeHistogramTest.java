@@ -0,0 +1,71 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DwellTimeHistogramTest {
+
+    @Test
+    public void when_empty_expect_zero_percentiles() {
+
+        DwellTimeHistogram histogram = new DwellTimeHistogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void when_uniform_values_recorded_expect_percentiles_within_precision() {
+
+        DwellTimeHistogram histogram = new DwellTimeHistogram();
+        for (long minute = 1; minute <= 1000; minute++)
+            histogram.record(minute * 60_000);
+
+        assertEquals(1000, histogram.count());
+        assertWithinPrecision(500 * 60_000L, histogram.percentile(50));
+        assertWithinPrecision(900 * 60_000L, histogram.percentile(90));
+        assertWithinPrecision(990 * 60_000L, histogram.percentile(99));
+    }
+
+    @Test
+    public void when_small_values_recorded_expect_exact_percentiles() {
+
+        DwellTimeHistogram histogram = new DwellTimeHistogram();
+        for (long value = 0; value < 100; value++)
+            histogram.record(value);
+
+        assertEquals(49, histogram.percentile(50));
+        assertEquals(98, histogram.percentile(99));
+    }
+
+    @Test
+    public void bucket_bounds_should_contain_every_value() {
+
+        for (long value : new long[]{0, 127, 128, 129, 255, 256, 1_000_000, 86_400_000L, Long.MAX_VALUE / 4}) {
+            int bucket = DwellTimeHistogram.bucketOf(value);
+            assertTrue(DwellTimeHistogram.lowestValueIn(bucket) <= value || bucket == DwellTimeHistogram.bucketOf(Long.MAX_VALUE));
+            assertTrue(DwellTimeHistogram.highestValueIn(bucket) >= value || bucket == DwellTimeHistogram.bucketOf(Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void when_values_span_a_narrow_range_expect_only_their_buckets_allocated() {
+
+        DwellTimeHistogram histogram = new DwellTimeHistogram();
+        assertEquals(0, histogram.allocatedRows());
+
+        for (long value = 10_000; value < 16_000; value += 100)
+            histogram.record(value);
+
+        // 8192 to 16383 ms falls in one power of two
+        assertEquals(1, histogram.allocatedRows());
+        assertWithinPrecision(13_000, histogram.percentile(50));
+    }
+
+    private void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 50, "expected about " + expected + " but was " + actual);
+    }
+
+}
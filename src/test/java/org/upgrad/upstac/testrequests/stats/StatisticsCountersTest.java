@@ -0,0 +1,92 @@
+package org.upgrad.upstac.testrequests.stats;
+
+import org.junit.jupiter.api.Test;
+import org.upgrad.upstac.testrequests.RequestStatus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatisticsCountersTest {
+
+    LocalDate today = LocalDate.of(2020, 8, 20);
+    LocalDate yesterday = today.minusDays(1);
+
+
+    @Test
+    public void when_counts_are_filtered_expect_each_view_to_agree() {
+
+        StatisticsCounters counters = new StatisticsCounters(LocalDate.MIN);
+        counters.add(RequestStatus.INITIATED, 560001, today, 2);
+        counters.add(RequestStatus.INITIATED, 560001, yesterday, 1);
+        counters.add(RequestStatus.INITIATED, 110001, today, 4);
+
+        assertEquals(7L, counters.totalOf(RequestStatus.INITIATED));
+        assertEquals(3L, counters.countsOf(RequestStatus.class, 560001, null).get(RequestStatus.INITIATED));
+        assertEquals(6L, counters.countsOf(RequestStatus.class, null, today).get(RequestStatus.INITIATED));
+        assertEquals(2L, counters.countsOf(RequestStatus.class, 560001, today).get(RequestStatus.INITIATED));
+        assertEquals(0L, counters.countsOf(RequestStatus.class, 560001, today).get(RequestStatus.COMPLETED));
+    }
+
+    @Test
+    public void when_a_change_lands_during_reconciliation_expect_it_kept_and_older_drift_corrected() {
+
+        StatisticsCounters counters = new StatisticsCounters(LocalDate.MIN);
+        counters.add(RequestStatus.INITIATED, 560001, today, 5);
+        counters.add(RequestStatus.COMPLETED, 560001, today, 1);
+
+        counters.startTracking();
+        // Read from the database before the transition below committed
+        StatisticsCounters fromDatabase = new StatisticsCounters(LocalDate.MIN);
+        fromDatabase.addAll(Arrays.asList(
+                new StatisticsCount(RequestStatus.INITIATED, 560001, today, 3L),
+                new StatisticsCount(RequestStatus.COMPLETED, 560001, yesterday, 2L)));
+        counters.add(RequestStatus.COMPLETED, 560001, today, 1);
+
+        counters.reconcileWith(fromDatabase);
+
+        // The database had no COMPLETED today, so only the change made since tracking started is kept
+        assertEquals(3L, counters.countsOf(RequestStatus.class, 560001, today).get(RequestStatus.INITIATED));
+        assertEquals(1L, counters.countsOf(RequestStatus.class, 560001, today).get(RequestStatus.COMPLETED));
+        assertEquals(2L, counters.countsOf(RequestStatus.class, 560001, yesterday).get(RequestStatus.COMPLETED));
+    }
+
+    @Test
+    public void when_reconciled_expect_expired_detail_keys_dropped() {
+
+        StatisticsCounters counters = new StatisticsCounters(LocalDate.MIN);
+        counters.add(RequestStatus.INITIATED, 560001, yesterday, 1);
+        counters.add(RequestStatus.INITIATED, 560001, yesterday, -1);
+        counters.add(RequestStatus.COMPLETED, 560001, yesterday, 1);
+
+        StatisticsCounters fromDatabase = new StatisticsCounters(today);
+        fromDatabase.add(RequestStatus.COMPLETED, 560001, yesterday, 1);
+        counters.startTracking();
+        counters.reconcileWith(fromDatabase);
+
+        // INITIATED at zero and COMPLETED by pinCode, by day and in total, the day before detailFrom has no detail key
+        assertEquals(6, counters.size());
+        assertEquals(1L, counters.countsOf(RequestStatus.class, null, yesterday).get(RequestStatus.COMPLETED));
+        assertEquals(today, counters.getDetailFrom());
+    }
+
+    @Test
+    public void when_a_busy_counter_drifted_more_than_its_changes_expect_it_corrected() {
+
+        StatisticsCounters counters = new StatisticsCounters(LocalDate.MIN);
+        counters.add(RequestStatus.INITIATED, 560001, today, 10);
+
+        counters.startTracking();
+        counters.add(RequestStatus.INITIATED, 560001, today, 1);
+        counters.add(RequestStatus.INITIATED, 560001, today, 1);
+        StatisticsCounters fromDatabase = new StatisticsCounters(LocalDate.MIN);
+        fromDatabase.add(RequestStatus.INITIATED, 560001, today, 4);
+
+        assertEquals(4, counters.reconcileWith(fromDatabase));
+        // The database read may have included both changes or neither, 6 is the nearest count it allows
+        assertEquals(6L, counters.totalOf(RequestStatus.INITIATED));
+        assertEquals(6L, counters.countsOf(RequestStatus.class, 560001, today).get(RequestStatus.INITIATED));
+    }
+
+}
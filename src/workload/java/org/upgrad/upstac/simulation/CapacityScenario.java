@@ -0,0 +1,221 @@
+package org.upgrad.upstac.simulation;
+
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.testrequests.stats.DwellTimeHistogram;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Discrete-event run of one staffing level. Requests arrive per pinCode as Poisson processes,
+ * wait in first come first served queues for a free tester and then a free doctor, and every
+ * step is a call into the production services through a {@link SimulatedPipeline}.
+ *
+ * Arrivals and service times draw from separate generators, so all scenarios of one run
+ * see exactly the same requests and differ only in how quickly they are served.
+ */
+class CapacityScenario {
+
+    private static final Instant START = Instant.parse("2020-08-01T00:00:00Z");
+
+    private enum EventType {
+        ARRIVAL, LAB_DONE, CONSULT_DONE, SAMPLE
+    }
+
+    private static class Event {
+        final double minute;
+        final long sequence;
+        final EventType type;
+        final Long requestId;
+        final User staff;
+        final Integer pinCode;
+
+        Event(double minute, long sequence, EventType type, Long requestId, User staff, Integer pinCode) {
+            this.minute = minute;
+            this.sequence = sequence;
+            this.type = type;
+            this.requestId = requestId;
+            this.staff = staff;
+            this.pinCode = pinCode;
+        }
+    }
+
+    private final SimulationConfig config;
+    private final int testers;
+    private final int doctors;
+    private final double horizon;
+
+    private final Random arrivals;
+    private final Random service;
+    private final PriorityQueue<Event> events = new PriorityQueue<>(Comparator.<Event>comparingDouble(event -> event.minute).thenComparingLong(event -> event.sequence));
+    private long sequence;
+    private double now;
+
+    private final SimulatedPipeline pipeline = new SimulatedPipeline(() -> START.plusMillis((long) (now * 60000)));
+    private final Map<Integer, User> citizens = new HashMap<>();
+    private final Deque<User> freeTesters = new ArrayDeque<>();
+    private final Deque<User> freeDoctors = new ArrayDeque<>();
+    private final Deque<Long> labQueue = new ArrayDeque<>();
+    private final Deque<Long> consultQueue = new ArrayDeque<>();
+    private final Map<Long, Double> arrivedAt = new HashMap<>();
+    private final Map<Long, Double> queuedAt = new HashMap<>();
+
+    private final List<ScenarioResult.Sample> samples = new ArrayList<>();
+    private final DwellTimeHistogram timeToResult = new DwellTimeHistogram();
+    private long created;
+    private long completed;
+    private long completedInInterval;
+    private double labWaitInInterval;
+    private long labStartsInInterval;
+    private double consultWaitInInterval;
+    private long consultStartsInInterval;
+
+
+    CapacityScenario(SimulationConfig config, int testers, int doctors) {
+        this.config = config;
+        this.testers = testers;
+        this.doctors = doctors;
+        this.horizon = config.getDays() * 24 * 60.0;
+        this.arrivals = new Random(config.getSeed());
+        this.service = new Random(config.getSeed() + 1);
+
+        long userId = 0;
+        for (Integer pinCode : config.getArrivalsPerHour().keySet())
+            citizens.put(pinCode, user(++userId, "citizen-" + pinCode, pinCode));
+        for (int i = 1; i <= testers; i++)
+            freeTesters.add(user(++userId, "tester-" + i, null));
+        for (int i = 1; i <= doctors; i++)
+            freeDoctors.add(user(++userId, "doctor-" + i, null));
+    }
+
+
+    ScenarioResult run() {
+        long startedAt = System.currentTimeMillis();
+
+        for (Integer pinCode : config.getArrivalsPerHour().keySet())
+            scheduleArrival(pinCode);
+        schedule(config.getSampleInterval(), EventType.SAMPLE, null, null, null);
+
+        while (events.isEmpty() == false && events.peek().minute <= horizon) {
+            Event event = events.poll();
+            now = event.minute;
+            switch (event.type) {
+                case ARRIVAL:
+                    arrive(event.pinCode);
+                    break;
+                case LAB_DONE:
+                    completeLabTest(event.requestId, event.staff);
+                    break;
+                case CONSULT_DONE:
+                    completeConsultation(event.requestId, event.staff);
+                    break;
+                case SAMPLE:
+                    sample();
+                    break;
+            }
+            dispatch();
+        }
+
+        double oldestOpen = arrivedAt.values().stream().mapToDouble(arrival -> horizon - arrival).max().orElse(0);
+        return new ScenarioResult(testers, doctors, samples, timeToResult, created, completed, arrivedAt.size(),
+                oldestOpen, pipeline.flowEntries(), System.currentTimeMillis() - startedAt);
+    }
+
+    private void arrive(Integer pinCode) {
+        long number = ++created;
+        CreateTestRequest createTestRequest = new CreateTestRequest();
+        createTestRequest.setName("Simulated " + number);
+        createTestRequest.setGender(number % 2 == 0 ? Gender.FEMALE : Gender.MALE);
+        createTestRequest.setAddress("Simulated address");
+        createTestRequest.setAge(20 + (int) (number % 60));
+        createTestRequest.setEmail("simulated-" + number + "@upstac.test");
+        createTestRequest.setPhoneNumber(String.valueOf(9000000000L + number));
+        createTestRequest.setPinCode(pinCode);
+
+        TestRequest testRequest = pipeline.create(citizens.get(pinCode), createTestRequest);
+        arrivedAt.put(testRequest.getRequestId(), now);
+        queuedAt.put(testRequest.getRequestId(), now);
+        labQueue.add(testRequest.getRequestId());
+
+        scheduleArrival(pinCode);
+    }
+
+    private void completeLabTest(Long requestId, User tester) {
+        TestStatus result = service.nextDouble() < config.getPositiveRate() ? TestStatus.POSITIVE : TestStatus.NEGATIVE;
+        pipeline.updateLabTest(requestId, result, tester);
+        freeTesters.add(tester);
+
+        queuedAt.put(requestId, now);
+        consultQueue.add(requestId);
+    }
+
+    private void completeConsultation(Long requestId, User doctor) {
+        pipeline.updateConsultation(requestId, DoctorSuggestion.NO_ISSUES, doctor);
+        freeDoctors.add(doctor);
+
+        double arrival = arrivedAt.remove(requestId);
+        timeToResult.record((long) ((now - arrival) * 60000));
+        completed++;
+        completedInInterval++;
+    }
+
+    private void dispatch() {
+        while (labQueue.isEmpty() == false && freeTesters.isEmpty() == false) {
+            Long requestId = labQueue.poll();
+            User tester = freeTesters.poll();
+            pipeline.assignForLabTest(requestId, tester);
+
+            labWaitInInterval += now - queuedAt.remove(requestId);
+            labStartsInInterval++;
+            schedule(now + config.getLabTime().sample(service), EventType.LAB_DONE, requestId, tester, null);
+        }
+
+        while (consultQueue.isEmpty() == false && freeDoctors.isEmpty() == false) {
+            Long requestId = consultQueue.poll();
+            User doctor = freeDoctors.poll();
+            pipeline.assignForConsultation(requestId, doctor);
+
+            consultWaitInInterval += now - queuedAt.remove(requestId);
+            consultStartsInInterval++;
+            schedule(now + config.getConsultTime().sample(service), EventType.CONSULT_DONE, requestId, doctor, null);
+        }
+    }
+
+    private void sample() {
+        samples.add(new ScenarioResult.Sample(now, labQueue.size(), testers - freeTesters.size(),
+                consultQueue.size(), doctors - freeDoctors.size(), completedInInterval,
+                labStartsInInterval == 0 ? 0 : labWaitInInterval / labStartsInInterval,
+                consultStartsInInterval == 0 ? 0 : consultWaitInInterval / consultStartsInInterval));
+
+        completedInInterval = 0;
+        labWaitInInterval = 0;
+        labStartsInInterval = 0;
+        consultWaitInInterval = 0;
+        consultStartsInInterval = 0;
+        schedule(now + config.getSampleInterval(), EventType.SAMPLE, null, null, null);
+    }
+
+    // Exponential gaps between arrivals make each pinCode a Poisson process
+    private void scheduleArrival(Integer pinCode) {
+        double meanGap = 60 / config.getArrivalsPerHour().get(pinCode);
+        schedule(now - meanGap * Math.log(1 - arrivals.nextDouble()), EventType.ARRIVAL, null, null, pinCode);
+    }
+
+    private void schedule(double minute, EventType type, Long requestId, User staff, Integer pinCode) {
+        events.add(new Event(minute, ++sequence, type, requestId, staff, pinCode));
+    }
+
+    private static User user(long id, String userName, Integer pinCode) {
+        User user = new User();
+        user.setId(id);
+        user.setUserName(userName);
+        user.setPinCode(pinCode);
+        return user;
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.upgrad.upstac.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Answers "how many testers and doctors keep the time to result under the target" by running
+ * every staffing combination from the config through the production transitions, one scenario
+ * per core at a time, and writing the queue, wait and throughput curves of each to CSV.
+ */
+public class CapacitySimulator {
+
+    public static void main(String[] args) throws IOException {
+        SimulationConfig config = SimulationConfig.parse(args);
+
+        List<int[]> staffing = new ArrayList<>();
+        for (int testers : config.getTesters())
+            for (int doctors : config.getDoctors())
+                staffing.add(new int[]{testers, doctors});
+
+        System.out.println("Simulating " + config.getDays() + " days of " + config.getArrivalsPerHour() + " requests per hour for "
+                + staffing.size() + " staffing levels on " + Runtime.getRuntime().availableProcessors() + " cores");
+
+        long startedAt = System.currentTimeMillis();
+        List<ScenarioResult> results = staffing.parallelStream()
+                .map(staff -> new CapacityScenario(config, staff[0], staff[1]).run())
+                .collect(Collectors.toList());
+        long elapsed = System.currentTimeMillis() - startedAt;
+
+        File output = new File(config.getOutput());
+        output.mkdirs();
+        for (ScenarioResult result : results)
+            writeCurves(new File(output, "testers-" + result.getTesters() + "-doctors-" + result.getDoctors() + ".csv"), result, config);
+        writeSummary(new File(output, "summary.csv"), results, config);
+
+        printSummary(results, config);
+        System.out.println("Simulated in " + elapsed + " ms, curves written to " + output.getAbsolutePath());
+    }
+
+    private static void printSummary(List<ScenarioResult> results, SimulationConfig config) {
+        double percentile = config.getTargetPercentile();
+        System.out.println();
+        System.out.println(String.format("%8s %8s %9s %9s %7s %12s %12s %10s %10s %6s", "testers", "doctors", "created", "completed",
+                "open", "p50 ttr h", "p" + trim(percentile) + " ttr h", "max lab q", "max con q", "meets"));
+        for (ScenarioResult result : results)
+            System.out.println(String.format("%8d %8d %9d %9d %7d %12.1f %12.1f %10d %10d %6s", result.getTesters(), result.getDoctors(),
+                    result.getCreated(), result.getCompleted(), result.getOpen(), result.timeToResultHours(50), result.timeToResultHours(percentile),
+                    result.maxLabQueue(), result.maxConsultQueue(), result.meetsTarget(config) ? "yes" : "no"));
+
+        Optional<ScenarioResult> cheapest = results.stream()
+                .filter(result -> result.meetsTarget(config))
+                .min(Comparator.comparingInt((ScenarioResult result) -> result.getTesters() + result.getDoctors())
+                        .thenComparingInt(ScenarioResult::getTesters));
+
+        System.out.println();
+        if (cheapest.isPresent())
+            System.out.println("Smallest staffing with p" + trim(percentile) + " time to result under " + trim(config.getTargetHours()) + " h: "
+                    + cheapest.get().getTesters() + " testers and " + cheapest.get().getDoctors() + " doctors");
+        else
+            System.out.println("No simulated staffing keeps p" + trim(percentile) + " time to result under " + trim(config.getTargetHours()) + " h");
+    }
+
+    private static void writeCurves(File file, ScenarioResult result, SimulationConfig config) throws IOException {
+        double intervalHours = config.getSampleInterval() / 60.0;
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("hour,lab_queue,lab_in_progress,consult_queue,consult_in_progress,completed,throughput_per_hour,mean_lab_wait_minutes,mean_consult_wait_minutes");
+            for (ScenarioResult.Sample sample : result.getSamples())
+                writer.println(String.format("%.2f,%d,%d,%d,%d,%d,%.2f,%.1f,%.1f", sample.getMinute() / 60, sample.getLabQueue(), sample.getLabInProgress(),
+                        sample.getConsultQueue(), sample.getConsultInProgress(), sample.getCompleted(), sample.getCompleted() / intervalHours,
+                        sample.getMeanLabWait(), sample.getMeanConsultWait()));
+        }
+    }
+
+    private static void writeSummary(File file, List<ScenarioResult> results, SimulationConfig config) throws IOException {
+        double percentile = config.getTargetPercentile();
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("testers,doctors,created,completed,open,oldest_open_hours,p50_ttr_hours,p" + trim(percentile) + "_ttr_hours,max_lab_queue,max_consult_queue,flow_entries,meets_target,elapsed_ms");
+            for (ScenarioResult result : results)
+                writer.println(String.format("%d,%d,%d,%d,%d,%.2f,%.2f,%.2f,%d,%d,%d,%s,%d", result.getTesters(), result.getDoctors(), result.getCreated(),
+                        result.getCompleted(), result.getOpen(), result.getOldestOpenMinutes() / 60, result.timeToResultHours(50),
+                        result.timeToResultHours(percentile), result.maxLabQueue(), result.maxConsultQueue(), result.getFlowEntries(),
+                        result.meetsTarget(config), result.getElapsedMillis()));
+        }
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+}
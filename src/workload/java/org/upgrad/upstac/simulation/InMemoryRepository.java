@@ -0,0 +1,205 @@
+package org.upgrad.upstac.simulation;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Single-threaded in-memory stand-in for a Spring Data repository interface.
+ *
+ * Supports save, findById, findAll, count and derived queries of the form findByAAndB or
+ * findByAOrB on direct properties. Each queried property gets a hash index on first use,
+ * kept current on every save. Entities are compared by identity, as within one persistence
+ * context, since the JPA entities here hash their whole object graph.
+ */
+public class InMemoryRepository<T> implements InvocationHandler {
+
+    private static final Pattern OR = Pattern.compile("Or(?=[A-Z])");
+    private static final Pattern AND = Pattern.compile("And(?=[A-Z])");
+
+    private final Class<T> entityType;
+    private final Field idField;
+
+    private final Map<Object, T> rows = new LinkedHashMap<>();
+    private final Map<String, Field> fields = new HashMap<>();
+    private final Map<String, Map<Object, Set<T>>> indexes = new HashMap<>();
+    private final Map<Object, Map<String, Object>> indexedValues = new HashMap<>();
+    private long nextId;
+
+
+    private InMemoryRepository(Class<T> entityType, String idProperty) {
+        this.entityType = entityType;
+        this.idField = fieldOf(idProperty);
+    }
+
+
+    public static <R, T> R create(Class<R> repositoryType, Class<T> entityType, String idProperty) {
+        InMemoryRepository<T> handler = new InMemoryRepository<>(entityType, idProperty);
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, handler));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "save":
+                return save(entityType.cast(arguments[0]));
+            case "findById":
+                return Optional.ofNullable(rows.get(arguments[0]));
+            case "findAll":
+                if (arguments == null)
+                    return new ArrayList<>(rows.values());
+                break;
+            case "count":
+                return (long) rows.size();
+            case "toString":
+                return "InMemoryRepository<" + entityType.getSimpleName() + ">";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == arguments[0];
+            default:
+                if (name.startsWith("findBy"))
+                    return toReturnType(method, findBy(name.substring("findBy".length()), arguments));
+        }
+        throw new UnsupportedOperationException(entityType.getSimpleName() + " repository does not support " + name);
+    }
+
+    private T save(T entity) throws IllegalAccessException {
+        Object id = idField.get(entity);
+        if (id == null) {
+            id = ++nextId;
+            idField.set(entity, id);
+        }
+        rows.put(id, entity);
+
+        Map<String, Object> previous = indexedValues.computeIfAbsent(id, key -> new HashMap<>());
+        for (Map.Entry<String, Map<Object, Set<T>>> index : indexes.entrySet()) {
+            String property = index.getKey();
+            Object value = keyOf(fields.get(property).get(entity));
+            if (previous.containsKey(property)) {
+                Object old = previous.get(property);
+                if (Objects.equals(old, value))
+                    continue;
+                index.getValue().getOrDefault(old, Collections.emptySet()).remove(entity);
+            }
+            index.getValue().computeIfAbsent(value, key -> newIdentitySet()).add(entity);
+            previous.put(property, value);
+        }
+        return entity;
+    }
+
+    private List<T> findBy(String criteria, Object[] arguments) throws IllegalAccessException {
+        boolean or = OR.matcher(criteria).find();
+        String[] properties = (or ? OR : AND).split(criteria);
+        if (properties.length != arguments.length)
+            throw new UnsupportedOperationException("Cannot derive a query from findBy" + criteria);
+
+        List<Set<T>> matches = new ArrayList<>();
+        for (int i = 0; i < properties.length; i++)
+            matches.add(indexOf(decapitalize(properties[i])).getOrDefault(keyOf(arguments[i]), Collections.emptySet()));
+
+        Set<T> result = newIdentitySet();
+        if (or) {
+            for (Set<T> match : matches)
+                result.addAll(match);
+        } else {
+            Set<T> smallest = Collections.min(matches, Comparator.comparingInt(Set::size));
+            for (T candidate : smallest)
+                if (matches.stream().allMatch(match -> match.contains(candidate)))
+                    result.add(candidate);
+        }
+
+        List<T> ordered = new ArrayList<>(result);
+        ordered.sort(Comparator.comparingLong(this::idOf));
+        return ordered;
+    }
+
+    private Map<Object, Set<T>> indexOf(String property) throws IllegalAccessException {
+        Map<Object, Set<T>> index = indexes.get(property);
+        if (index != null)
+            return index;
+
+        Field field = fieldOf(property);
+        fields.put(property, field);
+        index = new HashMap<>();
+        for (Map.Entry<Object, T> row : rows.entrySet()) {
+            Object value = keyOf(field.get(row.getValue()));
+            index.computeIfAbsent(value, key -> newIdentitySet()).add(row.getValue());
+            indexedValues.computeIfAbsent(row.getKey(), key -> new HashMap<>()).put(property, value);
+        }
+        indexes.put(property, index);
+        return index;
+    }
+
+    private long idOf(T entity) {
+        try {
+            return ((Number) idField.get(entity)).longValue();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object toReturnType(Method method, List<?> found) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == Optional.class)
+            return found.stream().findFirst();
+        if (Collection.class.isAssignableFrom(returnType))
+            return found;
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    // Values compare by equality, entities by identity
+    private static Object keyOf(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Enum
+                || value instanceof Boolean || value instanceof Temporal)
+            return value;
+        return new IdentityKey(value);
+    }
+
+    private Field fieldOf(String property) {
+        for (Class<?> type = entityType; type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(property);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // Keep looking in the superclass
+            }
+        }
+        throw new UnsupportedOperationException(entityType.getSimpleName() + " has no property " + property);
+    }
+
+    private static String decapitalize(String property) {
+        return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+    }
+
+    private static <T> Set<T> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+
+    private static final class IdentityKey {
+
+        private final Object value;
+
+        IdentityKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey && ((IdentityKey) other).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+
+}
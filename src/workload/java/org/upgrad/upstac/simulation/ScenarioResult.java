@@ -0,0 +1,60 @@
+package org.upgrad.upstac.simulation;
+
+import lombok.Value;
+import org.upgrad.upstac.testrequests.stats.DwellTimeHistogram;
+
+import java.util.List;
+
+/**
+ * Outcome of one staffing scenario: the sampled curves and the time to result of every
+ * request that completed within the simulated period. Times are in simulated minutes.
+ */
+@Value
+public class ScenarioResult {
+
+    @Value
+    public static class Sample {
+        double minute;
+        int labQueue;
+        int labInProgress;
+        int consultQueue;
+        int consultInProgress;
+        long completed;
+        double meanLabWait;
+        double meanConsultWait;
+    }
+
+    int testers;
+    int doctors;
+    List<Sample> samples;
+
+    // Time to result in simulated milliseconds, so the histogram keeps its precision
+    DwellTimeHistogram timeToResult;
+    long created;
+    long completed;
+    long open;
+    double oldestOpenMinutes;
+    long flowEntries;
+    long elapsedMillis;
+
+
+    public double timeToResultHours(double percentile) {
+        return timeToResult.percentile(percentile) / 3600000.0;
+    }
+
+    public int maxLabQueue() {
+        return samples.stream().mapToInt(Sample::getLabQueue).max().orElse(0);
+    }
+
+    public int maxConsultQueue() {
+        return samples.stream().mapToInt(Sample::getConsultQueue).max().orElse(0);
+    }
+
+    // A growing backlog shows up as old open requests before it shows in completed ones
+    public boolean meetsTarget(SimulationConfig config) {
+        return completed > 0
+                && timeToResultHours(config.getTargetPercentile()) <= config.getTargetHours()
+                && oldestOpenMinutes / 60 <= config.getTargetHours();
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.upgrad.upstac.simulation;
+
+import java.util.Random;
+
+/**
+ * Distribution of the time one stage takes, in minutes. Written as "fixed:30", "exp:30"
+ * or "lognormal:30:15", where the numbers are the mean and, for lognormal, the standard deviation.
+ */
+public abstract class ServiceTime {
+
+    public abstract double sample(Random random);
+
+    public static ServiceTime parse(String value) {
+        String[] parts = value.split(":");
+        double mean = Double.parseDouble(parts[1]);
+        switch (parts[0].toLowerCase()) {
+            case "fixed":
+                return fixed(mean);
+            case "exp":
+                return exponential(mean);
+            case "lognormal":
+                return lognormal(mean, Double.parseDouble(parts[2]));
+            default:
+                throw new IllegalArgumentException("Unknown service time distribution " + value);
+        }
+    }
+
+    public static ServiceTime fixed(double minutes) {
+        return describe("fixed:" + minutes, random -> minutes);
+    }
+
+    public static ServiceTime exponential(double mean) {
+        return describe("exp:" + mean, random -> -mean * Math.log(1 - random.nextDouble()));
+    }
+
+    // Parameters of the underlying normal chosen so the samples have the given mean and deviation
+    public static ServiceTime lognormal(double mean, double deviation) {
+        double sigmaSquared = Math.log(1 + (deviation * deviation) / (mean * mean));
+        double mu = Math.log(mean) - sigmaSquared / 2;
+        double sigma = Math.sqrt(sigmaSquared);
+        return describe("lognormal:" + mean + ":" + deviation, random -> Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    private static ServiceTime describe(String description, Sampler sampler) {
+        return new ServiceTime() {
+            @Override
+            public double sample(Random random) {
+                return sampler.sample(random);
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+
+    private interface Sampler {
+        double sample(Random random);
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.upgrad.upstac.simulation;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlow;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowRepository;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowService;
+import org.upgrad.upstac.users.User;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.function.Supplier;
+
+/**
+ * Writes flow entries straight to the given repository stamped with simulated time,
+ * in place of the write-behind journal and the live dwell time histograms.
+ */
+class SimulatedFlowService extends TestRequestFlowService {
+
+    private final TestRequestFlowRepository flowRepository;
+    private final Supplier<Instant> clock;
+
+
+    SimulatedFlowService(TestRequestFlowRepository flowRepository, Supplier<Instant> clock) {
+        this.flowRepository = flowRepository;
+        this.clock = clock;
+        ReflectionTestUtils.setField(this, "testRequestFlowRepository", flowRepository);
+    }
+
+
+    @Override
+    public void log(TestRequest testRequest, RequestStatus from, RequestStatus to, User changedBy) {
+        Instant happenedAt = clock.get();
+
+        TestRequestFlow testRequestFlow = new TestRequestFlow();
+        testRequestFlow.setRequest(testRequest);
+        testRequestFlow.setFromStatus(from);
+        testRequestFlow.setToStatus(to);
+        testRequestFlow.setChangedBy(changedBy);
+        testRequestFlow.setHappenedAt(happenedAt);
+        testRequestFlow.setHappenedOn(happenedAt.atZone(ZoneOffset.UTC).toLocalDate());
+        flowRepository.save(testRequestFlow);
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.upgrad.upstac.simulation;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.upgrad.upstac.testrequests.CreateTestRequest;
+import org.upgrad.upstac.testrequests.TestRequest;
+import org.upgrad.upstac.testrequests.TestRequestRepository;
+import org.upgrad.upstac.testrequests.TestRequestService;
+import org.upgrad.upstac.testrequests.TestRequestUpdateService;
+import org.upgrad.upstac.testrequests.assignment.TesterAssignmentService;
+import org.upgrad.upstac.testrequests.consultation.*;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlow;
+import org.upgrad.upstac.testrequests.flow.TestRequestFlowRepository;
+import org.upgrad.upstac.testrequests.lab.CreateLabResult;
+import org.upgrad.upstac.testrequests.lab.LabResult;
+import org.upgrad.upstac.testrequests.lab.LabResultRepository;
+import org.upgrad.upstac.testrequests.lab.LabResultService;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.User;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * The production request services wired to in-memory repositories, so every simulated
+ * request goes through the same lookups, state checks and saves as a real one.
+ * Not thread safe, each scenario builds its own pipeline.
+ */
+class SimulatedPipeline {
+
+    private final TestRequestRepository testRequestRepository = InMemoryRepository.create(TestRequestRepository.class, TestRequest.class, "requestId");
+    private final LabResultRepository labResultRepository = InMemoryRepository.create(LabResultRepository.class, LabResult.class, "resultId");
+    private final ConsultationRepository consultationRepository = InMemoryRepository.create(ConsultationRepository.class, Consultation.class, "id");
+    private final TestRequestFlowRepository testRequestFlowRepository = InMemoryRepository.create(TestRequestFlowRepository.class, TestRequestFlow.class, "id");
+
+    private final TestRequestService testRequestService = new TestRequestService();
+    private final TestRequestUpdateService testRequestUpdateService = new TestRequestUpdateService();
+
+
+    SimulatedPipeline(Supplier<Instant> clock) {
+        // Listeners are not part of the transition rules, events go nowhere
+        ApplicationEventPublisher applicationEventPublisher = event -> {
+        };
+
+        LabResultService labResultService = new LabResultService();
+        ReflectionTestUtils.setField(labResultService, "labResultRepository", labResultRepository);
+
+        ConsultationService consultationService = new ConsultationService();
+        ReflectionTestUtils.setField(consultationService, "consultationRepository", consultationRepository);
+
+        ReflectionTestUtils.setField(testRequestService, "testRequestRepository", testRequestRepository);
+        ReflectionTestUtils.setField(testRequestService, "applicationEventPublisher", applicationEventPublisher);
+        // Testers pull requests in the simulation, automatic assignment stays off
+        ReflectionTestUtils.setField(testRequestService, "testerAssignmentService", new TesterAssignmentService());
+
+        ReflectionTestUtils.setField(testRequestUpdateService, "testRequestRepository", testRequestRepository);
+        ReflectionTestUtils.setField(testRequestUpdateService, "testRequestFlowService", new SimulatedFlowService(testRequestFlowRepository, clock));
+        ReflectionTestUtils.setField(testRequestUpdateService, "labResultService", labResultService);
+        ReflectionTestUtils.setField(testRequestUpdateService, "consultationService", consultationService);
+        ReflectionTestUtils.setField(testRequestUpdateService, "applicationEventPublisher", applicationEventPublisher);
+    }
+
+
+    TestRequest create(User citizen, CreateTestRequest createTestRequest) {
+        return testRequestService.createTestRequestFrom(citizen, createTestRequest);
+    }
+
+    void assignForLabTest(Long requestId, User tester) {
+        testRequestUpdateService.assignForLabTest(requestId, tester);
+    }
+
+    void updateLabTest(Long requestId, TestStatus result, User tester) {
+        CreateLabResult createLabResult = new CreateLabResult();
+        createLabResult.setSystolicPressure((short) 120);
+        createLabResult.setDiastolicPressure((short) 80);
+        createLabResult.setHeartRate((short) 72);
+        createLabResult.setTemperature(new BigDecimal("98.6"));
+        createLabResult.setOxygenSaturation((byte) 97);
+        createLabResult.setComments("Simulated");
+        createLabResult.setResult(result);
+        testRequestUpdateService.updateLabTest(requestId, createLabResult, tester);
+    }
+
+    void assignForConsultation(Long requestId, User doctor) {
+        testRequestUpdateService.assignForConsultation(requestId, doctor);
+    }
+
+    void updateConsultation(Long requestId, DoctorSuggestion suggestion, User doctor) {
+        CreateConsultationRequest createConsultationRequest = new CreateConsultationRequest();
+        createConsultationRequest.setSuggestion(suggestion);
+        createConsultationRequest.setComments("Simulated");
+        testRequestUpdateService.updateConsultation(requestId, createConsultationRequest, doctor);
+    }
+
+    long flowEntries() {
+        return testRequestFlowRepository.count();
+    }
+
+}
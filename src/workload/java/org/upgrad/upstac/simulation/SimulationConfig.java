@@ -0,0 +1,93 @@
+package org.upgrad.upstac.simulation;
+
+import lombok.Data;
+
+import java.util.*;
+
+/**
+ * Simulator settings, given as key=value arguments, e.g.
+ * "days=3 pincodes=716768:30,716769:12 testers=5..30:5 doctors=2..10:2 lab-time=lognormal:30:15".
+ *
+ * Arrival rates are requests per hour for each pinCode, service times and the sample
+ * interval are in minutes. Staff counts are a single number or a from..to:step range,
+ * every combination of tester and doctor counts is simulated as its own scenario.
+ */
+@Data
+public class SimulationConfig {
+
+    private int days = 3;
+    private Map<Integer, Double> arrivalsPerHour = parseArrivals("716768:30,716769:20,716770:10");
+    private List<Integer> testers = parseRange("5..30:5");
+    private List<Integer> doctors = parseRange("2..12:2");
+
+    private ServiceTime labTime = ServiceTime.lognormal(30, 15);
+    private ServiceTime consultTime = ServiceTime.lognormal(15, 8);
+    private double positiveRate = 0.1;
+
+    private double targetHours = 24;
+    private double targetPercentile = 95;
+
+    private int sampleInterval = 60;
+    private long seed = 42;
+    private String output = "target/simulation";
+
+
+    public static SimulationConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args)
+            for (String pair : arg.trim().split("\\s+")) {
+                if (pair.isEmpty())
+                    continue;
+                int equals = pair.indexOf('=');
+                if (equals < 0)
+                    throw new IllegalArgumentException("Expected key=value, got " + pair);
+                values.put(pair.substring(0, equals), pair.substring(equals + 1));
+            }
+
+        SimulationConfig config = new SimulationConfig();
+        config.days = Integer.parseInt(values.getOrDefault("days", String.valueOf(config.days)));
+        if (values.containsKey("pincodes"))
+            config.arrivalsPerHour = parseArrivals(values.get("pincodes"));
+        if (values.containsKey("testers"))
+            config.testers = parseRange(values.get("testers"));
+        if (values.containsKey("doctors"))
+            config.doctors = parseRange(values.get("doctors"));
+        if (values.containsKey("lab-time"))
+            config.labTime = ServiceTime.parse(values.get("lab-time"));
+        if (values.containsKey("consult-time"))
+            config.consultTime = ServiceTime.parse(values.get("consult-time"));
+        config.positiveRate = Double.parseDouble(values.getOrDefault("positive-rate", String.valueOf(config.positiveRate)));
+        config.targetHours = Double.parseDouble(values.getOrDefault("target-hours", String.valueOf(config.targetHours)));
+        config.targetPercentile = Double.parseDouble(values.getOrDefault("target-percentile", String.valueOf(config.targetPercentile)));
+        config.sampleInterval = Integer.parseInt(values.getOrDefault("sample-interval", String.valueOf(config.sampleInterval)));
+        config.seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(config.seed)));
+        config.output = values.getOrDefault("output", config.output);
+        return config;
+    }
+
+    // "716768:30,716769:12" gives 30 requests per hour from 716768 and 12 from 716769
+    static Map<Integer, Double> parseArrivals(String value) {
+        Map<Integer, Double> arrivals = new TreeMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            arrivals.put(Integer.valueOf(parts[0]), Double.valueOf(parts[1]));
+        }
+        return arrivals;
+    }
+
+    // "5..30:5" gives 5, 10, ... 30, a plain number gives just that number
+    static List<Integer> parseRange(String value) {
+        if (value.contains("..") == false)
+            return Collections.singletonList(Integer.valueOf(value));
+
+        String[] bounds = value.split("\\.\\.|:");
+        int from = Integer.parseInt(bounds[0]);
+        int to = Integer.parseInt(bounds[1]);
+        int step = bounds.length > 2 ? Integer.parseInt(bounds[2]) : 1;
+        List<Integer> range = new ArrayList<>();
+        for (int count = from; count <= to; count += step)
+            range.add(count);
+        return range;
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.upgrad.upstac.workload;
+
+import org.upgrad.upstac.testrequests.stats.DwellTimeHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency in microseconds and outcomes of one endpoint or transition.
+ */
+class OperationStats {
+
+    private final DwellTimeHistogram latency = new DwellTimeHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+
+
+    void record(long micros, int status) {
+        latency.record(micros);
+        if (status >= 400 || status < 0) {
+            errors.increment();
+            errorsByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    long count() {
+        return latency.count();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    double percentileMillis(double percentile) {
+        return latency.percentile(percentile) / 1000.0;
+    }
+
+    // Status -1 stands for connection failures
+    Map<Integer, Long> errorsByStatus() {
+        Map<Integer, Long> result = new TreeMap<>();
+        errorsByStatus.forEach((status, count) -> result.put(status, count.sum()));
+        return result;
+    }
+
+}
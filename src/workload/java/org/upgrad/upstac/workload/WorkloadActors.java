@@ -0,0 +1,216 @@
+package org.upgrad.upstac.workload;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.upgrad.upstac.testrequests.RequestStatus;
+import org.upgrad.upstac.testrequests.consultation.DoctorSuggestion;
+import org.upgrad.upstac.testrequests.lab.TestStatus;
+import org.upgrad.upstac.users.models.Gender;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What each kind of user does, written as plain HTTP calls against the running instance.
+ */
+class WorkloadActors {
+
+    private static final AtomicLong nextCitizen = new AtomicLong();
+
+    private final String baseUrl;
+    private final WorkloadConfig config;
+    private final WorkloadMetrics metrics;
+    private volatile boolean running = true;
+
+
+    WorkloadActors(String baseUrl, WorkloadConfig config, WorkloadMetrics metrics) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+
+    void stop() {
+        running = false;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Registers, logs in, creates a request and follows its history until it completes.
+     */
+    void citizenFlow() {
+        WorkloadClient client = new WorkloadClient(baseUrl, metrics);
+        long number = nextCitizen.incrementAndGet();
+        String userName = "citizen" + number;
+
+        if (client.post("/auth/register", "/auth/register", registration(userName, number)).isOk() == false)
+            return;
+        if (login(client, userName) == false)
+            return;
+        think(config.getCitizenThinkTime());
+
+        WorkloadClient.Response created = client.post("/api/testrequests", "/api/testrequests", testRequest(userName, number));
+        recordTransition(null, RequestStatus.INITIATED, client, created);
+        if (created.isOk() == false)
+            return;
+        long requestId = created.body.path("requestId").asLong();
+
+        while (running) {
+            think(config.getHistoryPollInterval());
+            WorkloadClient.Response history = client.get("/api/testrequests", "/api/testrequests");
+            if (history.isOk() && isCompleted(history.body, requestId))
+                return;
+        }
+    }
+
+    void testerLoop(String userName) {
+        WorkloadClient client = new WorkloadClient(baseUrl, metrics);
+        if (login(client, userName) == false)
+            return;
+
+        while (running) {
+            WorkloadClient.Response queue = client.get("/api/labrequests/to-be-tested", "/api/labrequests/to-be-tested");
+            Long requestId = pickFrom(queue);
+            if (requestId != null) {
+                WorkloadClient.Response assigned = client.put("/api/labrequests/assign/{id}", "/api/labrequests/assign/" + requestId, null);
+                recordTransition(RequestStatus.INITIATED, RequestStatus.LAB_TEST_IN_PROGRESS, client, assigned);
+
+                if (assigned.isOk()) {
+                    think(config.getTesterThinkTime());
+                    WorkloadClient.Response updated = client.put("/api/labrequests/update/{id}", "/api/labrequests/update/" + requestId, labResult());
+                    recordTransition(RequestStatus.LAB_TEST_IN_PROGRESS, RequestStatus.LAB_TEST_COMPLETED, client, updated);
+                }
+            }
+            think(config.getTesterThinkTime());
+        }
+    }
+
+    void doctorLoop(String userName) {
+        WorkloadClient client = new WorkloadClient(baseUrl, metrics);
+        if (login(client, userName) == false)
+            return;
+
+        while (running) {
+            WorkloadClient.Response queue = client.get("/api/consultations/in-queue", "/api/consultations/in-queue");
+            Long requestId = pickFrom(queue);
+            if (requestId != null) {
+                WorkloadClient.Response assigned = client.put("/api/consultations/assign/{id}", "/api/consultations/assign/" + requestId, null);
+                recordTransition(RequestStatus.LAB_TEST_COMPLETED, RequestStatus.DIAGNOSIS_IN_PROCESS, client, assigned);
+
+                if (assigned.isOk()) {
+                    think(config.getDoctorThinkTime());
+                    WorkloadClient.Response updated = client.put("/api/consultations/update/{id}", "/api/consultations/update/" + requestId, consultation());
+                    recordTransition(RequestStatus.DIAGNOSIS_IN_PROCESS, RequestStatus.COMPLETED, client, updated);
+                }
+            }
+            think(config.getDoctorThinkTime());
+        }
+    }
+
+    void authorityLoop(String userName) {
+        WorkloadClient client = new WorkloadClient(baseUrl, metrics);
+        if (login(client, userName) == false)
+            return;
+
+        while (running) {
+            client.get("/users", "/users");
+            think(config.getAuthorityThinkTime());
+        }
+    }
+
+    private boolean login(WorkloadClient client, String userName) {
+        Map<String, String> login = new HashMap<>();
+        login.put("userName", userName);
+        login.put("password", WorkloadDriver.PASSWORD);
+
+        WorkloadClient.Response response = client.post("/auth/login", "/auth/login", login);
+        if (response.isOk() == false)
+            return false;
+        client.setToken(response.body.path("token").asText());
+        return true;
+    }
+
+    private void recordTransition(RequestStatus from, RequestStatus to, WorkloadClient client, WorkloadClient.Response response) {
+        metrics.recordTransition((from == null ? "NEW" : from.name()) + " -> " + to.name(), client.lastCallMicros, response.status);
+    }
+
+    // Random pick so concurrent testers and doctors do not all race for the head of the queue
+    private static Long pickFrom(WorkloadClient.Response queue) {
+        if (queue.isOk() == false || queue.body.size() == 0)
+            return null;
+        return queue.body.get(ThreadLocalRandom.current().nextInt(queue.body.size())).path("requestId").asLong();
+    }
+
+    private static boolean isCompleted(JsonNode history, long requestId) {
+        for (JsonNode testRequest : history)
+            if (testRequest.path("requestId").asLong() == requestId)
+                return RequestStatus.COMPLETED.name().equals(testRequest.path("status").asText());
+        return false;
+    }
+
+    private void think(long millis) {
+        if (millis <= 0 || running == false)
+            return;
+        try {
+            // Exponential think times, so virtual users do not fall into lockstep
+            long jittered = (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * millis);
+            Thread.sleep(Math.min(jittered, millis * 10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    static Map<String, Object> registration(String userName, long number) {
+        Map<String, Object> registration = new HashMap<>();
+        registration.put("userName", userName);
+        registration.put("password", WorkloadDriver.PASSWORD);
+        registration.put("firstName", userName);
+        registration.put("lastName", "Workload");
+        registration.put("email", userName + "@workload.upgrad.com");
+        registration.put("phoneNumber", String.valueOf(7_000_000_000L + number));
+        registration.put("address", number + " Workload Street");
+        registration.put("pinCode", 716700 + (int) (number % 50));
+        registration.put("dateOfBirth", "1990-04-12");
+        registration.put("gender", Gender.values()[(int) (number % Gender.values().length)].name());
+        return registration;
+    }
+
+    private static Map<String, Object> testRequest(String userName, long number) {
+        Map<String, Object> testRequest = new HashMap<>();
+        testRequest.put("name", userName);
+        testRequest.put("gender", Gender.values()[(int) (number % Gender.values().length)].name());
+        testRequest.put("address", number + " Workload Street");
+        testRequest.put("age", 18 + (int) (number % 60));
+        testRequest.put("email", userName + "@workload.upgrad.com");
+        testRequest.put("phoneNumber", String.valueOf(7_000_000_000L + number));
+        testRequest.put("pinCode", 716700 + (int) (number % 50));
+        return testRequest;
+    }
+
+    private static Map<String, Object> labResult() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> labResult = new HashMap<>();
+        labResult.put("systolicPressure", 110 + random.nextInt(30));
+        labResult.put("diastolicPressure", 70 + random.nextInt(20));
+        labResult.put("heartRate", 60 + random.nextInt(40));
+        labResult.put("temperature", (970 + random.nextInt(40)) / 10.0);
+        labResult.put("oxygenSaturation", 90 + random.nextInt(10));
+        labResult.put("comments", "Workload");
+        labResult.put("result", random.nextInt(10) == 0 ? TestStatus.POSITIVE.name() : TestStatus.NEGATIVE.name());
+        return labResult;
+    }
+
+    private static Map<String, Object> consultation() {
+        DoctorSuggestion[] suggestions = DoctorSuggestion.values();
+        Map<String, Object> consultation = new HashMap<>();
+        consultation.put("suggestion", suggestions[ThreadLocalRandom.current().nextInt(suggestions.length)].name());
+        consultation.put("comments", "Workload");
+        return consultation;
+    }
+
+}
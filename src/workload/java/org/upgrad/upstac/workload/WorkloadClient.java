@@ -0,0 +1,113 @@
+package org.upgrad.upstac.workload;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * JSON over HTTP for one virtual user, timing every call against its endpoint template.
+ */
+class WorkloadClient {
+
+    static class Response {
+
+        final int status;
+        final JsonNode body;
+
+        Response(int status, JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean isOk() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+    private final WorkloadMetrics metrics;
+    private String token;
+
+    // Duration of the latest call, used to attribute it to a status transition
+    long lastCallMicros;
+
+
+    WorkloadClient(String baseUrl, WorkloadMetrics metrics) {
+        this.baseUrl = baseUrl;
+        this.metrics = metrics;
+    }
+
+
+    void setToken(String token) {
+        this.token = token;
+    }
+
+    Response get(String endpoint, String path) {
+        return call(endpoint, "GET", path, null);
+    }
+
+    Response post(String endpoint, String path, Object body) {
+        return call(endpoint, "POST", path, body);
+    }
+
+    Response put(String endpoint, String path, Object body) {
+        return call(endpoint, "PUT", path, body);
+    }
+
+    private Response call(String endpoint, String method, String path, Object body) {
+        long started = System.nanoTime();
+        Response response;
+        try {
+            response = send(method, path, body);
+        } catch (IOException e) {
+            response = new Response(-1, MissingNode.getInstance());
+        }
+        long micros = (System.nanoTime() - started) / 1000;
+        metrics.recordEndpoint(method + " " + endpoint, micros, response.status);
+        lastCallMicros = micros;
+        return response;
+    }
+
+    private Response send(String method, String path, Object body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (token != null)
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream output = connection.getOutputStream()) {
+                objectMapper.writeValue(output, body);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (input == null)
+            return new Response(status, MissingNode.getInstance());
+
+        // Reading to the end lets the connection go back to the keep-alive pool
+        try (InputStream stream = input) {
+            JsonNode json;
+            try {
+                json = objectMapper.readTree(stream);
+            } catch (JsonProcessingException e) {
+                json = null;
+            }
+            return new Response(status, json == null ? MissingNode.getInstance() : json);
+        }
+    }
+
+}
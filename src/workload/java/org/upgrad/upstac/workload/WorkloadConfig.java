@@ -0,0 +1,72 @@
+package org.upgrad.upstac.workload;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Workload settings, given as key=value arguments, e.g. "model=open citizen-rate=20 duration=120".
+ * Think times and poll intervals are in milliseconds, durations in seconds.
+ */
+@Data
+public class WorkloadConfig {
+
+    public enum Model {
+        CLOSED, OPEN
+    }
+
+    private Model model = Model.CLOSED;
+    private int duration = 60;
+    private int warmup = 10;
+
+    // Closed model: citizens running the flow back to back. Open model: new citizens per second.
+    private int citizens = 20;
+    private double citizenRate = 5;
+    private int maxInFlightCitizens = 500;
+
+    private int testers = 4;
+    private int doctors = 4;
+    private int authorities = 1;
+
+    private long citizenThinkTime = 1000;
+    private long historyPollInterval = 2000;
+    private long testerThinkTime = 500;
+    private long doctorThinkTime = 500;
+    private long authorityThinkTime = 5000;
+
+    private String report = "target/workload-report.json";
+
+
+    public static WorkloadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args)
+            for (String pair : arg.trim().split("[,\\s]+")) {
+                if (pair.isEmpty())
+                    continue;
+                int equals = pair.indexOf('=');
+                if (equals < 0)
+                    throw new IllegalArgumentException("Expected key=value, got " + pair);
+                values.put(pair.substring(0, equals), pair.substring(equals + 1));
+            }
+
+        WorkloadConfig config = new WorkloadConfig();
+        config.model = Model.valueOf(values.getOrDefault("model", config.model.name()).toUpperCase());
+        config.duration = Integer.parseInt(values.getOrDefault("duration", String.valueOf(config.duration)));
+        config.warmup = Integer.parseInt(values.getOrDefault("warmup", String.valueOf(config.warmup)));
+        config.citizens = Integer.parseInt(values.getOrDefault("citizens", String.valueOf(config.citizens)));
+        config.citizenRate = Double.parseDouble(values.getOrDefault("citizen-rate", String.valueOf(config.citizenRate)));
+        config.maxInFlightCitizens = Integer.parseInt(values.getOrDefault("max-in-flight-citizens", String.valueOf(config.maxInFlightCitizens)));
+        config.testers = Integer.parseInt(values.getOrDefault("testers", String.valueOf(config.testers)));
+        config.doctors = Integer.parseInt(values.getOrDefault("doctors", String.valueOf(config.doctors)));
+        config.authorities = Integer.parseInt(values.getOrDefault("authorities", String.valueOf(config.authorities)));
+        config.citizenThinkTime = Long.parseLong(values.getOrDefault("citizen-think-time", String.valueOf(config.citizenThinkTime)));
+        config.historyPollInterval = Long.parseLong(values.getOrDefault("history-poll-interval", String.valueOf(config.historyPollInterval)));
+        config.testerThinkTime = Long.parseLong(values.getOrDefault("tester-think-time", String.valueOf(config.testerThinkTime)));
+        config.doctorThinkTime = Long.parseLong(values.getOrDefault("doctor-think-time", String.valueOf(config.doctorThinkTime)));
+        config.authorityThinkTime = Long.parseLong(values.getOrDefault("authority-think-time", String.valueOf(config.authorityThinkTime)));
+        config.report = values.getOrDefault("report", config.report);
+        return config;
+    }
+
+}
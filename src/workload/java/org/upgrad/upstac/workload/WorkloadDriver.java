@@ -0,0 +1,157 @@
+package org.upgrad.upstac.workload;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.upgrad.upstac.UpstacApplication;
+import org.upgrad.upstac.auth.register.RegisterRequest;
+import org.upgrad.upstac.config.loaddata.AppInitializationService;
+import org.upgrad.upstac.users.User;
+import org.upgrad.upstac.users.UserService;
+import org.upgrad.upstac.users.models.AccountStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts the application on an in-memory H2 database and replays the testing pipeline
+ * against it over HTTP: citizens register, log in, create requests and follow them,
+ * testers and doctors work their queues, authorities list users.
+ *
+ * mvn -Pworkload verify -Dworkload.args="model=open citizen-rate=20 duration=120"
+ */
+public class WorkloadDriver {
+
+    static final String PASSWORD = "password";
+
+    private static final int STAFF_NUMBERS = 900_000_000;
+
+
+    public static void main(String[] args) throws Exception {
+        WorkloadConfig config = WorkloadConfig.parse(args);
+
+        ConfigurableApplicationContext context = startApplication();
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            run(config, baseUrl, context.getBean(UserService.class));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() throws IOException {
+        File journal = File.createTempFile("workload-flow", ".journal");
+        journal.deleteOnExit();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:workload;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("app.audit.journal", journal.getAbsolutePath());
+        properties.put("logging.level.org.upgrad", "WARN");
+
+        // Passed as command line arguments so they win over application.properties
+        String[] arguments = properties.entrySet().stream().map(entry -> "--" + entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
+        return new SpringApplication(UpstacApplication.class).run(arguments);
+    }
+
+    private static void run(WorkloadConfig config, String baseUrl, UserService userService) throws Exception {
+        WorkloadMetrics metrics = new WorkloadMetrics();
+        WorkloadActors actors = new WorkloadActors(baseUrl, config, metrics);
+
+        ExecutorService staff = Executors.newCachedThreadPool();
+        for (int i = 1; i <= config.getTesters(); i++) {
+            String userName = registerStaff(baseUrl, metrics, userService, "/auth/tester/register", "workloadtester" + i, STAFF_NUMBERS + i);
+            staff.submit(() -> actors.testerLoop(userName));
+        }
+        for (int i = 1; i <= config.getDoctors(); i++) {
+            String userName = registerStaff(baseUrl, metrics, userService, "/auth/doctor/register", "workloaddoctor" + i, STAFF_NUMBERS + 1000 + i);
+            staff.submit(() -> actors.doctorLoop(userName));
+        }
+        for (int i = 1; i <= config.getAuthorities(); i++) {
+            String userName = registerAuthority(userService, "workloadauthority" + i);
+            staff.submit(() -> actors.authorityLoop(userName));
+        }
+
+        ExecutorService citizens;
+        Thread arrivals = null;
+        if (config.getModel() == WorkloadConfig.Model.CLOSED) {
+            citizens = Executors.newFixedThreadPool(config.getCitizens());
+            for (int i = 0; i < config.getCitizens(); i++)
+                citizens.submit(() -> {
+                    while (actors.isRunning())
+                        actors.citizenFlow();
+                });
+        } else {
+            citizens = new ThreadPoolExecutor(0, config.getMaxInFlightCitizens(), 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+            arrivals = new Thread(() -> generateArrivals(config, actors, metrics, (ThreadPoolExecutor) citizens), "workload-arrivals");
+            arrivals.start();
+        }
+
+        System.out.println("Warming up for " + config.getWarmup() + " s");
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.getWarmup()));
+        metrics.start();
+        System.out.println("Measuring for " + config.getDuration() + " s");
+        Thread.sleep(TimeUnit.SECONDS.toMillis(config.getDuration()));
+        metrics.stop();
+
+        actors.stop();
+        if (arrivals != null)
+            arrivals.join();
+        citizens.shutdown();
+        staff.shutdown();
+        if (citizens.awaitTermination(30, TimeUnit.SECONDS) == false)
+            citizens.shutdownNow();
+        if (staff.awaitTermination(30, TimeUnit.SECONDS) == false)
+            staff.shutdownNow();
+
+        WorkloadReport report = new WorkloadReport(config, metrics);
+        report.print();
+        report.write();
+    }
+
+    // Poisson arrivals, a citizen arriving while max-in-flight-citizens are busy is dropped
+    private static void generateArrivals(WorkloadConfig config, WorkloadActors actors, WorkloadMetrics metrics, ThreadPoolExecutor citizens) {
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / config.getCitizenRate();
+        long next = System.nanoTime();
+
+        while (actors.isRunning()) {
+            next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos);
+            long wait = next - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+
+            try {
+                citizens.execute(actors::citizenFlow);
+            } catch (RejectedExecutionException e) {
+                metrics.recordDroppedArrival();
+            }
+        }
+    }
+
+    private static String registerStaff(String baseUrl, WorkloadMetrics metrics, UserService userService, String path, String userName, long number) {
+        WorkloadClient client = new WorkloadClient(baseUrl, metrics);
+        WorkloadClient.Response response = client.post(path, path, WorkloadActors.registration(userName, number));
+        if (response.isOk() == false)
+            throw new IllegalStateException("Unable to register " + userName + ", status " + response.status);
+
+        // There is no approval endpoint, staff are approved the way an administrator would in the database
+        userService.updateApprovalStatus(response.body.path("id").asLong(), AccountStatus.APPROVED);
+        return userName;
+    }
+
+    private static String registerAuthority(UserService userService, String userName) {
+        RegisterRequest registerRequest = AppInitializationService.createRegisterRequestWith(userName, 716700);
+        registerRequest.setPassword(PASSWORD);
+        User authority = userService.addGovernmentAuthority(registerRequest);
+        return authority.getUserName();
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.upgrad.upstac.workload;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per endpoint and per RequestStatus transition statistics. Nothing is kept during warmup.
+ */
+class WorkloadMetrics {
+
+    private final Map<String, OperationStats> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, OperationStats> transitions = new ConcurrentHashMap<>();
+    private final LongAdder droppedArrivals = new LongAdder();
+
+    private volatile boolean recording;
+    private volatile long startedAt;
+    private volatile long stoppedAt;
+
+
+    void start() {
+        endpoints.clear();
+        transitions.clear();
+        droppedArrivals.reset();
+        startedAt = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        stoppedAt = System.nanoTime();
+    }
+
+    void recordEndpoint(String endpoint, long micros, int status) {
+        if (recording)
+            endpoints.computeIfAbsent(endpoint, key -> new OperationStats()).record(micros, status);
+    }
+
+    void recordTransition(String transition, long micros, int status) {
+        if (recording)
+            transitions.computeIfAbsent(transition, key -> new OperationStats()).record(micros, status);
+    }
+
+    // Open model arrivals turned away because max-in-flight-citizens were already running
+    void recordDroppedArrival() {
+        if (recording)
+            droppedArrivals.increment();
+    }
+
+    long droppedArrivals() {
+        return droppedArrivals.sum();
+    }
+
+    double elapsedSeconds() {
+        long end = recording ? System.nanoTime() : stoppedAt;
+        return (end - startedAt) / 1_000_000_000.0;
+    }
+
+    Map<String, OperationStats> endpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    Map<String, OperationStats> transitions() {
+        return new TreeMap<>(transitions);
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.upgrad.upstac.workload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class WorkloadReport {
+
+    private final WorkloadConfig config;
+    private final WorkloadMetrics metrics;
+
+
+    WorkloadReport(WorkloadConfig config, WorkloadMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+
+    void print() {
+        double seconds = metrics.elapsedSeconds();
+        System.out.println();
+        System.out.println(String.format("Workload %s model, %.0f s measured", config.getModel(), seconds));
+        if (config.getModel() == WorkloadConfig.Model.OPEN)
+            System.out.println("Dropped arrivals: " + metrics.droppedArrivals());
+
+        printTable("Endpoint", metrics.endpoints(), seconds);
+        printTable("Transition", metrics.transitions(), seconds);
+    }
+
+    void write() throws IOException {
+        double seconds = metrics.elapsedSeconds();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("measuredSeconds", seconds);
+        report.put("droppedArrivals", metrics.droppedArrivals());
+        report.put("endpoints", toJson(metrics.endpoints(), seconds));
+        report.put("transitions", toJson(metrics.transitions(), seconds));
+
+        File file = new File(config.getReport());
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("Report written to " + file.getAbsolutePath());
+    }
+
+    private static void printTable(String title, Map<String, OperationStats> rows, double seconds) {
+        System.out.println();
+        System.out.println(String.format("%-48s %9s %9s %8s %9s %9s %9s", title, "count", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms"));
+        rows.forEach((name, stats) -> System.out.println(String.format("%-48s %9d %9.1f %7.2f%% %9.1f %9.1f %9.1f",
+                name, stats.count(), stats.count() / seconds, errorRate(stats),
+                stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9))));
+    }
+
+    private static Map<String, Object> toJson(Map<String, OperationStats> rows, double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        rows.forEach((name, stats) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", stats.count());
+            row.put("throughput", stats.count() / seconds);
+            row.put("errors", stats.errors());
+            row.put("errorRate", errorRate(stats) / 100);
+            row.put("errorsByStatus", stats.errorsByStatus());
+            row.put("p50Millis", stats.percentileMillis(50));
+            row.put("p99Millis", stats.percentileMillis(99));
+            row.put("p999Millis", stats.percentileMillis(99.9));
+            result.put(name, row);
+        });
+        return result;
+    }
+
+    private static double errorRate(OperationStats stats) {
+        return stats.count() == 0 ? 0 : stats.errors() * 100.0 / stats.count();
+    }
+
+}